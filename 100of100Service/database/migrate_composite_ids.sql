@@ -0,0 +1,70 @@
+-- Migrates a database created with the former id scheme, where department and employee ids were
+-- organization_id * 10000 + a local id in single-column keys, to the composite keys of
+-- create_mysql.sql: (organization_id, department_id) and (organization_id, employee_id) with the
+-- local id alone. References keep pointing to the same rows, as every id of an organization
+-- maps to its own local id.
+--
+-- Stop the service and back up the database first: MySQL commits each ALTER TABLE on its own,
+-- so a failure halfway leaves the tables partly migrated. The foreign key names below are the
+-- ones MySQL generates for the former create_mysql.sql; check SHOW CREATE TABLE if the tables
+-- were created otherwise.
+
+USE organization_management;
+
+SET FOREIGN_KEY_CHECKS = 0;
+
+-- Drop the references to the single-column keys
+ALTER TABLE shifts DROP FOREIGN KEY shifts_ibfk_1;
+ALTER TABLE departments
+    DROP FOREIGN KEY fk_department_head,
+    DROP FOREIGN KEY departments_ibfk_2;
+ALTER TABLE employees
+    DROP FOREIGN KEY employees_ibfk_2,
+    DROP FOREIGN KEY employees_ibfk_3;
+
+-- Key by organization first, as local ids repeat across organizations
+ALTER TABLE departments
+    MODIFY organization_id INT NOT NULL,
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (organization_id, department_id);
+ALTER TABLE employees
+    MODIFY organization_id INT NOT NULL,
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (organization_id, employee_id);
+
+-- Then strip the organization from every id
+UPDATE departments SET
+    department_id = department_id % 10000,
+    head_employee_id = head_employee_id % 10000,
+    parent_department_id = parent_department_id % 10000;
+UPDATE employees SET
+    employee_id = employee_id % 10000,
+    department_id = department_id % 10000,
+    manager_id = manager_id % 10000;
+UPDATE shifts SET employee_id = employee_id % 10000;
+
+-- Restore the references on the composite keys
+ALTER TABLE departments
+    ADD FOREIGN KEY (organization_id, parent_department_id)
+        REFERENCES departments(organization_id, department_id),
+    ADD CONSTRAINT fk_department_head
+        FOREIGN KEY (organization_id, head_employee_id)
+        REFERENCES employees(organization_id, employee_id);
+ALTER TABLE employees
+    ADD FOREIGN KEY (organization_id, department_id)
+        REFERENCES departments(organization_id, department_id),
+    ADD FOREIGN KEY (organization_id, manager_id)
+        REFERENCES employees(organization_id, employee_id);
+ALTER TABLE shifts
+    ADD FOREIGN KEY (organization_id, employee_id)
+        REFERENCES employees(organization_id, employee_id);
+
+SET FOREIGN_KEY_CHECKS = 1;
+
+-- Sequences already count local ids; created here for databases that predate them
+CREATE TABLE IF NOT EXISTS id_sequences (
+    organization_id INT NOT NULL,
+    entity VARCHAR(32) NOT NULL,
+    next_hi INT NOT NULL,
+    PRIMARY KEY (organization_id, entity)
+);
@@ -0,0 +1,208 @@
+package dev.coms4156.project;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * The children of one type of an organization composite.
+ * Children are kept in a single array, next to an open addressing table of their positions
+ * hashed by ID, so a child is found or removed in constant time. Removal moves the last child
+ * into the freed position instead of shifting the following ones, so the insertion order
+ * is only kept until the first removal.
+ * Children sharing an ID are supported, but make lookups and removals linear.
+ * Null children are not permitted. This class is not thread-safe.
+ *
+ * @param <T> the type of the children
+ */
+final class ChildStore<T extends OrganizationComponent> extends AbstractList<T>
+    implements RandomAccess {
+  private static final int DEFAULT_CAPACITY = 8;
+
+  private Object[] elements = new Object[DEFAULT_CAPACITY];
+  private int size;
+  // Position + 1 of the child hashed into each slot, 0 for an empty slot
+  private int[] slots = new int[DEFAULT_CAPACITY * 2];
+  private int mask = slots.length - 1;
+  // Number of children whose ID was already taken when they were added
+  private int duplicates;
+
+  @Override
+  public int size() {
+    return this.size;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public T get(int index) {
+    Objects.checkIndex(index, this.size);
+    return (T) this.elements[index];
+  }
+
+  /**
+   * Returns the child with the given ID.
+   *
+   * @param id the ID of the child
+   * @return the child, or null if there is none
+   */
+  @SuppressWarnings("unchecked")
+  T getById(int id) {
+    if (this.duplicates > 0) {
+      for (int i = 0; i < this.size; i++) {
+        if (((T) this.elements[i]).getId() == id) {
+          return (T) this.elements[i];
+        }
+      }
+      return null;
+    }
+    int slot = slotOf(id);
+    return slot < 0 ? null : (T) this.elements[this.slots[slot] - 1];
+  }
+
+  @Override
+  public boolean add(T child) {
+    Objects.requireNonNull(child);
+    if (this.size == this.elements.length) {
+      this.elements = Arrays.copyOf(this.elements, this.size * 2);
+    }
+    this.elements[this.size] = child;
+    index(this.size++);
+    if (this.size * 2 > this.slots.length) {
+      rebuildSlots();
+    }
+    this.modCount++;
+    return true;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public T set(int index, T child) {
+    Objects.requireNonNull(child);
+    T previous = get(index);
+    this.elements[index] = child;
+    if (previous.getId() != child.getId() || this.duplicates > 0) {
+      rebuildSlots();
+    }
+    return previous;
+  }
+
+  @Override
+  public T remove(int index) {
+    T removed = get(index);
+    int last = this.size - 1;
+    if (this.duplicates == 0) {
+      removeSlot(slotOf(removed.getId()));
+    }
+    if (index != last) {
+      this.elements[index] = this.elements[last];
+      if (this.duplicates == 0) {
+        this.slots[slotOf(get(index).getId())] = index + 1;
+      }
+    }
+    this.elements[last] = null;
+    this.size--;
+    if (this.duplicates > 0) {
+      rebuildSlots();
+    }
+    this.modCount++;
+    return removed;
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    int index = indexOf(o);
+    if (index < 0) {
+      return false;
+    }
+    remove(index);
+    return true;
+  }
+
+  @Override
+  public int indexOf(Object o) {
+    if (this.duplicates > 0 || !(o instanceof OrganizationComponent component)) {
+      return super.indexOf(o);
+    }
+    int slot = slotOf(component.getId());
+    if (slot < 0) {
+      return -1;
+    }
+    int index = this.slots[slot] - 1;
+    return o.equals(this.elements[index]) ? index : -1;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return indexOf(o) >= 0;
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(this.elements, 0, this.size, null);
+    Arrays.fill(this.slots, 0);
+    this.size = 0;
+    this.duplicates = 0;
+    this.modCount++;
+  }
+
+  private void index(int position) {
+    int id = get(position).getId();
+    if (slotOf(id) >= 0) {
+      this.duplicates++;
+      return;
+    }
+    int slot = hash(id);
+    while (this.slots[slot] != 0) {
+      slot = (slot + 1) & this.mask;
+    }
+    this.slots[slot] = position + 1;
+  }
+
+  private int slotOf(int id) {
+    int slot = hash(id);
+    while (this.slots[slot] != 0) {
+      if (idAt(slot) == id) {
+        return slot;
+      }
+      slot = (slot + 1) & this.mask;
+    }
+    return -1;
+  }
+
+  private void removeSlot(int slot) {
+    this.slots[slot] = 0;
+    // Shift back every following slot whose probe run passes through the freed one
+    int gap = slot;
+    int next = (gap + 1) & this.mask;
+    while (this.slots[next] != 0) {
+      int home = hash(idAt(next));
+      if (((next - home) & this.mask) >= ((next - gap) & this.mask)) {
+        this.slots[gap] = this.slots[next];
+        this.slots[next] = 0;
+        gap = next;
+      }
+      next = (next + 1) & this.mask;
+    }
+  }
+
+  private void rebuildSlots() {
+    int capacity = Integer.highestOneBit(Math.max(DEFAULT_CAPACITY, this.size) * 4 - 1);
+    this.slots = new int[capacity];
+    this.mask = capacity - 1;
+    this.duplicates = 0;
+    for (int i = 0; i < this.size; i++) {
+      index(i);
+    }
+  }
+
+  private int idAt(int slot) {
+    return get(this.slots[slot] - 1).getId();
+  }
+
+  private int hash(int id) {
+    // Fibonacci hashing spreads sequential ids over the whole table
+    int h = id * 0x9E3779B9;
+    return (h ^ (h >>> 16)) & this.mask;
+  }
+}
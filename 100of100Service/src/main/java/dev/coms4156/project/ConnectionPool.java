@@ -0,0 +1,416 @@
+package dev.coms4156.project;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded pool of JDBC connections shared by all request threads.
+ * Borrowed connections are handed out as proxies whose close() returns the
+ * physical connection to the pool instead of closing it.
+ * Designed under the Object Pool Design Pattern.
+ */
+public final class ConnectionPool implements AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+  private static final int WAIT_SAMPLE_SIZE = 1024;
+
+  private final ConnectionFactory factory;
+  private final int minSize;
+  private final int maxSize;
+  private final long borrowTimeoutMillis;
+  private final long validationIntervalMillis;
+  private final long idleTimeoutMillis;
+  private final long leakThresholdMillis;
+
+  private final Semaphore permits;
+  private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+  private final Set<Lease> leases = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger totalConnections = new AtomicInteger();
+  private final ScheduledExecutorService housekeeper;
+  private volatile boolean closed;
+
+  // Pool metrics
+  private final AtomicLong borrowCount = new AtomicLong();
+  private final AtomicLong timeoutCount = new AtomicLong();
+  private final AtomicLong leakCount = new AtomicLong();
+  private final AtomicLong createdCount = new AtomicLong();
+  private final AtomicLong discardedCount = new AtomicLong();
+  private final AtomicLong totalWaitNanos = new AtomicLong();
+  private final long[] waitSamples = new long[WAIT_SAMPLE_SIZE];
+  private int waitSampleCount;
+
+  /**
+   * Creates the physical connections managed by the pool.
+   */
+  @FunctionalInterface
+  public interface ConnectionFactory {
+
+    /**
+     * Opens a new physical connection to the database.
+     *
+     * @return the new connection
+     * @throws SQLException if the connection cannot be established
+     */
+    Connection create() throws SQLException;
+  }
+
+  /**
+   * Constructs a connection pool.
+   *
+   * @param factory the factory that opens physical connections
+   * @param minSize the number of connections kept open even when idle
+   * @param maxSize the maximum number of connections open at the same time
+   * @param borrowTimeoutMillis how long a borrower waits for a free connection
+   * @param validationIntervalMillis idle time after which a connection is validated on borrow
+   * @param idleTimeoutMillis idle time after which connections above minSize are closed
+   * @param leakThresholdMillis borrow time after which a connection is reported as leaked,
+   *                            0 to disable leak detection
+   */
+  public ConnectionPool(
+      ConnectionFactory factory, int minSize, int maxSize, long borrowTimeoutMillis,
+      long validationIntervalMillis, long idleTimeoutMillis, long leakThresholdMillis
+  ) {
+    if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+      throw new IllegalArgumentException(
+          "Invalid pool size: min=" + minSize + ", max=" + maxSize);
+    }
+    this.factory = factory;
+    this.minSize = minSize;
+    this.maxSize = maxSize;
+    this.borrowTimeoutMillis = borrowTimeoutMillis;
+    this.validationIntervalMillis = validationIntervalMillis;
+    this.idleTimeoutMillis = idleTimeoutMillis;
+    this.leakThresholdMillis = leakThresholdMillis;
+    this.permits = new Semaphore(maxSize, true);
+
+    this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "db-pool-housekeeper");
+      thread.setDaemon(true);
+      return thread;
+    });
+    long period = leakThresholdMillis > 0
+        ? Math.min(validationIntervalMillis, leakThresholdMillis) : validationIntervalMillis;
+    period = Math.max(100L, Math.min(period, 30_000L));
+    this.housekeeper.scheduleWithFixedDelay(
+        this::housekeep, period, period, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Constructs a connection pool configured by the db.pool.* system properties.
+   *
+   * @param factory the factory that opens physical connections
+   * @return the connection pool
+   */
+  public static ConnectionPool fromSystemProperties(ConnectionFactory factory) {
+    return new ConnectionPool(
+        factory,
+        Integer.getInteger("db.pool.minSize", 2),
+        Integer.getInteger("db.pool.maxSize", 10),
+        Long.getLong("db.pool.borrowTimeoutMs", 5_000L),
+        Long.getLong("db.pool.validationIntervalMs", 30_000L),
+        Long.getLong("db.pool.idleTimeoutMs", 600_000L),
+        Long.getLong("db.pool.leakThresholdMs", 60_000L)
+    );
+  }
+
+  /**
+   * Opens the minimum number of connections (at least one) so that
+   * an unreachable database is reported at start-up rather than on the first request.
+   *
+   * @throws SQLException if a connection cannot be established
+   */
+  public void warmUp() throws SQLException {
+    do {
+      idle.offerLast(createConnection());
+    } while (totalConnections.get() < minSize);
+  }
+
+  /**
+   * Borrows a connection from the pool, waiting up to the borrow timeout for one to be free.
+   * The caller must close the returned connection to give it back to the pool.
+   *
+   * @return a borrowed connection
+   * @throws SQLException if the pool is closed, the wait times out,
+   *                      or a new connection cannot be established
+   */
+  public Connection getConnection() throws SQLException {
+    if (closed) {
+      throw new SQLException("Connection pool is closed");
+    }
+    long start = System.nanoTime();
+    try {
+      if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+        timeoutCount.incrementAndGet();
+        throw new SQLTimeoutException(
+            "Timed out after " + borrowTimeoutMillis + " ms waiting for a database connection");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Interrupted while waiting for a database connection", e);
+    }
+
+    try {
+      PooledConnection pooled = takeIdleOrCreate();
+      Lease lease = new Lease(pooled, leakThresholdMillis > 0);
+      leases.add(lease);
+      borrowCount.incrementAndGet();
+      recordWait(System.nanoTime() - start);
+      return lease.proxy;
+    } catch (SQLException | RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Returns a statistic of the pool usage.
+   *
+   * @return a Map of the statistic that can be easily converted to JSON
+   */
+  public Map<String, Object> getStatisticMap() {
+    long borrows = borrowCount.get();
+    Map<String, Object> result = new HashMap<>();
+    result.put("active", leases.size());
+    result.put("idle", idle.size());
+    result.put("total", totalConnections.get());
+    result.put("minSize", minSize);
+    result.put("maxSize", maxSize);
+    result.put("waitingThreads", permits.getQueueLength());
+    result.put("borrowCount", borrows);
+    result.put("timeoutCount", timeoutCount.get());
+    result.put("leakCount", leakCount.get());
+    result.put("createdCount", createdCount.get());
+    result.put("discardedCount", discardedCount.get());
+    result.put("averageWaitMillis", borrows == 0 ? 0.0 : totalWaitNanos.get() / 1e6 / borrows);
+    result.put("p99WaitMillis", waitPercentile(0.99) / 1e6);
+    return result;
+  }
+
+  /**
+   * Closes the pool and all idle connections.
+   * Connections still borrowed are closed when they are returned.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    housekeeper.shutdownNow();
+    PooledConnection pooled;
+    while ((pooled = idle.pollFirst()) != null) {
+      discard(pooled);
+    }
+  }
+
+  /**
+   * Takes the most recently used idle connection, validating it if it has been idle
+   * for too long, or opens a new one if none is idle.
+   */
+  private PooledConnection takeIdleOrCreate() throws SQLException {
+    PooledConnection pooled;
+    while ((pooled = idle.pollFirst()) != null) {
+      if (System.currentTimeMillis() - pooled.lastUsedAt < validationIntervalMillis
+          || pooled.isValid()) {
+        return pooled;
+      }
+      logger.warn("Discarding a broken database connection");
+      discard(pooled);
+    }
+    return createConnection();
+  }
+
+  private PooledConnection createConnection() throws SQLException {
+    totalConnections.incrementAndGet();
+    try {
+      PooledConnection pooled = new PooledConnection(factory.create());
+      createdCount.incrementAndGet();
+      return pooled;
+    } catch (SQLException | RuntimeException e) {
+      totalConnections.decrementAndGet();
+      throw e;
+    }
+  }
+
+  private void discard(PooledConnection pooled) {
+    totalConnections.decrementAndGet();
+    discardedCount.incrementAndGet();
+    try {
+      pooled.raw.close();
+    } catch (SQLException e) {
+      logger.debug("Failed to close a discarded database connection", e);
+    }
+  }
+
+  /**
+   * Gives a borrowed connection back to the pool, discarding it if it is broken.
+   */
+  private void release(Lease lease) {
+    leases.remove(lease);
+    PooledConnection pooled = lease.pooled;
+    try {
+      if (closed || pooled.raw.isClosed()) {
+        discard(pooled);
+        return;
+      }
+      if (!pooled.raw.getAutoCommit()) {
+        // Never hand an open transaction to the next borrower
+        pooled.raw.rollback();
+        pooled.raw.setAutoCommit(true);
+      }
+      pooled.lastUsedAt = System.currentTimeMillis();
+      idle.offerFirst(pooled);
+    } catch (SQLException e) {
+      discard(pooled);
+    } finally {
+      permits.release();
+    }
+  }
+
+  /**
+   * Periodic maintenance: reports leaked connections, closes connections idle for too long
+   * and tops the pool back up to its minimum size.
+   */
+  private void housekeep() {
+    try {
+      long now = System.currentTimeMillis();
+      if (leakThresholdMillis > 0) {
+        for (Lease lease : leases) {
+          if (!lease.reported && now - lease.borrowedAt > leakThresholdMillis) {
+            lease.reported = true;
+            leakCount.incrementAndGet();
+            logger.warn("Database connection borrowed by thread [{}] has not been returned "
+                + "for {} ms, possible leak", lease.ownerThread, now - lease.borrowedAt,
+                lease.borrowSite);
+          }
+        }
+      }
+
+      Iterator<PooledConnection> iterator = idle.descendingIterator();
+      while (iterator.hasNext() && totalConnections.get() > minSize) {
+        PooledConnection pooled = iterator.next();
+        if (now - pooled.lastUsedAt > idleTimeoutMillis && idle.removeLastOccurrence(pooled)) {
+          discard(pooled);
+        }
+      }
+
+      while (!closed && totalConnections.get() < minSize) {
+        idle.offerLast(createConnection());
+      }
+    } catch (SQLException | RuntimeException e) {
+      logger.warn("Database connection pool maintenance failed", e);
+    }
+  }
+
+  private void recordWait(long waitNanos) {
+    totalWaitNanos.addAndGet(waitNanos);
+    synchronized (waitSamples) {
+      waitSamples[waitSampleCount % WAIT_SAMPLE_SIZE] = waitNanos;
+      waitSampleCount++;
+    }
+  }
+
+  /**
+   * Returns the given percentile of the most recent borrow wait times, in nanoseconds.
+   */
+  private long waitPercentile(double percentile) {
+    long[] samples;
+    synchronized (waitSamples) {
+      samples = Arrays.copyOf(waitSamples, Math.min(waitSampleCount, WAIT_SAMPLE_SIZE));
+    }
+    if (samples.length == 0) {
+      return 0;
+    }
+    Arrays.sort(samples);
+    int index = (int) Math.ceil(percentile * samples.length) - 1;
+    return samples[Math.max(0, index)];
+  }
+
+  /**
+   * A physical connection owned by the pool.
+   */
+  private static final class PooledConnection {
+    private final Connection raw;
+    private volatile long lastUsedAt;
+
+    private PooledConnection(Connection raw) {
+      this.raw = raw;
+      this.lastUsedAt = System.currentTimeMillis();
+    }
+
+    private boolean isValid() {
+      try {
+        return raw.isValid(2);
+      } catch (SQLException e) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * A single borrow of a pooled connection.
+   * Each borrow gets its own proxy, so a stale handle kept by a previous borrower
+   * can never reach the connection once it has been returned.
+   */
+  private final class Lease implements InvocationHandler {
+    private final PooledConnection pooled;
+    private final Connection proxy;
+    private final long borrowedAt = System.currentTimeMillis();
+    private final String ownerThread = Thread.currentThread().getName();
+    private final Throwable borrowSite;
+    private volatile boolean returned;
+    private volatile boolean reported;
+
+    private Lease(PooledConnection pooled, boolean traceBorrowSite) {
+      this.pooled = pooled;
+      this.borrowSite = traceBorrowSite ? new Throwable("Connection borrowed here") : null;
+      this.proxy = (Connection) Proxy.newProxyInstance(
+          Connection.class.getClassLoader(), new Class<?>[] {Connection.class}, this);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      switch (method.getName()) {
+        case "close":
+          if (!returned) {
+            returned = true;
+            release(this);
+          }
+          return null;
+        case "isClosed":
+          return returned || pooled.raw.isClosed();
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "toString":
+          return "PooledConnection[" + pooled.raw + "]";
+        default:
+          if (returned) {
+            throw new SQLException("Connection has already been returned to the pool");
+          }
+          try {
+            return method.invoke(pooled.raw, args);
+          } catch (InvocationTargetException e) {
+            throw e.getCause();
+          }
+      }
+    }
+  }
+}
@@ -1,28 +1,68 @@
 package dev.coms4156.project;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Interface for interacting with the database.
  * It provides methods for CRUD operations on employees, departments, and organizations.
+ * Departments and employees are identified by their organization id together with
+ * their (external) id, which is unique within the organization only.
  * Designed under Strategy Pattern & Data Access Object Pattern
  */
 public interface DatabaseConnection {
 
   String connectionName();
 
+  /**
+   * Returns a statistic of the connections to the database.
+   * Backends should override this to report the usage of their connection pool,
+   * the default implementation simply returns an empty statistic.
+   *
+   * @return a Map of the statistic that can be easily converted to JSON
+   */
+  default Map<String, Object> getPoolStatisticMap() {
+    return new HashMap<>();
+  }
+
   // Employee CRUD methods //
 
   /**
    * Adds a new employee to a department in the database.
    *
    * @param organizationId the organization id
-   * @param departmentId the internal department id
+   * @param departmentId the department id
    * @param employee the employee to add
-   * @return the internal employee ID if successful, -1 if failed
+   * @return the employee ID if successful, -1 if failed
    */
   int addEmployeeToDepartment(int organizationId, int departmentId, Employee employee);
 
+  /**
+   * Adds several new employees to a department in the database.
+   * Backends should override this to insert all the employees in a single batch and
+   * transaction, the default implementation simply adds the employees one by one.
+   *
+   * @param organizationId the organization id
+   * @param departmentId the department id
+   * @param employees the employees to add
+   * @return the employee IDs in the order of the employees, null if any insert failed
+   */
+  default int[] addEmployeesToDepartment(
+      int organizationId, int departmentId, List<Employee> employees
+  ) {
+    int[] newEmployeeIds = new int[employees.size()];
+    for (int i = 0; i < newEmployeeIds.length; i++) {
+      newEmployeeIds[i] = addEmployeeToDepartment(organizationId, departmentId, employees.get(i));
+      if (newEmployeeIds[i] == -1) {
+        return null;
+      }
+    }
+    return newEmployeeIds;
+  }
+
   /**
    * Returns an employee in a given organization by external ID.
    *
@@ -32,6 +72,19 @@ public interface DatabaseConnection {
    */
   Employee getEmployee(int organizationId, int externalEmployeeId);
 
+  /**
+   * Returns the highest employee id reserved so far in a given organization.
+   * No employee with a higher id exists until more ids are reserved.
+   * Backends should override this if they reserve ids ahead of the inserts,
+   * the default implementation bounds nothing.
+   *
+   * @param organizationId the organization id
+   * @return the highest reserved employee id
+   */
+  default int getHighestReservedEmployeeId(int organizationId) {
+    return Integer.MAX_VALUE;
+  }
+
   /**
    * Returns a list of employees in a given organization.
    *
@@ -40,6 +93,33 @@ public interface DatabaseConnection {
    */
   List<Employee> getEmployees(int organizationId);
 
+  /**
+   * Streams the employees of a given organization, reading them as the stream is consumed.
+   * The stream holds database resources until it is closed, so it should be used in a
+   * try-with-resources statement.
+   * Backends should override this to read the rows lazily,
+   * the default implementation simply streams the list returned by getEmployees.
+   *
+   * @param organizationId the organization id
+   * @return a stream of the employees in the organization, empty if it cannot be opened
+   */
+  default Stream<Employee> streamEmployees(int organizationId) {
+    return getEmployees(organizationId).stream();
+  }
+
+  /**
+   * Pushes the employees of a given organization to a consumer, one at a time,
+   * so that organizations of any size are processed with a bounded memory.
+   *
+   * @param organizationId the organization id
+   * @param consumer the consumer of each employee
+   */
+  default void forEachEmployee(int organizationId, Consumer<Employee> consumer) {
+    try (Stream<Employee> employees = streamEmployees(organizationId)) {
+      employees.forEachOrdered(consumer);
+    }
+  }
+
   /**
    * Updates an employee in the database.
    *
@@ -49,12 +129,57 @@ public interface DatabaseConnection {
    */
   boolean updateEmployee(int organizationId, Employee employee);
 
+  /**
+   * Updates several employees in the database.
+   * Backends should override this to update all the employees in a single batch and
+   * transaction, the default implementation simply updates the employees one by one.
+   *
+   * @param organizationId the organization id
+   * @param employees the employees to update
+   * @return true if every update is successful, false otherwise
+   */
+  default boolean updateEmployees(int organizationId, List<Employee> employees) {
+    for (Employee employee : employees) {
+      if (!updateEmployee(organizationId, employee)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Replaces the weekly shifts of an employee in the database.
+   *
+   * @param organizationId the organization id
+   * @param employee the employee holding its new shifts
+   * @return true if update successful, false otherwise
+   */
+  boolean updateEmployeeShifts(int organizationId, Employee employee);
+
+  /**
+   * Replaces the weekly shifts of several employees in the database, like a whole roster.
+   * Backends should override this to write all the shifts in a single batch,
+   * the default implementation simply updates the employees one by one.
+   *
+   * @param organizationId the organization id
+   * @param employees the employees holding their new shifts
+   * @return true if every update is successful, false otherwise
+   */
+  default boolean updateEmployeesShifts(int organizationId, List<Employee> employees) {
+    for (Employee employee : employees) {
+      if (!updateEmployeeShifts(organizationId, employee)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   /**
    * Removes an employee from a department in the database.
    *
    * @param organizationId the organization id
-   * @param departmentId the internal department id
-   * @param employeeId the internal employee id
+   * @param departmentId the department id
+   * @param employeeId the employee id
    * @return true if removal successful, false otherwise
    */
   boolean removeEmployeeFromDepartment(int organizationId, int departmentId, int employeeId);
@@ -81,6 +206,19 @@ public interface DatabaseConnection {
    */
   Department getDepartment(int organizationId, int externalDepartmentId);
 
+  /**
+   * Returns the highest department id reserved so far in a given organization.
+   * No department with a higher id exists until more ids are reserved.
+   * Backends should override this if they reserve ids ahead of the inserts,
+   * the default implementation bounds nothing.
+   *
+   * @param organizationId the organization id
+   * @return the highest reserved department id
+   */
+  default int getHighestReservedDepartmentId(int organizationId) {
+    return Integer.MAX_VALUE;
+  }
+
   /**
    * Returns a list of departments in a given organization.
    *
@@ -126,6 +264,24 @@ public interface DatabaseConnection {
    */
   Organization getOrganization(int organizationId);
 
+  /**
+   * Loads an organization together with all of its departments and employees.
+   * Backends should override this to fetch the whole graph in a fixed number of queries,
+   * the default implementation simply composes the single-entity methods.
+   *
+   * @param organizationId the organization id
+   * @return the organization with its departments and employees set, null if not found
+   */
+  default Organization loadOrganization(int organizationId) {
+    Organization organization = getOrganization(organizationId);
+    if (organization == null) {
+      return null;
+    }
+    organization.setDepartments(getDepartments(organizationId));
+    organization.setEmployees(getEmployees(organizationId));
+    return organization;
+  }
+
   /**
    * Updates an organization's information in the database.
    *
@@ -141,4 +297,33 @@ public interface DatabaseConnection {
    * @return true if removal successful, false otherwise
    */
   boolean removeOrganization(int organizationId);
+
+
+  // Transactions //
+
+  /**
+   * Runs a unit of work: the writes it makes through this connection on the calling thread
+   * are grouped into a single transaction, committed once when the work returns and rolled back
+   * together if it throws. A unit of work started inside another one joins it.
+   * Backends should override this to run the work in a transaction, the default implementation
+   * simply runs it, so its writes are committed one by one and cannot be rolled back.
+   *
+   * @param work the work
+   * @param <T> the type of the result of the work
+   * @return the result of the work
+   */
+  default <T> T inUnitOfWork(UnitOfWork.Work<T> work) {
+    return work.run(new UnitOfWork() {
+      @Override
+      public int savepoint() {
+        return 0;
+      }
+
+      @Override
+      public void rollbackTo(int savepoint) {
+        throw new UnsupportedOperationException(
+            connectionName() + " does not support transactions");
+      }
+    });
+  }
 }
@@ -1,18 +1,53 @@
 package dev.coms4156.project;
 
+import dev.coms4156.project.utils.LongOrderStatisticTree;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
 
 /**
  * This class represents a department in the organization.
  * Designed under the Composite Design Pattern.
+ * The department observes its employees to keep its position, salary and performance statistics
+ * and its shift roster up to date. Departments can be nested, in which case the statistics
+ * of the whole subtree are kept up to date as well.
  */
-public class Department extends OrganizationComposite {
+public class Department extends OrganizationComposite implements EmployeeObserver {
+  private static final int INITIAL_COLUMN_CAPACITY = 8;
+
   private Employee head;
-  private final List<Employee> employees;
+  private final ChildStore<Employee> employees;
+  private final ChildStore<Department> subDepartments;
+  private Department parent;
+  // Aggregates of this department and its descendants, only kept while it has sub-departments
+  private SubtreeRollup rollup;
+  // Number of employees per position category of the PositionDictionary
+  private int[] positionCounts = new int[0];
+  // Salaries in cents and performances in hundredths, indexed by the position of each employee
+  // in the employee store, so that the salary extremes are found by a scan of primitive arrays
+  private long[] salaryColumn = new long[INITIAL_COLUMN_CAPACITY];
+  private int[] performanceColumn = new int[INITIAL_COLUMN_CAPACITY];
+  // When each employee got its salary, so that the earliest of tied employees is reported
+  private long[] salarySinceColumn = new long[INITIAL_COLUMN_CAPACITY];
+  private long salaryChanges;
+  // Positions of the highest and lowest paid employees, -1 until the columns are scanned again
+  private int highestPaid = -1;
+  private int lowestPaid = -1;
+  private long salaryTotalCents;
+  // Performances in hundredths ranked from the lowest, ties ranked by descending ID,
+  // each packed with its employee ID by rankKey so that no object is kept per employee
+  private final LongOrderStatisticTree performanceRanks = new LongOrderStatisticTree();
+  private long performanceTotalHundredths;
+  // Employee IDs by descending performance, built on demand and dropped on every rank change
+  private int[] rankedIds;
+  private final ShiftRoster shifts = new ShiftRoster();
 
   /**
    * Constructs a department with the given ID and name.
@@ -23,7 +58,8 @@ public class Department extends OrganizationComposite {
   public Department(int id, String name) {
     super(id, name);
     this.typeName = "Department";
-    this.employees = new ArrayList<>();
+    this.employees = newChildStore();
+    this.subDepartments = newChildStore();
     this.head = null;
   }
 
@@ -37,8 +73,17 @@ public class Department extends OrganizationComposite {
   public Department(int id, String name, List<Employee> employees) {
     super(id, name);
     this.typeName = "Department";
-    this.employees = employees;
+    this.employees = newChildStore();
+    this.subDepartments = newChildStore();
     this.head = null;
+    for (Employee employee : employees) {
+      this.employees.add(employee);
+      employee.addObserver(this);
+      trackPosition(employee.getPositionCode(), 1);
+      trackColumns(employee);
+      trackPerformance(employee, employee.getPerformanceHundredths());
+      this.shifts.add(employee);
+    }
   }
 
   /**
@@ -49,7 +94,15 @@ public class Department extends OrganizationComposite {
    */
   public boolean addEmployee(Employee employee) {
     this.employees.add(employee); // Add to employee list
-    return this.add(employee);
+    employee.addObserver(this);
+    trackPosition(employee.getPositionCode(), 1);
+    trackColumns(employee);
+    trackPerformance(employee, employee.getPerformanceHundredths());
+    this.shifts.add(employee);
+    long salaryCents = employee.getSalaryCents();
+    int performanceHundredths = employee.getPerformanceHundredths();
+    updateRollups(rollup -> rollup.addEmployee(salaryCents, performanceHundredths));
+    return true;
   }
 
   /**
@@ -59,8 +112,349 @@ public class Department extends OrganizationComposite {
    * @return true if the employee is removed successfully, false otherwise
    */
   public boolean removeEmployee(Employee employee) {
-    this.employees.remove(employee); // Remove from employee list
-    return this.remove(employee);
+    int position = this.employees.indexOf(employee);
+    boolean removed = position >= 0;
+    if (removed) {
+      this.employees.remove(position); // Remove from employee list
+      untrackColumns(position);
+      employee.removeObserver(this);
+      trackPosition(employee.getPositionCode(), -1);
+      untrackPerformance(employee, employee.getPerformanceHundredths());
+      this.shifts.remove(employee);
+      long salaryCents = employee.getSalaryCents();
+      int performanceHundredths = employee.getPerformanceHundredths();
+      updateRollups(rollup -> rollup.removeEmployee(salaryCents, performanceHundredths));
+    }
+    return removed;
+  }
+
+  /**
+   * Returns the department this department is nested in.
+   *
+   * @return the parent department, or null for a top-level department
+   */
+  public Department getParent() {
+    return this.parent;
+  }
+
+  /**
+   * Returns the departments directly nested in this department.
+   *
+   * @return the list of sub-departments
+   */
+  public List<Department> getSubDepartments() {
+    return this.subDepartments;
+  }
+
+  /**
+   * Nests a department in this department.
+   *
+   * @param subDepartment the department to be nested, which must not have a parent yet
+   * @return true if the department is nested, false if it already has a parent
+   *         or if nesting it would create a cycle
+   */
+  public boolean addSubDepartment(Department subDepartment) {
+    if (subDepartment.parent != null) {
+      return false;
+    }
+    for (Department ancestor = this; ancestor != null; ancestor = ancestor.parent) {
+      if (ancestor == subDepartment) {
+        return false;
+      }
+    }
+    this.subDepartments.add(subDepartment);
+    subDepartment.parent = this;
+
+    SubtreeRollup added = subDepartment.subtreeRollup();
+    for (Department ancestor = this; ancestor != null; ancestor = ancestor.parent) {
+      if (ancestor.rollup == null) {
+        ancestor.rollup = SubtreeRollup.of(ancestor);
+      }
+      ancestor.rollup.add(added);
+    }
+    return true;
+  }
+
+  /**
+   * Un-nests a department from this department, making it a top-level department.
+   *
+   * @param subDepartment the department to be un-nested
+   * @return true if the department is un-nested, false if it is not nested in this department
+   */
+  public boolean removeSubDepartment(Department subDepartment) {
+    if (subDepartment.parent != this || !this.subDepartments.remove(subDepartment)) {
+      return false;
+    }
+    subDepartment.parent = null;
+
+    SubtreeRollup removed = subDepartment.subtreeRollup();
+    updateRollups(rollup -> rollup.subtract(removed));
+    if (this.subDepartments.isEmpty()) {
+      this.rollup = null;
+    }
+    return true;
+  }
+
+  /**
+   * Takes the place of another instance of this department in the tree,
+   * nested in its parent and with its sub-departments.
+   *
+   * @param previous the instance being replaced
+   */
+  void takePlaceOf(Department previous) {
+    Department previousParent = previous.parent;
+    List<Department> previousSubDepartments = List.copyOf(previous.subDepartments);
+    for (Department subDepartment : previousSubDepartments) {
+      previous.removeSubDepartment(subDepartment);
+    }
+    if (previousParent != null) {
+      previousParent.removeSubDepartment(previous);
+      previousParent.addSubDepartment(this);
+    }
+    for (Department subDepartment : previousSubDepartments) {
+      addSubDepartment(subDepartment);
+    }
+  }
+
+  /**
+   * Leaves the tree, moving the sub-departments up to the parent of this department.
+   */
+  void leaveTree() {
+    Department previousParent = this.parent;
+    if (previousParent != null) {
+      previousParent.removeSubDepartment(this);
+    }
+    for (Department subDepartment : List.copyOf(this.subDepartments)) {
+      removeSubDepartment(subDepartment);
+      if (previousParent != null) {
+        previousParent.addSubDepartment(subDepartment);
+      }
+    }
+  }
+
+  private SubtreeRollup subtreeRollup() {
+    return this.rollup != null ? this.rollup : SubtreeRollup.of(this);
+  }
+
+  private void updateRollups(Consumer<SubtreeRollup> update) {
+    for (Department department = this; department != null; department = department.parent) {
+      if (department.rollup != null) {
+        update.accept(department.rollup);
+      }
+    }
+  }
+
+  /**
+   * Moves an employee of the department to its new position in the position statistic.
+   *
+   * @param employee the employee, already holding the new position
+   * @param previousPosition the position before the change
+   */
+  @Override
+  public void onPositionChanged(Employee employee, String previousPosition) {
+    trackPosition(PositionDictionary.encode(previousPosition), -1);
+    trackPosition(employee.getPositionCode(), 1);
+  }
+
+  /**
+   * Moves an employee of the department to its new salary in the salary statistic.
+   *
+   * @param employee the employee, already holding the new salary
+   * @param previousCents the salary before the change, in cents
+   */
+  @Override
+  public void onSalaryChanged(Employee employee, long previousCents) {
+    int position = positionOf(employee, i -> this.salaryColumn[i] == previousCents);
+    long currentCents = employee.getSalaryCents();
+    if (position >= 0) {
+      setSalary(position, currentCents);
+      if (position == this.highestPaid && currentCents < previousCents) {
+        this.highestPaid = -1;
+      }
+      if (position == this.lowestPaid && currentCents > previousCents) {
+        this.lowestPaid = -1;
+      }
+      this.salaryTotalCents += currentCents - previousCents;
+    }
+    updateRollups(rollup -> rollup.changeSalary(previousCents, currentCents));
+  }
+
+  /**
+   * Moves an employee of the department to its new rank in the performance statistic.
+   *
+   * @param employee the employee, already holding the new performance
+   * @param previousHundredths the performance before the change, in hundredths
+   */
+  @Override
+  public void onPerformanceChanged(Employee employee, int previousHundredths) {
+    int position = positionOf(employee, i -> this.performanceColumn[i] == previousHundredths);
+    if (position >= 0) {
+      this.performanceColumn[position] = employee.getPerformanceHundredths();
+    }
+    untrackPerformance(employee, previousHundredths);
+    trackPerformance(employee, employee.getPerformanceHundredths());
+    int currentHundredths = employee.getPerformanceHundredths();
+    updateRollups(rollup -> rollup.changePerformance(previousHundredths, currentHundredths));
+  }
+
+  /**
+   * Moves an employee of the department to its new slots in the shift roster.
+   *
+   * @param employee the employee, already holding the new shifts
+   * @param previousMask the shifts before the change
+   */
+  @Override
+  public void onShiftsChanged(Employee employee, int previousMask) {
+    this.shifts.update(employee);
+  }
+
+  private void trackPosition(int positionCode, int delta) {
+    int category = PositionDictionary.categoryOf(positionCode);
+    if (category >= this.positionCounts.length) {
+      this.positionCounts = Arrays.copyOf(this.positionCounts, category + 1);
+    }
+    this.positionCounts[category] += delta;
+  }
+
+  private void trackColumns(Employee employee) {
+    int position = this.employees.size() - 1;
+    if (position == this.salaryColumn.length) {
+      int capacity = position * 2;
+      this.salaryColumn = Arrays.copyOf(this.salaryColumn, capacity);
+      this.performanceColumn = Arrays.copyOf(this.performanceColumn, capacity);
+      this.salarySinceColumn = Arrays.copyOf(this.salarySinceColumn, capacity);
+    }
+    this.performanceColumn[position] = employee.getPerformanceHundredths();
+    setSalary(position, employee.getSalaryCents());
+    this.salaryTotalCents += this.salaryColumn[position];
+  }
+
+  /**
+   * Drops the columns of a removed employee, whose position the employee store has given
+   * to its last employee.
+   *
+   * @param position the position of the removed employee
+   */
+  private void untrackColumns(int position) {
+    this.salaryTotalCents -= this.salaryColumn[position];
+    if (position == this.highestPaid) {
+      this.highestPaid = -1;
+    }
+    if (position == this.lowestPaid) {
+      this.lowestPaid = -1;
+    }
+    int last = this.employees.size();
+    if (position != last) {
+      this.salaryColumn[position] = this.salaryColumn[last];
+      this.performanceColumn[position] = this.performanceColumn[last];
+      this.salarySinceColumn[position] = this.salarySinceColumn[last];
+      if (this.highestPaid == last) {
+        this.highestPaid = position;
+      }
+      if (this.lowestPaid == last) {
+        this.lowestPaid = position;
+      }
+    }
+  }
+
+  private void setSalary(int position, long cents) {
+    this.salaryColumn[position] = cents;
+    this.salarySinceColumn[position] = this.salaryChanges++;
+    // A newer salary only replaces an extreme it exceeds, as ties go to the earliest
+    if (this.highestPaid >= 0 && cents > this.salaryColumn[this.highestPaid]) {
+      this.highestPaid = position;
+    }
+    if (this.lowestPaid >= 0 && cents < this.salaryColumn[this.lowestPaid]) {
+      this.lowestPaid = position;
+    }
+  }
+
+  /**
+   * Finds the position of an employee whose column still holds its previous value.
+   * An employee added more than once is notified once per membership,
+   * so each notification moves one of its memberships.
+   *
+   * @param employee the employee
+   * @param holdsPrevious whether the columns at a position hold the previous value
+   * @return the position, or -1 if the employee is not in the department
+   */
+  private int positionOf(Employee employee, IntPredicate holdsPrevious) {
+    int position = this.employees.indexOf(employee);
+    if (position < 0 || holdsPrevious.test(position)) {
+      return position;
+    }
+    for (int i = 0; i < this.employees.size(); i++) {
+      if (this.employees.get(i) == employee && holdsPrevious.test(i)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private void scanSalaryExtremes() {
+    int highest = 0;
+    int lowest = 0;
+    for (int i = 1, size = this.employees.size(); i < size; i++) {
+      long cents = this.salaryColumn[i];
+      long since = this.salarySinceColumn[i];
+      if (cents > this.salaryColumn[highest]
+          || cents == this.salaryColumn[highest] && since < this.salarySinceColumn[highest]) {
+        highest = i;
+      }
+      if (cents < this.salaryColumn[lowest]
+          || cents == this.salaryColumn[lowest] && since < this.salarySinceColumn[lowest]) {
+        lowest = i;
+      }
+    }
+    this.highestPaid = highest;
+    this.lowestPaid = lowest;
+  }
+
+  /**
+   * Returns the salary of the employee at a position of the employee list.
+   *
+   * @param position the position
+   * @return the salary in cents
+   */
+  long salaryCentsAt(int position) {
+    return this.salaryColumn[position];
+  }
+
+  /**
+   * Returns the performance of the employee at a position of the employee list.
+   *
+   * @param position the position
+   * @return the performance in hundredths
+   */
+  int performanceHundredthsAt(int position) {
+    return this.performanceColumn[position];
+  }
+
+  private void trackPerformance(Employee employee, int hundredths) {
+    this.performanceRanks.add(rankKey(hundredths, employee.getId()));
+    this.performanceTotalHundredths += hundredths;
+    this.rankedIds = null;
+  }
+
+  private void untrackPerformance(Employee employee, int hundredths) {
+    if (this.performanceRanks.remove(rankKey(hundredths, employee.getId()))) {
+      this.performanceTotalHundredths -= hundredths;
+      this.rankedIds = null;
+    }
+  }
+
+  // The performance in the high half orders the keys by performance first, and the ID
+  // flipped in the low half orders tied performances by descending ID
+  private static long rankKey(int hundredths, int id) {
+    return (long) hundredths << 32 | (id ^ Integer.MAX_VALUE) & 0xFFFFFFFFL;
+  }
+
+  private static int hundredthsOf(long rankKey) {
+    return (int) (rankKey >> 32);
+  }
+
+  private static int idOf(long rankKey) {
+    return (int) rankKey ^ Integer.MAX_VALUE;
   }
 
   /**
@@ -101,11 +495,10 @@ public class Department extends OrganizationComposite {
    */
   public Map<String, Integer> getEmployeePositionStatisticMap() {
     Map<String, Integer> result = new HashMap<>();
-    for (Employee e : this.employees) {
-      String position = e.getPosition();
-      position = (position == null || position.trim().isEmpty())
-          ? "unassigned" : position.trim().toLowerCase(Locale.getDefault());
-      result.put(position, result.getOrDefault(position, 0) + 1);
+    for (int category = 0; category < this.positionCounts.length; category++) {
+      if (this.positionCounts[category] > 0) {
+        result.put(PositionDictionary.categoryName(category), this.positionCounts[category]);
+      }
     }
     return result;
   }
@@ -116,7 +509,8 @@ public class Department extends OrganizationComposite {
    * @return a Map of the statistic that can be easily converted to JSON
    */
   public Map<String, Object> getEmployeeSalaryStatisticMap() {
-    if (this.employees.isEmpty()) {
+    int size = this.employees.size();
+    if (size == 0) {
       Map<String, Object> emptyResult = new HashMap<>();
       emptyResult.put("total", 0.0);
       emptyResult.put("average", 0.0);
@@ -127,97 +521,156 @@ public class Department extends OrganizationComposite {
       return emptyResult;
     }
 
-    double totalSalary = 0.0;
-    double highestSalary = Double.NEGATIVE_INFINITY;
-    double lowestSalary = Double.POSITIVE_INFINITY;
-    Employee highestEmployee = this.employees.get(0);
-    Employee lowestEmployee = this.employees.get(0);
+    // The extremes are kept across changes and only scanned again after one of them drops out
+    if (this.highestPaid < 0 || this.lowestPaid < 0) {
+      scanSalaryExtremes();
+    }
 
-    for (Employee e : this.employees) {
-      double salary = e.getSalary();
+    // Sums are exact in cents, only the reported values are converted
+    Map<String, Object> result = new HashMap<>();
+    result.put("total", this.salaryTotalCents / 100.0);
+    result.put("average", (double) this.salaryTotalCents / size / 100.0);
+    result.put("highest", this.salaryColumn[this.highestPaid] / 100.0);
+    result.put("lowest", this.salaryColumn[this.lowestPaid] / 100.0);
+    result.put("highestEmployee", this.employees.get(this.highestPaid).getId());
+    result.put("lowestEmployee", this.employees.get(this.lowestPaid).getId());
+    return result;
+  }
 
-      totalSalary += salary;
+  /**
+   * Returns a statistic of the employees' performance in the department.
+   *
+   * @return a Map of the statistic that can be easily converted to JSON
+   */
+  public Map<String, Object> getEmployeePerformanceStatisticMap() {
+    Map<String, Object> result = new HashMap<>();
 
-      if (salary > highestSalary) {
-        highestSalary = salary;
-        highestEmployee = e;
-      }
+    int size = this.performanceRanks.size();
+    putPerformanceDistribution(result, size,
+        rank -> hundredthsOf(this.performanceRanks.get(rank)), this.performanceTotalHundredths);
+    if (size == 0) {
+      result.put("sortedEmployeeIds", new int[0]);
+      return result;
+    }
 
-      if (salary < lowestSalary) {
-        lowestSalary = salary;
-        lowestEmployee = e;
+    // Employee IDs by performance (descending), walked from the ranks only after a change
+    if (this.rankedIds == null) {
+      int[] sortedIds = new int[size];
+      PrimitiveIterator.OfLong ranks = this.performanceRanks.descendingIterator();
+      for (int i = 0; i < size; i++) {
+        sortedIds[i] = idOf(ranks.nextLong());
       }
+      this.rankedIds = sortedIds;
     }
+    result.put("sortedEmployeeIds", this.rankedIds.clone());
 
-    double averageSalary = totalSalary / this.employees.size();
+    return result;
+  }
+
+  /**
+   * Returns the employees of the department working every given slot of the week.
+   *
+   * @param slotMask the slots, as a ShiftSchedule mask
+   * @return the employees on shift in all the slots
+   */
+  public List<Employee> getEmployeesOnShift(int slotMask) {
+    return this.shifts.workingAll(slotMask);
+  }
+
+  /**
+   * Returns a statistic of the shift coverage of the department.
+   * Each day of the week maps to the number of employees working each of its time slots.
+   *
+   * @return a Map of the statistic that can be easily converted to JSON
+   */
+  public Map<String, Object> getShiftCoverageStatisticMap() {
+    int[] coverage = this.shifts.coverage();
+    Map<String, int[]> days = new LinkedHashMap<>();
+    List<String> uncovered = new ArrayList<>();
+    for (int bit = 0; bit < coverage.length; bit++) {
+      String day = ShiftSchedule.dayOf(bit).toString();
+      int timeSlot = ShiftSchedule.timeSlotOf(bit);
+      days.computeIfAbsent(day, key -> new int[ShiftSchedule.SLOTS_PER_DAY])[timeSlot] =
+          coverage[bit];
+      if (coverage[bit] == 0) {
+        uncovered.add(day + ":" + timeSlot);
+      }
+    }
 
     Map<String, Object> result = new HashMap<>();
-    result.put("total", totalSalary);
-    result.put("average", averageSalary);
-    result.put("highest", highestSalary);
-    result.put("lowest", lowestSalary);
-    result.put("highestEmployee", highestEmployee.getId());
-    result.put("lowestEmployee", lowestEmployee.getId());
+    result.put("coverage", days);
+    result.put("uncoveredSlots", uncovered);
     return result;
   }
 
   /**
-   * Returns a statistic of the employees' performance in the department.
+   * Returns a statistic of the whole subtree of the department,
+   * including the employees of every nested department.
    *
    * @return a Map of the statistic that can be easily converted to JSON
    */
-  public Map<String, Object> getEmployeePerformanceStatisticMap() {
+  public Map<String, Object> getSubtreeStatisticMap() {
+    Map<String, Object> performance = new HashMap<>();
+    int departmentCount;
+    int headcount;
+    long salaryTotalCents;
+    if (this.rollup == null) {
+      // Without sub-departments, the subtree is the department itself
+      departmentCount = 1;
+      headcount = this.performanceRanks.size();
+      salaryTotalCents = this.salaryTotalCents;
+      putPerformanceDistribution(performance, headcount,
+          rank -> hundredthsOf(this.performanceRanks.get(rank)), this.performanceTotalHundredths);
+    } else {
+      departmentCount = this.rollup.getDepartmentCount();
+      headcount = this.rollup.getHeadcount();
+      salaryTotalCents = this.rollup.getSalaryTotalCents();
+      putPerformanceDistribution(performance, headcount, this.rollup::performanceAt,
+          this.rollup.getPerformanceTotalHundredths());
+    }
+
     Map<String, Object> result = new HashMap<>();
+    result.put("departmentCount", departmentCount);
+    result.put("headcount", headcount);
+    result.put("salaryTotal", salaryTotalCents / 100.0);
+    result.put("salaryAverage",
+        headcount == 0 ? 0.0 : (double) salaryTotalCents / headcount / 100.0);
+    result.put("performance", performance);
+    return result;
+  }
 
-    if (this.employees.isEmpty()) {
+  private static void putPerformanceDistribution(
+      Map<String, Object> result, int size, IntUnaryOperator hundredthsAt, long totalHundredths
+  ) {
+    if (size == 0) {
       result.put("highest", 0.0);
       result.put("percentile25", 0.0);
       result.put("median", 0.0);
       result.put("percentile75", 0.0);
       result.put("lowest", 0.0);
       result.put("average", 0.0);
-      result.put("sortedEmployeeIds", new int[0]);
-      return result;
+      return;
     }
 
-    List<Double> performances = new ArrayList<>();
-    for (Employee e : this.employees) {
-      performances.add(e.getPerformance());
-    }
-    performances.sort(Double::compareTo);
-
-    int size = performances.size();
-    double highest = performances.get(size - 1);
-    double lowest = performances.get(0);
+    // Every value is read by rank, so nothing is sorted here
+    double highest = hundredthsAt.applyAsInt(size - 1) / 100.0;
+    double lowest = hundredthsAt.applyAsInt(0) / 100.0;
     double median = size % 2 == 0
-        ? (performances.get(size / 2 - 1) + performances.get(size / 2)) / 2
-        : performances.get(size / 2);
+        ? ((long) hundredthsAt.applyAsInt(size / 2 - 1) + hundredthsAt.applyAsInt(size / 2))
+            / 200.0
+        : hundredthsAt.applyAsInt(size / 2) / 100.0;
 
     // Calculate quartiles safely
-    double q1 = size < 4 ? lowest : performances.get(Math.max(0, (size - 1) / 4));
-    double q3 = size < 4 ? highest : performances.get(Math.min(size - 1, (size - 1) * 3 / 4));
-
-    // Calculate average
-    double average = performances.stream()
-        .mapToDouble(Double::doubleValue)
-        .average()
-        .orElse(0.0);
+    double q1 = size < 4 ? lowest : hundredthsAt.applyAsInt(Math.max(0, (size - 1) / 4)) / 100.0;
+    double q3 = size < 4
+        ? highest : hundredthsAt.applyAsInt(Math.min(size - 1, (size - 1) * 3 / 4)) / 100.0;
 
     result.put("highest", highest);
     result.put("percentile25", q1);
     result.put("median", median);
     result.put("percentile75", q3);
     result.put("lowest", lowest);
-    result.put("average", average);
-
-    // Sort employees by performance (descending) and get their IDs
-    int[] sortedIds = this.employees.stream()
-        .sorted((e1, e2) -> Double.compare(e2.getPerformance(), e1.getPerformance()))
-        .mapToInt(Employee::getId)
-        .toArray();
-    result.put("sortedEmployeeIds", sortedIds);
-
-    return result;
+    result.put("average", (double) totalHundredths / size / 100.0);
   }
 
   /**
@@ -232,6 +685,8 @@ public class Department extends OrganizationComposite {
     result.put("head", this.head != null ? this.head.getName() : "");
     result.put("headId", this.head != null ? this.head.getId() : "");
     result.put("employeeCount", this.employees.size());
+    result.put("parentId", this.parent != null ? this.parent.getId() : "");
+    result.put("subDepartmentIds", this.subDepartments.stream().map(Department::getId).toList());
 
     // Add detailed employee information if needed
     List<Map<String, Object>> employeesList = this.employees.stream().map(emp -> {
@@ -1,41 +1,49 @@
 package dev.coms4156.project;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class represents an employee in the organization.
  * Designed under the Composite Design Pattern.
  */
 public class Employee implements OrganizationComponent {
+  /** The hire epoch day of an employee whose hire date is unknown. */
+  public static final int NO_HIRE_DATE = Integer.MIN_VALUE;
+  // One read-only date per hire day, shared by all the employees hired on that day
+  private static final Map<Integer, Date> HIRE_DATES = new ConcurrentHashMap<>();
+
   private final int id;
-  private final String name;
-  private final Date hireDate;
-  private String position;
-  private double salary;
-  private double performance;
+  private String name;
+  private final int hireEpochDay; // Days since 1970-01-01 in the system time zone
+  private int positionCode; // Encoded by the PositionDictionary
+  private long salaryCents;
+  private int performanceHundredths;
+  private int managerId; // External ID of the manager, 0 for none
+  private int shiftMask; // Weekly shifts, encoded by the ShiftSchedule
+  private List<EmployeeObserver> observers;
 
   /**
    * Constructs an employee with the given ID, name, and hire date.
    *
    * @param id the ID of the employee (external ID)
    * @param name the name of the employee
-   * @param hireDate the hire date of the employee
+   * @param hireDate the hire date of the employee, or null if unknown
    */
   public Employee(int id, String name, Date hireDate) {
     this.id = id;
     this.name = name;
-    if (hireDate == null) {
-      this.hireDate = new Date();
-    } else {
-      this.hireDate = new Date(hireDate.getTime());
-    }
-    this.position = "Other";
-    this.salary = 0;
-    this.performance = 0;
+    this.hireEpochDay = toEpochDay(hireDate);
+    this.positionCode = PositionDictionary.encode("Other");
+    this.salaryCents = 0;
+    this.performanceHundredths = 0;
   }
 
   /**
@@ -44,7 +52,7 @@ public class Employee implements OrganizationComponent {
    *
    * @param id the ID of the employee (external ID)
    * @param name the name of the employee
-   * @param hireDate the hire date of the employee
+   * @param hireDate the hire date of the employee, or null if unknown
    * @param position the position of the employee
    * @param salary the current salary of the employee
    * @param performance the performance of the employee
@@ -54,18 +62,31 @@ public class Employee implements OrganizationComponent {
   ) {
     this.id = id;
     this.name = name;
-    if (hireDate == null) {
-      this.hireDate = new Date();
-    } else {
-      this.hireDate = new Date(hireDate.getTime());
-    }
+    this.hireEpochDay = toEpochDay(hireDate);
     if (position == null || position.isEmpty()) {
-      this.position = "Other";
+      this.positionCode = PositionDictionary.encode("Other");
     } else {
-      this.position = position;
+      this.positionCode = PositionDictionary.encode(position);
     }
-    this.salary = salary;
-    this.performance = performance;
+    this.salaryCents = toCents(salary);
+    this.performanceHundredths = toHundredths(performance);
+  }
+
+  /**
+   * Copy constructor, copying every field of an employee but none of its observers.
+   * The copy can be changed without affecting the departments of the original.
+   *
+   * @param other the employee to copy
+   */
+  public Employee(Employee other) {
+    this.id = other.id;
+    this.name = other.name;
+    this.hireEpochDay = other.hireEpochDay;
+    this.positionCode = other.positionCode;
+    this.salaryCents = other.salaryCents;
+    this.performanceHundredths = other.performanceHundredths;
+    this.managerId = other.managerId;
+    this.shiftMask = other.shiftMask;
   }
 
   /**
@@ -88,6 +109,15 @@ public class Employee implements OrganizationComponent {
     return this.name;
   }
 
+  /**
+   * Sets the name of the employee.
+   *
+   * @param name the new name
+   */
+  public void setName(String name) {
+    this.name = name;
+  }
+
   /**
    * Returns the type name of the employee.
    *
@@ -109,12 +139,29 @@ public class Employee implements OrganizationComponent {
   }
 
   /**
-   * Returns the hire date of the employee.
+   * Returns the hire date of the employee. The date is shared and cannot be changed.
    *
-   * @return the hire date of the employee
+   * @return the hire date of the employee, at the start of the day, or null if unknown
    */
   public Date getHireDate() {
-    return new Date(this.hireDate.getTime());
+    if (this.hireEpochDay == NO_HIRE_DATE) {
+      return null;
+    }
+    Date hireDate = HIRE_DATES.get(this.hireEpochDay);
+    if (hireDate == null) {
+      hireDate = HIRE_DATES.computeIfAbsent(this.hireEpochDay,
+          day -> new HireDate(toStartOfDayMillis(day)));
+    }
+    return hireDate;
+  }
+
+  /**
+   * Returns the hire date of the employee as a number of days.
+   *
+   * @return the number of days from 1970-01-01 to the hire date, or NO_HIRE_DATE if unknown
+   */
+  public int getHireEpochDay() {
+    return this.hireEpochDay;
   }
 
   /**
@@ -123,7 +170,16 @@ public class Employee implements OrganizationComponent {
    * @return the position of the employee
    */
   public String getPosition() {
-    return this.position;
+    return PositionDictionary.decode(this.positionCode);
+  }
+
+  /**
+   * Returns the code of the position of the employee.
+   *
+   * @return the code given by the PositionDictionary
+   */
+  int getPositionCode() {
+    return this.positionCode;
   }
 
   /**
@@ -132,7 +188,14 @@ public class Employee implements OrganizationComponent {
    * @param position the position of the employee
    */
   public void setPosition(String position) {
-    this.position = position;
+    int previousCode = this.positionCode;
+    this.positionCode = PositionDictionary.encode(position);
+    if (this.observers != null && previousCode != this.positionCode) {
+      String previousPosition = PositionDictionary.decode(previousCode);
+      for (EmployeeObserver observer : this.observers) {
+        observer.onPositionChanged(this, previousPosition);
+      }
+    }
   }
 
   /**
@@ -141,7 +204,16 @@ public class Employee implements OrganizationComponent {
    * @return the salary of the employee
    */
   public double getSalary() {
-    return this.salary;
+    return this.salaryCents / 100.0;
+  }
+
+  /**
+   * Returns the salary of the employee in cents.
+   *
+   * @return the salary of the employee in cents
+   */
+  public long getSalaryCents() {
+    return this.salaryCents;
   }
 
   /**
@@ -150,7 +222,13 @@ public class Employee implements OrganizationComponent {
    * @param salary the new salary of the employee
    */
   public void setSalary(double salary) {
-    this.salary = salary;
+    long previousCents = this.salaryCents;
+    this.salaryCents = toCents(salary);
+    if (this.observers != null && previousCents != this.salaryCents) {
+      for (EmployeeObserver observer : this.observers) {
+        observer.onSalaryChanged(this, previousCents);
+      }
+    }
   }
 
   /**
@@ -159,7 +237,16 @@ public class Employee implements OrganizationComponent {
    * @return the performance of the employee
    */
   public double getPerformance() {
-    return this.performance;
+    return this.performanceHundredths / 100.0;
+  }
+
+  /**
+   * Returns the performance of the employee in hundredths.
+   *
+   * @return the performance of the employee in hundredths
+   */
+  public int getPerformanceHundredths() {
+    return this.performanceHundredths;
   }
 
   /**
@@ -168,7 +255,83 @@ public class Employee implements OrganizationComponent {
    * @param performance the new performance of the employee
    */
   public void setPerformance(double performance) {
-    this.performance = performance;
+    int previousHundredths = this.performanceHundredths;
+    this.performanceHundredths = toHundredths(performance);
+    if (this.observers != null && previousHundredths != this.performanceHundredths) {
+      for (EmployeeObserver observer : this.observers) {
+        observer.onPerformanceChanged(this, previousHundredths);
+      }
+    }
+  }
+
+  /**
+   * Returns the manager of the employee.
+   *
+   * @return the ID of the manager (external ID), or 0 if the employee has no manager
+   */
+  public int getManagerId() {
+    return this.managerId;
+  }
+
+  /**
+   * Sets the manager of the employee.
+   *
+   * @param managerId the ID of the manager (external ID), or 0 for no manager
+   */
+  public void setManagerId(int managerId) {
+    this.managerId = managerId;
+  }
+
+  /**
+   * Returns the weekly shifts of the employee.
+   *
+   * @return the shifts, as a ShiftSchedule mask
+   */
+  public int getShiftMask() {
+    return this.shiftMask;
+  }
+
+  /**
+   * Sets the weekly shifts of the employee.
+   *
+   * @param shiftMask the shifts, as a ShiftSchedule mask
+   * @throws IllegalArgumentException if the mask has bits outside of the week
+   */
+  public void setShiftMask(int shiftMask) {
+    if ((shiftMask & ~ShiftSchedule.FULL_WEEK) != 0) {
+      throw new IllegalArgumentException("Shift mask [" + shiftMask + "] is outside of the week");
+    }
+    int previousMask = this.shiftMask;
+    this.shiftMask = shiftMask;
+    if (this.observers != null && previousMask != shiftMask) {
+      for (EmployeeObserver observer : this.observers) {
+        observer.onShiftsChanged(this, previousMask);
+      }
+    }
+  }
+
+  /**
+   * Registers an observer to be notified of changes of the employee.
+   * An observer registered twice is notified twice.
+   *
+   * @param observer the observer
+   */
+  void addObserver(EmployeeObserver observer) {
+    if (this.observers == null) {
+      this.observers = new ArrayList<>(1);
+    }
+    this.observers.add(observer);
+  }
+
+  /**
+   * Removes one registration of an observer.
+   *
+   * @param observer the observer
+   */
+  void removeObserver(EmployeeObserver observer) {
+    if (this.observers != null) {
+      this.observers.remove(observer);
+    }
   }
 
   /**
@@ -180,11 +343,14 @@ public class Employee implements OrganizationComponent {
     Map<String, Object> result = new HashMap<>();
     result.put("ID", this.id);
     result.put("name", this.name);
-    result.put("hireDate", this.hireDate);
-    result.put("position", this.position);
-    result.put("salary", this.salary);
-    result.put("performance", this.performance);
-    result.put("representation", this.toString());
+    Date hireDate = this.getHireDate();
+    result.put("hireDate", hireDate);
+    result.put("position", this.getPosition());
+    result.put("salary", this.getSalary());
+    result.put("performance", this.getPerformance());
+    result.put("managerId", this.managerId == 0 ? "" : this.managerId);
+    result.put("shifts", ShiftSchedule.format(this.shiftMask));
+    result.put("representation", this.toString(hireDate));
     return result;
   }
 
@@ -195,6 +361,87 @@ public class Employee implements OrganizationComponent {
    */
   @Override
   public String toString() {
-    return "Employee: " + this.name + " (ID: " + this.id + ")" + " Hired at: " + this.hireDate;
+    return toString(getHireDate());
+  }
+
+  private String toString(Date hireDate) {
+    return "Employee: " + this.name + " (ID: " + this.id + ")" + " Hired at: " + hireDate;
+  }
+
+  private static int toEpochDay(Date date) {
+    if (date == null) {
+      return NO_HIRE_DATE;
+    }
+    // Not Date.toInstant(), which java.sql.Date does not support
+    Instant instant = Instant.ofEpochMilli(date.getTime());
+    return (int) LocalDate.ofInstant(instant, ZoneId.systemDefault()).toEpochDay();
+  }
+
+  private static long toStartOfDayMillis(int epochDay) {
+    return LocalDate.ofEpochDay(epochDay).atStartOfDay(ZoneId.systemDefault())
+        .toInstant().toEpochMilli();
+  }
+
+  private static long toCents(double amount) {
+    // The schema stores DECIMAL(10,2), so amounts are rounded to the cent
+    return Math.round(amount * 100);
+  }
+
+  private static int toHundredths(double amount) {
+    // The schema stores DECIMAL(5,2); out of range values saturate instead of wrapping
+    long hundredths = Math.round(amount * 100);
+    return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, hundredths));
+  }
+
+  /**
+   * A hire date that cannot be changed, so that it can be shared.
+   */
+  private static final class HireDate extends Date {
+    private static final long serialVersionUID = 1L;
+
+    private HireDate(long millis) {
+      super(millis);
+    }
+
+    @Override
+    public void setTime(long time) {
+      throw new UnsupportedOperationException("Hire dates cannot be changed");
+    }
+
+    @Deprecated
+    @Override
+    public void setYear(int year) {
+      throw new UnsupportedOperationException("Hire dates cannot be changed");
+    }
+
+    @Deprecated
+    @Override
+    public void setMonth(int month) {
+      throw new UnsupportedOperationException("Hire dates cannot be changed");
+    }
+
+    @Deprecated
+    @Override
+    public void setDate(int date) {
+      throw new UnsupportedOperationException("Hire dates cannot be changed");
+    }
+
+    @Deprecated
+    @Override
+    public void setHours(int hours) {
+      throw new UnsupportedOperationException("Hire dates cannot be changed");
+    }
+
+    @Deprecated
+    @Override
+    public void setMinutes(int minutes) {
+      throw new UnsupportedOperationException("Hire dates cannot be changed");
+    }
+
+    @Deprecated
+    @Override
+    public void setSeconds(int seconds) {
+      throw new UnsupportedOperationException("Hire dates cannot be changed");
+    }
   }
 }
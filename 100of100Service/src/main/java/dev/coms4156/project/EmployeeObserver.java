@@ -0,0 +1,40 @@
+package dev.coms4156.project;
+
+/**
+ * This interface is used to be notified when the attributes of an employee change.
+ * Designed under the Observer Design Pattern.
+ */
+public interface EmployeeObserver {
+
+  /**
+   * Called after the salary of an observed employee has changed.
+   *
+   * @param employee the employee, already holding the new salary
+   * @param previousCents the salary before the change, in cents
+   */
+  void onSalaryChanged(Employee employee, long previousCents);
+
+  /**
+   * Called after the performance of an observed employee has changed.
+   *
+   * @param employee the employee, already holding the new performance
+   * @param previousHundredths the performance before the change, in hundredths
+   */
+  void onPerformanceChanged(Employee employee, int previousHundredths);
+
+  /**
+   * Called after the position of an observed employee has changed.
+   *
+   * @param employee the employee, already holding the new position
+   * @param previousPosition the position before the change
+   */
+  void onPositionChanged(Employee employee, String previousPosition);
+
+  /**
+   * Called after the weekly shifts of an observed employee have changed.
+   *
+   * @param employee the employee, already holding the new shifts
+   * @param previousMask the shifts before the change, as a ShiftSchedule mask
+   */
+  void onShiftsChanged(Employee employee, int previousMask);
+}
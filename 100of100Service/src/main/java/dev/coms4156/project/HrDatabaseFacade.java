@@ -1,9 +1,23 @@
 package dev.coms4156.project;
 
 import dev.coms4156.project.exception.NotFoundException;
+import dev.coms4156.project.utils.IdMembership;
+import dev.coms4156.project.utils.IntHashMap;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -11,16 +25,80 @@ import org.slf4j.LoggerFactory;
  * A singleton class of HR database facade.
  * This class is responsible for creating and managing the connection to the HR database.
  * Designed under the Singleton Design Pattern.
+ *
+ * <p>Each organization has its own facade and its own lock. Reads of the cache are optimistic
+ * and do not block, writes to one organization are serialized and never block another.
+ *
+ * <p>Concurrent employee updates of one organization are group committed: the updates arriving
+ * within a short window, set by the system property {@code write.groupCommitWindowMicros},
+ * are written as one batch in one transaction, and each caller still gets its own result.
+ *
+ * <p>The cached organizations share a heap budget, set by the system property
+ * {@code cache.maxBytes}. When loading an organization exceeds the budget, the least recently
+ * used organizations are evicted and transparently loaded again on their next access.
  */
 public final class HrDatabaseFacade {
   private static final Logger logger = LoggerFactory.getLogger(HrDatabaseFacade.class);
-  private static final Map<Integer, HrDatabaseFacade> instances = new HashMap<>();
-  private static DatabaseConnection dbConnection = null;
+  private static final int INIT_LOCK_STRIPES = 64;
+  private static final Map<Integer, HrDatabaseFacade> instances = new ConcurrentHashMap<>();
+  private static final Object[] initLocks = new Object[INIT_LOCK_STRIPES];
+  private static volatile DatabaseConnection dbConnection = null;
+
+  // Rough heap cost of each cached object, including the lists and indexes referencing it
+  static final long ORGANIZATION_BYTES = 512;
+  static final long DEPARTMENT_BYTES = 256;
+  static final long EMPLOYEE_BYTES = 320;
+  private static final long DEFAULT_CACHE_MAX_BYTES = 64L * 1024 * 1024;
+  private static volatile long cacheMaxBytes =
+      Long.getLong("cache.maxBytes", DEFAULT_CACHE_MAX_BYTES);
+  private static final long MISS_TTL_MILLIS = Long.getLong("cache.missTtlMs", 5000L);
+  private static final long GROUP_COMMIT_WINDOW_NANOS =
+      TimeUnit.MICROSECONDS.toNanos(Long.getLong("write.groupCommitWindowMicros", 1000L));
+  // Whether the calling thread runs a unit of work, whose writes are never group committed
+  private static final ThreadLocal<Boolean> runningUnitOfWork =
+      ThreadLocal.withInitial(() -> false);
+  private static final Object evictionLock = new Object();
+  private static final AtomicLong hitCount = new AtomicLong();
+  private static final AtomicLong loadCount = new AtomicLong();
+  private static final AtomicLong evictionCount = new AtomicLong();
+
+  static {
+    for (int i = 0; i < INIT_LOCK_STRIPES; i++) {
+      initLocks[i] = new Object();
+    }
+  }
 
   private final int organizationId;
+  private final StampedLock lock = new StampedLock();
   List<Employee> employees;
   List<Department> departments;
-  private Organization organization;
+  IntHashMap<Employee> employeeIndex;
+  IntHashMap<Department> departmentIndex;
+  IdMembership employeeIds;
+  IdMembership departmentIds;
+  ReportingIndex reportingIndex;
+  private volatile Organization organization;
+  private volatile long lastAccess;
+  // The thread running a unit of work on this organization, which holds the write lock meanwhile
+  private volatile Thread unitOwner;
+  // Employee updates waiting for the next group commit, guarded by the list itself
+  private final List<PendingUpdate> pendingUpdates = new ArrayList<>();
+  private boolean groupCommitPending;
+  // Whether a group of updates is being written, guarded by the pending updates
+  private boolean groupCommitRunning;
+
+  /**
+   * An employee update waiting for a group commit. The caller waits for the result,
+   * so the employee is not changed while the update is queued.
+   */
+  private static final class PendingUpdate {
+    private final Employee employee;
+    private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+    private PendingUpdate(Employee employee) {
+      this.employee = employee;
+    }
+  }
 
   /**
    * Constructs an HR database facade instance for a specific organization.
@@ -33,15 +111,211 @@ public final class HrDatabaseFacade {
     }
     this.organizationId = organizationId;
     // Initialize the in-memory cache
-    this.organization = dbConnection.getOrganization(organizationId);
-    if (this.organization == null) {
+    if (!reload()) {
       logger.warn("Organization not found: {}", organizationId);
       throw new NotFoundException("Organization not found");
     }
-    this.departments = dbConnection.getDepartments(organizationId);
-    this.organization.setDepartments(this.departments);
-    this.employees = dbConnection.getEmployees(organizationId);
-    this.organization.setEmployees(this.employees);
+  }
+
+  /**
+   * Drops the in-memory cache of the organization and loads it again from the database.
+   * Writes through this facade keep the cache up to date on their own, so this is only
+   * needed when the database is changed by someone else.
+   *
+   * @return true if the cache is refreshed, false otherwise
+   */
+  public boolean invalidate() {
+    return reload();
+  }
+
+  /**
+   * Runs several writes to the organization as one unit of work, committed once when the work
+   * returns and rolled back together if it throws. The unit holds the write lock of the cache
+   * until it is done, so other reads and writes of the organization wait for it and never see
+   * changes that are not committed yet. The work may change the cached departments and
+   * employees itself meanwhile. If the work throws or rolls back to a savepoint, the cache is
+   * loaded again before the lock is released, as it may hold changes that have been undone.
+   *
+   * @param work the work, writing through this facade
+   * @param <T> the type of the result of the work
+   * @return the result of the work
+   */
+  public synchronized <T> T inUnitOfWork(UnitOfWork.Work<T> work) {
+    boolean outermost = !runningUnitOfWork.get();
+    boolean owner = this.unitOwner == null;
+    boolean[] rolledBack = new boolean[1];
+    UnitOfWork.Work<T> tracked = unit -> work.run(new UnitOfWork() {
+      @Override
+      public int savepoint() {
+        return unit.savepoint();
+      }
+
+      @Override
+      public void rollbackTo(int savepoint) {
+        unit.rollbackTo(savepoint);
+        rolledBack[0] = true;
+      }
+    });
+
+    runningUnitOfWork.set(true);
+    long stamp = 0L;
+    if (owner) {
+      stamp = lock.writeLock();
+      this.unitOwner = Thread.currentThread();
+    }
+    try {
+      T result = dbConnection.inUnitOfWork(tracked);
+      if (rolledBack[0]) {
+        reload();
+      }
+      return result;
+    } catch (RuntimeException e) {
+      reload();
+      throw e;
+    } finally {
+      if (owner) {
+        this.unitOwner = null;
+        lock.unlockWrite(stamp);
+      }
+      if (outermost) {
+        runningUnitOfWork.remove();
+      }
+    }
+  }
+
+  /**
+   * Refreshes the in-memory cache with a single bulk load of the organization,
+   * its departments and its employees.
+   * The current cache is kept if the organization cannot be loaded.
+   * Reloads are serialized with the writes so that a write is never lost to a stale load.
+   *
+   * @return true if the cache is refreshed, false otherwise
+   */
+  private synchronized boolean reload() {
+    Organization loaded = dbConnection.loadOrganization(this.organizationId);
+    if (loaded == null) {
+      return false;
+    }
+    write(() -> {
+      this.organization = loaded;
+      cacheDepartments(loaded.getDepartments());
+      cacheEmployees(loaded.getEmployees());
+    });
+    return true;
+  }
+
+  /**
+   * Replaces the cached employees and rebuilds the id index over them.
+   *
+   * @param loaded the employees of the organization
+   */
+  private void cacheEmployees(List<Employee> loaded) {
+    this.employees = new ArrayList<>(loaded);
+    this.employeeIndex = new IntHashMap<>(loaded.size());
+    this.employeeIds = new IdMembership(MISS_TTL_MILLIS);
+    for (Employee employee : loaded) {
+      this.employeeIndex.put(employee.getId(), employee);
+      this.employeeIds.add(employee.getId());
+    }
+    this.reportingIndex = new ReportingIndex(loaded);
+  }
+
+  /**
+   * Replaces the cached departments and rebuilds the id index over them.
+   *
+   * @param loaded the departments of the organization
+   */
+  private void cacheDepartments(List<Department> loaded) {
+    this.departments = new ArrayList<>(loaded);
+    this.departmentIndex = new IntHashMap<>(loaded.size());
+    this.departmentIds = new IdMembership(MISS_TTL_MILLIS);
+    for (Department department : loaded) {
+      this.departmentIndex.put(department.getId(), department);
+      this.departmentIds.add(department.getId());
+    }
+  }
+
+  /**
+   * Reads from the cache without taking a lock if no write happens at the same time.
+   * If a write interferes, the read is retried under the read lock.
+   *
+   * @param reader the read of the cache
+   * @param <T> the type of the read result
+   * @return the read result
+   */
+  private <T> T read(Supplier<T> reader) {
+    if (this.unitOwner == Thread.currentThread()) {
+      return reader.get();
+    }
+    long stamp = lock.tryOptimisticRead();
+    if (stamp != 0L) {
+      try {
+        T result = reader.get();
+        if (lock.validate(stamp)) {
+          return result;
+        }
+      } catch (RuntimeException e) {
+        // A concurrent write may leave the cache inconsistent for a moment, retry under the lock
+      }
+    }
+    stamp = lock.readLock();
+    try {
+      return reader.get();
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  /**
+   * Reads the cached departments and employees under the read lock, so that no write changes
+   * them meanwhile. Reads of the statistics or of the structure of a department should go
+   * through this, as its aggregates are not safe to read while a write changes them.
+   *
+   * @param reader the read of the cache
+   * @param <T> the type of the read result
+   * @return the read result
+   */
+  public <T> T readLocked(Supplier<T> reader) {
+    if (this.unitOwner == Thread.currentThread()) {
+      // The unit of work of this thread already holds the write lock
+      return reader.get();
+    }
+    long stamp = lock.readLock();
+    try {
+      return reader.get();
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  /**
+   * Changes the cache under the write lock.
+   *
+   * @param writer the change of the cache
+   */
+  private void write(Runnable writer) {
+    if (this.unitOwner == Thread.currentThread()) {
+      writer.run();
+      return;
+    }
+    long stamp = lock.writeLock();
+    try {
+      writer.run();
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Returns an estimate of the heap used by the cache of this organization.
+   *
+   * @return the estimated number of bytes
+   */
+  long estimatedBytes() {
+    // Read without the lock, so that an eviction never waits for a unit of work
+    return ORGANIZATION_BYTES
+        + DEPARTMENT_BYTES * departments.size()
+        + EMPLOYEE_BYTES * employees.size();
   }
 
   /**
@@ -52,24 +326,15 @@ public final class HrDatabaseFacade {
    */
   public Employee getEmployee(int employeeId) {
     // Check the in-memory cache
-    Employee employee = employees
-        .stream()
-        .filter(e -> e.getId() == employeeId)
-        .findFirst()
-        .orElse(null);
-
-    if (employee == null) {
-      // If not found in cache, query the database
-      List<Employee> updatedEmployees = dbConnection.getEmployees(this.organizationId);
-      employee = updatedEmployees
-          .stream()
-          .filter(e -> e.getId() == employeeId)
-          .findFirst()
-          .orElse(null);
-
-      if (employee != null) {
-        // Update the cache
-        this.employees = updatedEmployees;
+    Employee employee = read(() -> employeeIndex.get(employeeId));
+
+    if (employee == null && mayExist(this.employeeIds, employeeId,
+        () -> dbConnection.getHighestReservedEmployeeId(this.organizationId))) {
+      // The cache may be stale, look up the single employee before refreshing the cache
+      if (dbConnection.getEmployee(this.organizationId, employeeId) == null) {
+        write(() -> employeeIds.recordMiss(employeeId));
+      } else if (reload()) {
+        employee = read(() -> employeeIndex.get(employeeId));
       }
     }
 
@@ -84,33 +349,43 @@ public final class HrDatabaseFacade {
    */
   public Department getDepartment(int departmentId) {
     // Check the in-memory cache
-    Department department = departments
-        .stream()
-        .filter(d -> d.getId() == departmentId)
-        .findFirst()
-        .orElse(null);
-    if (department != null) {
-      System.out.println(department.toJson());
-    }
-
-    if (department == null) {
-      // If not found in cache, query the database
-      List<Department> updatedDepartments = dbConnection.getDepartments(this.organizationId);
-      department = updatedDepartments
-          .stream()
-          .filter(d -> d.getId() == departmentId)
-          .findFirst()
-          .orElse(null);
+    Department department = read(() -> departmentIndex.get(departmentId));
 
-      if (department != null) {
-        // Update the cache
-        this.departments = updatedDepartments;
+    if (department == null && mayExist(this.departmentIds, departmentId,
+        () -> dbConnection.getHighestReservedDepartmentId(this.organizationId))) {
+      // The cache may be stale, look up the single department before refreshing the cache
+      if (dbConnection.getDepartment(this.organizationId, departmentId) == null) {
+        write(() -> departmentIds.recordMiss(departmentId));
+      } else if (reload()) {
+        department = read(() -> departmentIndex.get(departmentId));
       }
     }
 
     return department;
   }
 
+  /**
+   * Returns whether an id missing from the cache has to be looked up in the database.
+   * The highest reserved id is read again only for an id above it once it is stale,
+   * so that unknown ids above it are answered without a lookup of their own.
+   *
+   * @param ids the ids of the entity
+   * @param id the id
+   * @param highestReserved reads the highest reserved id of the entity
+   * @return true if the id may exist
+   */
+  private boolean mayExist(IdMembership ids, int id, IntSupplier highestReserved) {
+    if (!read(() -> ids.mayExist(id))) {
+      return false;
+    }
+    if (read(() -> ids.needsReservedLimit(id))) {
+      int limit = highestReserved.getAsInt();
+      write(() -> ids.setReservedLimit(limit));
+      return read(() -> ids.mayExist(id));
+    }
+    return true;
+  }
+
   /**
    * Returns the organization of the client.
    *
@@ -121,30 +396,301 @@ public final class HrDatabaseFacade {
     return organization;
   }
 
+  /**
+   * Streams every employee of the organization from the database to a consumer, one at a time.
+   * Org-wide statistics and exports use it so that they neither copy the cache
+   * nor hold its lock while they walk the whole organization.
+   *
+   * @param consumer the consumer of each employee
+   */
+  public void forEachEmployee(Consumer<Employee> consumer) {
+    dbConnection.forEachEmployee(this.organizationId, consumer);
+  }
+
+  /**
+   * Returns the IDs of the direct and indirect reports of an employee.
+   *
+   * @param employeeId the employee ID
+   * @return the IDs of the reports, in reporting-line order, or null if the employee is unknown
+   */
+  public int[] getReportIds(int employeeId) {
+    return read(() -> reportingIndex.getReports(employeeId));
+  }
+
+  /**
+   * Returns the IDs of the direct reports of an employee.
+   *
+   * @param employeeId the employee ID
+   * @return the IDs of the direct reports, or null if the employee is unknown
+   */
+  public int[] getDirectReportIds(int employeeId) {
+    return read(() -> reportingIndex.getDirectReports(employeeId));
+  }
+
+  /**
+   * Returns the span of control of an employee.
+   *
+   * @param employeeId the employee ID
+   * @return the number of direct reports followed by the number of all reports,
+   *     or null if the employee is unknown
+   */
+  public int[] getSpanOfControl(int employeeId) {
+    return read(() -> reportingIndex.contains(employeeId)
+        ? new int[] {
+            reportingIndex.countDirectReports(employeeId),
+            reportingIndex.countReports(employeeId)
+        }
+        : null);
+  }
+
+  /**
+   * Returns whether an employee can report to a manager without closing a reporting cycle.
+   *
+   * @param employeeId the employee ID
+   * @param managerId the manager ID, or 0 for no manager
+   * @return true if both are known and the manager does not report to the employee
+   */
+  public boolean canSetManager(int employeeId, int managerId) {
+    return read(() -> reportingIndex.canSetManager(employeeId, managerId));
+  }
+
   /**
    * Updates the employee information.
+   * The cached employee takes the new values once they are written, so callers should pass
+   * a copy of it rather than change the cached instance themselves.
+   * A new manager that would close a reporting cycle is refused.
+   * Updates keeping the manager are group committed with the concurrent updates of the
+   * organization: the first one writes every update queued so far in one batch, while the
+   * others wait for their result. It only waits for the group commit window first when a group
+   * is being written meanwhile, so an update that comes alone is written at once.
    *
    * @param employee the updated employee object
    * @return true if the employee is updated successfully, false otherwise
    */
   public boolean updateEmployee(Employee employee) {
+    // Inside a unit of work, the batch would be written outside of its transaction
+    if (runningUnitOfWork.get() || managerChanged(employee)) {
+      return updateEmployeeAlone(employee);
+    }
+    PendingUpdate update = new PendingUpdate(employee);
+    boolean first;
+    boolean contended;
+    synchronized (this.pendingUpdates) {
+      this.pendingUpdates.add(update);
+      first = !this.groupCommitPending;
+      this.groupCommitPending = true;
+      contended = this.groupCommitRunning;
+    }
+    if (first) {
+      if (contended && GROUP_COMMIT_WINDOW_NANOS > 0) {
+        LockSupport.parkNanos(GROUP_COMMIT_WINDOW_NANOS);
+      }
+      commitPendingUpdates();
+    }
+    try {
+      return update.result.join();
+    } catch (CompletionException e) {
+      throw e.getCause() instanceof RuntimeException cause ? cause : e;
+    }
+  }
+
+  /**
+   * Writes the queued employee updates in one batch and completes them.
+   * Updates that change their manager in the meantime, or a batch that fails,
+   * fall back to single updates, so that each update gets its own result.
+   */
+  private synchronized void commitPendingUpdates() {
+    List<PendingUpdate> updates;
+    synchronized (this.pendingUpdates) {
+      updates = new ArrayList<>(this.pendingUpdates);
+      this.pendingUpdates.clear();
+      this.groupCommitPending = false;
+      this.groupCommitRunning = true;
+    }
+    try {
+      List<PendingUpdate> grouped = new ArrayList<>(updates.size());
+      List<Employee> batch = new ArrayList<>(updates.size());
+      for (PendingUpdate update : updates) {
+        if (!managerChanged(update.employee)) {
+          grouped.add(update);
+          batch.add(update.employee);
+        }
+      }
+      if (batch.size() > 1 && dbConnection.updateEmployees(this.organizationId, batch)) {
+        cacheEmployeeUpdates(batch);
+        for (PendingUpdate update : grouped) {
+          update.result.complete(true);
+        }
+      }
+      for (PendingUpdate update : updates) {
+        if (!update.result.isDone()) {
+          update.result.complete(updateEmployeeAlone(update.employee));
+        }
+      }
+    } catch (RuntimeException e) {
+      for (PendingUpdate update : updates) {
+        update.result.completeExceptionally(e);
+      }
+    } finally {
+      synchronized (this.pendingUpdates) {
+        this.groupCommitRunning = false;
+      }
+    }
+  }
+
+  /**
+   * Returns whether an update changes the manager of a known employee.
+   *
+   * @param employee the updated employee object
+   * @return true if the manager of the employee changes
+   */
+  private boolean managerChanged(Employee employee) {
+    return read(() -> reportingIndex.contains(employee.getId())
+        && reportingIndex.getManager(employee.getId()) != employee.getManagerId());
+  }
+
+  /**
+   * Updates the employee information with a single update.
+   *
+   * @param employee the updated employee object
+   * @return true if the employee is updated successfully, false otherwise
+   */
+  private synchronized boolean updateEmployeeAlone(Employee employee) {
+    int managerId = employee.getManagerId();
+    boolean managerChanged = managerChanged(employee);
+    if (managerChanged && !canSetManager(employee.getId(), managerId)) {
+      return false;
+    }
     boolean success = dbConnection.updateEmployee(this.organizationId, employee);
     if (success) {
-      // Update organization-level employee cache
-      this.employees = dbConnection.getEmployees(this.organizationId);
-
-      // Update department-level employee cache
-      for (Department department : this.departments) {
-        List<Employee> deptEmployees = department.getEmployees();
-        for (int i = 0; i < deptEmployees.size(); i++) {
-          Employee deptEmployee = deptEmployees.get(i);
-          if (deptEmployee.getId() == employee.getId()) {
-            // replace the employee in the department cache
-            deptEmployees.set(i, employee);
-            break;
-          }
+      write(() -> {
+        Employee cached = this.employeeIndex.get(employee.getId());
+        if (cached != null && cached != employee) {
+          // The organization, its department and the head all share the cached instance
+          cached.setName(employee.getName());
+          cached.setPosition(employee.getPosition());
+          cached.setSalary(employee.getSalary());
+          cached.setPerformance(employee.getPerformance());
+          cached.setManagerId(managerId);
+        }
+        if (managerChanged) {
+          this.reportingIndex.setManager(employee.getId(), managerId);
+        }
+      });
+    }
+    return success;
+  }
+
+  /**
+   * Updates several employees in a single batch.
+   * The new managers are checked as if they were set one after the other, in order,
+   * and the whole batch is refused if any of them would close a reporting cycle.
+   *
+   * @param employees the updated employee objects
+   * @return true if every employee is updated successfully, false otherwise
+   */
+  public synchronized boolean updateEmployees(List<Employee> employees) {
+    if (!canSetManagers(employees)) {
+      return false;
+    }
+    boolean success = dbConnection.updateEmployees(this.organizationId, employees);
+    if (success) {
+      cacheEmployeeUpdates(employees);
+    }
+    return success;
+  }
+
+  /**
+   * Copies updated employees into the cache under a single write lock.
+   *
+   * @param employees the updated employee objects, already written to the database
+   */
+  private void cacheEmployeeUpdates(List<Employee> employees) {
+    write(() -> {
+      for (Employee employee : employees) {
+        Employee cached = this.employeeIndex.get(employee.getId());
+        if (cached != null && cached != employee) {
+          cached.setName(employee.getName());
+          cached.setPosition(employee.getPosition());
+          cached.setSalary(employee.getSalary());
+          cached.setPerformance(employee.getPerformance());
+          cached.setManagerId(employee.getManagerId());
+        }
+        if (this.reportingIndex.contains(employee.getId())) {
+          this.reportingIndex.setManager(employee.getId(), employee.getManagerId());
+        }
+      }
+    });
+  }
+
+  /**
+   * Returns whether the managers of the given employees can be set one after the other.
+   * The changes are tried on the reporting index, then undone in reverse order.
+   *
+   * @param employees the employees holding their new managers
+   * @return true if no change would close a reporting cycle or refer to an unknown manager
+   */
+  private boolean canSetManagers(List<Employee> employees) {
+    boolean[] allowed = {true};
+    write(() -> {
+      int[] previous = new int[employees.size()];
+      int tried = 0;
+      for (; tried < previous.length; tried++) {
+        Employee employee = employees.get(tried);
+        previous[tried] = this.reportingIndex.getManager(employee.getId());
+        if (this.reportingIndex.contains(employee.getId())
+            && !this.reportingIndex.setManager(employee.getId(), employee.getManagerId())) {
+          allowed[0] = false;
+          break;
+        }
+      }
+      for (int i = tried - 1; i >= 0; i--) {
+        Employee employee = employees.get(i);
+        if (this.reportingIndex.contains(employee.getId())) {
+          this.reportingIndex.setManager(employee.getId(), previous[i]);
         }
       }
+    });
+    return allowed[0];
+  }
+
+  /**
+   * Replaces the weekly shifts of an employee.
+   *
+   * @param employee a copy of the employee holding its new shifts
+   * @return true if the shifts are updated successfully, false otherwise
+   */
+  public synchronized boolean updateEmployeeShifts(Employee employee) {
+    boolean success = dbConnection.updateEmployeeShifts(this.organizationId, employee);
+    if (success) {
+      write(() -> {
+        Employee cached = this.employeeIndex.get(employee.getId());
+        if (cached != null && cached != employee) {
+          // The departments of the cached instance move it in their rosters
+          cached.setShiftMask(employee.getShiftMask());
+        }
+      });
+    }
+    return success;
+  }
+
+  /**
+   * Replaces the weekly shifts of several employees in a single batch.
+   *
+   * @param employees copies of the employees holding their new shifts
+   * @return true if the shifts are updated successfully, false otherwise
+   */
+  public synchronized boolean updateEmployeesShifts(List<Employee> employees) {
+    boolean success = dbConnection.updateEmployeesShifts(this.organizationId, employees);
+    if (success) {
+      write(() -> {
+        for (Employee employee : employees) {
+          Employee cached = this.employeeIndex.get(employee.getId());
+          if (cached != null && cached != employee) {
+            cached.setShiftMask(employee.getShiftMask());
+          }
+        }
+      });
     }
     return success;
   }
@@ -155,30 +701,62 @@ public final class HrDatabaseFacade {
    * @param department the updated department object
    * @return true if the department is updated successfully, false otherwise
    */
-  public boolean updateDepartment(Department department) {
+  public synchronized boolean updateDepartment(Department department) {
     boolean success = dbConnection.updateDepartment(this.organizationId, department);
     if (success) {
-      List<Department> updatedDepartments = dbConnection.getDepartments(this.organizationId);
-      for (Department dept : updatedDepartments) {
-        System.out.println(dept.toJson());
-      }
-      this.organization.setDepartments(updatedDepartments);
-      this.departments = updatedDepartments;
+      write(() -> {
+        Department cached = this.departmentIndex.get(department.getId());
+        if (cached != null && cached != department) {
+          // Swap the cached instance for the updated one
+          department.takePlaceOf(cached);
+          this.departmentIndex.put(department.getId(), department);
+          this.departments.set(this.departments.indexOf(cached), department);
+          this.organization.replaceDepartment(cached, department);
+        }
+      });
     }
     return success;
   }
 
+  /**
+   * Sets the head of a cached department. The new head is written while the cache is held,
+   * so that readers never see a head that failed to be written.
+   *
+   * @param departmentId the department ID
+   * @param head the new head of the department
+   * @return true if the head is set successfully, false otherwise
+   */
+  public synchronized boolean setDepartmentHead(int departmentId, Employee head) {
+    boolean[] success = new boolean[1];
+    write(() -> {
+      Department department = this.departmentIndex.get(departmentId);
+      if (department == null) {
+        return;
+      }
+      Employee previous = department.getHead();
+      department.setHead(head);
+      try {
+        success[0] = dbConnection.updateDepartment(this.organizationId, department);
+      } finally {
+        if (!success[0]) {
+          department.setHead(previous);
+        }
+      }
+    });
+    return success[0];
+  }
+
   /**
    * Updates the organization information.
    *
    * @param organization the updated organization object
    * @return true if the organization is updated successfully, false otherwise
    */
-  public boolean updateOrganization(Organization organization) {
+  public synchronized boolean updateOrganization(Organization organization) {
     boolean success = dbConnection.updateOrganization(organization);
-    if (success) {
-      // Update the in-memory cache
-      this.organization = organization;
+    if (success && organization != this.organization) {
+      // Only the name is stored on the organization row, the cached children are kept
+      write(() -> this.organization.setName(organization.getName()));
     }
     return success;
   }
@@ -190,38 +768,87 @@ public final class HrDatabaseFacade {
    * @param employee the employee to add
    * @return the added employee with assigned ID, or null if failed
    */
-  public Employee addEmployeeToDepartment(int departmentId, Employee employee) {
-    int internalDeptId = this.organizationId * 10000 + departmentId;
-    int internalEmpId = dbConnection
-        .addEmployeeToDepartment(this.organizationId, internalDeptId, employee);
-
-    if (internalEmpId != -1) {
-      int externalEmpId = internalEmpId % 10000;
-
-      Employee newEmployee = new Employee(
-          externalEmpId,
-          employee.getName(),
-          employee.getHireDate(),
-          employee.getPosition(),
-          employee.getSalary(),
-          employee.getPerformance()
-      );
-      System.out.println(newEmployee.toJson());
+  public synchronized Employee addEmployeeToDepartment(int departmentId, Employee employee) {
+    int employeeId = dbConnection
+        .addEmployeeToDepartment(this.organizationId, departmentId, employee);
 
+    if (employeeId != -1) {
       // Update the in-memory cache
-      this.employees = dbConnection.getEmployees(this.organizationId);
-      // This is added for update department-level cache
-      for (Department department : this.departments) {
-        if (department.getId() == departmentId) {
-          department.addEmployee(newEmployee);
-          break;
-        }
-      }
-      return newEmployee;
+      return cacheNewEmployees(departmentId, List.of(employee), new int[] {employeeId}).get(0);
     }
     return null;
   }
 
+  /**
+   * Adds several new employees to a department in a single batch.
+   * Either all of the employees are added or, with a transactional backend, none.
+   *
+   * @param departmentId the department ID
+   * @param employees the partially filled employee objects
+   * @return the real employee objects with the IDs assigned, in the same order,
+   *     or null if the employees cannot be added
+   */
+  public synchronized List<Employee> addEmployeesToDepartment(
+      int departmentId, List<Employee> employees
+  ) {
+    int[] employeeIds = dbConnection
+        .addEmployeesToDepartment(this.organizationId, departmentId, employees);
+    if (employeeIds == null) {
+      return null;
+    }
+    return cacheNewEmployees(departmentId, employees, employeeIds);
+  }
+
+  /**
+   * Adds newly inserted employees to the cache under a single write lock.
+   *
+   * @param departmentId the department ID
+   * @param employees the partially filled employee objects
+   * @param employeeIds the IDs assigned to the employees, in the same order
+   * @return the cached instances of the inserted employees
+   */
+  private List<Employee> cacheNewEmployees(
+      int departmentId, List<Employee> employees, int[] employeeIds
+  ) {
+    List<Employee> cachedEmployees = new ArrayList<>(employees.size());
+    write(() -> {
+      Department department = this.departmentIndex.get(departmentId);
+      // A backend that shares its objects with the cache may have added the employees already
+      IntHashMap<Employee> members = new IntHashMap<>(
+          department == null ? 0 : department.getEmployees().size());
+      if (department != null) {
+        for (Employee member : department.getEmployees()) {
+          members.put(member.getId(), member);
+        }
+      }
+      for (int i = 0; i < employeeIds.length; i++) {
+        Employee employee = employees.get(i);
+        Employee cached = members.get(employeeIds[i]);
+        if (cached == null) {
+          cached = new Employee(
+              employeeIds[i],
+              employee.getName(),
+              employee.getHireDate(),
+              employee.getPosition(),
+              employee.getSalary(),
+              employee.getPerformance()
+          );
+          cached.setManagerId(employee.getManagerId());
+          cached.setShiftMask(employee.getShiftMask());
+          if (department != null) {
+            department.addEmployee(cached);
+          }
+        }
+        this.employees.add(cached);
+        this.employeeIndex.put(employeeIds[i], cached);
+        this.employeeIds.add(employeeIds[i]);
+        this.reportingIndex.add(employeeIds[i], cached.getManagerId());
+        this.organization.addEmployee(cached);
+        cachedEmployees.add(cached);
+      }
+    });
+    return cachedEmployees;
+  }
 
   /**
    * Inserts a new department into the database.
@@ -229,11 +856,16 @@ public final class HrDatabaseFacade {
    * @param department the partially filled department object
    * @return the real department object with the ID assigned
    */
-  public Department insertDepartment(Department department) {
+  public synchronized Department insertDepartment(Department department) {
     Department newDepartment = dbConnection.insertDepartment(this.organizationId, department);
     if (newDepartment != null) {
       // Update the in-memory cache
-      this.departments.add(newDepartment);
+      write(() -> {
+        this.departments.add(newDepartment);
+        this.departmentIndex.put(newDepartment.getId(), newDepartment);
+        this.departmentIds.add(newDepartment.getId());
+        this.organization.addDepartment(newDepartment);
+      });
     }
     return newDepartment;
   }
@@ -245,49 +877,84 @@ public final class HrDatabaseFacade {
    * @param employeeId the employee ID
    * @return true if the employee is removed successfully, false otherwise
    */
-  public boolean removeEmployeeFromDepartment(int departmentId, int employeeId) {
-    int internalDeptId = this.organizationId * 10000 + departmentId;
-    int internalEmpId = this.organizationId * 10000 + employeeId;
-
+  public synchronized boolean removeEmployeeFromDepartment(int departmentId, int employeeId) {
     boolean success = dbConnection.removeEmployeeFromDepartment(
         this.organizationId,
-        internalDeptId,
-        internalEmpId
+        departmentId,
+        employeeId
     );
 
     if (success) {
       // Update the in-memory cache
-      this.employees = dbConnection.getEmployees(this.organizationId);
-      for (Department department : this.departments) {
-        if (department.getId() == departmentId) {
-          Employee employeeToRemove = this.employees
-              .stream()
-              .filter(emp -> emp.getId() == employeeId)
-              .findFirst()
-              .orElse(null);
-
-          if (employeeToRemove != null) {
+      write(() -> {
+        Employee employeeToRemove = this.employeeIndex.remove(employeeId);
+        if (employeeToRemove != null) {
+          this.employees.remove(employeeToRemove);
+          this.organization.removeEmployee(employeeToRemove);
+          this.employeeIds.remove(employeeId);
+          uncacheManager(employeeToRemove);
+          Department department = this.departmentIndex.get(departmentId);
+          if (department != null) {
+            if (department.getHead() == employeeToRemove) {
+              department.setHead(null);
+            }
             department.removeEmployee(employeeToRemove);
           }
-          break;
         }
-      }
+      });
     }
 
     return success;
   }
 
+  /**
+   * Removes an employee from the reporting lines, moving its direct reports up to its manager
+   * as the database does. Must be called under the write lock.
+   *
+   * @param removed the removed employee
+   */
+  private void uncacheManager(Employee removed) {
+    int managerId = this.reportingIndex.getManager(removed.getId());
+    int[] reassigned = this.reportingIndex.remove(removed.getId());
+    if (reassigned == null) {
+      return;
+    }
+    for (int reportId : reassigned) {
+      Employee report = this.employeeIndex.get(reportId);
+      if (report != null) {
+        report.setManagerId(managerId);
+      }
+    }
+  }
+
   /**
    * Removes a department from the database.
    *
    * @param departmentId the department ID
    * @return true if the department is removed successfully, false otherwise
    */
-  public boolean removeDepartment(int departmentId) {
+  public synchronized boolean removeDepartment(int departmentId) {
     boolean success = dbConnection.removeDepartment(this.organizationId, departmentId);
     if (success) {
       // Update the in-memory cache
-      this.departments.removeIf(dept -> dept.getId() == departmentId);
+      write(() -> {
+        this.departments.removeIf(dept -> dept.getId() == departmentId);
+        this.departmentIds.remove(departmentId);
+        Department removed = this.departmentIndex.remove(departmentId);
+        if (removed != null) {
+          // The employees of a department are removed together with it,
+          // its sub-departments are kept under its parent
+          removed.leaveTree();
+          this.organization.removeDepartment(removed);
+          for (Employee employee : removed.getEmployees()) {
+            this.employeeIndex.remove(employee.getId());
+            this.employeeIds.remove(employee.getId());
+            uncacheManager(employee);
+          }
+          this.employees.removeIf(employee -> !this.employeeIndex.containsKey(employee.getId()));
+          this.organization.setEmployees(this.employees);
+        }
+      });
     }
     return success;
   }
@@ -305,9 +972,15 @@ public final class HrDatabaseFacade {
     Organization newOrganization = dbConnection.insertOrganization(organization);
     if (newOrganization != null) {
       // Create a new instance of HrDatabaseFacade for the new organization
-      synchronized (HrDatabaseFacade.class) {
-        instances.put(newOrganization.getId(), new HrDatabaseFacade(newOrganization.getId()));
+      int newOrganizationId = newOrganization.getId();
+      HrDatabaseFacade facade;
+      synchronized (initLockFor(newOrganizationId)) {
+        facade = new HrDatabaseFacade(newOrganizationId);
+        facade.lastAccess = System.nanoTime();
+        instances.put(newOrganizationId, facade);
       }
+      loadCount.incrementAndGet();
+      evictIfOverBudget(facade);
     }
     return newOrganization;
   }
@@ -325,7 +998,7 @@ public final class HrDatabaseFacade {
     boolean success = dbConnection.removeOrganization(organizationId);
     if (success) {
       // Remove the HrDatabaseFacade instance for the organization
-      synchronized (HrDatabaseFacade.class) {
+      synchronized (initLockFor(organizationId)) {
         instances.remove(organizationId);
       }
     }
@@ -336,19 +1009,126 @@ public final class HrDatabaseFacade {
   /**
    * Returns the unique instance of the HR database facade for a specific organization.
    * Designed with "double-checked locking" mechanism to ensure thread safety.
+   * The lock is striped by organization, so concurrent first requests for one organization
+   * load it once, while the first requests for other organizations are rarely held up.
    *
    * @param organizationId the organization id
    * @return the HR database facade instance
    */
   public static HrDatabaseFacade getInstance(int organizationId) {
-    if (!instances.containsKey(organizationId)) {
-      synchronized (HrDatabaseFacade.class) {
-        if (!instances.containsKey(organizationId)) {
-          instances.put(organizationId, new HrDatabaseFacade(organizationId));
+    HrDatabaseFacade facade = instances.get(organizationId);
+    if (facade != null) {
+      hitCount.incrementAndGet();
+      facade.lastAccess = System.nanoTime();
+      return facade;
+    }
+
+    boolean loaded = false;
+    synchronized (initLockFor(organizationId)) {
+      facade = instances.get(organizationId);
+      if (facade == null) {
+        facade = new HrDatabaseFacade(organizationId);
+        facade.lastAccess = System.nanoTime();
+        instances.put(organizationId, facade);
+        loaded = true;
+      } else {
+        facade.lastAccess = System.nanoTime();
+      }
+    }
+    if (loaded) {
+      loadCount.incrementAndGet();
+      evictIfOverBudget(facade);
+    } else {
+      hitCount.incrementAndGet();
+    }
+    return facade;
+  }
+
+  /**
+   * Evicts the least recently used organizations until the cache fits in its heap budget.
+   * The organization that has just been loaded is never evicted.
+   *
+   * @param loaded the facade of the organization that has just been loaded
+   */
+  private static void evictIfOverBudget(HrDatabaseFacade loaded) {
+    synchronized (evictionLock) {
+      long totalBytes = 0;
+      for (HrDatabaseFacade facade : instances.values()) {
+        totalBytes += facade.estimatedBytes();
+      }
+      if (totalBytes <= cacheMaxBytes) {
+        return;
+      }
+
+      List<HrDatabaseFacade> candidates = new ArrayList<>(instances.values());
+      candidates.sort(Comparator.comparingLong(facade -> facade.lastAccess));
+      for (HrDatabaseFacade facade : candidates) {
+        if (totalBytes <= cacheMaxBytes) {
+          break;
+        }
+        if (facade != loaded && instances.remove(facade.organizationId, facade)) {
+          totalBytes -= facade.estimatedBytes();
+          evictionCount.incrementAndGet();
+          logger.info("Evicted organization {} from the cache", facade.organizationId);
         }
       }
     }
-    return instances.get(organizationId);
+  }
+
+  /**
+   * Sets the heap budget shared by all cached organizations.
+   * Takes effect on the next load of an organization.
+   *
+   * @param maxBytes the budget in bytes
+   * @throws IllegalArgumentException if the budget is not positive
+   */
+  public static void setCacheMaxBytes(long maxBytes) {
+    if (maxBytes <= 0) {
+      throw new IllegalArgumentException("Cache budget must be positive");
+    }
+    cacheMaxBytes = maxBytes;
+  }
+
+  /**
+   * Returns a statistic of the organization cache.
+   *
+   * @return a Map of the statistic that can be easily converted to JSON
+   */
+  public static Map<String, Object> getCacheStatisticMap() {
+    long totalBytes = 0;
+    for (HrDatabaseFacade facade : instances.values()) {
+      totalBytes += facade.estimatedBytes();
+    }
+    Map<String, Object> result = new HashMap<>();
+    result.put("organizations", instances.size());
+    result.put("estimatedBytes", totalBytes);
+    result.put("maxBytes", cacheMaxBytes);
+    result.put("hitCount", hitCount.get());
+    result.put("loadCount", loadCount.get());
+    result.put("evictionCount", evictionCount.get());
+    return result;
+  }
+
+  /**
+   * Returns a statistic of the connections to the database.
+   *
+   * @return a Map of the statistic that can be easily converted to JSON
+   */
+  public static Map<String, Object> getPoolStatisticMap() {
+    if (dbConnection == null) {
+      throw new IllegalStateException("Database connection is not initialized");
+    }
+    return dbConnection.getPoolStatisticMap();
+  }
+
+  /**
+   * Returns the lock that guards the initialization of an organization's facade.
+   *
+   * @param organizationId the organization id
+   * @return the lock stripe of the organization
+   */
+  private static Object initLockFor(int organizationId) {
+    return initLocks[Math.floorMod(organizationId, INIT_LOCK_STRIPES)];
   }
 
   /**
@@ -363,4 +1143,4 @@ public final class HrDatabaseFacade {
       System.out.println("Database connection is set to: " + dbConnection.connectionName());
     }
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,237 @@
+package dev.coms4156.project;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out new ids for organizations, departments and employees with a hi/lo scheme.
+ * A block of ids is reserved per organization and entity with a single atomic statement on
+ * the id_sequences table, whose row holds the highest id reserved so far (the hi part),
+ * then the ids of the block are handed out from memory (the lo part) with an AtomicInteger.
+ * Threads and service instances never share a block, so the ids stay unique without
+ * locking the entity tables, and an insert no longer needs to read MAX(id) first.
+ * Ids left in a block when the service stops are never used.
+ *
+ * <p>Department and employee ids are external ids, unique within their organization.
+ * This class is thread-safe.
+ */
+final class IdAllocator {
+
+  /**
+   * The kinds of entities ids are allocated for.
+   */
+  enum Entity {
+    ORGANIZATION("organization", "organizations", "MAX(organization_id)", false),
+    DEPARTMENT("department", "departments", "MAX(department_id)", true),
+    EMPLOYEE("employee", "employees", "MAX(employee_id)", true);
+
+    private final String sequenceName;
+    private final String table;
+    private final String maxIdExpression;
+    private final boolean perOrganization;
+
+    Entity(String sequenceName, String table, String maxIdExpression, boolean perOrganization) {
+      this.sequenceName = sequenceName;
+      this.table = table;
+      this.maxIdExpression = maxIdExpression;
+      this.perOrganization = perOrganization;
+    }
+  }
+
+  /**
+   * Reserves blocks of ids.
+   */
+  @FunctionalInterface
+  interface BlockSource {
+
+    /**
+     * Atomically reserves the next ids of a sequence.
+     *
+     * @param organizationId the organization id, 0 for organization ids
+     * @param entity the entity
+     * @param count the number of ids to reserve
+     * @return the highest reserved id, the block being the count ids up to it
+     * @throws SQLException if the block cannot be reserved
+     */
+    int reserve(int organizationId, Entity entity, int count) throws SQLException;
+  }
+
+  private final BlockSource source;
+  private final int blockSize;
+  private final Map<Long, Sequence> sequences = new ConcurrentHashMap<>();
+
+  // The ids of a block from next to last, next going past last once the block is used up
+  private static final class Block {
+    private final AtomicInteger next;
+    private final int last;
+
+    private Block(int first, int last) {
+      this.next = new AtomicInteger(first);
+      this.last = last;
+    }
+  }
+
+  // The current block of a sequence, replaced under the lock of the sequence
+  private static final class Sequence {
+    private volatile Block block = new Block(1, 0);
+  }
+
+  /**
+   * Constructs an allocator reserving blocks from the given source.
+   *
+   * @param source the source of the blocks
+   * @param blockSize the number of ids reserved at once
+   * @throws IllegalArgumentException if the block size is not positive
+   */
+  IdAllocator(BlockSource source, int blockSize) {
+    if (blockSize <= 0) {
+      throw new IllegalArgumentException("Block size [" + blockSize + "] is not positive");
+    }
+    this.source = source;
+    this.blockSize = blockSize;
+  }
+
+  /**
+   * Constructs an allocator reserving blocks on the id_sequences table of the pool's database.
+   * The block size is configured by the db.idBlockSize system property.
+   *
+   * @param pool the connection pool
+   * @return the allocator
+   */
+  static IdAllocator forPool(ConnectionPool pool) {
+    return new IdAllocator(
+        (organizationId, entity, count) -> reserve(pool, organizationId, entity, count),
+        Integer.getInteger("db.idBlockSize", 20));
+  }
+
+  /**
+   * Returns a new id.
+   *
+   * @param organizationId the organization id, 0 for organization ids
+   * @param entity the entity
+   * @return the id
+   * @throws SQLException if a new block cannot be reserved
+   */
+  int nextId(int organizationId, Entity entity) throws SQLException {
+    return nextIds(organizationId, entity, 1)[0];
+  }
+
+  /**
+   * Returns new ids. When the current block runs out, a block large enough for all the
+   * remaining ids is reserved at once.
+   *
+   * @param organizationId the organization id, 0 for organization ids
+   * @param entity the entity
+   * @param count the number of ids
+   * @return the ids, in increasing order
+   * @throws SQLException if a new block cannot be reserved
+   */
+  int[] nextIds(int organizationId, Entity entity, int count) throws SQLException {
+    int[] ids = new int[count];
+    Sequence sequence = this.sequences.computeIfAbsent(
+        ((long) entity.ordinal() << 32) | Integer.toUnsignedLong(organizationId),
+        key -> new Sequence());
+    int filled = 0;
+    while (true) {
+      Block block = sequence.block;
+      filled = take(block, ids, filled);
+      if (filled == count) {
+        return ids;
+      }
+      synchronized (sequence) {
+        // Another thread may have reserved a block already
+        if (sequence.block == block) {
+          int size = Math.max(this.blockSize, count - filled);
+          int last = this.source.reserve(organizationId, entity, size);
+          sequence.block = new Block(last - size + 1, last);
+        }
+      }
+    }
+  }
+
+  private static int take(Block block, int[] ids, int filled) {
+    while (filled < ids.length) {
+      int id = block.next.getAndIncrement();
+      if (id > block.last) {
+        break;
+      }
+      ids[filled++] = id;
+    }
+    return filled;
+  }
+
+  /**
+   * Reserves a block with one statement: the row of the sequence is created from the highest
+   * existing id on first use, then moved forward, and LAST_INSERT_ID(expr) returns its new value
+   * with the update itself.
+   *
+   * @param pool the connection pool
+   * @param organizationId the organization id, 0 for organization ids
+   * @param entity the entity
+   * @param count the number of ids to reserve
+   * @return the highest reserved id
+   * @throws SQLException if the statement fails
+   */
+  private static int reserve(ConnectionPool pool, int organizationId, Entity entity, int count)
+      throws SQLException {
+    String query = "INSERT INTO id_sequences (organization_id, entity, next_hi) "
+        + "SELECT ?, ?, LAST_INSERT_ID(COALESCE(" + entity.maxIdExpression + ", 0) + ?) "
+        + "FROM " + entity.table + (entity.perOrganization ? " WHERE organization_id = ?" : "")
+        + " ON DUPLICATE KEY UPDATE next_hi = LAST_INSERT_ID(id_sequences.next_hi + ?)";
+    try (Connection connection = pool.getConnection();
+        PreparedStatement pstmt =
+            connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+      int index = 1;
+      pstmt.setInt(index++, organizationId);
+      pstmt.setString(index++, entity.sequenceName);
+      pstmt.setInt(index++, count);
+      if (entity.perOrganization) {
+        pstmt.setInt(index++, organizationId);
+      }
+      pstmt.setInt(index, count);
+      pstmt.executeUpdate();
+      try (ResultSet rs = pstmt.getGeneratedKeys()) {
+        if (rs.next()) {
+          return rs.getInt(1);
+        }
+      }
+    }
+    throw new SQLException("No id reserved for " + entity.sequenceName + " ids");
+  }
+
+  /**
+   * Returns the highest id reserved so far in a sequence, or the highest existing id if no block
+   * was reserved yet, which is where the first block will start from.
+   *
+   * @param connection the connection to read with
+   * @param organizationId the organization id, 0 for organization ids
+   * @param entity the entity
+   * @return the highest reserved id
+   * @throws SQLException if the statement fails
+   */
+  static int highestReserved(Connection connection, int organizationId, Entity entity)
+      throws SQLException {
+    String query = "SELECT COALESCE((SELECT next_hi FROM id_sequences "
+        + "WHERE organization_id = ? AND entity = ?), "
+        + "(SELECT COALESCE(" + entity.maxIdExpression + ", 0) FROM " + entity.table
+        + (entity.perOrganization ? " WHERE organization_id = ?" : "") + "))";
+    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+      int index = 1;
+      pstmt.setInt(index++, organizationId);
+      pstmt.setString(index++, entity.sequenceName);
+      if (entity.perOrganization) {
+        pstmt.setInt(index, organizationId);
+      }
+      try (ResultSet rs = pstmt.executeQuery()) {
+        rs.next();
+        return rs.getInt(1);
+      }
+    }
+  }
+}
@@ -68,23 +68,32 @@ public class InmemConnection implements DatabaseConnection {
 
   @Override
   public int addEmployeeToDepartment(int organizationId, int departmentId, Employee employee) {
+    int[] newEmployeeIds =
+        addEmployeesToDepartment(organizationId, departmentId, List.of(employee));
+    return newEmployeeIds == null ? -1 : newEmployeeIds[0];
+  }
+
+  @Override
+  public int[] addEmployeesToDepartment(
+      int organizationId, int departmentId, List<Employee> newEmployees
+  ) {
     List<Employee> employees = testEmployees.get(organizationId);
     List<Department> departments = testDepartments.get(organizationId);
 
     if (employees == null || departments == null) {
-      return -1;
+      return null;
     }
 
     Department targetDept = null;
     for (Department dept : departments) {
-      if (dept.getId() == (departmentId % 10000)) {
+      if (dept.getId() == departmentId) {
         targetDept = dept;
         break;
       }
     }
 
     if (targetDept == null) {
-      return -1;
+      return null;
     }
 
     int maxId = 0;
@@ -93,17 +102,24 @@ public class InmemConnection implements DatabaseConnection {
         maxId = emp.getId();
       }
     }
-    int newEmployeeId = maxId + 1;
 
-    Employee newEmployee = new Employee(newEmployeeId, employee.getName(), employee.getHireDate());
-    newEmployee.setPosition(employee.getPosition());
-    newEmployee.setSalary(employee.getSalary());
-    newEmployee.setPerformance(employee.getPerformance());
-
-    employees.add(newEmployee);
-    targetDept.addEmployee(newEmployee);
-
-    return organizationId * 10000 + newEmployeeId;
+    int[] newEmployeeIds = new int[newEmployees.size()];
+    for (int i = 0; i < newEmployeeIds.length; i++) {
+      Employee employee = newEmployees.get(i);
+      int newEmployeeId = maxId + 1 + i;
+      Employee newEmployee =
+          new Employee(newEmployeeId, employee.getName(), employee.getHireDate());
+      newEmployee.setPosition(employee.getPosition());
+      newEmployee.setSalary(employee.getSalary());
+      newEmployee.setPerformance(employee.getPerformance());
+      newEmployee.setManagerId(employee.getManagerId());
+      newEmployee.setShiftMask(employee.getShiftMask());
+
+      employees.add(newEmployee);
+      targetDept.addEmployee(newEmployee);
+      newEmployeeIds[i] = newEmployeeId;
+    }
+    return newEmployeeIds;
   }
 
   @Override
@@ -115,12 +131,9 @@ public class InmemConnection implements DatabaseConnection {
       return false;
     }
 
-    int externalDepartmentId = departmentId % 10000;
-    int externalEmployeeId = employeeId % 10000;
-
     Department targetDept = null;
     for (Department dept : departments) {
-      if (dept.getId() == externalDepartmentId) {
+      if (dept.getId() == departmentId) {
         targetDept = dept;
         break;
       }
@@ -134,7 +147,7 @@ public class InmemConnection implements DatabaseConnection {
     List<Employee> employees = testEmployees.get(organizationId);
     if (employees != null) {
       for (Employee emp : employees) {
-        if (emp.getId() == externalEmployeeId) {
+        if (emp.getId() == employeeId) {
           targetEmployee = emp;
           break;
         }
@@ -151,12 +164,15 @@ public class InmemConnection implements DatabaseConnection {
 
     boolean employeeRemoved = employees.remove(targetEmployee);
 
-    boolean deptRemoved = false;
-    List<Employee> deptEmployees = targetDept.getEmployees();
-    if (deptEmployees != null) {
-      deptRemoved = deptEmployees.remove(targetEmployee);
+    // Like the database, the direct reports move up to the manager of the removed employee
+    for (Employee emp : employees) {
+      if (emp.getManagerId() == targetEmployee.getId()) {
+        emp.setManagerId(targetEmployee.getManagerId());
+      }
     }
 
+    boolean deptRemoved = targetDept.removeEmployee(targetEmployee);
+
     return employeeRemoved && deptRemoved;
   }
 
@@ -174,43 +190,45 @@ public class InmemConnection implements DatabaseConnection {
    */
   @Override
   public boolean updateEmployee(int organizationId, Employee employee) {
-    List<Employee> employees = testEmployees.get(organizationId);
-    boolean updated = false;
+    return updateEmployees(organizationId, List.of(employee));
+  }
 
-    if (employees != null) {
-      for (int i = 0; i < employees.size(); i++) {
-        if (employees.get(i).getId() == employee.getId()) {
-          employees.set(i, employee);
-          updated = true;
-          break;
-        }
+  @Override
+  public boolean updateEmployees(int organizationId, List<Employee> employees) {
+    // Every employee is looked up before any is changed, so a failed batch changes nothing
+    Map<Integer, Employee> storedById = new HashMap<>();
+    for (Employee stored : testEmployees.getOrDefault(organizationId, new ArrayList<>())) {
+      storedById.put(stored.getId(), stored);
+    }
+    for (Employee employee : employees) {
+      if (!storedById.containsKey(employee.getId())) {
+        return false;
       }
     }
 
-    if (updated) {
-      // Update the employee in the departments' employee lists
-      List<Department> departments = testDepartments.get(organizationId);
-      if (departments != null) {
-        for (Department dept : departments) {
-          List<Employee> deptEmployees = dept.getEmployees();
-          if (deptEmployees != null) {
-            for (int i = 0; i < deptEmployees.size(); i++) {
-              if (deptEmployees.get(i).getId() == employee.getId()) {
-                deptEmployees.set(i, employee);
-                break;
-              }
-            }
-          }
-
-          Employee head = dept.getHead();
-          if (head != null && head.getId() == employee.getId()) {
-            dept.setHead(employee);
-          }
-        }
+    // Like a database row, the stored employee keeps its identity and only takes the new values,
+    // so the departments and heads referencing it see the update as well
+    for (Employee employee : employees) {
+      Employee stored = storedById.get(employee.getId());
+      if (stored != employee) {
+        stored.setName(employee.getName());
+        stored.setPosition(employee.getPosition());
+        stored.setSalary(employee.getSalary());
+        stored.setPerformance(employee.getPerformance());
+        stored.setManagerId(employee.getManagerId());
       }
     }
+    return true;
+  }
 
-    return updated;
+  @Override
+  public boolean updateEmployeeShifts(int organizationId, Employee employee) {
+    Employee stored = getEmployee(organizationId, employee.getId());
+    if (stored == null) {
+      return false;
+    }
+    stored.setShiftMask(employee.getShiftMask());
+    return true;
   }
 
   /**
@@ -344,6 +362,11 @@ public class InmemConnection implements DatabaseConnection {
     organization1.addDepartment(engineering1);
     organization1.addDepartment(marketing1);
 
+    // Reporting lines and shifts for Client 1
+    janeSmith.setManagerId(johnDoe.getId());
+    johnDoe.setShiftMask(ShiftSchedule.parse("MONDAY:0,WEDNESDAY:1,FRIDAY:2"));
+    janeSmith.setShiftMask(ShiftSchedule.parse("TUESDAY:0,THURSDAY:1,FRIDAY:0"));
+
     // Store data for Client 1
     testEmployees.put(clientId1, new ArrayList<>(List.of(johnDoe, janeSmith)));
     testDepartments.put(clientId1, new ArrayList<>(List.of(engineering1, marketing1)));
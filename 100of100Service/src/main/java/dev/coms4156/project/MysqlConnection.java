@@ -1,22 +1,55 @@
 package dev.coms4156.project;
 
 import dev.coms4156.project.exception.InternalServerErrorException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.DayOfWeek;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A singleton class of database connection.
- * This class is responsible for creating and managing the connection to the database.
+ * This class is responsible for creating and managing the connections to the database.
+ * Every operation borrows its own connection from a shared pool,
+ * so concurrent requests do not serialize on a single socket.
+ * Operations made of several statements run in a single transaction with a single commit,
+ * and the operations of a unit of work share the connection and transaction of the unit.
  * Designed under the Singleton Design Pattern.
  */
 public final class MysqlConnection implements DatabaseConnection {
+  private static final String INSERT_EMPLOYEE_QUERY =
+      "INSERT INTO employees "
+          + "(employee_id, organization_id, department_id, "
+          + "name, hire_date, position, salary, performance, manager_id) "
+          + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+  private static final String UPDATE_EMPLOYEE_QUERY =
+      "UPDATE employees "
+          + "SET name = ?, position = ?, salary = ?, performance = ?, manager_id = ? "
+          + "WHERE organization_id = ? AND employee_id = ?";
+
   private static volatile MysqlConnection instance;
-  private Connection connection;
+  private final ConnectionPool pool;
+  private final IdAllocator idAllocator;
+  // Rows fetched per round trip by the server-side cursors of the bulk reads
+  private final int fetchSize;
+  // The unit of work the calling thread is in, if any
+  private final ThreadLocal<Transaction> currentTransaction = new ThreadLocal<>();
 
   @Override
   public String connectionName() {
@@ -24,16 +57,21 @@ public final class MysqlConnection implements DatabaseConnection {
   }
 
   MysqlConnection() {
+    String url = System.getProperty(
+        "db.url",
+        "jdbc:mysql://new-db.c3uqsummqbeu.us-east-1.rds.amazonaws.com:3306"
+            + "/organization_management?useCursorFetch=true&rewriteBatchedStatements=true");
+    String user = System.getProperty("db.user", "admin");
+    String password = System.getProperty("db.password", "12345678");
+    this.fetchSize = Integer.getInteger("db.fetchSize", 1000);
+
+    this.pool = ConnectionPool.fromSystemProperties(
+        () -> DriverManager.getConnection(url, user, password));
+    this.idAllocator = IdAllocator.forPool(this.pool);
     try {
-      String url = System.getProperty(
-          "db.url",
-          "jdbc:mysql://new-db.c3uqsummqbeu.us-east-1.rds.amazonaws.com:3306"
-              + "/organization_management");
-      String user = System.getProperty("db.user", "admin");
-      String password = System.getProperty("db.password", "12345678");
-
-      this.connection = DriverManager.getConnection(url, user, password);
+      this.pool.warmUp();
     } catch (SQLException e) {
+      this.pool.close();
       e.printStackTrace();
       throw (InternalServerErrorException)
           new InternalServerErrorException("Failed to connect to the database.").initCause(e);
@@ -49,23 +87,14 @@ public final class MysqlConnection implements DatabaseConnection {
    */
   @Override
   public Employee getEmployee(int organizationId, int externalEmployeeId) {
-    int internalEmployeeId = organizationId * 10000 + externalEmployeeId;
     String query = "SELECT * FROM employees WHERE organization_id = ? AND employee_id = ?";
-    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+    try (Connection connection = borrowConnection();
+        PreparedStatement pstmt = connection.prepareStatement(query)) {
       pstmt.setInt(1, organizationId);
-      pstmt.setInt(2, internalEmployeeId);
+      pstmt.setInt(2, externalEmployeeId);
       try (ResultSet rs = pstmt.executeQuery()) {
         if (rs.next()) {
-          Employee employee = new Employee(
-              externalEmployeeId,
-              rs.getString("name"),
-              rs.getDate("hire_date")
-          );
-          // Set additional employee information
-          employee.setPosition(rs.getString("position"));
-          employee.setSalary(rs.getDouble("salary"));
-          employee.setPerformance(rs.getDouble("performance"));
-          return employee;
+          return readEmployee(rs);
         }
       }
     } catch (SQLException e) {
@@ -74,6 +103,38 @@ public final class MysqlConnection implements DatabaseConnection {
     return null;
   }
 
+  /**
+   * Returns the highest employee id reserved so far in a given organization.
+   *
+   * @param organizationId the organization id
+   * @return the highest reserved employee id, or Integer.MAX_VALUE if it cannot be read
+   */
+  @Override
+  public int getHighestReservedEmployeeId(int organizationId) {
+    return highestReserved(organizationId, IdAllocator.Entity.EMPLOYEE);
+  }
+
+  /**
+   * Returns the highest department id reserved so far in a given organization.
+   *
+   * @param organizationId the organization id
+   * @return the highest reserved department id, or Integer.MAX_VALUE if it cannot be read
+   */
+  @Override
+  public int getHighestReservedDepartmentId(int organizationId) {
+    return highestReserved(organizationId, IdAllocator.Entity.DEPARTMENT);
+  }
+
+  private int highestReserved(int organizationId, IdAllocator.Entity entity) {
+    try (Connection connection = borrowConnection()) {
+      return IdAllocator.highestReserved(connection, organizationId, entity);
+    } catch (SQLException e) {
+      e.printStackTrace();
+      // Without the limit, any id may exist
+      return Integer.MAX_VALUE;
+    }
+  }
+
   /**
    * Returns a department in a given organization by external ID.
    *
@@ -83,20 +144,28 @@ public final class MysqlConnection implements DatabaseConnection {
    */
   @Override
   public Department getDepartment(int organizationId, int externalDepartmentId) {
-    int internalDepartmentId = organizationId * 10000 + externalDepartmentId;
     String query = "SELECT * FROM departments WHERE organization_id = ? AND department_id = ?";
-    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+    try (Connection connection = borrowConnection();
+        PreparedStatement pstmt = connection.prepareStatement(query)) {
       pstmt.setInt(1, organizationId);
-      pstmt.setInt(2, internalDepartmentId);
+      pstmt.setInt(2, externalDepartmentId);
       try (ResultSet rs = pstmt.executeQuery()) {
         if (rs.next()) {
-          List<Employee> employees =
-              getEmployeesForDepartment(internalDepartmentId, organizationId);
-          return new Department(
-              externalDepartmentId,
-              rs.getString("name"),
-              employees
-          );
+          Department department = new Department(externalDepartmentId, rs.getString("name"));
+          int headEmployeeId = rs.getInt("head_employee_id");
+          boolean hasHead = !rs.wasNull();
+
+          // The head is a member of the department, so it resolves to the same instance
+          Map<Integer, Employee> identityMap = new HashMap<>();
+          List<Employee> employees = getEmployeesForDepartment(
+              connection, externalDepartmentId, organizationId, identityMap);
+          for (Employee employee : employees) {
+            department.addEmployee(employee);
+          }
+          if (hasHead) {
+            department.setHead(identityMap.get(headEmployeeId));
+          }
+          return department;
         }
       }
     } catch (SQLException e) {
@@ -115,22 +184,13 @@ public final class MysqlConnection implements DatabaseConnection {
   public List<Employee> getEmployees(int organizationId) {
     List<Employee> employees = new ArrayList<>();
     String query = "SELECT * FROM employees WHERE organization_id = ?";
-    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+    try (Connection connection = borrowConnection();
+        PreparedStatement pstmt = connection.prepareStatement(query)) {
+      pstmt.setFetchSize(fetchSize);
       pstmt.setInt(1, organizationId);
       try (ResultSet rs = pstmt.executeQuery()) {
         while (rs.next()) {
-          int internalId = rs.getInt("employee_id");
-          int externalId = internalId % 10000;
-          Employee employee = new Employee(
-              externalId,
-              rs.getString("name"),
-              rs.getDate("hire_date")
-          );
-          // Set additional employee information
-          employee.setPosition(rs.getString("position"));
-          employee.setSalary(rs.getDouble("salary"));
-          employee.setPerformance(rs.getDouble("performance"));
-          employees.add(employee);
+          employees.add(readEmployee(rs));
         }
       }
     } catch (SQLException e) {
@@ -140,44 +200,89 @@ public final class MysqlConnection implements DatabaseConnection {
   }
 
   /**
-   * Returns a list of departments in a given organization.
+   * Streams the employees of a given organization through a server-side cursor.
+   * Rows are fetched db.fetchSize at a time as the stream is consumed, so the heap used
+   * does not grow with the organization. The cursor keeps its pooled connection
+   * until the stream is closed.
    *
    * @param organizationId the organization id
-   * @return a list of departments in the organization
+   * @return a stream of the employees in the organization, empty if it cannot be opened
+   * @throws InternalServerErrorException if a row cannot be read while streaming
    */
   @Override
-  public List<Department> getDepartments(int organizationId) {
-    List<Department> departments = new ArrayList<>();
-    String query = "SELECT * FROM departments WHERE organization_id = ?";
-    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+  public Stream<Employee> streamEmployees(int organizationId) {
+    String query = "SELECT * FROM employees WHERE organization_id = ?";
+    Connection connection = null;
+    PreparedStatement pstmt = null;
+    ResultSet rs = null;
+    try {
+      connection = borrowConnection();
+      pstmt = connection.prepareStatement(
+          query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+      pstmt.setFetchSize(fetchSize);
       pstmt.setInt(1, organizationId);
-      try (ResultSet rs = pstmt.executeQuery()) {
-        while (rs.next()) {
-          int internalId = rs.getInt("department_id");
-          int externalId = internalId % 10000;
-          List<Employee> employees = getEmployeesForDepartment(internalId, organizationId);
-          Department department = new Department(
-              externalId,
-              rs.getString("name"),
-              employees
-          );
+      rs = pstmt.executeQuery();
+    } catch (SQLException e) {
+      e.printStackTrace();
+      closeAll(rs, pstmt, connection);
+      return Stream.empty();
+    }
 
-          // Get and set head if exists
-          Integer headEmployeeId = rs.getInt("head_employee_id");
-          if (!rs.wasNull()) {
-            Employee head = getEmployee(organizationId, headEmployeeId % 10000);
-            if (head != null) {
-              department.setHead(head);
-            }
+    ResultSet cursor = rs;
+    AutoCloseable[] resources = {rs, pstmt, connection};
+    Spliterator<Employee> rows = new Spliterators.AbstractSpliterator<>(
+        Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+      @Override
+      public boolean tryAdvance(Consumer<? super Employee> action) {
+        try {
+          if (!cursor.next()) {
+            return false;
           }
-
-          departments.add(department);
+          action.accept(readEmployee(cursor));
+          return true;
+        } catch (SQLException e) {
+          throw (InternalServerErrorException)
+              new InternalServerErrorException("Failed to read employees.").initCause(e);
         }
       }
+    };
+    return StreamSupport.stream(rows, false).onClose(() -> closeAll(resources));
+  }
+
+  /**
+   * Closes JDBC resources in the given order, skipping nulls and reporting failures.
+   *
+   * @param resources the result sets, statements and connections to close
+   */
+  private static void closeAll(AutoCloseable... resources) {
+    for (AutoCloseable resource : resources) {
+      if (resource == null) {
+        continue;
+      }
+      try {
+        resource.close();
+      } catch (Exception e) {
+        e.printStackTrace();
+      }
+    }
+  }
+
+  /**
+   * Returns a list of departments in a given organization.
+   * The departments, their employees and their heads are fetched with two queries
+   * regardless of the number of departments.
+   *
+   * @param organizationId the organization id
+   * @return a list of departments in the organization
+   */
+  @Override
+  public List<Department> getDepartments(int organizationId) {
+    try (Connection connection = borrowConnection()) {
+      return loadDepartments(connection, organizationId, new ArrayList<>());
     } catch (SQLException e) {
       e.printStackTrace();
     }
-    return departments;
+    return new ArrayList<>();
   }
 
   /**
@@ -188,6 +293,24 @@ public final class MysqlConnection implements DatabaseConnection {
    */
   @Override
   public Organization getOrganization(int organizationId) {
+    try (Connection connection = borrowConnection()) {
+      return getOrganization(connection, organizationId);
+    } catch (SQLException e) {
+      e.printStackTrace();
+    }
+    return null;
+  }
+
+  /**
+   * Returns an organization with the given organization id, using the given connection.
+   *
+   * @param connection the borrowed connection
+   * @param organizationId the organization id
+   * @return the organization if found, null otherwise
+   * @throws SQLException if the query fails
+   */
+  private Organization getOrganization(Connection connection, int organizationId)
+      throws SQLException {
     String query = "SELECT * FROM organizations WHERE organization_id = ?";
     try (PreparedStatement pstmt = connection.prepareStatement(query)) {
       pstmt.setInt(1, organizationId);
@@ -199,40 +322,151 @@ public final class MysqlConnection implements DatabaseConnection {
           );
         }
       }
+    }
+    return null;
+  }
+
+  /**
+   * Loads an organization together with all of its departments and employees
+   * on a single connection with three queries, regardless of the organization size.
+   *
+   * @param organizationId the organization id
+   * @return the organization with its departments and employees set, null if not found
+   */
+  @Override
+  public Organization loadOrganization(int organizationId) {
+    try (Connection connection = borrowConnection()) {
+      Organization organization = getOrganization(connection, organizationId);
+      if (organization == null) {
+        return null;
+      }
+      List<Employee> employees = new ArrayList<>();
+      List<Department> departments = loadDepartments(connection, organizationId, employees);
+      organization.setDepartments(departments);
+      organization.setEmployees(employees);
+      return organization;
     } catch (SQLException e) {
       e.printStackTrace();
     }
     return null;
   }
 
+  /**
+   * Loads all departments of an organization with their employees and heads.
+   * One query reads the departments and one reads every employee of the organization,
+   * then the graph is assembled in memory through an identity map, so each employee row
+   * is materialized once and shared by the organization, its department and the head reference.
+   *
+   * @param connection the borrowed connection
+   * @param organizationId the organization id
+   * @param employeesOut receives every employee of the organization
+   * @return a list of departments in the organization
+   * @throws SQLException if a query fails
+   */
+  private List<Department> loadDepartments(
+      Connection connection, int organizationId, List<Employee> employeesOut
+  ) throws SQLException {
+    Map<Integer, Department> departmentsById = new LinkedHashMap<>();
+    Map<Integer, Integer> headIdsByDepartment = new HashMap<>();
+    Map<Integer, Integer> parentIdsByDepartment = new HashMap<>();
+    String departmentQuery = "SELECT * FROM departments WHERE organization_id = ?";
+    try (PreparedStatement pstmt = connection.prepareStatement(departmentQuery)) {
+      pstmt.setInt(1, organizationId);
+      try (ResultSet rs = pstmt.executeQuery()) {
+        while (rs.next()) {
+          int departmentId = rs.getInt("department_id");
+          departmentsById.put(departmentId, new Department(departmentId, rs.getString("name")));
+          int headEmployeeId = rs.getInt("head_employee_id");
+          if (!rs.wasNull()) {
+            headIdsByDepartment.put(departmentId, headEmployeeId);
+          }
+          int parentDepartmentId = rs.getInt("parent_department_id");
+          if (!rs.wasNull()) {
+            parentIdsByDepartment.put(departmentId, parentDepartmentId);
+          }
+        }
+      }
+    }
+
+    Map<Integer, Employee> identityMap = new HashMap<>();
+    String employeeQuery = "SELECT * FROM employees WHERE organization_id = ?";
+    try (PreparedStatement pstmt = connection.prepareStatement(employeeQuery)) {
+      pstmt.setFetchSize(fetchSize);
+      pstmt.setInt(1, organizationId);
+      try (ResultSet rs = pstmt.executeQuery()) {
+        while (rs.next()) {
+          Employee employee = readEmployee(rs, identityMap);
+          employeesOut.add(employee);
+          Department department = departmentsById.get(rs.getInt("department_id"));
+          if (department != null) {
+            department.addEmployee(employee);
+          }
+        }
+      }
+    }
+
+    // Each shift row sets one bit of the weekly mask of its employee
+    Map<Integer, Integer> shiftMasks = new HashMap<>();
+    String shiftQuery =
+        "SELECT employee_id, day_of_week, time_slot FROM shifts WHERE organization_id = ?";
+    try (PreparedStatement pstmt = connection.prepareStatement(shiftQuery)) {
+      pstmt.setFetchSize(fetchSize);
+      pstmt.setInt(1, organizationId);
+      try (ResultSet rs = pstmt.executeQuery()) {
+        while (rs.next()) {
+          int bit = ShiftSchedule.bitOf(
+              DayOfWeek.of(rs.getInt("day_of_week")), rs.getInt("time_slot"));
+          shiftMasks.merge(rs.getInt("employee_id"), 1 << bit, (a, b) -> a | b);
+        }
+      }
+    }
+    for (Map.Entry<Integer, Integer> entry : shiftMasks.entrySet()) {
+      Employee employee = identityMap.get(entry.getKey());
+      if (employee != null) {
+        employee.setShiftMask(entry.getValue());
+      }
+    }
+
+    // Heads reference the same instances as the department members
+    for (Map.Entry<Integer, Integer> entry : headIdsByDepartment.entrySet()) {
+      Employee head = identityMap.get(entry.getValue());
+      if (head != null) {
+        departmentsById.get(entry.getKey()).setHead(head);
+      }
+    }
+
+    // Nested once their employees are known, so the subtree rollups start complete
+    for (Map.Entry<Integer, Integer> entry : parentIdsByDepartment.entrySet()) {
+      Department parent = departmentsById.get(entry.getValue());
+      if (parent != null) {
+        parent.addSubDepartment(departmentsById.get(entry.getKey()));
+      }
+    }
+    return new ArrayList<>(departmentsById.values());
+  }
+
   /**
    * Returns a list of employees in a given department.
    *
-   * @param internalDepartmentId the internal department id
+   * @param connection the borrowed connection
+   * @param departmentId the department id
    * @param organizationId the organization id
+   * @param identityMap the employees already materialized, keyed by employee id
    * @return a list of employees in the department
    */
-  private List<Employee> getEmployeesForDepartment(int internalDepartmentId, int organizationId) {
+  private List<Employee> getEmployeesForDepartment(
+      Connection connection, int departmentId, int organizationId,
+      Map<Integer, Employee> identityMap
+  ) {
     List<Employee> employees = new ArrayList<>();
     String query = "SELECT * FROM employees WHERE department_id = ? AND organization_id = ?";
 
     try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-      pstmt.setInt(1, internalDepartmentId);
+      pstmt.setInt(1, departmentId);
       pstmt.setInt(2, organizationId);
       try (ResultSet rs = pstmt.executeQuery()) {
         while (rs.next()) {
-          int internalId = rs.getInt("employee_id");
-          int externalId = internalId % 10000;
-          Employee employee = new Employee(
-              externalId,
-              rs.getString("name"),
-              rs.getDate("hire_date")
-          );
-          // Set additional employee information
-          employee.setPosition(rs.getString("position"));
-          employee.setSalary(rs.getDouble("salary"));
-          employee.setPerformance(rs.getDouble("performance"));
-          employees.add(employee);
+          employees.add(readEmployee(rs, identityMap));
         }
       }
     } catch (SQLException e) {
@@ -242,75 +476,193 @@ public final class MysqlConnection implements DatabaseConnection {
     return employees;
   }
 
+  /**
+   * Returns the employee at the current row of the result set, materializing it only if
+   * the identity map does not hold it yet.
+   *
+   * @param rs the result set positioned on an employees row
+   * @param identityMap the employees already materialized, keyed by employee id
+   * @return the employee
+   * @throws SQLException if a column cannot be read
+   */
+  private static Employee readEmployee(ResultSet rs, Map<Integer, Employee> identityMap)
+      throws SQLException {
+    int employeeId = rs.getInt("employee_id");
+    Employee employee = identityMap.get(employeeId);
+    if (employee == null) {
+      employee = readEmployee(rs);
+      identityMap.put(employeeId, employee);
+    }
+    return employee;
+  }
+
+  /**
+   * Materializes the employee at the current row of the result set.
+   *
+   * @param rs the result set positioned on an employees row
+   * @return the employee
+   * @throws SQLException if a column cannot be read
+   */
+  private static Employee readEmployee(ResultSet rs) throws SQLException {
+    Employee employee = new Employee(
+        rs.getInt("employee_id"),
+        rs.getString("name"),
+        rs.getDate("hire_date")
+    );
+    // Set additional employee information
+    employee.setPosition(rs.getString("position"));
+    employee.setSalary(rs.getDouble("salary"));
+    employee.setPerformance(rs.getDouble("performance"));
+    int managerId = rs.getInt("manager_id");
+    if (!rs.wasNull()) {
+      employee.setManagerId(managerId);
+    }
+    return employee;
+  }
+
   /**
    * Adds a new employee to a department in the database.
    *
    * @param organizationId the organization id
-   * @param departmentId the internal department id
+   * @param departmentId the department id
    * @param employee the employee to add
-   * @return the internal employee ID if successful, -1 if failed
+   * @return the employee ID if successful, -1 if failed
    */
   @Override
   public int addEmployeeToDepartment(int organizationId, int departmentId, Employee employee) {
-    // First get the next available employee ID for this organization
-    String maxIdQuery =
-        "SELECT MAX(employee_id) as max_id "
-            + "FROM employees "
-            + "WHERE organization_id = ?";
+    // The id comes from the block of this organization, without a query most of the time
     int newEmployeeId;
+    try {
+      newEmployeeId = idAllocator.nextId(organizationId, IdAllocator.Entity.EMPLOYEE);
+    } catch (SQLException e) {
+      e.printStackTrace();
+      return -1;
+    }
 
-    try (PreparedStatement pstmt = connection.prepareStatement(maxIdQuery)) {
-      pstmt.setInt(1, organizationId);
-      try (ResultSet rs = pstmt.executeQuery()) {
-        if (rs.next()) {
-          int maxId = rs.getInt("max_id");
-          if (rs.wasNull()) {
-            newEmployeeId = organizationId * 10000 + 1;
-          } else {
-            newEmployeeId = maxId + 1;
-          }
-        } else {
-          newEmployeeId = organizationId * 10000 + 1;
+    // Insert the new employee together with its shifts
+    return atomically(-1, connection -> {
+      try (PreparedStatement pstmt = connection.prepareStatement(INSERT_EMPLOYEE_QUERY)) {
+        bindEmployeeInsert(pstmt, newEmployeeId, organizationId, departmentId, employee);
+        if (pstmt.executeUpdate() == 0) {
+          return -1;
         }
       }
+      insertShifts(connection, organizationId, List.of(employee), new int[] {newEmployeeId});
+      return newEmployeeId;
+    });
+  }
+
+  /**
+   * Adds several new employees to a department with a single batched insert,
+   * in one transaction, so that either all of them are added or none.
+   * The ids of the whole batch are allocated at once.
+   *
+   * @param organizationId the organization id
+   * @param departmentId the department id
+   * @param employees the employees to add
+   * @return the employee IDs in the order of the employees, or null if failed
+   */
+  @Override
+  public int[] addEmployeesToDepartment(
+      int organizationId, int departmentId, List<Employee> employees
+  ) {
+    if (employees.isEmpty()) {
+      return new int[0];
+    }
+    final int[] newEmployeeIds;
+    try {
+      // Allocated before borrowing the connection of the insert, which the allocator may need
+      newEmployeeIds =
+          idAllocator.nextIds(organizationId, IdAllocator.Entity.EMPLOYEE, employees.size());
     } catch (SQLException e) {
       e.printStackTrace();
-      return -1;
+      return null;
     }
 
-    // Insert the new employee
-    String insertEmployeeQuery =
-        "INSERT INTO employees "
-            + "(employee_id, organization_id, department_id, "
-            + "name, hire_date, position, salary, performance) "
-            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-
-    try (PreparedStatement pstmt = connection.prepareStatement(insertEmployeeQuery)) {
-      pstmt.setInt(1, newEmployeeId);
-      pstmt.setInt(2, organizationId);
-      pstmt.setInt(3, departmentId);
-      pstmt.setString(4, employee.getName());
-      pstmt.setDate(5, new java.sql.Date(employee.getHireDate().getTime()));
-      pstmt.setString(6, employee.getPosition());
-      pstmt.setDouble(7, employee.getSalary());
-      pstmt.setDouble(8, employee.getPerformance());
+    return atomically(null, connection -> {
+      try (PreparedStatement pstmt = connection.prepareStatement(INSERT_EMPLOYEE_QUERY)) {
+        for (int i = 0; i < newEmployeeIds.length; i++) {
+          bindEmployeeInsert(pstmt, newEmployeeIds[i], organizationId, departmentId,
+              employees.get(i));
+          pstmt.addBatch();
+        }
+        pstmt.executeBatch();
+      }
+      insertShifts(connection, organizationId, employees, newEmployeeIds);
+      return newEmployeeIds;
+    });
+  }
 
-      int rowsAffected = pstmt.executeUpdate();
-      if (rowsAffected > 0) {
-        return newEmployeeId;
+  /**
+   * Inserts the shift rows of new employees with a single batched statement.
+   *
+   * @param connection the connection of the insert of the employees
+   * @param organizationId the organization id
+   * @param employees the new employees holding their shifts
+   * @param employeeIds the ids of the new employees, in the same order
+   * @throws SQLException if the insert fails
+   */
+  private static void insertShifts(
+      Connection connection, int organizationId, List<Employee> employees, int[] employeeIds
+  ) throws SQLException {
+    String insertQuery =
+        "INSERT INTO shifts (organization_id, employee_id, day_of_week, time_slot) "
+            + "VALUES (?, ?, ?, ?)";
+    try (PreparedStatement pstmt = connection.prepareStatement(insertQuery)) {
+      boolean anyShift = false;
+      for (int i = 0; i < employeeIds.length; i++) {
+        for (int rest = employees.get(i).getShiftMask(); rest != 0; rest &= rest - 1) {
+          int bit = Integer.numberOfTrailingZeros(rest);
+          pstmt.setInt(1, organizationId);
+          pstmt.setInt(2, employeeIds[i]);
+          pstmt.setInt(3, ShiftSchedule.dayOf(bit).getValue());
+          pstmt.setInt(4, ShiftSchedule.timeSlotOf(bit));
+          pstmt.addBatch();
+          anyShift = true;
+        }
+      }
+      if (anyShift) {
+        pstmt.executeBatch();
       }
-    } catch (SQLException e) {
-      e.printStackTrace();
     }
-    return -1;
   }
 
   /**
-   * Removes an employee from a department in the database.
+   * Binds the columns of an employee insert.
    *
+   * @param pstmt the statement of INSERT_EMPLOYEE_QUERY
+   * @param employeeId the id of the new employee
    * @param organizationId the organization id
-   * @param departmentId the internal department id
-   * @param employeeId the internal employee id
+   * @param departmentId the department id
+   * @param employee the employee to add
+   * @throws SQLException if a parameter cannot be set
+   */
+  private static void bindEmployeeInsert(
+      PreparedStatement pstmt, int employeeId, int organizationId, int departmentId,
+      Employee employee
+  ) throws SQLException {
+    pstmt.setInt(1, employeeId);
+    pstmt.setInt(2, organizationId);
+    pstmt.setInt(3, departmentId);
+    pstmt.setString(4, employee.getName());
+    Date hireDate = employee.getHireDate();
+    if (hireDate != null) {
+      pstmt.setDate(5, new java.sql.Date(hireDate.getTime()));
+    } else {
+      pstmt.setNull(5, java.sql.Types.DATE);
+    }
+    pstmt.setString(6, employee.getPosition());
+    pstmt.setDouble(7, employee.getSalary());
+    pstmt.setDouble(8, employee.getPerformance());
+    setManagerId(pstmt, 9, employee.getManagerId());
+  }
+
+  /**
+   * Removes an employee from a department in the database, in a single transaction.
+   *
+   * @param organizationId the organization id
+   * @param departmentId the department id
+   * @param employeeId the employee id
    * @return true if removal successful, false otherwise
    */
   @Override
@@ -320,22 +672,34 @@ public final class MysqlConnection implements DatabaseConnection {
         "SELECT head_employee_id FROM departments "
             + "WHERE department_id = ? AND organization_id = ?";
 
-    try (PreparedStatement checkStmt = connection.prepareStatement(checkHeadQuery)) {
-      checkStmt.setInt(1, departmentId);
-      checkStmt.setInt(2, organizationId);
-
-      try (ResultSet rs = checkStmt.executeQuery()) {
-        if (rs.next() && rs.getInt("head_employee_id") == employeeId) {
-          String updateHeadQuery =
-              "UPDATE departments SET head_employee_id = NULL "
-                  + "WHERE department_id = ? AND organization_id = ?";
-          try (PreparedStatement updateStmt = connection.prepareStatement(updateHeadQuery)) {
-            updateStmt.setInt(1, departmentId);
-            updateStmt.setInt(2, organizationId);
-            updateStmt.executeUpdate();
+    return atomically(false, connection -> {
+      try (PreparedStatement checkStmt = connection.prepareStatement(checkHeadQuery)) {
+        checkStmt.setInt(1, departmentId);
+        checkStmt.setInt(2, organizationId);
+
+        try (ResultSet rs = checkStmt.executeQuery()) {
+          if (rs.next() && rs.getInt("head_employee_id") == employeeId) {
+            String updateHeadQuery =
+                "UPDATE departments SET head_employee_id = NULL "
+                    + "WHERE department_id = ? AND organization_id = ?";
+            try (PreparedStatement updateStmt = connection.prepareStatement(updateHeadQuery)) {
+              updateStmt.setInt(1, departmentId);
+              updateStmt.setInt(2, organizationId);
+              updateStmt.executeUpdate();
+            }
           }
         }
       }
+      reparentReports(connection, organizationId, employeeId);
+
+      String deleteShiftsQuery =
+          "DELETE FROM shifts WHERE organization_id = ? AND employee_id = ?";
+      try (PreparedStatement pstmt = connection.prepareStatement(deleteShiftsQuery)) {
+        pstmt.setInt(1, organizationId);
+        pstmt.setInt(2, employeeId);
+        pstmt.executeUpdate();
+      }
+
       String deleteQuery =
           "DELETE FROM employees "
               + "WHERE employee_id = ? AND department_id = ? AND organization_id = ?";
@@ -348,25 +712,14 @@ public final class MysqlConnection implements DatabaseConnection {
         int rowsAffected = pstmt.executeUpdate();
         return rowsAffected > 0;
       }
-    } catch (SQLException e) {
-      e.printStackTrace();
-      return false;
-    }
+    });
   }
 
   @Override
   public boolean updateEmployee(int organizationId, Employee employee) {
-    int internalEmployeeId = organizationId * 10000 + employee.getId();
-    String query = "UPDATE employees SET name = ?, position = ?, salary = ?, performance = ? "
-        + "WHERE organization_id = ? AND employee_id = ?";
-
-    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-      pstmt.setString(1, employee.getName());
-      pstmt.setString(2, employee.getPosition());
-      pstmt.setDouble(3, employee.getSalary());
-      pstmt.setDouble(4, employee.getPerformance());
-      pstmt.setInt(5, organizationId);
-      pstmt.setInt(6, internalEmployeeId);
+    try (Connection connection = borrowConnection();
+        PreparedStatement pstmt = connection.prepareStatement(UPDATE_EMPLOYEE_QUERY)) {
+      bindEmployeeUpdate(pstmt, organizationId, employee);
 
       int rowsAffected = pstmt.executeUpdate();
       return rowsAffected > 0;
@@ -376,10 +729,145 @@ public final class MysqlConnection implements DatabaseConnection {
     }
   }
 
+  /**
+   * Updates several employees with a single batched update, in one transaction.
+   * Nothing is updated if any of the employees does not exist.
+   *
+   * @param organizationId the organization id
+   * @param employees the employees to update
+   * @return true if every update is successful, false otherwise
+   */
+  @Override
+  public boolean updateEmployees(int organizationId, List<Employee> employees) {
+    if (employees.isEmpty()) {
+      return true;
+    }
+    return atomically(false, connection -> {
+      try (PreparedStatement pstmt = connection.prepareStatement(UPDATE_EMPLOYEE_QUERY)) {
+        for (Employee employee : employees) {
+          bindEmployeeUpdate(pstmt, organizationId, employee);
+          pstmt.addBatch();
+        }
+        for (int rowsAffected : pstmt.executeBatch()) {
+          if (rowsAffected == 0) {
+            return false;
+          }
+        }
+      }
+      return true;
+    });
+  }
+
+  /**
+   * Binds the columns of an employee update.
+   *
+   * @param pstmt the statement of UPDATE_EMPLOYEE_QUERY
+   * @param organizationId the organization id
+   * @param employee the employee to update
+   * @throws SQLException if a parameter cannot be set
+   */
+  private static void bindEmployeeUpdate(
+      PreparedStatement pstmt, int organizationId, Employee employee
+  ) throws SQLException {
+    pstmt.setString(1, employee.getName());
+    pstmt.setString(2, employee.getPosition());
+    pstmt.setDouble(3, employee.getSalary());
+    pstmt.setDouble(4, employee.getPerformance());
+    setManagerId(pstmt, 5, employee.getManagerId());
+    pstmt.setInt(6, organizationId);
+    pstmt.setInt(7, employee.getId());
+  }
+
+  /**
+   * Replaces the shift rows of an employee with one row per slot of its weekly mask,
+   * in a single transaction.
+   *
+   * @param organizationId the organization id
+   * @param employee the employee holding its new shifts
+   * @return true if update successful, false otherwise
+   */
+  @Override
+  public boolean updateEmployeeShifts(int organizationId, Employee employee) {
+    String deleteQuery = "DELETE FROM shifts WHERE organization_id = ? AND employee_id = ?";
+    String insertQuery =
+        "INSERT INTO shifts (organization_id, employee_id, day_of_week, time_slot) "
+            + "VALUES (?, ?, ?, ?)";
+
+    if (getEmployee(organizationId, employee.getId()) == null) {
+      return false;
+    }
+    return atomically(false, connection -> {
+      try (PreparedStatement pstmt = connection.prepareStatement(deleteQuery)) {
+        pstmt.setInt(1, organizationId);
+        pstmt.setInt(2, employee.getId());
+        pstmt.executeUpdate();
+      }
+      try (PreparedStatement pstmt = connection.prepareStatement(insertQuery)) {
+        int mask = employee.getShiftMask();
+        for (int rest = mask; rest != 0; rest &= rest - 1) {
+          int bit = Integer.numberOfTrailingZeros(rest);
+          pstmt.setInt(1, organizationId);
+          pstmt.setInt(2, employee.getId());
+          pstmt.setInt(3, ShiftSchedule.dayOf(bit).getValue());
+          pstmt.setInt(4, ShiftSchedule.timeSlotOf(bit));
+          pstmt.addBatch();
+        }
+        if (mask != 0) {
+          pstmt.executeBatch();
+        }
+      }
+      return true;
+    });
+  }
+
+  /**
+   * Replaces the shift rows of several employees with two batched statements,
+   * in a single transaction, so a roster is either written whole or not at all.
+   *
+   * @param organizationId the organization id
+   * @param employees the employees holding their new shifts
+   * @return true if update successful, false otherwise
+   */
+  @Override
+  public boolean updateEmployeesShifts(int organizationId, List<Employee> employees) {
+    String deleteQuery = "DELETE FROM shifts WHERE organization_id = ? AND employee_id = ?";
+    String insertQuery =
+        "INSERT INTO shifts (organization_id, employee_id, day_of_week, time_slot) "
+            + "VALUES (?, ?, ?, ?)";
+
+    return atomically(false, connection -> {
+      try (PreparedStatement deleteStmt = connection.prepareStatement(deleteQuery);
+          PreparedStatement insertStmt = connection.prepareStatement(insertQuery)) {
+        boolean anyShift = false;
+        for (Employee employee : employees) {
+          deleteStmt.setInt(1, organizationId);
+          deleteStmt.setInt(2, employee.getId());
+          deleteStmt.addBatch();
+          for (int rest = employee.getShiftMask(); rest != 0; rest &= rest - 1) {
+            int bit = Integer.numberOfTrailingZeros(rest);
+            insertStmt.setInt(1, organizationId);
+            insertStmt.setInt(2, employee.getId());
+            insertStmt.setInt(3, ShiftSchedule.dayOf(bit).getValue());
+            insertStmt.setInt(4, ShiftSchedule.timeSlotOf(bit));
+            insertStmt.addBatch();
+            anyShift = true;
+          }
+        }
+        if (!employees.isEmpty()) {
+          deleteStmt.executeBatch();
+        }
+        if (anyShift) {
+          insertStmt.executeBatch();
+        }
+      }
+      return true;
+    });
+  }
 
   /**
    * Updates a department's information in the database.
-   * This method handles all department updates including setting department head.
+   * This method handles all department updates including setting department head,
+   * checking the head and updating the department in a single transaction.
    *
    * @param organizationId the organization id
    * @param department the department to update
@@ -387,55 +875,56 @@ public final class MysqlConnection implements DatabaseConnection {
    */
   @Override
   public boolean updateDepartment(int organizationId, Department department) {
-    int internalDepartmentId = organizationId * 10000 + department.getId();
     Employee head = department.getHead();
-    int headEmployeeId = head != null ? (organizationId * 10000 + head.getId()) : 0;
-
-    if (head != null) {
-      String verifyQuery =
-          "SELECT 1 FROM employees "
-              + "WHERE employee_id = ? AND organization_id = ? AND department_id = ?";
+    String verifyQuery =
+        "SELECT 1 FROM employees "
+            + "WHERE employee_id = ? AND organization_id = ? AND department_id = ?";
+    String query = "UPDATE departments SET name = ?, head_employee_id = ?, "
+        + "parent_department_id = ? WHERE organization_id = ? AND department_id = ?";
 
-      try (PreparedStatement verifyStmt = connection.prepareStatement(verifyQuery)) {
-        verifyStmt.setInt(1, headEmployeeId);
-        verifyStmt.setInt(2, organizationId);
-        verifyStmt.setInt(3, internalDepartmentId);
+    return atomically(false, connection -> {
+      if (head != null) {
+        try (PreparedStatement verifyStmt = connection.prepareStatement(verifyQuery)) {
+          verifyStmt.setInt(1, head.getId());
+          verifyStmt.setInt(2, organizationId);
+          verifyStmt.setInt(3, department.getId());
 
-        if (!verifyStmt.executeQuery().next()) {
-          return false;
+          try (ResultSet rs = verifyStmt.executeQuery()) {
+            if (!rs.next()) {
+              return false;
+            }
+          }
         }
-      } catch (SQLException e) {
-        e.printStackTrace();
-        return false;
       }
-    }
 
-    String query = "UPDATE departments SET name = ?, head_employee_id = ? "
-        + "WHERE organization_id = ? AND department_id = ?";
+      try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+        pstmt.setString(1, department.getName());
+        if (head != null) {
+          pstmt.setInt(2, head.getId());
+        } else {
+          pstmt.setNull(2, java.sql.Types.INTEGER);
+        }
+        Department parent = department.getParent();
+        if (parent != null) {
+          pstmt.setInt(3, parent.getId());
+        } else {
+          pstmt.setNull(3, java.sql.Types.INTEGER);
+        }
+        pstmt.setInt(4, organizationId);
+        pstmt.setInt(5, department.getId());
 
-    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-      pstmt.setString(1, department.getName());
-      if (head != null) {
-        pstmt.setInt(2, headEmployeeId);
-      } else {
-        pstmt.setNull(2, java.sql.Types.INTEGER);
+        int rowsAffected = pstmt.executeUpdate();
+        return rowsAffected > 0;
       }
-      pstmt.setInt(3, organizationId);
-      pstmt.setInt(4, internalDepartmentId);
-
-      int rowsAffected = pstmt.executeUpdate();
-      return rowsAffected > 0;
-    } catch (SQLException e) {
-      e.printStackTrace();
-      return false;
-    }
+    });
   }
 
   @Override
   public boolean updateOrganization(Organization organization) {
     String query = "UPDATE organizations SET name = ? WHERE organization_id = ?";
 
-    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+    try (Connection connection = borrowConnection();
+        PreparedStatement pstmt = connection.prepareStatement(query)) {
       pstmt.setString(1, organization.getName());
       pstmt.setInt(2, organization.getId());
 
@@ -449,26 +938,10 @@ public final class MysqlConnection implements DatabaseConnection {
 
   @Override
   public Department insertDepartment(int organizationId, Department department) {
-    // Generate a new internal department ID
-    String maxIdQuery =
-        "SELECT MAX(department_id) as max_id FROM departments WHERE organization_id = ?";
-
+    // Generate a new department ID
     int newDepartmentId;
-
-    try (PreparedStatement pstmt = connection.prepareStatement(maxIdQuery)) {
-      pstmt.setInt(1, organizationId);
-      try (ResultSet rs = pstmt.executeQuery()) {
-        if (rs.next()) {
-          int maxId = rs.getInt("max_id");
-          if (rs.wasNull()) {
-            newDepartmentId = organizationId * 10000 + 1;
-          } else {
-            newDepartmentId = maxId + 1;
-          }
-        } else {
-          newDepartmentId = organizationId * 10000 + 1;
-        }
-      }
+    try {
+      newDepartmentId = idAllocator.nextId(organizationId, IdAllocator.Entity.DEPARTMENT);
     } catch (SQLException e) {
       e.printStackTrace();
       return null;
@@ -477,15 +950,15 @@ public final class MysqlConnection implements DatabaseConnection {
     String insertDepartmentQuery =
         "INSERT INTO departments (department_id, organization_id, name) VALUES (?, ?, ?)";
 
-    try (PreparedStatement pstmt = connection.prepareStatement(insertDepartmentQuery)) {
+    try (Connection connection = borrowConnection();
+        PreparedStatement pstmt = connection.prepareStatement(insertDepartmentQuery)) {
       pstmt.setInt(1, newDepartmentId);
       pstmt.setInt(2, organizationId);
       pstmt.setString(3, department.getName());
 
       int rowsAffected = pstmt.executeUpdate();
       if (rowsAffected > 0) {
-        int externalDeptId = newDepartmentId % 10000;
-        return new Department(externalDeptId, department.getName(), new ArrayList<>());
+        return new Department(newDepartmentId, department.getName(), new ArrayList<>());
       }
     } catch (SQLException e) {
       e.printStackTrace();
@@ -495,53 +968,158 @@ public final class MysqlConnection implements DatabaseConnection {
 
   @Override
   public boolean removeDepartment(int organizationId, int externalDepartmentId) {
-    int internalDepartmentId = organizationId * 10000 + externalDepartmentId;
-
-    // First, remove all employees in the department
+    // First, remove all employees in the department, once their reports have moved up
+    String employeesQuery =
+        "SELECT employee_id FROM employees WHERE organization_id = ? AND department_id = ?";
     String deleteEmployeesQuery =
         "DELETE FROM employees WHERE organization_id = ? AND department_id = ?";
 
-    try (PreparedStatement pstmt1 = connection.prepareStatement(deleteEmployeesQuery)) {
-      pstmt1.setInt(1, organizationId);
-      pstmt1.setInt(2, internalDepartmentId);
-      pstmt1.executeUpdate();
+    return atomically(false, connection -> {
+      List<Integer> employeeIds = new ArrayList<>();
+      try (PreparedStatement pstmt = connection.prepareStatement(employeesQuery)) {
+        pstmt.setInt(1, organizationId);
+        pstmt.setInt(2, externalDepartmentId);
+        try (ResultSet rs = pstmt.executeQuery()) {
+          while (rs.next()) {
+            employeeIds.add(rs.getInt("employee_id"));
+          }
+        }
+      }
+      for (int employeeId : employeeIds) {
+        reparentReports(connection, organizationId, employeeId);
+      }
+      String deleteShiftsQuery = "DELETE FROM shifts WHERE organization_id = ? AND employee_id IN "
+          + "(SELECT employee_id FROM employees WHERE organization_id = ? AND department_id = ?)";
+      try (PreparedStatement pstmt = connection.prepareStatement(deleteShiftsQuery)) {
+        pstmt.setInt(1, organizationId);
+        pstmt.setInt(2, organizationId);
+        pstmt.setInt(3, externalDepartmentId);
+        pstmt.executeUpdate();
+      }
+      try (PreparedStatement pstmt1 = connection.prepareStatement(deleteEmployeesQuery)) {
+        pstmt1.setInt(1, organizationId);
+        pstmt1.setInt(2, externalDepartmentId);
+        pstmt1.executeUpdate();
+      }
 
-      // Then, remove the department
+      // Then, move its sub-departments up to its own parent
+      reparentSubDepartments(connection, organizationId, externalDepartmentId);
+
+      // Finally, remove the department
       String deleteDepartmentQuery =
           "DELETE FROM departments WHERE organization_id = ? AND department_id = ?";
 
       try (PreparedStatement pstmt2 = connection.prepareStatement(deleteDepartmentQuery)) {
         pstmt2.setInt(1, organizationId);
-        pstmt2.setInt(2, internalDepartmentId);
+        pstmt2.setInt(2, externalDepartmentId);
 
         int rowsAffected = pstmt2.executeUpdate();
         return rowsAffected > 0;
       }
-    } catch (SQLException e) {
-      e.printStackTrace();
-      return false;
+    });
+  }
+
+  /**
+   * Moves the direct reports of an employee to the manager of that employee.
+   *
+   * @param connection the borrowed connection
+   * @param organizationId the organization id
+   * @param employeeId the id of the employee
+   * @throws SQLException if a query fails
+   */
+  private void reparentReports(
+      Connection connection, int organizationId, int employeeId
+  ) throws SQLException {
+    Integer managerId = null;
+    String managerQuery = "SELECT manager_id FROM employees "
+        + "WHERE organization_id = ? AND employee_id = ?";
+    try (PreparedStatement pstmt = connection.prepareStatement(managerQuery)) {
+      pstmt.setInt(1, organizationId);
+      pstmt.setInt(2, employeeId);
+      try (ResultSet rs = pstmt.executeQuery()) {
+        if (rs.next()) {
+          int id = rs.getInt("manager_id");
+          managerId = rs.wasNull() ? null : id;
+        }
+      }
+    }
+
+    String reparentQuery = "UPDATE employees SET manager_id = ? "
+        + "WHERE organization_id = ? AND manager_id = ?";
+    try (PreparedStatement pstmt = connection.prepareStatement(reparentQuery)) {
+      if (managerId != null) {
+        pstmt.setInt(1, managerId);
+      } else {
+        pstmt.setNull(1, java.sql.Types.INTEGER);
+      }
+      pstmt.setInt(2, organizationId);
+      pstmt.setInt(3, employeeId);
+      pstmt.executeUpdate();
     }
   }
 
-  @Override
-  public Organization insertOrganization(Organization organization) {
-    // Generate a new organization ID
-    String maxIdQuery = "SELECT MAX(organization_id) as max_id FROM organizations";
-    int newOrganizationId;
+  /**
+   * Binds the manager of an employee, or NULL for no manager.
+   *
+   * @param pstmt the statement
+   * @param index the parameter index
+   * @param managerId the id of the manager, 0 for no manager
+   * @throws SQLException if the parameter cannot be set
+   */
+  private static void setManagerId(PreparedStatement pstmt, int index, int managerId)
+      throws SQLException {
+    if (managerId == 0) {
+      pstmt.setNull(index, java.sql.Types.INTEGER);
+    } else {
+      pstmt.setInt(index, managerId);
+    }
+  }
 
-    try (PreparedStatement pstmt = connection.prepareStatement(maxIdQuery)) {
+  /**
+   * Moves the sub-departments of a department to the parent of that department.
+   *
+   * @param connection the borrowed connection
+   * @param organizationId the organization id
+   * @param departmentId the id of the department
+   * @throws SQLException if a query fails
+   */
+  private void reparentSubDepartments(
+      Connection connection, int organizationId, int departmentId
+  ) throws SQLException {
+    Integer parentDepartmentId = null;
+    String parentQuery = "SELECT parent_department_id FROM departments "
+        + "WHERE organization_id = ? AND department_id = ?";
+    try (PreparedStatement pstmt = connection.prepareStatement(parentQuery)) {
+      pstmt.setInt(1, organizationId);
+      pstmt.setInt(2, departmentId);
       try (ResultSet rs = pstmt.executeQuery()) {
         if (rs.next()) {
-          int maxId = rs.getInt("max_id");
-          if (rs.wasNull()) {
-            newOrganizationId = 1;
-          } else {
-            newOrganizationId = maxId + 1;
-          }
-        } else {
-          newOrganizationId = 1;
+          int parentId = rs.getInt("parent_department_id");
+          parentDepartmentId = rs.wasNull() ? null : parentId;
         }
       }
+    }
+
+    String reparentQuery = "UPDATE departments SET parent_department_id = ? "
+        + "WHERE organization_id = ? AND parent_department_id = ?";
+    try (PreparedStatement pstmt = connection.prepareStatement(reparentQuery)) {
+      if (parentDepartmentId != null) {
+        pstmt.setInt(1, parentDepartmentId);
+      } else {
+        pstmt.setNull(1, java.sql.Types.INTEGER);
+      }
+      pstmt.setInt(2, organizationId);
+      pstmt.setInt(3, departmentId);
+      pstmt.executeUpdate();
+    }
+  }
+
+  @Override
+  public Organization insertOrganization(Organization organization) {
+    // Generate a new organization ID
+    int newOrganizationId;
+    try {
+      newOrganizationId = idAllocator.nextId(0, IdAllocator.Entity.ORGANIZATION);
     } catch (SQLException e) {
       e.printStackTrace();
       return null;
@@ -550,7 +1128,8 @@ public final class MysqlConnection implements DatabaseConnection {
     String insertOrganizationQuery =
         "INSERT INTO organizations (organization_id, name) VALUES (?, ?)";
 
-    try (PreparedStatement pstmt = connection.prepareStatement(insertOrganizationQuery)) {
+    try (Connection connection = borrowConnection();
+        PreparedStatement pstmt = connection.prepareStatement(insertOrganizationQuery)) {
       pstmt.setInt(1, newOrganizationId);
       pstmt.setString(2, organization.getName());
 
@@ -566,11 +1145,18 @@ public final class MysqlConnection implements DatabaseConnection {
 
   @Override
   public boolean removeOrganization(int organizationId) {
-    // Delete employees
+    // Delete shifts and employees
+    String deleteShiftsQuery = "DELETE FROM shifts WHERE organization_id = ?";
     String deleteEmployeesQuery = "DELETE FROM employees WHERE organization_id = ?";
-    try (PreparedStatement pstmt1 = connection.prepareStatement(deleteEmployeesQuery)) {
-      pstmt1.setInt(1, organizationId);
-      pstmt1.executeUpdate();
+    return atomically(false, connection -> {
+      try (PreparedStatement pstmt = connection.prepareStatement(deleteShiftsQuery)) {
+        pstmt.setInt(1, organizationId);
+        pstmt.executeUpdate();
+      }
+      try (PreparedStatement pstmt1 = connection.prepareStatement(deleteEmployeesQuery)) {
+        pstmt1.setInt(1, organizationId);
+        pstmt1.executeUpdate();
+      }
 
       String deleteDepartmentsQuery = "DELETE FROM departments WHERE organization_id = ?";
       try (PreparedStatement pstmt2 = connection.prepareStatement(deleteDepartmentsQuery)) {
@@ -585,12 +1171,193 @@ public final class MysqlConnection implements DatabaseConnection {
         int rowsAffected = pstmt3.executeUpdate();
         return rowsAffected > 0;
       }
+    });
+  }
+
+  /**
+   * Runs a unit of work in a single transaction on one pooled connection, which every
+   * operation of the calling thread shares until the work returns. The transaction is
+   * committed once when the work returns and rolled back if it throws.
+   * New ids are still reserved on connections of their own, so that they are never
+   * handed out twice after a rollback.
+   *
+   * @param work the work
+   * @param <T> the type of the result of the work
+   * @return the result of the work
+   * @throws InternalServerErrorException if the transaction cannot be started or committed
+   */
+  @Override
+  public <T> T inUnitOfWork(UnitOfWork.Work<T> work) {
+    Transaction joined = currentTransaction.get();
+    if (joined != null) {
+      return work.run(joined);
+    }
+    Connection connection = null;
+    try {
+      connection = pool.getConnection();
+      connection.setAutoCommit(false);
+      Transaction transaction = new Transaction(connection);
+      currentTransaction.set(transaction);
+      T result;
+      try {
+        result = work.run(transaction);
+      } finally {
+        currentTransaction.remove();
+      }
+      connection.commit();
+      return result;
+    } catch (SQLException e) {
+      throw (InternalServerErrorException)
+          new InternalServerErrorException("Failed to run the unit of work.").initCause(e);
+    } finally {
+      // Rolled back when the connection goes back to the pool, unless committed
+      closeAll(connection);
+    }
+  }
+
+  /**
+   * Borrows a connection from the pool, or shares the connection of the unit of work
+   * of the calling thread. Closing a shared connection leaves it open for the unit.
+   *
+   * @return the connection, to be closed by the caller
+   * @throws SQLException if no connection can be borrowed
+   */
+  private Connection borrowConnection() throws SQLException {
+    Transaction transaction = currentTransaction.get();
+    return transaction == null ? pool.getConnection() : transaction.shared;
+  }
+
+  /**
+   * Statements run together on one connection.
+   *
+   * @param <T> the type of the result
+   */
+  @FunctionalInterface
+  private interface Statements<T> {
+    T run(Connection connection) throws SQLException;
+  }
+
+  /**
+   * Runs statements atomically, in a transaction of their own with a single commit.
+   * Inside a unit of work they join its transaction behind a savepoint instead,
+   * so that a failure undoes them without undoing the rest of the unit.
+   * The statements are undone if they throw or return the failure result.
+   *
+   * @param failure the result returned when the statements fail
+   * @param statements the statements
+   * @param <T> the type of the result
+   * @return the result of the statements, or the failure result
+   */
+  private <T> T atomically(T failure, Statements<T> statements) {
+    Transaction transaction = currentTransaction.get();
+    if (transaction != null) {
+      int savepoint = transaction.savepoint();
+      try {
+        T result = statements.run(transaction.connection);
+        if (Objects.equals(result, failure)) {
+          transaction.rollbackTo(savepoint);
+        }
+        // The savepoint is only needed to undo the statements, long units would pile them up
+        transaction.release(savepoint);
+        return result;
+      } catch (SQLException e) {
+        e.printStackTrace();
+        transaction.rollbackTo(savepoint);
+        transaction.release(savepoint);
+        return failure;
+      }
+    }
+    try (Connection connection = pool.getConnection()) {
+      connection.setAutoCommit(false);
+      T result = statements.run(connection);
+      // Otherwise rolled back when the connection goes back to the pool
+      if (!Objects.equals(result, failure)) {
+        connection.commit();
+      }
+      return result;
     } catch (SQLException e) {
       e.printStackTrace();
-      return false;
+      return failure;
     }
   }
 
+  /**
+   * The transaction of a unit of work, on a connection borrowed for the whole unit.
+   */
+  private static final class Transaction implements UnitOfWork {
+    private final Connection connection;
+    // Handed to the operations of the unit, which close it after each statement
+    private final Connection shared;
+    private final List<Savepoint> savepoints = new ArrayList<>();
+
+    private Transaction(Connection connection) {
+      this.connection = connection;
+      this.shared = (Connection) Proxy.newProxyInstance(
+          Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+          (proxy, method, args) -> {
+            if (method.getName().equals("close")) {
+              return null;
+            }
+            try {
+              return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+              throw e.getCause();
+            }
+          });
+    }
+
+    @Override
+    public int savepoint() {
+      try {
+        this.savepoints.add(this.connection.setSavepoint());
+      } catch (SQLException e) {
+        throw (InternalServerErrorException)
+            new InternalServerErrorException("Failed to set a savepoint.").initCause(e);
+      }
+      return this.savepoints.size() - 1;
+    }
+
+    @Override
+    public void rollbackTo(int savepoint) {
+      if (savepoint < 0 || savepoint >= this.savepoints.size()) {
+        throw new IllegalArgumentException("Savepoint [" + savepoint + "] is not set");
+      }
+      try {
+        this.connection.rollback(this.savepoints.get(savepoint));
+      } catch (SQLException e) {
+        throw (InternalServerErrorException)
+            new InternalServerErrorException("Failed to roll back to a savepoint.").initCause(e);
+      }
+      // Like the database, keep the savepoint and drop the later ones
+      this.savepoints.subList(savepoint + 1, this.savepoints.size()).clear();
+    }
+
+    /**
+     * Releases a savepoint and the later ones, keeping the writes made since.
+     *
+     * @param savepoint the savepoint
+     */
+    private void release(int savepoint) {
+      try {
+        this.connection.releaseSavepoint(this.savepoints.get(savepoint));
+      } catch (SQLException e) {
+        throw (InternalServerErrorException)
+            new InternalServerErrorException("Failed to release a savepoint.").initCause(e);
+      }
+      // Like the database, the later savepoints are released with it
+      this.savepoints.subList(savepoint, this.savepoints.size()).clear();
+    }
+  }
+
+  /**
+   * Returns a statistic of the connection pool usage.
+   *
+   * @return a Map of the statistic that can be easily converted to JSON
+   */
+  @Override
+  public Map<String, Object> getPoolStatisticMap() {
+    return pool.getStatisticMap();
+  }
 
   /**
    * Returns the unique instance of the database connection.
@@ -1,6 +1,8 @@
 package dev.coms4156.project;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -10,8 +12,8 @@ import java.util.Map;
  * An organization is a composite of employees and departments.
  */
 public class Organization extends OrganizationComposite {
-  private final List<Employee> employees;
-  private final List<Department> departments;
+  private final ChildStore<Department> departments;
+  private final ChildStore<Employee> employees;
 
   /**
    * Constructs an organization with the given ID and name.
@@ -22,8 +24,8 @@ public class Organization extends OrganizationComposite {
   public Organization(int id, String name) {
     super(id, name);
     this.typeName = "Organization";
-    this.employees = new ArrayList<>();
-    this.departments = new ArrayList<>();
+    this.departments = newChildStore();
+    this.employees = newChildStore();
   }
 
   /**
@@ -33,8 +35,9 @@ public class Organization extends OrganizationComposite {
    */
   public void setEmployees(List<Employee> employees) {
     //this.employees = employees;
+    List<Employee> newEmployees = new ArrayList<>(employees);
     this.employees.clear();
-    for (Employee employee : employees) {
+    for (Employee employee : newEmployees) {
       this.addEmployee(employee);
     }
   }
@@ -46,12 +49,32 @@ public class Organization extends OrganizationComposite {
    */
   public void setDepartments(List<Department> departments) {
     //this.departments = departments;
+    List<Department> newDepartments = new ArrayList<>(departments);
     this.departments.clear();
-    for (Department department : departments) {
+    for (Department department : newDepartments) {
       this.addDepartment(department);
     }
   }
 
+  /**
+   * Returns the list of employees in the organization.
+   *
+   * @return the list of employees
+   */
+  public List<Employee> getEmployees() {
+    // Same as Department, we return the list itself, not a copy, for performance reasons
+    return this.employees;
+  }
+
+  /**
+   * Returns the list of departments in the organization.
+   *
+   * @return the list of departments
+   */
+  public List<Department> getDepartments() {
+    return this.departments;
+  }
+
   /**
    * Onboarding an employee to the organization.
    *
@@ -59,7 +82,6 @@ public class Organization extends OrganizationComposite {
    * @return true if the employee is onboarded, false otherwise
    */
   public boolean addEmployee(Employee employee) {
-    this.add(employee);
     return this.employees.add(employee);
   }
 
@@ -70,7 +92,6 @@ public class Organization extends OrganizationComposite {
    * @return true if the employee is offboarded, false otherwise
    */
   public boolean removeEmployee(Employee employee) {
-    this.remove(employee);
     return this.employees.remove(employee);
   }
 
@@ -81,8 +102,33 @@ public class Organization extends OrganizationComposite {
    * @return true if the department is added, false otherwise
    */
   public boolean addDepartment(Department department) {
-    this.departments.add(department);
-    return this.add(department);
+    return this.departments.add(department);
+  }
+
+  /**
+   * Remove a department from the organization.
+   *
+   * @param department department to be removed from this organization
+   * @return true if the department is removed, false otherwise
+   */
+  public boolean removeDepartment(Department department) {
+    return this.departments.remove(department);
+  }
+
+  /**
+   * Replaces a department of the organization with another instance of the same department.
+   *
+   * @param previous the department instance to be replaced
+   * @param replacement the department instance to put in its place
+   * @return true if the department is replaced, false otherwise
+   */
+  public boolean replaceDepartment(Department previous, Department replacement) {
+    int index = this.departments.indexOf(previous);
+    if (index < 0) {
+      return false;
+    }
+    this.departments.set(index, replacement);
+    return true;
   }
 
   /**
@@ -111,6 +157,8 @@ public class Organization extends OrganizationComposite {
       deptInfo.put("name", dept.getName() != null ? dept.getName() : "");
       deptInfo.put("head", dept.getHead() != null ? dept.getHead().getName() : "");
       deptInfo.put("employeeCount", dept.getEmployees() != null ? dept.getEmployees().size() : 0);
+      // Every department is listed once, nested ones with the department they belong to
+      deptInfo.put("parentId", dept.getParent() != null ? dept.getParent().getId() : "");
       return deptInfo;
     }).toList();
     result.put("departments", departments);
@@ -137,16 +185,36 @@ public class Organization extends OrganizationComposite {
   /**
    * Display the hierarchical structure of the organization.
    * Class Static Method
+   * The tree is walked with an explicit stack into a single buffer,
+   * so deeply nested departments neither recurse nor concatenate intermediate strings.
+   * Nested departments are displayed once, under their parent department.
    *
    * @return a string representation of the hierarchical structure of the organization
    */
   public static String displayStructure(OrganizationComponent component, int depth) {
     // Tested - add clarification to Dept or Employee
     StringBuilder sb = new StringBuilder();
-    sb.append(" ".repeat(depth * 2)).append("- ").append(component.getTypeName())
-        .append(": ").append(component.getName()).append("\n");
-    for (OrganizationComponent child : component.getChildren()) {
-      sb.append(displayStructure(child, depth + 1));
+    Deque<OrganizationComponent> components = new ArrayDeque<>();
+    Deque<Integer> depths = new ArrayDeque<>();
+    components.push(component);
+    depths.push(depth);
+    while (!components.isEmpty()) {
+      OrganizationComponent current = components.pop();
+      int currentDepth = depths.pop();
+      sb.append(" ".repeat(currentDepth * 2)).append("- ").append(current.getTypeName())
+          .append(": ").append(current.getName()).append("\n");
+      // Pushed in reverse, so the children are displayed in their order
+      List<OrganizationComponent> children = current.getChildren();
+      for (int i = children.size() - 1; i >= 0; i--) {
+        OrganizationComponent child = children.get(i);
+        // The organization also lists nested departments, they are displayed under their parent
+        if (current instanceof Organization && child instanceof Department department
+            && department.getParent() != null) {
+          continue;
+        }
+        components.push(child);
+        depths.push(currentDepth + 1);
+      }
     }
     return sb.toString();
   }
@@ -1,16 +1,21 @@
 package dev.coms4156.project;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
 
 /**
  * An organization composite in the HR system.
  * An abstract class that implements the OrganizationComponent interface.
+ * Each type of children is kept once, in a store indexed by ID.
  */
 public abstract class OrganizationComposite implements OrganizationComponent {
   protected final int id;
   protected String name;
-  protected final List<OrganizationComponent> children;
+  private final List<ChildStore<? extends OrganizationComponent>> childStores = new ArrayList<>(2);
+  private final List<OrganizationComponent> children = new ChildrenView();
   protected String typeName;
 
   /**
@@ -22,7 +27,6 @@ public abstract class OrganizationComposite implements OrganizationComponent {
   public OrganizationComposite(int id, String name) {
     this.id = id;
     this.name = name;
-    this.children = new ArrayList<>();
     this.typeName = "Abstract";
   }
 
@@ -50,29 +54,27 @@ public abstract class OrganizationComposite implements OrganizationComponent {
     return this.typeName;
   }
 
-  @Override
-  public List<OrganizationComponent> getChildren() {
-    return this.children;
-  }
-
   /**
-   * Adds a child component to the organization.
+   * Returns the children of the organization composite, of every type.
+   * The list is a read-only view over the stores of the subclass, not a copy.
    *
-   * @param organizationComponent the child component to add
-   * @return true if the child component was added, false otherwise
+   * @return the children
    */
-  boolean add(OrganizationComponent organizationComponent) {
-    return this.children.add(organizationComponent);
+  @Override
+  public List<OrganizationComponent> getChildren() {
+    return this.children;
   }
 
   /**
-   * Removes a child component from the organization.
+   * Creates the store of one type of children, which are then part of the children.
    *
-   * @param organizationComponent the child component to remove
-   * @return true if the child component was removed, false otherwise
+   * @param <T> the type of the children
+   * @return the new store
    */
-  boolean remove(OrganizationComponent organizationComponent) {
-    return this.children.remove(organizationComponent);
+  protected <T extends OrganizationComponent> ChildStore<T> newChildStore() {
+    ChildStore<T> store = new ChildStore<>();
+    this.childStores.add(store);
+    return store;
   }
 
   /**
@@ -83,4 +85,38 @@ public abstract class OrganizationComposite implements OrganizationComponent {
   int getNumChildren() {
     return this.children.size();
   }
-}
\ No newline at end of file
+
+  private final class ChildrenView extends AbstractList<OrganizationComponent>
+      implements RandomAccess {
+    @Override
+    public OrganizationComponent get(int index) {
+      Objects.checkIndex(index, size());
+      for (ChildStore<? extends OrganizationComponent> store : childStores) {
+        if (index < store.size()) {
+          return store.get(index);
+        }
+        index -= store.size();
+      }
+      throw new IndexOutOfBoundsException(index);
+    }
+
+    @Override
+    public int size() {
+      int size = 0;
+      for (ChildStore<? extends OrganizationComponent> store : childStores) {
+        size += store.size();
+      }
+      return size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      for (ChildStore<? extends OrganizationComponent> store : childStores) {
+        if (store.contains(o)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package dev.coms4156.project;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class encodes employee positions as small int codes.
+ * Every distinct position string is stored once and shared by all employees holding it.
+ * Each code also maps to the code of its normalized category, the trimmed lowercase
+ * position used by the position statistic, so departments can count positions in an array.
+ * Codes are never reused, and lookups of known positions do not lock.
+ */
+final class PositionDictionary {
+  /** The code of a null position. */
+  static final int NULL_CODE = 0;
+  /** The category of null and blank positions. */
+  static final int UNASSIGNED_CATEGORY = 0;
+
+  private static final Map<String, Integer> codes = new ConcurrentHashMap<>();
+  private static final Map<String, Integer> categoryCodes = new HashMap<>();
+  private static final Object lock = new Object();
+  // Replaced as a whole when a position is added, so readers never see a partial array
+  private static volatile String[] positions = {null};
+  private static volatile int[] categories = {UNASSIGNED_CATEGORY};
+  private static volatile String[] categoryNames = {"unassigned"};
+
+  static {
+    categoryCodes.put("unassigned", UNASSIGNED_CATEGORY);
+  }
+
+  private PositionDictionary() {
+  }
+
+  /**
+   * Returns the code of a position, adding the position if it is new.
+   *
+   * @param position the position, may be null
+   * @return the code of the position
+   */
+  static int encode(String position) {
+    if (position == null) {
+      return NULL_CODE;
+    }
+    Integer code = codes.get(position);
+    if (code != null) {
+      return code;
+    }
+    synchronized (lock) {
+      code = codes.get(position);
+      if (code != null) {
+        return code;
+      }
+      String normalized = position.trim().isEmpty()
+          ? "unassigned" : position.trim().toLowerCase(Locale.getDefault());
+      Integer category = categoryCodes.get(normalized);
+      if (category == null) {
+        category = categoryNames.length;
+        categoryCodes.put(normalized, category);
+        categoryNames = append(categoryNames, normalized);
+      }
+      code = positions.length;
+      int[] grownCategories = Arrays.copyOf(categories, code + 1);
+      grownCategories[code] = category;
+      categories = grownCategories;
+      positions = append(positions, position);
+      // Published last, so a code found without the lock is always present in the arrays
+      codes.put(position, code);
+      return code;
+    }
+  }
+
+  /**
+   * Returns the position of a code.
+   *
+   * @param code the code
+   * @return the position, may be null
+   */
+  static String decode(int code) {
+    return positions[code];
+  }
+
+  /**
+   * Returns the normalized category of a code.
+   *
+   * @param code the code
+   * @return the category code
+   */
+  static int categoryOf(int code) {
+    return categories[code];
+  }
+
+  /**
+   * Returns the name of a category, as reported by the position statistic.
+   *
+   * @param category the category code
+   * @return the trimmed lowercase position, or "unassigned"
+   */
+  static String categoryName(int category) {
+    return categoryNames[category];
+  }
+
+  private static String[] append(String[] array, String value) {
+    String[] grown = Arrays.copyOf(array, array.length + 1);
+    grown[array.length] = value;
+    return grown;
+  }
+}
@@ -0,0 +1,395 @@
+package dev.coms4156.project;
+
+import dev.coms4156.project.utils.IntHashMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * The reporting lines of an organization, indexed by the Euler tour of the reporting tree.
+ * Employees are laid out in a single array in depth-first order, so the direct and indirect
+ * reports of an employee are exactly the entries following it, as many as it has reports.
+ * Listing the reports costs their number, and counting them or checking whether one employee
+ * reports to another costs a constant time, without ever walking the tree.
+ *
+ * <p>Changing a manager moves the block of the employee and its reports next to its new
+ * manager, rewriting the positions between the old and the new place only, and updates the
+ * report counts along both manager chains.
+ * Manager IDs are external employee IDs, 0 meaning no manager. This class is not thread-safe.
+ */
+final class ReportingIndex {
+  /** The manager ID of an employee without a manager. */
+  static final int NO_MANAGER = 0;
+
+  private final IntHashMap<Node> nodes;
+  private Node[] tour;
+  private int size;
+
+  private static final class Node {
+    private final int id;
+    private Node manager;
+    private final List<Node> directReports = new ArrayList<>(0);
+    private int position;
+    // The employee itself and all of its direct and indirect reports
+    private int subtreeSize = 1;
+
+    private Node(int id) {
+      this.id = id;
+    }
+  }
+
+  /**
+   * Builds the index of the given employees.
+   * A manager that is not among the employees, or that would close a cycle, is ignored.
+   * The reports are grouped by manager and the tour is laid out in one depth-first pass,
+   * so that building costs a linear time.
+   *
+   * @param employees the employees of the organization
+   */
+  ReportingIndex(List<Employee> employees) {
+    this.nodes = new IntHashMap<>(employees.size());
+    List<Node> listed = new ArrayList<>(employees.size());
+    int[] managerIds = new int[employees.size()];
+    for (Employee employee : employees) {
+      Node node = this.nodes.get(employee.getId());
+      if (node == null) {
+        node = new Node(employee.getId());
+        // Until the tour is laid out, the position is the index of the employee in the list
+        node.position = listed.size();
+        this.nodes.put(employee.getId(), node);
+        listed.add(node);
+      }
+      managerIds[node.position] = employee.getManagerId();
+    }
+    for (Node node : listed) {
+      int managerId = managerIds[node.position];
+      Node manager = managerId == NO_MANAGER ? null : this.nodes.get(managerId);
+      if (manager != null && manager != node) {
+        node.manager = manager;
+        manager.directReports.add(node);
+      }
+    }
+    breakCycles(listed);
+
+    this.tour = new Node[Math.max(8, listed.size())];
+    Deque<Node> stack = new ArrayDeque<>();
+    for (Node root : listed) {
+      if (root.manager != null) {
+        continue;
+      }
+      stack.push(root);
+      while (!stack.isEmpty()) {
+        Node node = stack.pop();
+        place(node, this.size++);
+        for (int i = node.directReports.size() - 1; i >= 0; i--) {
+          stack.push(node.directReports.get(i));
+        }
+      }
+    }
+    // Reports follow their manager in the tour, so a backward pass sums up the subtrees
+    for (int i = this.size - 1; i >= 0; i--) {
+      Node node = this.tour[i];
+      if (node.manager != null) {
+        node.manager.subtreeSize += node.subtreeSize;
+      }
+    }
+  }
+
+  /**
+   * Finds the employees that cannot be reached from a top-level employee, which all hang off
+   * a cycle of managers, and makes the last employee of each cycle in the list a top-level one,
+   * as if the managers had been set in the order of the list.
+   * The positions of the nodes are still their indices in the list.
+   *
+   * @param listed the nodes in the order of the list
+   */
+  private static void breakCycles(List<Node> listed) {
+    boolean[] reached = new boolean[listed.size()];
+    for (Node node : listed) {
+      if (node.manager == null) {
+        reach(node, reached);
+      }
+    }
+    int[] walked = new int[listed.size()];
+    for (int i = 0; i < reached.length; i++) {
+      if (reached[i]) {
+        continue;
+      }
+      // Every manager up the chain is unreached as well, so the walk ends in a cycle
+      Node node = listed.get(i);
+      while (walked[node.position] != i + 1) {
+        walked[node.position] = i + 1;
+        node = node.manager;
+      }
+      Node last = node;
+      for (Node member = node.manager; member != node; member = member.manager) {
+        if (member.position > last.position) {
+          last = member;
+        }
+      }
+      last.manager.directReports.remove(last);
+      last.manager = null;
+      reach(last, reached);
+    }
+  }
+
+  private static void reach(Node root, boolean[] reached) {
+    Deque<Node> stack = new ArrayDeque<>();
+    stack.push(root);
+    while (!stack.isEmpty()) {
+      Node node = stack.pop();
+      reached[node.position] = true;
+      for (Node report : node.directReports) {
+        stack.push(report);
+      }
+    }
+  }
+
+  /**
+   * Adds an employee to the index.
+   *
+   * @param id the employee ID
+   * @param managerId the manager ID, or NO_MANAGER
+   * @return true if the employee is added, false if it is already indexed
+   */
+  boolean add(int id, int managerId) {
+    if (this.nodes.containsKey(id)) {
+      return false;
+    }
+    Node node = new Node(id);
+    this.nodes.put(id, node);
+    Node manager = managerId == NO_MANAGER ? null : this.nodes.get(managerId);
+    // A new employee is the last report of its manager, or the last top-level employee
+    int position = manager == null ? this.size : manager.position + manager.subtreeSize;
+    if (this.size == this.tour.length) {
+      this.tour = Arrays.copyOf(this.tour, this.size * 2);
+    }
+    System.arraycopy(this.tour, position, this.tour, position + 1, this.size - position);
+    this.size++;
+    place(node, position);
+    renumber(position + 1, this.size);
+    if (manager != null) {
+      node.manager = manager;
+      manager.directReports.add(node);
+      resizeChain(manager, 1);
+    }
+    return true;
+  }
+
+  /**
+   * Removes an employee from the index.
+   * Its direct reports are moved up to its own manager, which keeps them in place in the tour.
+   *
+   * @param id the employee ID
+   * @return the IDs of the former direct reports, now reporting to the removed manager's manager,
+   *     or null if the employee is not indexed
+   */
+  int[] remove(int id) {
+    Node node = this.nodes.remove(id);
+    if (node == null) {
+      return null;
+    }
+    Node manager = node.manager;
+    if (manager != null) {
+      manager.directReports.remove(node);
+      resizeChain(manager, -1);
+    }
+    int[] reassigned = new int[node.directReports.size()];
+    for (int i = 0; i < reassigned.length; i++) {
+      Node report = node.directReports.get(i);
+      report.manager = manager;
+      if (manager != null) {
+        manager.directReports.add(report);
+      }
+      reassigned[i] = report.id;
+    }
+    System.arraycopy(this.tour, node.position + 1, this.tour, node.position,
+        this.size - node.position - 1);
+    this.tour[--this.size] = null;
+    renumber(node.position, this.size);
+    return reassigned;
+  }
+
+  /**
+   * Returns whether the given manager can be assigned to an employee without closing a cycle.
+   *
+   * @param id the employee ID
+   * @param managerId the manager ID, or NO_MANAGER
+   * @return true if both are indexed and the manager does not report to the employee
+   */
+  boolean canSetManager(int id, int managerId) {
+    Node node = this.nodes.get(id);
+    if (node == null) {
+      return false;
+    }
+    if (managerId == NO_MANAGER) {
+      return true;
+    }
+    Node manager = this.nodes.get(managerId);
+    return manager != null && !isInSubtree(node, manager);
+  }
+
+  /**
+   * Assigns a new manager to an employee, moving all of its reports along.
+   *
+   * @param id the employee ID
+   * @param managerId the manager ID, or NO_MANAGER
+   * @return true if the manager is set, false if either is unknown or a cycle would be closed
+   */
+  boolean setManager(int id, int managerId) {
+    if (!canSetManager(id, managerId)) {
+      return false;
+    }
+    Node node = this.nodes.get(id);
+    Node manager = managerId == NO_MANAGER ? null : this.nodes.get(managerId);
+    if (node.manager == manager) {
+      return true;
+    }
+    if (node.manager != null) {
+      node.manager.directReports.remove(node);
+      resizeChain(node.manager, -node.subtreeSize);
+    }
+
+    // The target position as if the moved block were already cut out of the tour
+    int start = node.position;
+    int length = node.subtreeSize;
+    int target;
+    if (manager == null) {
+      target = this.size - length;
+    } else {
+      int managerStart = manager.position < start ? manager.position : manager.position - length;
+      target = managerStart + manager.subtreeSize;
+    }
+    if (target != start) {
+      Node[] block = Arrays.copyOfRange(this.tour, start, start + length);
+      if (target < start) {
+        System.arraycopy(this.tour, target, this.tour, target + length, start - target);
+        System.arraycopy(block, 0, this.tour, target, length);
+        renumber(target, start + length);
+      } else {
+        System.arraycopy(this.tour, start + length, this.tour, start, target - start);
+        System.arraycopy(block, 0, this.tour, target, length);
+        renumber(start, target + length);
+      }
+    }
+
+    node.manager = manager;
+    if (manager != null) {
+      manager.directReports.add(node);
+      resizeChain(manager, node.subtreeSize);
+    }
+    return true;
+  }
+
+  /**
+   * Returns the manager of an employee.
+   *
+   * @param id the employee ID
+   * @return the manager ID, or NO_MANAGER if the employee has none or is not indexed
+   */
+  int getManager(int id) {
+    Node node = this.nodes.get(id);
+    return node == null || node.manager == null ? NO_MANAGER : node.manager.id;
+  }
+
+  /**
+   * Returns whether an employee is indexed.
+   *
+   * @param id the employee ID
+   * @return true if the employee is indexed
+   */
+  boolean contains(int id) {
+    return this.nodes.containsKey(id);
+  }
+
+  /**
+   * Returns whether an employee reports to a manager, directly or indirectly.
+   *
+   * @param id the employee ID
+   * @param managerId the manager ID
+   * @return true if the employee is a report of the manager
+   */
+  boolean isReportOf(int id, int managerId) {
+    Node node = this.nodes.get(id);
+    Node manager = this.nodes.get(managerId);
+    return node != null && manager != null && node != manager && isInSubtree(manager, node);
+  }
+
+  /**
+   * Returns the IDs of the direct and indirect reports of an employee, in depth-first order.
+   *
+   * @param id the employee ID
+   * @return the IDs of the reports, or null if the employee is not indexed
+   */
+  int[] getReports(int id) {
+    Node node = this.nodes.get(id);
+    if (node == null) {
+      return null;
+    }
+    int[] reports = new int[node.subtreeSize - 1];
+    for (int i = 0; i < reports.length; i++) {
+      reports[i] = this.tour[node.position + 1 + i].id;
+    }
+    return reports;
+  }
+
+  /**
+   * Returns the IDs of the direct reports of an employee.
+   *
+   * @param id the employee ID
+   * @return the IDs of the direct reports, or null if the employee is not indexed
+   */
+  int[] getDirectReports(int id) {
+    Node node = this.nodes.get(id);
+    if (node == null) {
+      return null;
+    }
+    return node.directReports.stream().mapToInt(report -> report.id).toArray();
+  }
+
+  /**
+   * Returns the number of direct reports of an employee.
+   *
+   * @param id the employee ID
+   * @return the number of direct reports, or -1 if the employee is not indexed
+   */
+  int countDirectReports(int id) {
+    Node node = this.nodes.get(id);
+    return node == null ? -1 : node.directReports.size();
+  }
+
+  /**
+   * Returns the number of direct and indirect reports of an employee.
+   *
+   * @param id the employee ID
+   * @return the number of reports, or -1 if the employee is not indexed
+   */
+  int countReports(int id) {
+    Node node = this.nodes.get(id);
+    return node == null ? -1 : node.subtreeSize - 1;
+  }
+
+  private boolean isInSubtree(Node ancestor, Node node) {
+    return node.position >= ancestor.position
+        && node.position < ancestor.position + ancestor.subtreeSize;
+  }
+
+  private void resizeChain(Node from, int delta) {
+    for (Node node = from; node != null; node = node.manager) {
+      node.subtreeSize += delta;
+    }
+  }
+
+  private void place(Node node, int position) {
+    this.tour[position] = node;
+    node.position = position;
+  }
+
+  private void renumber(int from, int to) {
+    for (int i = from; i < to; i++) {
+      this.tour[i].position = i;
+    }
+  }
+}
@@ -1,20 +1,35 @@
 package dev.coms4156.project;
 
 import dev.coms4156.project.command.AddEmpToDeptCmd;
+import dev.coms4156.project.command.AddEmpsToDeptCmd;
 import dev.coms4156.project.command.Command;
 import dev.coms4156.project.command.GetDeptInfoCmd;
 import dev.coms4156.project.command.GetEmpInfoCmd;
+import dev.coms4156.project.command.GetEmpReportsCmd;
+import dev.coms4156.project.command.GetOnShiftCmd;
 import dev.coms4156.project.command.GetOrgInfoCmd;
 import dev.coms4156.project.command.RegisterCmd;
+import dev.coms4156.project.command.RemoveDeptCmd;
 import dev.coms4156.project.command.RemoveEmpFromDeptCmd;
 import dev.coms4156.project.command.SetDeptHeadCmd;
+import dev.coms4156.project.command.SetDeptParentCmd;
+import dev.coms4156.project.command.SetEmpMgrCmd;
 import dev.coms4156.project.command.SetEmpPerfCmd;
 import dev.coms4156.project.command.SetEmpPosiCmd;
 import dev.coms4156.project.command.SetEmpSalCmd;
+import dev.coms4156.project.command.SetEmpShiftsCmd;
+import dev.coms4156.project.command.SolveDeptShiftsCmd;
 import dev.coms4156.project.command.StatDeptBudgCmd;
 import dev.coms4156.project.command.StatDeptPerfCmd;
 import dev.coms4156.project.command.StatDeptPosiCmd;
+import dev.coms4156.project.command.StatDeptShiftsCmd;
+import dev.coms4156.project.command.StatDeptTreeCmd;
+import dev.coms4156.project.command.StatEmpSpanCmd;
+import dev.coms4156.project.command.StatOrgCmd;
+import dev.coms4156.project.command.StatServiceCmd;
+import dev.coms4156.project.command.UpdateEmpsCmd;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -24,6 +39,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -75,6 +91,24 @@ public class RouteController {
     return new ResponseEntity<>(command.execute(), HttpStatus.OK);
   }
 
+  /**
+   * Gets the employees reporting to an employee.
+   *
+   * @param clientId the client ID
+   * @param employeeId the employee ID
+   * @param directOnly true for the direct reports only, false for all direct and indirect reports
+   * @return the IDs of the reports
+   */
+  @GetMapping(value = "/getEmpReports", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> getEmployeeReports(
+      @RequestAttribute("cid") int clientId,
+      @RequestParam("eid") int employeeId,
+      @RequestParam(value = "direct", required = false, defaultValue = "false") boolean directOnly
+  ) {
+    Command command = new GetEmpReportsCmd(clientId, employeeId, directOnly);
+    return new ResponseEntity<>(command.execute(), HttpStatus.OK);
+  }
+
   /**
    * Gets the information of an organization.
    *
@@ -137,6 +171,97 @@ public class RouteController {
     return new ResponseEntity<>(command.execute(), HttpStatus.OK);
   }
 
+  /**
+   * Gets the employees of a department on shift.
+   *
+   * @param clientId the client ID
+   * @param departmentId the department ID
+   * @param shifts (optional) the time slots as day:slot pairs, the current slot if omitted
+   * @return the IDs of the employees working all the time slots
+   */
+  @GetMapping(value = "/getOnShift", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> getEmployeesOnShift(
+      @RequestAttribute("cid") int clientId,
+      @RequestParam("did") int departmentId,
+      @RequestParam(value = "shifts", required = false) String shifts
+  ) {
+    Command command = new GetOnShiftCmd(clientId, departmentId, shifts);
+    return new ResponseEntity<>(command.execute(), HttpStatus.OK);
+  }
+
+  /**
+   * Gets the shift coverage of a department.
+   *
+   * @param clientId the client ID
+   * @param departmentId the department ID
+   * @return the number of employees working each time slot of the week
+   */
+  @GetMapping(value = "/statDeptShifts", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> getDepartmentShiftStatistic(
+      @RequestAttribute("cid") int clientId,
+      @RequestParam("did") int departmentId
+  ) {
+    Command command = new StatDeptShiftsCmd(clientId, departmentId);
+    return new ResponseEntity<>(command.execute(), HttpStatus.OK);
+  }
+
+  /**
+   * Gets the statistics of a department together with all of its nested departments.
+   *
+   * @param clientId the client ID
+   * @param departmentId the department ID
+   * @return the statistics of the department subtree
+   */
+  @GetMapping(value = "/statDeptTree", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> getDepartmentTreeStatistic(
+      @RequestAttribute("cid") int clientId,
+      @RequestParam("did") int departmentId
+  ) {
+    Command command = new StatDeptTreeCmd(clientId, departmentId);
+    return new ResponseEntity<>(command.execute(), HttpStatus.OK);
+  }
+
+  /**
+   * Gets the span of control of an employee.
+   *
+   * @param clientId the client ID
+   * @param employeeId the employee ID
+   * @return the number of direct reports and of all reports of the employee
+   */
+  @GetMapping(value = "/statEmpSpan", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> getEmployeeSpanOfControl(
+      @RequestAttribute("cid") int clientId,
+      @RequestParam("eid") int employeeId
+  ) {
+    Command command = new StatEmpSpanCmd(clientId, employeeId);
+    return new ResponseEntity<>(command.execute(), HttpStatus.OK);
+  }
+
+  /**
+   * Gets the statistics of all the employees of an organization.
+   *
+   * @param clientId the client ID
+   * @return the number of employees, their salary, performance and positions
+   */
+  @GetMapping(value = "/statOrg", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> getOrganizationStatistic(
+      @RequestAttribute("cid") int clientId
+  ) {
+    Command command = new StatOrgCmd(clientId);
+    return new ResponseEntity<>(command.execute(), HttpStatus.OK);
+  }
+
+  /**
+   * Gets the statistics of the service, shared by all organizations.
+   *
+   * @return the usage of the database connection pool and of the organization cache
+   */
+  @GetMapping(value = "/statService", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> getServiceStatistic() {
+    Command command = new StatServiceCmd();
+    return new ResponseEntity<>(command.execute(), HttpStatus.OK);
+  }
+
   /* ***** PATCH METHODS ***** */
 
   /**
@@ -157,6 +282,41 @@ public class RouteController {
     return new ResponseEntity<>(command.execute(), HttpStatus.OK);
   }
 
+  /**
+   * Nests a department in another department.
+   *
+   * @param clientId the client ID
+   * @param departmentId the department ID
+   * @param parentId the parent department ID, or 0 to make the department top-level
+   * @return a success message, or throws an exception if the operation fails
+   */
+  @PatchMapping(value = "/setDeptParent", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> setDepartmentParent(
+      @RequestAttribute("cid") int clientId,
+      @RequestParam("did") int departmentId,
+      @RequestParam(value = "pid", required = false, defaultValue = "0") int parentId
+  ) {
+    Command command = new SetDeptParentCmd(clientId, departmentId, parentId);
+    return new ResponseEntity<>(command.execute(), HttpStatus.OK);
+  }
+
+  /**
+   * Set the manager of an employee.
+   *
+   * @param clientId the client ID
+   * @param employeeId the employee ID
+   * @param managerId the manager ID, or 0 to remove the manager
+   */
+  @PatchMapping(value = "/setEmpManager", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> setEmployeeManager(
+      @RequestAttribute("cid") int clientId,
+      @RequestParam("eid") int employeeId,
+      @RequestParam(value = "mid", required = false, defaultValue = "0") int managerId
+  ) {
+    Command command = new SetEmpMgrCmd(clientId, employeeId, managerId);
+    return new ResponseEntity<>(command.execute(), HttpStatus.OK);
+  }
+
   /**
    * Set the performance of an employee.
    *
@@ -208,6 +368,48 @@ public class RouteController {
     return new ResponseEntity<>(command.execute(), HttpStatus.OK);
   }
 
+  /**
+   * Set the weekly shifts of an employee.
+   *
+   * @param clientId the client ID
+   * @param employeeId the employee ID
+   * @param shifts the shifts as comma separated day:slot pairs, empty to clear them
+   */
+  @PatchMapping(value = "/setEmpShifts", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> setEmployeeShifts(
+      @RequestAttribute("cid") int clientId,
+      @RequestParam("eid") int employeeId,
+      @RequestParam(value = "shifts", required = false, defaultValue = "") String shifts
+  ) {
+    Command command = new SetEmpShiftsCmd(clientId, employeeId, shifts);
+    return new ResponseEntity<>(command.execute(), HttpStatus.OK);
+  }
+
+  /**
+   * Generates and saves the weekly roster of a department.
+   *
+   * @param clientId the client ID
+   * @param departmentId the department ID
+   * @param minimum the minimum number of employees of every time slot
+   * @param coverage (optional) the minimum of some time slots as day:slot=count pairs
+   * @param maxShifts the maximum number of shifts of an employee in a week
+   * @param budgetMillis the time budget of the search, in milliseconds
+   * @return the shift coverage of the new roster
+   */
+  @PatchMapping(value = "/solveDeptShifts", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> solveDepartmentShifts(
+      @RequestAttribute("cid") int clientId,
+      @RequestParam("did") int departmentId,
+      @RequestParam(value = "minimum", required = false, defaultValue = "1") int minimum,
+      @RequestParam(value = "coverage", required = false) String coverage,
+      @RequestParam(value = "maxShifts", required = false, defaultValue = "5") int maxShifts,
+      @RequestParam(value = "budgetMs", required = false, defaultValue = "1000") long budgetMillis
+  ) {
+    Command command = new SolveDeptShiftsCmd(
+        clientId, departmentId, minimum, coverage, maxShifts, budgetMillis);
+    return new ResponseEntity<>(command.execute(), HttpStatus.OK);
+  }
+
   /**
    * Update all the information of an employee.
    * The provided information will overwrite the existing information, if not null.
@@ -257,6 +459,22 @@ public class RouteController {
     }
   }
 
+  /**
+   * Update the information of several employees in a single batch.
+   *
+   * @param clientId the client ID
+   * @param updates the updates, each with an employee ID and the fields to set
+   * @return a success message if all the employees are successfully updated
+   */
+  @PatchMapping(value = "/updateEmpsInfo", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> updateEmployeesInfo(
+      @RequestAttribute("cid") int clientId,
+      @RequestBody List<UpdateEmpsCmd.EmployeeUpdate> updates
+  ) {
+    Command command = new UpdateEmpsCmd(clientId, updates);
+    return new ResponseEntity<>(command.execute(), HttpStatus.OK);
+  }
+
   /* ***** POST METHODS ***** */
 
   /**
@@ -288,6 +506,24 @@ public class RouteController {
     return new ResponseEntity<>(command.execute(), HttpStatus.CREATED);
   }
 
+  /**
+   * Add several employees to the given department in a single batch.
+   *
+   * @param clientId the client ID
+   * @param departmentId the department ID
+   * @param employees the employees to add, each with a name and a "yyyy-MM-dd" hire date
+   * @return the IDs of the new employees if they are all successfully added
+   */
+  @PostMapping(value = "/addEmpsToDept", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> addEmployeesToDepartment(
+      @RequestAttribute("cid") int clientId,
+      @RequestParam("did") int departmentId,
+      @RequestBody List<AddEmpsToDeptCmd.NewEmployee> employees
+  ) {
+    Command command = new AddEmpsToDeptCmd(clientId, departmentId, employees);
+    return new ResponseEntity<>(command.execute(), HttpStatus.CREATED);
+  }
+
   /**
    * Register a new client, namely to create a new organization.
    *
@@ -310,6 +546,25 @@ public class RouteController {
 
   /* ***** DELETE METHODS ***** */
 
+  /**
+   * Removes a department together with its employees.
+   *
+   * @param clientId the client ID
+   * @param departmentId the department ID
+   * @param parentId the department to nest the sub-departments in,
+   *                 or 0 to move them up to the parent of the removed department
+   * @return a success message, or throws an exception if the operation fails
+   */
+  @DeleteMapping(value = "/removeDept", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> removeDepartment(
+      @RequestAttribute("cid") int clientId,
+      @RequestParam("did") int departmentId,
+      @RequestParam(value = "pid", required = false, defaultValue = "0") int parentId
+  ) {
+    Command command = new RemoveDeptCmd(clientId, departmentId, parentId);
+    return new ResponseEntity<>(command.execute(), HttpStatus.OK);
+  }
+
   /**
    * Remove an employee from the given department.
    *
@@ -0,0 +1,138 @@
+package dev.coms4156.project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The weekly shifts of the employees of a department, kept as one bitmap per time slot.
+ * Every distinct employee of the department owns one bit, the same in all the bitmaps,
+ * so the employees working a set of slots are the AND of their bitmaps and the staffing
+ * of a slot is the population count of its bitmap, without looking at a single employee.
+ * Bits of removed employees are reused. This class is not thread-safe.
+ */
+final class ShiftRoster {
+  // One bitmap per slot of the week, indexed by the bit of each employee
+  private final long[][] slotBitmaps = new long[ShiftSchedule.SLOTS_PER_WEEK][1];
+  private final Map<Employee, Integer> bits = new IdentityHashMap<>();
+  private Employee[] members = new Employee[Long.SIZE];
+  // Number of times each member was added, as an employee may join a department twice
+  private int[] memberships = new int[Long.SIZE];
+  private int[] freeBits = new int[0];
+  private int freeCount;
+  private int nextBit;
+
+  /**
+   * Adds an employee and its shifts to the roster.
+   *
+   * @param employee the employee
+   */
+  void add(Employee employee) {
+    Integer bit = this.bits.get(employee);
+    if (bit != null) {
+      this.memberships[bit]++;
+      return;
+    }
+    int newBit = this.freeCount > 0 ? this.freeBits[--this.freeCount] : this.nextBit++;
+    if (newBit >= this.members.length) {
+      grow();
+    }
+    this.bits.put(employee, newBit);
+    this.members[newBit] = employee;
+    this.memberships[newBit] = 1;
+    write(newBit, employee.getShiftMask());
+  }
+
+  /**
+   * Removes one membership of an employee, and its shifts once it has no membership left.
+   *
+   * @param employee the employee
+   */
+  void remove(Employee employee) {
+    Integer bit = this.bits.get(employee);
+    if (bit == null || --this.memberships[bit] > 0) {
+      return;
+    }
+    write(bit, 0);
+    this.bits.remove(employee);
+    this.members[bit] = null;
+    if (this.freeCount == this.freeBits.length) {
+      this.freeBits = Arrays.copyOf(this.freeBits, Math.max(4, this.freeCount * 2));
+    }
+    this.freeBits[this.freeCount++] = bit;
+  }
+
+  /**
+   * Replaces the shifts of an employee of the roster with its current shifts.
+   *
+   * @param employee the employee, already holding its new shifts
+   */
+  void update(Employee employee) {
+    Integer bit = this.bits.get(employee);
+    if (bit != null) {
+      write(bit, employee.getShiftMask());
+    }
+  }
+
+  /**
+   * Returns the employees working every slot of a mask.
+   *
+   * @param slotMask the slots, as a ShiftSchedule mask
+   * @return the employees working all the slots, none for an empty mask
+   */
+  List<Employee> workingAll(int slotMask) {
+    List<Employee> result = new ArrayList<>();
+    if (slotMask == 0) {
+      return result;
+    }
+    int words = this.members.length / Long.SIZE;
+    for (int word = 0; word < words; word++) {
+      long working = -1L;
+      for (int rest = slotMask; rest != 0 && working != 0; rest &= rest - 1) {
+        working &= this.slotBitmaps[Integer.numberOfTrailingZeros(rest)][word];
+      }
+      for (; working != 0; working &= working - 1) {
+        result.add(this.members[word * Long.SIZE + Long.numberOfTrailingZeros(working)]);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the number of employees working each slot of the week.
+   *
+   * @return the staffing of every slot, indexed by the bit of the slot
+   */
+  int[] coverage() {
+    int[] counts = new int[ShiftSchedule.SLOTS_PER_WEEK];
+    for (int slot = 0; slot < counts.length; slot++) {
+      for (long word : this.slotBitmaps[slot]) {
+        counts[slot] += Long.bitCount(word);
+      }
+    }
+    return counts;
+  }
+
+  private void write(int bit, int shiftMask) {
+    int word = bit / Long.SIZE;
+    long flag = 1L << bit;
+    for (int slot = 0; slot < this.slotBitmaps.length; slot++) {
+      if ((shiftMask & (1 << slot)) != 0) {
+        this.slotBitmaps[slot][word] |= flag;
+      } else {
+        this.slotBitmaps[slot][word] &= ~flag;
+      }
+    }
+  }
+
+  private void grow() {
+    int capacity = this.members.length * 2;
+    this.members = Arrays.copyOf(this.members, capacity);
+    this.memberships = Arrays.copyOf(this.memberships, capacity);
+    for (int slot = 0; slot < this.slotBitmaps.length; slot++) {
+      this.slotBitmaps[slot] = Arrays.copyOf(this.slotBitmaps[slot], capacity / Long.SIZE);
+    }
+  }
+}
@@ -0,0 +1,139 @@
+package dev.coms4156.project;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * This class encodes weekly shift schedules as bit masks.
+ * A week has 3 time slots a day, 9-12, 14-17 and 18-21, so a whole week fits in the low 21 bits
+ * of an int. The bit of a slot is {@code (dayOfWeek - 1) * 3 + timeSlot}, with the day and slot
+ * numbered as in the shifts table.
+ */
+public final class ShiftSchedule {
+  /** The number of time slots in a day. */
+  public static final int SLOTS_PER_DAY = 3;
+  /** The number of time slots in a week. */
+  public static final int SLOTS_PER_WEEK = 7 * SLOTS_PER_DAY;
+  /** The mask of every slot of the week. */
+  public static final int FULL_WEEK = (1 << SLOTS_PER_WEEK) - 1;
+
+  private static final LocalTime[] SLOT_STARTS = {
+      LocalTime.of(9, 0), LocalTime.of(14, 0), LocalTime.of(18, 0)
+  };
+  private static final LocalTime[] SLOT_ENDS = {
+      LocalTime.of(12, 0), LocalTime.of(17, 0), LocalTime.of(21, 0)
+  };
+
+  private ShiftSchedule() {
+  }
+
+  /**
+   * Returns the bit of a time slot.
+   *
+   * @param day the day of the week
+   * @param timeSlot the time slot of the day, from 0 to 2
+   * @return the bit of the slot, from 0 to 20
+   * @throws IllegalArgumentException if the time slot is out of range
+   */
+  public static int bitOf(DayOfWeek day, int timeSlot) {
+    if (timeSlot < 0 || timeSlot >= SLOTS_PER_DAY) {
+      throw new IllegalArgumentException("Time slot [" + timeSlot + "] is not between 0 and 2");
+    }
+    return (day.getValue() - 1) * SLOTS_PER_DAY + timeSlot;
+  }
+
+  /**
+   * Returns the day of the week of a slot bit.
+   *
+   * @param bit the bit of the slot
+   * @return the day of the week
+   */
+  public static DayOfWeek dayOf(int bit) {
+    return DayOfWeek.of(bit / SLOTS_PER_DAY + 1);
+  }
+
+  /**
+   * Returns the time slot of the day of a slot bit.
+   *
+   * @param bit the bit of the slot
+   * @return the time slot, from 0 to 2
+   */
+  public static int timeSlotOf(int bit) {
+    return bit % SLOTS_PER_DAY;
+  }
+
+  /**
+   * Returns the slot a point in time falls in.
+   *
+   * @param time the local date and time
+   * @return the bit of the slot, or -1 if the time is outside of every slot
+   */
+  public static int bitAt(LocalDateTime time) {
+    LocalTime timeOfDay = time.toLocalTime();
+    for (int slot = 0; slot < SLOTS_PER_DAY; slot++) {
+      if (!timeOfDay.isBefore(SLOT_STARTS[slot]) && timeOfDay.isBefore(SLOT_ENDS[slot])) {
+        return bitOf(time.getDayOfWeek(), slot);
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Parses a schedule written as comma separated {@code day:slot} pairs, like "MONDAY:0,3:1".
+   * Days are given by name or by number from 1 (Monday) to 7 (Sunday).
+   * An empty or blank schedule has no shifts.
+   *
+   * @param schedule the schedule
+   * @return the mask of the schedule
+   * @throws IllegalArgumentException if a pair cannot be parsed
+   */
+  public static int parse(String schedule) {
+    int mask = 0;
+    if (schedule == null || schedule.isBlank()) {
+      return mask;
+    }
+    for (String pair : schedule.split(",")) {
+      String[] parts = pair.trim().split(":");
+      if (parts.length != 2) {
+        throw new IllegalArgumentException("Shift [" + pair.trim() + "] is not day:slot");
+      }
+      try {
+        mask |= 1 << bitOf(parseDay(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+      } catch (NumberFormatException | DateTimeException e) {
+        throw new IllegalArgumentException("Shift [" + pair.trim() + "] is not day:slot");
+      }
+    }
+    return mask;
+  }
+
+  /**
+   * Formats a schedule as {@code DAY:slot} pairs, in the order of the week.
+   *
+   * @param mask the mask of the schedule
+   * @return the shifts of the schedule
+   */
+  public static List<String> format(int mask) {
+    List<String> shifts = new ArrayList<>(Integer.bitCount(mask));
+    for (int rest = mask & FULL_WEEK; rest != 0; rest &= rest - 1) {
+      int bit = Integer.numberOfTrailingZeros(rest);
+      shifts.add(dayOf(bit) + ":" + timeSlotOf(bit));
+    }
+    return shifts;
+  }
+
+  private static DayOfWeek parseDay(String day) {
+    if (!day.isEmpty() && Character.isDigit(day.charAt(0))) {
+      return DayOfWeek.of(Integer.parseInt(day));
+    }
+    try {
+      return DayOfWeek.valueOf(day.toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new NumberFormatException(day);
+    }
+  }
+}
@@ -0,0 +1,390 @@
+package dev.coms4156.project;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * This class generates weekly rosters meeting minimum coverage targets.
+ * Every slot of the week has a minimum number of employees, and every employee a maximum
+ * number of shifts a week. Rosters are ranked by their shortfall, the number of missing
+ * employees over all slots, then by their surplus over the targets, then by how evenly the
+ * shifts are spread over the employees.
+ *
+ * <p>Each search starts from a greedy roster and improves it by local search over the
+ * ShiftSchedule masks: adding shifts to understaffed slots, moving shifts out of overstaffed
+ * slots, and handing shifts from the busiest employees to the least busy ones.
+ * Independent searches with different seeds run in parallel on a ForkJoinPool until the time
+ * budget runs out or a perfect roster is found, and the best roster found is returned.
+ */
+public final class ShiftSolver {
+  private static final int SLOTS = ShiftSchedule.SLOTS_PER_WEEK;
+  // Iterations between two looks at the clock
+  private static final int CLOCK_INTERVAL = 256;
+
+  private final int[] minimumCoverage;
+  private final int maxShiftsPerEmployee;
+  private final long budgetNanos;
+  private final ForkJoinPool pool;
+
+  /**
+   * A weekly roster found by the solver.
+   *
+   * @param employees the employees of the roster
+   * @param masks the shifts of each employee, as ShiftSchedule masks, in the same order
+   * @param coverage the number of employees working each slot, indexed by the bit of the slot
+   * @param shortfall the number of employees missing to meet every minimum coverage
+   */
+  public record Roster(List<Employee> employees, int[] masks, int[] coverage, int shortfall) {
+  }
+
+  /**
+   * Constructs a solver running on the common ForkJoinPool.
+   *
+   * @param minimumCoverage the minimum number of employees of each slot, indexed by its bit
+   * @param maxShiftsPerEmployee the maximum number of shifts of an employee in a week
+   * @param budgetMillis the time budget of a search, in milliseconds
+   */
+  public ShiftSolver(int[] minimumCoverage, int maxShiftsPerEmployee, long budgetMillis) {
+    this(minimumCoverage, maxShiftsPerEmployee, budgetMillis, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Constructs a solver running on the given ForkJoinPool.
+   *
+   * @param minimumCoverage the minimum number of employees of each slot, indexed by its bit
+   * @param maxShiftsPerEmployee the maximum number of shifts of an employee in a week
+   * @param budgetMillis the time budget of a search, in milliseconds
+   * @param pool the pool running the searches
+   * @throws IllegalArgumentException if a target, the cap or the budget is out of range
+   */
+  public ShiftSolver(
+      int[] minimumCoverage, int maxShiftsPerEmployee, long budgetMillis, ForkJoinPool pool
+  ) {
+    if (minimumCoverage.length != SLOTS) {
+      throw new IllegalArgumentException("Minimum coverage needs one target per slot of the week");
+    }
+    for (int target : minimumCoverage) {
+      if (target < 0) {
+        throw new IllegalArgumentException("Minimum coverage [" + target + "] is negative");
+      }
+    }
+    if (maxShiftsPerEmployee < 0 || maxShiftsPerEmployee > SLOTS) {
+      throw new IllegalArgumentException(
+          "Maximum shifts [" + maxShiftsPerEmployee + "] is not between 0 and " + SLOTS);
+    }
+    if (budgetMillis <= 0) {
+      throw new IllegalArgumentException("Time budget [" + budgetMillis + "] is not positive");
+    }
+    this.minimumCoverage = minimumCoverage.clone();
+    this.maxShiftsPerEmployee = maxShiftsPerEmployee;
+    this.budgetNanos = budgetMillis * 1_000_000L;
+    this.pool = pool;
+  }
+
+  /**
+   * Searches a roster for the given employees.
+   * The employees are not changed.
+   *
+   * @param employees the employees to schedule
+   * @return the best roster found within the time budget
+   */
+  public Roster solve(List<Employee> employees) {
+    long deadline = System.nanoTime() + this.budgetNanos;
+    int searches = Math.max(1, this.pool.getParallelism());
+    long seed = new Random().nextLong();
+    Search best = this.pool.invoke(new SearchTask(employees.size(), seed, searches, deadline));
+    return new Roster(List.copyOf(employees), best.masks, best.coverage, best.shortfall);
+  }
+
+  /**
+   * Runs a range of independent searches, splitting the range until a single search is left.
+   */
+  // The task only runs in the pool and is never serialized
+  @SuppressWarnings("serial")
+  private final class SearchTask extends RecursiveTask<Search> {
+    private final int employeeCount;
+    private final long firstSeed;
+    private final int searches;
+    private final long deadline;
+
+    private SearchTask(int employeeCount, long firstSeed, int searches, long deadline) {
+      this.employeeCount = employeeCount;
+      this.firstSeed = firstSeed;
+      this.searches = searches;
+      this.deadline = deadline;
+    }
+
+    @Override
+    protected Search compute() {
+      if (this.searches == 1) {
+        Search search = new Search(this.employeeCount, new SplittableRandom(this.firstSeed));
+        search.run(this.deadline);
+        return search;
+      }
+      int half = this.searches / 2;
+      SearchTask left = new SearchTask(this.employeeCount, this.firstSeed, half, this.deadline);
+      SearchTask right = new SearchTask(
+          this.employeeCount, this.firstSeed + half, this.searches - half, this.deadline);
+      left.fork();
+      Search rightResult = right.compute();
+      Search leftResult = left.join();
+      return leftResult.isBetterThan(rightResult) ? leftResult : rightResult;
+    }
+  }
+
+  /**
+   * A single local search, owning its roster.
+   */
+  private final class Search {
+    private final SplittableRandom random;
+    private final int[] masks;
+    private final int[] loads;
+    private final int[] coverage = new int[SLOTS];
+    private int shortfall;
+    private int surplus;
+    private long loadSquares;
+    // Set once no move can lower the shortfall any more
+    private boolean shortfallFinal;
+
+    private Search(int employeeCount, SplittableRandom random) {
+      this.random = random;
+      this.masks = new int[employeeCount];
+      this.loads = new int[employeeCount];
+      for (int slot = 0; slot < SLOTS; slot++) {
+        this.shortfall += minimumCoverage[slot];
+      }
+    }
+
+    private void run(long deadline) {
+      greedy();
+      for (long iteration = 0; !isPerfect(); iteration++) {
+        if (iteration % CLOCK_INTERVAL == 0 && System.nanoTime() - deadline >= 0) {
+          return;
+        }
+        if (this.shortfall > 0 && !this.shortfallFinal) {
+          this.shortfallFinal = !repair();
+        } else if (this.surplus > 0) {
+          trim();
+        } else if (!balance()) {
+          return;
+        }
+      }
+    }
+
+    /**
+     * Fills the slots by decreasing demand, each with the least busy employees.
+     */
+    private void greedy() {
+      Integer[] slots = new Integer[SLOTS];
+      for (int slot = 0; slot < SLOTS; slot++) {
+        slots[slot] = slot;
+      }
+      // Random tie-breaking, so that the parallel searches start from different rosters
+      long[] keys = new long[SLOTS];
+      for (int slot = 0; slot < SLOTS; slot++) {
+        keys[slot] = ((long) minimumCoverage[slot] << 32) | Integer.toUnsignedLong(
+            this.random.nextInt());
+      }
+      Arrays.sort(slots, (a, b) -> Long.compare(keys[b], keys[a]));
+      for (int slot : slots) {
+        while (this.coverage[slot] < minimumCoverage[slot]) {
+          int employee = leastBusyWithout(slot);
+          if (employee < 0) {
+            break;
+          }
+          assign(employee, slot);
+        }
+      }
+    }
+
+    /**
+     * Covers one missing employee of an understaffed slot, trying the slots in random order.
+     *
+     * @return false if no understaffed slot can be covered any more
+     */
+    private boolean repair() {
+      int start = this.random.nextInt(SLOTS);
+      for (int i = 0; i < SLOTS; i++) {
+        int slot = (start + i) % SLOTS;
+        if (this.coverage[slot] < minimumCoverage[slot] && repair(slot)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Covers one missing employee of a slot, possibly through a chain of two moves.
+     *
+     * @param slot the understaffed slot
+     * @return true if the slot got one more employee without losing one elsewhere
+     */
+    private boolean repair(int slot) {
+      int free = leastBusyWithout(slot);
+      if (free >= 0) {
+        assign(free, slot);
+        return true;
+      }
+      if (this.masks.length == 0) {
+        return false;
+      }
+      // Everyone available is at the cap: move one of their shifts out of another slot,
+      // which must then be either overstaffed or refilled by someone else
+      int start = this.random.nextInt(this.masks.length);
+      for (int i = 0; i < this.masks.length; i++) {
+        int employee = (start + i) % this.masks.length;
+        if ((this.masks[employee] & (1 << slot)) != 0) {
+          continue;
+        }
+        for (int rest = this.masks[employee]; rest != 0; rest &= rest - 1) {
+          int from = Integer.numberOfTrailingZeros(rest);
+          if (this.coverage[from] > minimumCoverage[from]) {
+            unassign(employee, from);
+            assign(employee, slot);
+            return true;
+          }
+          int substitute = leastBusyWithout(from);
+          if (substitute >= 0) {
+            unassign(employee, from);
+            assign(employee, slot);
+            assign(substitute, from);
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Drops one shift of a random overstaffed slot, from its busiest employee.
+     */
+    private void trim() {
+      int slot = randomOverstaffedSlot();
+      int busiest = -1;
+      for (int employee = 0; employee < this.masks.length; employee++) {
+        if ((this.masks[employee] & (1 << slot)) != 0
+            && (busiest < 0 || this.loads[employee] > this.loads[busiest])) {
+          busiest = employee;
+        }
+      }
+      unassign(busiest, slot);
+    }
+
+    /**
+     * Hands one shift from the busiest employee to the least busy one able to take it.
+     *
+     * @return false if the shifts are already spread as evenly as possible
+     */
+    private boolean balance() {
+      if (this.masks.length == 0) {
+        return false;
+      }
+      int busiest = 0;
+      for (int employee = 1; employee < this.masks.length; employee++) {
+        if (this.loads[employee] > this.loads[busiest]) {
+          busiest = employee;
+        }
+      }
+      int bestTarget = -1;
+      int bestSlot = -1;
+      for (int rest = this.masks[busiest]; rest != 0; rest &= rest - 1) {
+        int slot = Integer.numberOfTrailingZeros(rest);
+        int target = leastBusyWithout(slot);
+        if (target >= 0 && this.loads[target] + 1 < this.loads[busiest]
+            && (bestTarget < 0 || this.loads[target] < this.loads[bestTarget])) {
+          bestTarget = target;
+          bestSlot = slot;
+        }
+      }
+      if (bestTarget < 0) {
+        return false;
+      }
+      unassign(busiest, bestSlot);
+      assign(bestTarget, bestSlot);
+      return true;
+    }
+
+    private int leastBusyWithout(int slot) {
+      int best = -1;
+      int start = this.masks.length == 0 ? 0 : this.random.nextInt(this.masks.length);
+      for (int i = 0; i < this.masks.length; i++) {
+        int employee = (start + i) % this.masks.length;
+        if ((this.masks[employee] & (1 << slot)) == 0
+            && this.loads[employee] < maxShiftsPerEmployee
+            && (best < 0 || this.loads[employee] < this.loads[best])) {
+          best = employee;
+        }
+      }
+      return best;
+    }
+
+    private int randomOverstaffedSlot() {
+      int candidates = 0;
+      int chosen = -1;
+      for (int slot = 0; slot < SLOTS; slot++) {
+        // Reservoir sampling picks every overstaffed slot with the same probability
+        if (this.coverage[slot] > minimumCoverage[slot]
+            && this.random.nextInt(++candidates) == 0) {
+          chosen = slot;
+        }
+      }
+      return chosen;
+    }
+
+    private void assign(int employee, int slot) {
+      if (this.coverage[slot] < minimumCoverage[slot]) {
+        this.shortfall--;
+      } else {
+        this.surplus++;
+      }
+      this.coverage[slot]++;
+      this.masks[employee] |= 1 << slot;
+      this.loadSquares += 2L * this.loads[employee] + 1;
+      this.loads[employee]++;
+    }
+
+    private void unassign(int employee, int slot) {
+      this.coverage[slot]--;
+      if (this.coverage[slot] < minimumCoverage[slot]) {
+        this.shortfall++;
+      } else {
+        this.surplus--;
+      }
+      this.masks[employee] &= ~(1 << slot);
+      this.loads[employee]--;
+      this.loadSquares -= 2L * this.loads[employee] + 1;
+    }
+
+    private boolean isPerfect() {
+      return this.shortfall == 0 && this.surplus == 0 && this.loadSquares == evenLoadSquares();
+    }
+
+    private long evenLoadSquares() {
+      int n = this.masks.length;
+      if (n == 0) {
+        return 0;
+      }
+      long total = 0;
+      for (int load : this.loads) {
+        total += load;
+      }
+      long low = total / n;
+      long high = total % n;
+      return (n - high) * low * low + high * (low + 1) * (low + 1);
+    }
+
+    private boolean isBetterThan(Search other) {
+      if (this.shortfall != other.shortfall) {
+        return this.shortfall < other.shortfall;
+      }
+      if (this.surplus != other.surplus) {
+        return this.surplus < other.surplus;
+      }
+      return this.loadSquares < other.loadSquares;
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package dev.coms4156.project;
+
+import dev.coms4156.project.utils.LongOrderStatisticTree;
+
+/**
+ * The aggregates of a department together with all of its sub-departments.
+ * Only departments with sub-departments keep one. It is updated along the ancestor chain
+ * whenever an employee of the subtree changes, so reading it never walks the subtree.
+ * An employee belonging to several departments of a subtree is counted once per membership.
+ */
+final class SubtreeRollup {
+  private int departmentCount = 1;
+  private int headcount;
+  private long salaryTotalCents;
+  private long performanceTotalHundredths;
+  private final LongOrderStatisticTree performances = new LongOrderStatisticTree();
+
+  /**
+   * Builds the rollup of a single department from its own employees.
+   *
+   * @param department the department
+   * @return the rollup of the department alone
+   */
+  static SubtreeRollup of(Department department) {
+    SubtreeRollup rollup = new SubtreeRollup();
+    for (int i = 0, size = department.getEmployees().size(); i < size; i++) {
+      rollup.addEmployee(department.salaryCentsAt(i), department.performanceHundredthsAt(i));
+    }
+    return rollup;
+  }
+
+  void addEmployee(long salaryCents, int performanceHundredths) {
+    this.headcount++;
+    this.salaryTotalCents += salaryCents;
+    this.performanceTotalHundredths += performanceHundredths;
+    this.performances.add(performanceHundredths);
+  }
+
+  void removeEmployee(long salaryCents, int performanceHundredths) {
+    if (this.performances.remove(performanceHundredths)) {
+      this.headcount--;
+      this.salaryTotalCents -= salaryCents;
+      this.performanceTotalHundredths -= performanceHundredths;
+    }
+  }
+
+  void changeSalary(long previousCents, long currentCents) {
+    this.salaryTotalCents += currentCents - previousCents;
+  }
+
+  void changePerformance(int previousHundredths, int currentHundredths) {
+    if (this.performances.remove(previousHundredths)) {
+      this.performances.add(currentHundredths);
+      this.performanceTotalHundredths += currentHundredths - previousHundredths;
+    }
+  }
+
+  /**
+   * Adds every department and employee of another rollup to this one.
+   *
+   * @param other the rollup of a subtree being attached
+   */
+  void add(SubtreeRollup other) {
+    this.departmentCount += other.departmentCount;
+    this.headcount += other.headcount;
+    this.salaryTotalCents += other.salaryTotalCents;
+    this.performanceTotalHundredths += other.performanceTotalHundredths;
+    other.performances.forEach(this.performances::add);
+  }
+
+  /**
+   * Removes every department and employee of another rollup from this one.
+   *
+   * @param other the rollup of a subtree being detached
+   */
+  void subtract(SubtreeRollup other) {
+    this.departmentCount -= other.departmentCount;
+    this.headcount -= other.headcount;
+    this.salaryTotalCents -= other.salaryTotalCents;
+    this.performanceTotalHundredths -= other.performanceTotalHundredths;
+    other.performances.forEach(this.performances::remove);
+  }
+
+  int getDepartmentCount() {
+    return this.departmentCount;
+  }
+
+  int getHeadcount() {
+    return this.headcount;
+  }
+
+  long getSalaryTotalCents() {
+    return this.salaryTotalCents;
+  }
+
+  long getPerformanceTotalHundredths() {
+    return this.performanceTotalHundredths;
+  }
+
+  /**
+   * Returns the performance of the given rank, counting from the lowest at rank 0.
+   *
+   * @param rank the rank
+   * @return the performance in hundredths
+   */
+  int performanceAt(int rank) {
+    return (int) this.performances.get(rank);
+  }
+}
@@ -0,0 +1,43 @@
+package dev.coms4156.project;
+
+/**
+ * A group of writes to the database made in a single transaction with a single commit,
+ * started with {@link DatabaseConnection#inUnitOfWork}.
+ * Savepoints let a part of the writes be undone while the earlier ones are kept.
+ */
+public interface UnitOfWork {
+
+  /**
+   * The work run in a unit of work.
+   *
+   * @param <T> the type of the result
+   */
+  @FunctionalInterface
+  interface Work<T> {
+
+    /**
+     * Runs the work. The writes made through the database connection
+     * on the calling thread join the unit of work.
+     *
+     * @param unit the unit of work
+     * @return the result of the work
+     */
+    T run(UnitOfWork unit);
+  }
+
+  /**
+   * Marks the current point of the unit of work.
+   *
+   * @return the savepoint
+   */
+  int savepoint();
+
+  /**
+   * Undoes the writes made since a savepoint. The savepoint is kept and the later ones
+   * are released.
+   *
+   * @param savepoint the savepoint
+   * @throws IllegalArgumentException if the savepoint is not set
+   */
+  void rollbackTo(int savepoint);
+}
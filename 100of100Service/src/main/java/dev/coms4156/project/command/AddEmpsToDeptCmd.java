@@ -0,0 +1,104 @@
+package dev.coms4156.project.command;
+
+import dev.coms4156.project.Department;
+import dev.coms4156.project.Employee;
+import dev.coms4156.project.HrDatabaseFacade;
+import dev.coms4156.project.exception.BadRequestException;
+import dev.coms4156.project.exception.NotFoundException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A command to add several employees to a given department in a single batch.
+ */
+public class AddEmpsToDeptCmd implements Command {
+  /** The largest number of employees added by a single command. */
+  public static final int MAX_BATCH_SIZE = 10_000;
+
+  private final int clientId;
+  private final int departmentId;
+  private final List<NewEmployee> employees;
+
+  /**
+   * An employee to add, as given in the request body.
+   *
+   * @param name the name of the employee
+   * @param hireDate the hire date of the employee in "yyyy-MM-dd" format
+   * @param position (optional) the position of the employee
+   * @param salary (optional) the salary of the employee
+   * @param performance (optional) the performance of the employee
+   */
+  public record NewEmployee(
+      String name, String hireDate, String position, Double salary, Double performance
+  ) {
+  }
+
+  /**
+   * Constructs a command to add several employees to a given department.
+   *
+   * @param clientId     the ID of the client organization
+   * @param departmentId the ID of the department where the employees will be added
+   * @param employees    the employees to add
+   */
+  public AddEmpsToDeptCmd(int clientId, int departmentId, List<NewEmployee> employees) {
+    this.clientId = clientId;
+    this.departmentId = departmentId;
+    this.employees = employees;
+  }
+
+  @Override
+  public Object execute() {
+    if (employees == null || employees.isEmpty() || employees.size() > MAX_BATCH_SIZE) {
+      throw new IllegalArgumentException(
+          "Expected between 1 and " + MAX_BATCH_SIZE + " employees to add");
+    }
+    HrDatabaseFacade dbFacade = HrDatabaseFacade.getInstance(clientId);
+
+    Department department = dbFacade.getDepartment(departmentId);
+    if (department == null) {
+      throw new NotFoundException("Department [" + this.departmentId + "] not found");
+    }
+
+    // Every entry is checked before anything is written
+    SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
+    List<Employee> tempEmployees = new ArrayList<>(employees.size());
+    for (NewEmployee employee : employees) {
+      if (employee == null || employee.name() == null || employee.hireDate() == null) {
+        throw new IllegalArgumentException("Every employee needs a name and a hireDate");
+      }
+      Date parsedHireDate;
+      try {
+        parsedHireDate = sdf.parse(employee.hireDate());
+      } catch (ParseException e) {
+        throw new IllegalArgumentException("Invalid date format. Expected yyyy-MM-dd.", e);
+      }
+      tempEmployees.add(new Employee(
+          -1,
+          employee.name(),
+          parsedHireDate,
+          employee.position() == null ? "" : employee.position(),
+          employee.salary() == null ? 0 : employee.salary(),
+          employee.performance() == null ? 0 : employee.performance()
+      ));
+    }
+
+    List<Employee> newEmployees = dbFacade.addEmployeesToDepartment(departmentId, tempEmployees);
+    if (newEmployees == null) {
+      throw new BadRequestException("Failed to add employees to department");
+    }
+
+    Map<String, Object> response = new HashMap<>();
+    response.put("status", 200);
+    response.put(
+        "message",
+        newEmployees.size() + " employees added to department: " + department.getName()
+    );
+    response.put("employeeIds", newEmployees.stream().map(Employee::getId).toList());
+    return response;
+  }
+}
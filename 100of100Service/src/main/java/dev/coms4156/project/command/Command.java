@@ -2,6 +2,8 @@ package dev.coms4156.project.command;
 
 /**
  * Interface for service logics.
+ * A command making several writes should group them with HrDatabaseFacade.inUnitOfWork,
+ * so that they are committed at once or not at all.
  * Designed under the Command Design Pattern.
  */
 public interface Command {
@@ -0,0 +1,45 @@
+package dev.coms4156.project.command;
+
+import dev.coms4156.project.HrDatabaseFacade;
+import dev.coms4156.project.exception.NotFoundException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A command to get the employees reporting to an employee.
+ */
+public class GetEmpReportsCmd implements Command {
+  private final int clientId;
+  private final int employeeId;
+  private final boolean directOnly;
+
+  /**
+   * Constructs a command to get the reports of an employee.
+   *
+   * @param clientId the client ID
+   * @param employeeId the employee ID
+   * @param directOnly true for the direct reports only, false for all reports
+   */
+  public GetEmpReportsCmd(int clientId, int employeeId, boolean directOnly) {
+    this.clientId = clientId;
+    this.employeeId = employeeId;
+    this.directOnly = directOnly;
+  }
+
+  @Override
+  public Object execute() {
+    HrDatabaseFacade db = HrDatabaseFacade.getInstance(this.clientId);
+    int[] reportIds = this.directOnly
+        ? db.getDirectReportIds(this.employeeId)
+        : db.getReportIds(this.employeeId);
+    if (reportIds == null) {
+      throw new NotFoundException("Employee [" + this.employeeId + "] not found");
+    }
+
+    Map<String, Object> result = new HashMap<>();
+    result.put("managerId", this.employeeId);
+    result.put("direct", this.directOnly);
+    result.put("reportIds", reportIds);
+    return result;
+  }
+}
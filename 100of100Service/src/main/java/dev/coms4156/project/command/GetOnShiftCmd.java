@@ -0,0 +1,54 @@
+package dev.coms4156.project.command;
+
+import dev.coms4156.project.Department;
+import dev.coms4156.project.Employee;
+import dev.coms4156.project.HrDatabaseFacade;
+import dev.coms4156.project.ShiftSchedule;
+import dev.coms4156.project.exception.NotFoundException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A command to get the employees of a department on shift now, or in given time slots.
+ */
+public class GetOnShiftCmd implements Command {
+  private final int clientId;
+  private final int departmentId;
+  private final String shifts;
+
+  /**
+   * Constructs a command to get the employees of a department on shift.
+   *
+   * @param clientId the client ID
+   * @param departmentId the department ID
+   * @param shifts the slots as comma separated day:slot pairs, null or empty for the current slot
+   */
+  public GetOnShiftCmd(int clientId, int departmentId, String shifts) {
+    this.clientId = clientId;
+    this.departmentId = departmentId;
+    this.shifts = shifts;
+  }
+
+  @Override
+  public Object execute() {
+    int parsedMask = ShiftSchedule.parse(this.shifts);
+    if (parsedMask == 0) {
+      int bit = ShiftSchedule.bitAt(LocalDateTime.now());
+      parsedMask = bit < 0 ? 0 : 1 << bit;
+    }
+    final int slotMask = parsedMask;
+    HrDatabaseFacade db = HrDatabaseFacade.getInstance(this.clientId);
+    Department department = db.getDepartment(this.departmentId);
+    if (department == null) {
+      throw new NotFoundException("Department [" + this.departmentId + "] not found.");
+    }
+
+    List<Employee> onShift = db.readLocked(() -> department.getEmployeesOnShift(slotMask));
+    Map<String, Object> result = new HashMap<>();
+    result.put("shifts", ShiftSchedule.format(slotMask));
+    result.put("employeeIds", onShift.stream().mapToInt(Employee::getId).toArray());
+    return result;
+  }
+}
@@ -21,6 +21,6 @@ public class GetOrgInfoCmd implements Command {
     if (organization == null) {
       throw new NotFoundException("Organization [" + this.clientId + "] not found");
     }
-    return organization.toJson();
+    return db.readLocked(organization::toJson);
   }
 }
\ No newline at end of file
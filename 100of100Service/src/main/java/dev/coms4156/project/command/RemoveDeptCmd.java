@@ -0,0 +1,99 @@
+package dev.coms4156.project.command;
+
+import dev.coms4156.project.Department;
+import dev.coms4156.project.HrDatabaseFacade;
+import dev.coms4156.project.exception.InternalServerErrorException;
+import dev.coms4156.project.exception.NotFoundException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A command to remove a department together with its employees,
+ * nesting its sub-departments in another department.
+ */
+public class RemoveDeptCmd implements Command {
+  private final int clientId;
+  private final int departmentId;
+  private final int parentId;
+
+  /**
+   * Constructs a command to remove a department.
+   *
+   * @param clientId the client ID
+   * @param departmentId the department ID
+   * @param parentId the department to nest the sub-departments in,
+   *     or 0 to move them up to the parent of the removed department
+   */
+  public RemoveDeptCmd(int clientId, int departmentId, int parentId) {
+    this.clientId = clientId;
+    this.departmentId = departmentId;
+    this.parentId = parentId;
+  }
+
+  @Override
+  public Object execute() {
+    HrDatabaseFacade db = HrDatabaseFacade.getInstance(this.clientId);
+    Department department = findDepartment(db, this.departmentId);
+    if (this.parentId != 0) {
+      Department parent = findDepartment(db, this.parentId);
+      if (db.readLocked(() -> isInSubtree(parent, department))) {
+        throw new IllegalArgumentException("Department [" + this.parentId
+            + "] is removed together with department [" + this.departmentId + "]");
+      }
+    }
+
+    // The removal and the moves of the sub-departments are committed together or not at all.
+    // The unit holds the cache until it is done, so the tree is read again and changed in place.
+    db.inUnitOfWork(unit -> {
+      Department removed = findDepartment(db, this.departmentId);
+      Department parent = this.parentId == 0 ? null : findDepartment(db, this.parentId);
+      List<Department> subDepartments = List.copyOf(removed.getSubDepartments());
+      if (!db.removeDepartment(this.departmentId)) {
+        throw new InternalServerErrorException(
+            "Failed to remove department [" + this.departmentId + "]");
+      }
+      if (parent == null) {
+        // The removal has moved them up to its parent already
+        return null;
+      }
+      for (Department subDepartment : subDepartments) {
+        Department previous = subDepartment.getParent();
+        if (previous != null) {
+          previous.removeSubDepartment(subDepartment);
+        }
+        if (!parent.addSubDepartment(subDepartment)) {
+          throw new IllegalArgumentException("Department [" + this.parentId
+              + "] is removed together with department [" + this.departmentId + "]");
+        }
+        if (!db.updateDepartment(subDepartment)) {
+          throw new InternalServerErrorException(
+              "Failed to update department [" + subDepartment.getId() + "]");
+        }
+      }
+      return null;
+    });
+
+    Map<String, Object> response = new HashMap<>();
+    response.put("status", 200);
+    response.put("message", "Successfully removed department [" + this.departmentId + "]");
+    return response;
+  }
+
+  private static Department findDepartment(HrDatabaseFacade db, int departmentId) {
+    Department department = db.getDepartment(departmentId);
+    if (department == null) {
+      throw new NotFoundException("Department [" + departmentId + "] not found");
+    }
+    return department;
+  }
+
+  private static boolean isInSubtree(Department department, Department root) {
+    for (Department ancestor = department; ancestor != null; ancestor = ancestor.getParent()) {
+      if (ancestor == root) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -1,7 +1,6 @@
 package dev.coms4156.project.command;
 
 import dev.coms4156.project.Department;
-import dev.coms4156.project.Employee;
 import dev.coms4156.project.HrDatabaseFacade;
 import dev.coms4156.project.exception.BadRequestException;
 import dev.coms4156.project.exception.NotFoundException;
@@ -40,15 +39,12 @@ public class RemoveEmpFromDeptCmd implements Command {
     }
 
     // Find the employee to remove
-    Employee employeeToRemove = department.getEmployees().stream()
-        .filter(e -> e.getId() == employeeId)
-        .findFirst()
-        .orElseThrow(() ->
-          new IllegalArgumentException("Employee not found with ID: " + employeeId));
-
-    // Remove the employee and update the department
-    department.removeEmployee(employeeToRemove);
-    // Remove employee through facade
+    if (dbFacade.readLocked(
+        () -> department.getEmployees().stream().noneMatch(e -> e.getId() == employeeId))) {
+      throw new IllegalArgumentException("Employee not found with ID: " + employeeId);
+    }
+
+    // Remove employee through facade, which also updates the cached department
     boolean removed = dbFacade.removeEmployeeFromDepartment(departmentId, employeeId);
     if (!removed) {
       throw new BadRequestException("Failed to remove employee [" + employeeId
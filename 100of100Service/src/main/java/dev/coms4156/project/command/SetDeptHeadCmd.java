@@ -40,8 +40,7 @@ public class SetDeptHeadCmd implements Command {
     if (employee == null) {
       throw new NotFoundException("Employee [" + this.employeeId + "] not found");
     }
-    department.setHead(employee);
-    boolean updated = db.updateDepartment(department);
+    boolean updated = db.setDepartmentHead(this.departmentId, employee);
     if (!updated) {
       throw new InternalServerErrorException(
           "Failed to update department [" + this.departmentId + "]"
@@ -0,0 +1,90 @@
+package dev.coms4156.project.command;
+
+import dev.coms4156.project.Department;
+import dev.coms4156.project.HrDatabaseFacade;
+import dev.coms4156.project.exception.InternalServerErrorException;
+import dev.coms4156.project.exception.NotFoundException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A command to nest a department in another department, or to make it a top-level department.
+ */
+public class SetDeptParentCmd implements Command {
+  private final int clientId;
+  private final int departmentId;
+  private final int parentId;
+
+  /**
+   * Constructs a command to set the parent of a department.
+   *
+   * @param clientId the client ID
+   * @param departmentId the department ID
+   * @param parentId the parent department ID, or 0 for a top-level department
+   */
+  public SetDeptParentCmd(int clientId, int departmentId, int parentId) {
+    this.clientId = clientId;
+    this.departmentId = departmentId;
+    this.parentId = parentId;
+  }
+
+  @Override
+  public Object execute() {
+    HrDatabaseFacade db = HrDatabaseFacade.getInstance(this.clientId);
+    Department department = findDepartment(db, this.departmentId);
+    if (this.parentId != 0) {
+      Department parent = findDepartment(db, this.parentId);
+      if (db.readLocked(() -> isInSubtree(parent, department))) {
+        throw new IllegalArgumentException("Department [" + this.departmentId
+            + "] cannot be nested in its own sub-department [" + this.parentId + "]");
+      }
+    }
+
+    // The unit holds the cache while the tree is changed, and a failed update reloads it
+    db.inUnitOfWork(unit -> {
+      Department moved = findDepartment(db, this.departmentId);
+      Department parent = this.parentId == 0 ? null : findDepartment(db, this.parentId);
+      Department previous = moved.getParent();
+      if (previous == parent) {
+        return null;
+      }
+      if (previous != null) {
+        previous.removeSubDepartment(moved);
+      }
+      if (parent != null && !parent.addSubDepartment(moved)) {
+        throw new IllegalArgumentException("Department [" + this.departmentId
+            + "] cannot be nested in its own sub-department [" + this.parentId + "]");
+      }
+      if (!db.updateDepartment(moved)) {
+        throw new InternalServerErrorException(
+            "Failed to update department [" + this.departmentId + "]");
+      }
+      return null;
+    });
+
+    Map<String, Object> response = new HashMap<>();
+    response.put("status", 200);
+    response.put("message", this.parentId == 0
+        ? "Successfully made department [" + this.departmentId + "] a top-level department"
+        : "Successfully nested department [" + this.departmentId + "] "
+            + "in department [" + this.parentId + "]");
+    return response;
+  }
+
+  private static Department findDepartment(HrDatabaseFacade db, int departmentId) {
+    Department department = db.getDepartment(departmentId);
+    if (department == null) {
+      throw new NotFoundException("Department [" + departmentId + "] not found");
+    }
+    return department;
+  }
+
+  private static boolean isInSubtree(Department department, Department root) {
+    for (Department ancestor = department; ancestor != null; ancestor = ancestor.getParent()) {
+      if (ancestor == root) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
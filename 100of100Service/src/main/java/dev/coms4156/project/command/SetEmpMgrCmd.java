@@ -0,0 +1,61 @@
+package dev.coms4156.project.command;
+
+import dev.coms4156.project.Employee;
+import dev.coms4156.project.HrDatabaseFacade;
+import dev.coms4156.project.exception.InternalServerErrorException;
+import dev.coms4156.project.exception.NotFoundException;
+
+/**
+ * A command to set the manager of an employee, or to remove it.
+ */
+public class SetEmpMgrCmd implements Command {
+  private final int clientId;
+  private final int employeeId;
+  private final int managerId;
+
+  /**
+   * Constructs a command to set the manager of an employee.
+   *
+   * @param clientId the client ID
+   * @param employeeId the employee ID
+   * @param managerId the manager ID, or 0 for no manager
+   */
+  public SetEmpMgrCmd(int clientId, int employeeId, int managerId) {
+    this.clientId = clientId;
+    this.employeeId = employeeId;
+    this.managerId = managerId;
+  }
+
+  /**
+   * Executes the command.
+   *
+   * @return the result of the command
+   */
+  @Override
+  public Object execute() {
+    HrDatabaseFacade db = HrDatabaseFacade.getInstance(this.clientId);
+    Employee cached = db.getEmployee(this.employeeId);
+    if (cached == null) {
+      throw new NotFoundException("Employee [" + this.employeeId + "] not found");
+    }
+    if (this.managerId != 0 && db.getEmployee(this.managerId) == null) {
+      throw new NotFoundException("Employee [" + this.managerId + "] not found");
+    }
+    if (!db.canSetManager(this.employeeId, this.managerId)) {
+      throw new IllegalArgumentException("Employee [" + this.managerId
+          + "] reports to employee [" + this.employeeId + "] and cannot be its manager");
+    }
+
+    // The facade applies the change to the cached employee once it is written
+    Employee emp = new Employee(cached);
+    emp.setManagerId(this.managerId);
+    boolean result = db.updateEmployee(emp);
+    if (!result) {
+      throw new InternalServerErrorException("Failed to update employee [" + this.employeeId + "]");
+    }
+
+    return this.managerId == 0
+        ? "Successfully removed the manager of employee [" + this.employeeId + "]"
+        : "Successfully set manager of employee [" + this.employeeId + "] to " + this.managerId;
+  }
+}
@@ -34,10 +34,12 @@ public class SetEmpPosiCmd implements Command {
   @Override
   public Object execute() {
     HrDatabaseFacade db = HrDatabaseFacade.getInstance(this.clientId);
-    Employee emp = db.getEmployee(this.employeeId);
-    if (emp == null) {
+    Employee cached = db.getEmployee(this.employeeId);
+    if (cached == null) {
       throw new NotFoundException("Employee [" + this.employeeId + "] not found");
     }
+    // The facade applies the change to the cached employee once it is written
+    Employee emp = new Employee(cached);
     emp.setPosition(this.position);
     boolean result = db.updateEmployee(emp);
     if (!result) {
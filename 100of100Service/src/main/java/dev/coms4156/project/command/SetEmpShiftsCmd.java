@@ -0,0 +1,55 @@
+package dev.coms4156.project.command;
+
+import dev.coms4156.project.Employee;
+import dev.coms4156.project.HrDatabaseFacade;
+import dev.coms4156.project.ShiftSchedule;
+import dev.coms4156.project.exception.InternalServerErrorException;
+import dev.coms4156.project.exception.NotFoundException;
+
+/**
+ * A command to set the weekly shifts of an employee.
+ */
+public class SetEmpShiftsCmd implements Command {
+  private final int clientId;
+  private final int employeeId;
+  private final String shifts;
+
+  /**
+   * Constructs a command to set the weekly shifts of an employee.
+   *
+   * @param clientId the client ID
+   * @param employeeId the employee ID
+   * @param shifts the shifts as comma separated day:slot pairs, empty for no shift
+   */
+  public SetEmpShiftsCmd(int clientId, int employeeId, String shifts) {
+    this.clientId = clientId;
+    this.employeeId = employeeId;
+    this.shifts = shifts;
+  }
+
+  /**
+   * Executes the command.
+   *
+   * @return the result of the command
+   */
+  @Override
+  public Object execute() {
+    int shiftMask = ShiftSchedule.parse(this.shifts);
+    HrDatabaseFacade db = HrDatabaseFacade.getInstance(this.clientId);
+    Employee cached = db.getEmployee(this.employeeId);
+    if (cached == null) {
+      throw new NotFoundException("Employee [" + this.employeeId + "] not found");
+    }
+
+    // The facade moves the cached employee in the rosters once the shifts are written
+    Employee emp = new Employee(cached);
+    emp.setShiftMask(shiftMask);
+    boolean result = db.updateEmployeeShifts(emp);
+    if (!result) {
+      throw new InternalServerErrorException("Failed to update employee [" + this.employeeId + "]");
+    }
+
+    return "Successfully set shifts for employee [" + this.employeeId + "] to "
+        + ShiftSchedule.format(shiftMask);
+  }
+}
@@ -0,0 +1,117 @@
+package dev.coms4156.project.command;
+
+import dev.coms4156.project.Department;
+import dev.coms4156.project.Employee;
+import dev.coms4156.project.HrDatabaseFacade;
+import dev.coms4156.project.ShiftSchedule;
+import dev.coms4156.project.ShiftSolver;
+import dev.coms4156.project.exception.InternalServerErrorException;
+import dev.coms4156.project.exception.NotFoundException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A command to generate and save the weekly roster of a department.
+ */
+public class SolveDeptShiftsCmd implements Command {
+  /** The longest time budget of a search, in milliseconds. */
+  public static final long MAX_BUDGET_MILLIS = 10_000;
+
+  private final int clientId;
+  private final int departmentId;
+  private final int minimum;
+  private final String coverage;
+  private final int maxShifts;
+  private final long budgetMillis;
+
+  /**
+   * Constructs a command to generate the weekly roster of a department.
+   *
+   * @param clientId the client ID
+   * @param departmentId the department ID
+   * @param minimum the minimum number of employees of every time slot
+   * @param coverage (optional) the minimum of some time slots as day:slot=count pairs
+   * @param maxShifts the maximum number of shifts of an employee in a week
+   * @param budgetMillis the time budget of the search, in milliseconds
+   */
+  public SolveDeptShiftsCmd(int clientId, int departmentId, int minimum, String coverage,
+                            int maxShifts, long budgetMillis) {
+    this.clientId = clientId;
+    this.departmentId = departmentId;
+    this.minimum = minimum;
+    this.coverage = coverage;
+    this.maxShifts = maxShifts;
+    this.budgetMillis = budgetMillis;
+  }
+
+  /**
+   * Executes the command.
+   *
+   * @return the shift coverage of the new roster, with its shortfall
+   */
+  @Override
+  public Object execute() {
+    if (this.budgetMillis <= 0 || this.budgetMillis > MAX_BUDGET_MILLIS) {
+      throw new IllegalArgumentException(
+          "Time budget [" + this.budgetMillis + "] is not between 1 and " + MAX_BUDGET_MILLIS);
+    }
+    ShiftSolver solver = new ShiftSolver(parseTargets(), this.maxShifts, this.budgetMillis);
+    HrDatabaseFacade db = HrDatabaseFacade.getInstance(this.clientId);
+    Department department = db.getDepartment(this.departmentId);
+    if (department == null) {
+      throw new NotFoundException("Department [" + this.departmentId + "] not found.");
+    }
+
+    // The roster is solved on copies, the facade moves the cached employees once it is saved
+    List<Employee> employees = db.readLocked(() -> {
+      List<Employee> copies = new ArrayList<>();
+      for (Employee employee : new LinkedHashSet<>(department.getEmployees())) {
+        copies.add(new Employee(employee));
+      }
+      return copies;
+    });
+    ShiftSolver.Roster roster = solver.solve(employees);
+    for (int i = 0; i < employees.size(); i++) {
+      employees.get(i).setShiftMask(roster.masks()[i]);
+    }
+    boolean result = db.updateEmployeesShifts(employees);
+    if (!result) {
+      throw new InternalServerErrorException(
+          "Failed to save the roster of department [" + this.departmentId + "]");
+    }
+
+    Map<String, Object> response = db.readLocked(department::getShiftCoverageStatisticMap);
+    response.put("employeeCount", employees.size());
+    response.put("shortfall", roster.shortfall());
+    return response;
+  }
+
+  private int[] parseTargets() {
+    int[] targets = new int[ShiftSchedule.SLOTS_PER_WEEK];
+    Arrays.fill(targets, this.minimum);
+    if (this.coverage == null || this.coverage.isBlank()) {
+      return targets;
+    }
+    for (String pair : this.coverage.split(",")) {
+      String[] parts = pair.trim().split("=");
+      if (parts.length != 2) {
+        throw new IllegalArgumentException("Coverage [" + pair.trim() + "] is not day:slot=count");
+      }
+      int count;
+      try {
+        count = Integer.parseInt(parts[1].trim());
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Coverage [" + pair.trim() + "] is not day:slot=count");
+      }
+      int slot = Integer.numberOfTrailingZeros(ShiftSchedule.parse(parts[0]));
+      if (slot >= ShiftSchedule.SLOTS_PER_WEEK) {
+        throw new IllegalArgumentException("Coverage [" + pair.trim() + "] is not day:slot=count");
+      }
+      targets[slot] = count;
+    }
+    return targets;
+  }
+}
@@ -23,6 +23,6 @@ public class StatDeptBudgCmd implements Command {
     if (department == null) {
       throw new NotFoundException("Department [" + this.departmentId + "] not found.");
     }
-    return department.getEmployeeSalaryStatisticMap();
+    return db.readLocked(department::getEmployeeSalaryStatisticMap);
   }
 }
@@ -23,6 +23,6 @@ public class StatDeptPerfCmd implements Command {
     if (department == null) {
       throw new NotFoundException("Department [" + this.departmentId + "] not found.");
     }
-    return department.getEmployeePerformanceStatisticMap();
+    return db.readLocked(department::getEmployeePerformanceStatisticMap);
   }
 }
@@ -23,6 +23,6 @@ public class StatDeptPosiCmd implements Command {
     if (department == null) {
       throw new NotFoundException("Department [" + this.departmentId + "] not found.");
     }
-    return department.getEmployeePositionStatisticMap();
+    return db.readLocked(department::getEmployeePositionStatisticMap);
   }
 }
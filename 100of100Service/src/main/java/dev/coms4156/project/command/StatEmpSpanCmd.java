@@ -0,0 +1,33 @@
+package dev.coms4156.project.command;
+
+import dev.coms4156.project.HrDatabaseFacade;
+import dev.coms4156.project.exception.NotFoundException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A command to get the span of control of an employee.
+ */
+public class StatEmpSpanCmd implements Command {
+  private final int clientId;
+  private final int employeeId;
+
+  public StatEmpSpanCmd(int clientId, int employeeId) {
+    this.clientId = clientId;
+    this.employeeId = employeeId;
+  }
+
+  @Override
+  public Object execute() {
+    HrDatabaseFacade db = HrDatabaseFacade.getInstance(this.clientId);
+    int[] span = db.getSpanOfControl(this.employeeId);
+    if (span == null) {
+      throw new NotFoundException("Employee [" + this.employeeId + "] not found");
+    }
+
+    Map<String, Object> result = new HashMap<>();
+    result.put("directReports", span[0]);
+    result.put("totalReports", span[1]);
+    return result;
+  }
+}
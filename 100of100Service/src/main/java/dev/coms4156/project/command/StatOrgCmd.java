@@ -0,0 +1,48 @@
+package dev.coms4156.project.command;
+
+import dev.coms4156.project.HrDatabaseFacade;
+import dev.coms4156.project.Organization;
+import dev.coms4156.project.exception.NotFoundException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A command to get the statistics of all the employees of an organization.
+ * The employees are streamed from the database, so the statistic is computed
+ * with a bounded memory whatever the size of the organization.
+ */
+public class StatOrgCmd implements Command {
+  private final int clientId;
+
+  public StatOrgCmd(int clientId) {
+    this.clientId = clientId;
+  }
+
+  @Override
+  public Object execute() {
+    HrDatabaseFacade db = HrDatabaseFacade.getInstance(this.clientId);
+    Organization organization = db.getOrganization();
+    if (organization == null) {
+      throw new NotFoundException("Organization [" + this.clientId + "] not found");
+    }
+
+    // Sums are exact in cents and hundredths, only the reported values are converted
+    long[] totals = new long[3];
+    Map<String, Integer> positionCounts = new HashMap<>();
+    db.forEachEmployee(employee -> {
+      totals[0]++;
+      totals[1] += employee.getSalaryCents();
+      totals[2] += employee.getPerformanceHundredths();
+      positionCounts.merge(employee.getPosition(), 1, Integer::sum);
+    });
+
+    long count = totals[0];
+    Map<String, Object> result = new HashMap<>();
+    result.put("employeeCount", count);
+    result.put("totalSalary", totals[1] / 100.0);
+    result.put("averageSalary", count == 0 ? 0.0 : (double) totals[1] / count / 100.0);
+    result.put("averagePerformance", count == 0 ? 0.0 : (double) totals[2] / count / 100.0);
+    result.put("positionCounts", positionCounts);
+    return result;
+  }
+}
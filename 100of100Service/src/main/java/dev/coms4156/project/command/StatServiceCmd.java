@@ -0,0 +1,19 @@
+package dev.coms4156.project.command;
+
+import dev.coms4156.project.HrDatabaseFacade;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A command to get the statistics of the service itself, shared by all organizations.
+ */
+public class StatServiceCmd implements Command {
+
+  @Override
+  public Object execute() {
+    Map<String, Object> result = new HashMap<>();
+    result.put("pool", HrDatabaseFacade.getPoolStatisticMap());
+    result.put("cache", HrDatabaseFacade.getCacheStatisticMap());
+    return result;
+  }
+}
@@ -0,0 +1,97 @@
+package dev.coms4156.project.command;
+
+import dev.coms4156.project.Employee;
+import dev.coms4156.project.HrDatabaseFacade;
+import dev.coms4156.project.exception.InternalServerErrorException;
+import dev.coms4156.project.exception.NotFoundException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A command to update the information of several employees in a single batch.
+ */
+public class UpdateEmpsCmd implements Command {
+  /** The largest number of updates applied by a single command. */
+  public static final int MAX_BATCH_SIZE = 10_000;
+
+  private final int clientId;
+  private final List<EmployeeUpdate> updates;
+
+  /**
+   * The new information of an employee, as given in the request body.
+   * Absent fields are left unchanged.
+   *
+   * @param eid the employee ID
+   * @param position (optional) the position to set
+   * @param salary (optional) the salary to set
+   * @param performance (optional) the performance to set
+   */
+  public record EmployeeUpdate(Integer eid, String position, Double salary, Double performance) {
+  }
+
+  /**
+   * Constructs a command to update the information of several employees.
+   *
+   * @param clientId the client ID
+   * @param updates the updates to apply, in order
+   */
+  public UpdateEmpsCmd(int clientId, List<EmployeeUpdate> updates) {
+    this.clientId = clientId;
+    this.updates = updates;
+  }
+
+  /**
+   * Executes the command.
+   * The cached employees are left untouched until the whole batch is written.
+   *
+   * @return the result of the command
+   */
+  @Override
+  public Object execute() {
+    if (this.updates == null || this.updates.isEmpty() || this.updates.size() > MAX_BATCH_SIZE) {
+      throw new IllegalArgumentException(
+          "Expected between 1 and " + MAX_BATCH_SIZE + " employee updates");
+    }
+    HrDatabaseFacade db = HrDatabaseFacade.getInstance(this.clientId);
+
+    // Later updates of the same employee apply on top of the earlier ones
+    Map<Integer, Employee> updated = new LinkedHashMap<>();
+    for (EmployeeUpdate update : this.updates) {
+      if (update == null || update.eid() == null) {
+        throw new IllegalArgumentException("Every employee update needs an eid");
+      }
+      Employee emp = updated.get(update.eid());
+      if (emp == null) {
+        Employee cached = db.getEmployee(update.eid());
+        if (cached == null) {
+          throw new NotFoundException("Employee [" + update.eid() + "] not found");
+        }
+        emp = new Employee(cached);
+        updated.put(update.eid(), emp);
+      }
+      if (update.position() != null) {
+        emp.setPosition(update.position());
+      }
+      if (update.salary() != null) {
+        emp.setSalary(update.salary());
+      }
+      if (update.performance() != null) {
+        emp.setPerformance(update.performance());
+      }
+    }
+
+    boolean result = db.updateEmployees(new ArrayList<>(updated.values()));
+    if (!result) {
+      throw new InternalServerErrorException("Failed to update employees " + updated.keySet());
+    }
+
+    Map<String, Object> response = new HashMap<>();
+    response.put("status", 200);
+    response.put("message", updated.size() + " employees updated successfully");
+    response.put("employeeIds", new ArrayList<>(updated.keySet()));
+    return response;
+  }
+}
@@ -4,6 +4,7 @@ import java.util.HashMap;
 import java.util.Map;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
@@ -82,6 +83,21 @@ public class GlobalExceptionHandler {
         .body(this.errorResponse(ex, "Bad Request"));
   }
 
+  /**
+   * Exception handler to catch request bodies that cannot be read, like malformed JSON.
+   *
+   * @param ex The HttpMessageNotReadableException exception
+   * @return A 400 response entity with the error message
+   */
+  @ExceptionHandler(HttpMessageNotReadableException.class)
+  public ResponseEntity<?> handleHttpMessageNotReadableException(
+      HttpMessageNotReadableException ex
+  ) {
+    return ResponseEntity
+        .status(HttpStatus.BAD_REQUEST)
+        .body(this.errorResponse("Bad Request: the request body cannot be read"));
+  }
+
   /**
    * Exception handler to catch Internal Server Error exceptions thrown by the application.
    *
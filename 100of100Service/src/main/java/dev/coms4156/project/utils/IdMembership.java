@@ -0,0 +1,143 @@
+package dev.coms4156.project.utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Tracks which ids of one kind of entity exist, to answer cache misses without a database query.
+ * Ids are handed out in blocks by each service instance, so they are not created in ascending
+ * order and an unknown id up to the highest reserved id may have been created since the cache
+ * was loaded, unless it was looked up and found missing a short time ago. An id above the highest
+ * reserved id cannot exist as long as that limit was read a short time ago.
+ * Ids are never reused, so an id removed through this set cannot exist again.
+ * The ids are kept in a sparse set, as blocks leave large gaps between them.
+ * This class is not thread-safe.
+ */
+public final class IdMembership {
+  private static final int MAX_RECENT_MISSES = 4096;
+
+  // True for the ids that exist, false for the ids that were removed
+  private final IntHashMap<Boolean> ids = new IntHashMap<>();
+  // The time of each recorded miss, oldest first, so that misses expire one at a time.
+  // The insertion order keeps lookups free of structural changes under a read lock.
+  private final Map<Integer, Long> recentMisses =
+      new LinkedHashMap<>(16, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Long> eldest) {
+          return size() > MAX_RECENT_MISSES;
+        }
+      };
+  private final long missTtlNanos;
+  private int reservedLimit;
+  private long reservedLimitReadAt;
+  private boolean reservedLimitKnown;
+
+  /**
+   * Constructs an empty membership.
+   *
+   * @param missTtlMillis how long a recorded miss is trusted, in milliseconds
+   */
+  public IdMembership(long missTtlMillis) {
+    this.missTtlNanos = missTtlMillis * 1_000_000L;
+  }
+
+  /**
+   * Marks an id as existing.
+   *
+   * @param id the id
+   */
+  public void add(int id) {
+    if (id <= 0) {
+      return;
+    }
+    ids.put(id, Boolean.TRUE);
+    recentMisses.remove(id);
+    // The id was reserved, even if after the limit was read
+    reservedLimit = Math.max(reservedLimit, id);
+  }
+
+  /**
+   * Marks an id as no longer existing.
+   *
+   * @param id the id
+   */
+  public void remove(int id) {
+    if (id > 0) {
+      ids.put(id, Boolean.FALSE);
+    }
+  }
+
+  /**
+   * Returns whether an id is known to exist.
+   *
+   * @param id the id
+   * @return true if the id exists, false otherwise
+   */
+  public boolean contains(int id) {
+    return id > 0 && Boolean.TRUE.equals(ids.get(id));
+  }
+
+  /**
+   * Returns whether an id that is missing from the cache may still exist in the database.
+   *
+   * @param id the id
+   * @return false if the id cannot exist, true if it has to be looked up
+   */
+  public boolean mayExist(int id) {
+    if (id <= 0) {
+      return false;
+    }
+    Boolean known = ids.get(id);
+    if (known != null) {
+      return known;
+    }
+    if (id > reservedLimit && reservedLimitKnown && !isStale(reservedLimitReadAt)) {
+      return false;
+    }
+    Long missedAt = recentMisses.get(id);
+    return missedAt == null || isStale(missedAt);
+  }
+
+  /**
+   * Returns whether the highest reserved id has to be read before looking up an id,
+   * as the id is above a limit that is unknown or was read too long ago.
+   *
+   * @param id the id
+   * @return true if the reserved limit should be read again
+   */
+  public boolean needsReservedLimit(int id) {
+    return id > reservedLimit && (!reservedLimitKnown || isStale(reservedLimitReadAt));
+  }
+
+  /**
+   * Sets the highest id reserved so far, above which no id exists for now.
+   *
+   * @param limit the highest reserved id
+   */
+  public void setReservedLimit(int limit) {
+    reservedLimit = limit;
+    reservedLimitReadAt = System.nanoTime();
+    reservedLimitKnown = true;
+  }
+
+  /**
+   * Records that an id was looked up and not found.
+   * The expired misses are dropped first, oldest first.
+   *
+   * @param id the id
+   */
+  public void recordMiss(int id) {
+    Iterator<Long> oldest = recentMisses.values().iterator();
+    while (oldest.hasNext() && isStale(oldest.next())) {
+      oldest.remove();
+    }
+    // Recorded again, the miss moves to the end of the order
+    recentMisses.remove(id);
+    recentMisses.put(id, System.nanoTime());
+  }
+
+  private boolean isStale(long readAt) {
+    return System.nanoTime() - readAt > missTtlNanos;
+  }
+}
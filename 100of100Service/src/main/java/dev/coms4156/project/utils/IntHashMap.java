@@ -0,0 +1,197 @@
+package dev.coms4156.project.utils;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A hash map keyed by primitive int values.
+ * Entries are stored with open addressing and linear probing in parallel arrays,
+ * so neither lookups nor insertions box the key into an Integer.
+ * Removal shifts the following entries of the probe run back instead of leaving
+ * tombstones, so lookups never slow down after many removals.
+ * Null values are not permitted. This class is not thread-safe.
+ *
+ * @param <V> the type of the mapped values
+ */
+public final class IntHashMap<V> {
+  private static final int DEFAULT_CAPACITY = 16;
+  private static final float LOAD_FACTOR = 0.5f;
+
+  private int[] keys;
+  private Object[] values;
+  private int mask;
+  private int size;
+  private int resizeThreshold;
+
+  /**
+   * Constructs an empty map with the default capacity.
+   */
+  public IntHashMap() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Constructs an empty map that holds the expected number of entries without resizing.
+   *
+   * @param expectedSize the expected number of entries
+   * @throws IllegalArgumentException if the expected size is negative
+   */
+  public IntHashMap(int expectedSize) {
+    if (expectedSize < 0) {
+      throw new IllegalArgumentException("Expected size must not be negative");
+    }
+    allocate(tableSizeFor(expectedSize));
+  }
+
+  /**
+   * Returns the value mapped to the specified key.
+   *
+   * @param key the key
+   * @return the mapped value, or null if the key is not present
+   */
+  @SuppressWarnings("unchecked")
+  public V get(int key) {
+    int slot = indexOf(key);
+    return slot < 0 ? null : (V) values[slot];
+  }
+
+  /**
+   * Returns whether the specified key is present.
+   *
+   * @param key the key
+   * @return true if the key is present, false otherwise
+   */
+  public boolean containsKey(int key) {
+    return indexOf(key) >= 0;
+  }
+
+  /**
+   * Maps the specified key to the specified value.
+   *
+   * @param key the key
+   * @param value the value, must not be null
+   * @return the previously mapped value, or null if the key was not present
+   */
+  @SuppressWarnings("unchecked")
+  public V put(int key, V value) {
+    Objects.requireNonNull(value, "value");
+    int slot = hash(key);
+    while (values[slot] != null) {
+      if (keys[slot] == key) {
+        V previous = (V) values[slot];
+        values[slot] = value;
+        return previous;
+      }
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = key;
+    values[slot] = value;
+    if (++size > resizeThreshold) {
+      rehash(keys.length << 1);
+    }
+    return null;
+  }
+
+  /**
+   * Removes the mapping of the specified key.
+   *
+   * @param key the key
+   * @return the removed value, or null if the key was not present
+   */
+  @SuppressWarnings("unchecked")
+  public V remove(int key) {
+    int slot = indexOf(key);
+    if (slot < 0) {
+      return null;
+    }
+    final V previous = (V) values[slot];
+    values[slot] = null;
+    size--;
+
+    // Shift back every following entry whose probe run passes through the freed slot
+    int gap = slot;
+    int next = (gap + 1) & mask;
+    while (values[next] != null) {
+      int home = hash(keys[next]);
+      if (((next - home) & mask) >= ((next - gap) & mask)) {
+        keys[gap] = keys[next];
+        values[gap] = values[next];
+        values[next] = null;
+        gap = next;
+      }
+      next = (next + 1) & mask;
+    }
+    return previous;
+  }
+
+  /**
+   * Returns the number of entries in the map.
+   *
+   * @return the number of entries
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns whether the map has no entries.
+   *
+   * @return true if the map is empty, false otherwise
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Removes all entries from the map. The allocated capacity is kept.
+   */
+  public void clear() {
+    Arrays.fill(values, null);
+    size = 0;
+  }
+
+  private int indexOf(int key) {
+    int slot = hash(key);
+    while (values[slot] != null) {
+      if (keys[slot] == key) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  private int hash(int key) {
+    // Fibonacci hashing spreads sequential ids over the whole table
+    int h = key * 0x9E3779B9;
+    return (h ^ (h >>> 16)) & mask;
+  }
+
+  private void rehash(int capacity) {
+    int[] oldKeys = keys;
+    Object[] oldValues = values;
+    allocate(capacity);
+    for (int i = 0; i < oldValues.length; i++) {
+      if (oldValues[i] != null) {
+        int slot = hash(oldKeys[i]);
+        while (values[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new int[capacity];
+    values = new Object[capacity];
+    mask = capacity - 1;
+    resizeThreshold = (int) (capacity * LOAD_FACTOR);
+  }
+
+  private static int tableSizeFor(int expectedSize) {
+    int required = Math.max(DEFAULT_CAPACITY, (int) Math.ceil(expectedSize / LOAD_FACTOR) + 1);
+    return Integer.highestOneBit(required - 1) << 1;
+  }
+}
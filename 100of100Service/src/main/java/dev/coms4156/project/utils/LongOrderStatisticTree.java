@@ -0,0 +1,282 @@
+package dev.coms4156.project.utils;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+
+/**
+ * A sorted multiset of longs that can also be indexed by rank.
+ * Elements are kept in a treap whose nodes record the size of their subtree,
+ * so insertion, removal and access by rank all take O(log n) expected time,
+ * and iteration in either order takes O(n) without sorting.
+ * The nodes live in parallel primitive arrays rather than in objects, so a tree holds
+ * a constant number of objects however many elements it has, and the garbage collector
+ * never has to trace its elements. Removed nodes are reused by later insertions.
+ * Elements that are equal are all kept. This class is not thread-safe.
+ */
+public final class LongOrderStatisticTree {
+  private static final int INITIAL_CAPACITY = 8;
+  // Node 0 is the empty subtree, with a size of 0
+  private static final int NIL = 0;
+
+  private long[] elements = new long[INITIAL_CAPACITY];
+  private int[] priorities = new int[INITIAL_CAPACITY];
+  // Left children, also linking the removed nodes that can be reused
+  private int[] lefts = new int[INITIAL_CAPACITY];
+  private int[] rights = new int[INITIAL_CAPACITY];
+  private int[] sizes = new int[INITIAL_CAPACITY];
+  private int root = NIL;
+  private int allocated = 1;
+  private int freeNodes = NIL;
+  private int seed = 0x2545F491;
+
+  /**
+   * Returns the number of elements.
+   *
+   * @return the number of elements
+   */
+  public int size() {
+    return this.sizes[this.root];
+  }
+
+  /**
+   * Returns whether the tree is empty.
+   *
+   * @return true if the tree holds no elements, false otherwise
+   */
+  public boolean isEmpty() {
+    return this.root == NIL;
+  }
+
+  /**
+   * Adds an element.
+   *
+   * @param element the element
+   */
+  public void add(long element) {
+    this.root = insert(this.root, newNode(element));
+  }
+
+  /**
+   * Removes one element equal to the given one.
+   *
+   * @param element the element
+   * @return true if an element was removed, false otherwise
+   */
+  public boolean remove(long element) {
+    int before = size();
+    this.root = delete(this.root, element);
+    return size() != before;
+  }
+
+  /**
+   * Returns the element of the given rank, counting from the smallest at rank 0.
+   *
+   * @param rank the rank
+   * @return the element
+   * @throws IndexOutOfBoundsException if the rank is not within the tree
+   */
+  public long get(int rank) {
+    Objects.checkIndex(rank, size());
+    int node = this.root;
+    while (true) {
+      int leftSize = this.sizes[this.lefts[node]];
+      if (rank < leftSize) {
+        node = this.lefts[node];
+      } else if (rank > leftSize) {
+        rank -= leftSize + 1;
+        node = this.rights[node];
+      } else {
+        return this.elements[node];
+      }
+    }
+  }
+
+  /**
+   * Removes all the elements.
+   */
+  public void clear() {
+    this.root = NIL;
+    this.allocated = 1;
+    this.freeNodes = NIL;
+  }
+
+  /**
+   * Performs an action for each element from the smallest to the largest.
+   *
+   * @param action the action
+   */
+  public void forEach(LongConsumer action) {
+    PrimitiveIterator.OfLong iterator = iterator();
+    while (iterator.hasNext()) {
+      action.accept(iterator.nextLong());
+    }
+  }
+
+  /**
+   * Returns an iterator over the elements from the smallest to the largest.
+   *
+   * @return the iterator
+   */
+  public PrimitiveIterator.OfLong iterator() {
+    return new InOrderIterator(false);
+  }
+
+  /**
+   * Returns an iterator over the elements from the largest to the smallest.
+   *
+   * @return the iterator
+   */
+  public PrimitiveIterator.OfLong descendingIterator() {
+    return new InOrderIterator(true);
+  }
+
+  private int newNode(long element) {
+    int node = this.freeNodes;
+    if (node != NIL) {
+      this.freeNodes = this.lefts[node];
+    } else {
+      if (this.allocated == this.elements.length) {
+        int capacity = this.allocated * 2;
+        this.elements = Arrays.copyOf(this.elements, capacity);
+        this.priorities = Arrays.copyOf(this.priorities, capacity);
+        this.lefts = Arrays.copyOf(this.lefts, capacity);
+        this.rights = Arrays.copyOf(this.rights, capacity);
+        this.sizes = Arrays.copyOf(this.sizes, capacity);
+      }
+      node = this.allocated++;
+    }
+    this.elements[node] = element;
+    this.priorities[node] = nextPriority();
+    this.lefts[node] = NIL;
+    this.rights[node] = NIL;
+    this.sizes[node] = 1;
+    return node;
+  }
+
+  private void freeNode(int node) {
+    this.lefts[node] = this.freeNodes;
+    this.freeNodes = node;
+  }
+
+  private int insert(int node, int added) {
+    if (node == NIL) {
+      return added;
+    }
+    this.sizes[node]++;
+    if (this.elements[added] < this.elements[node]) {
+      this.lefts[node] = insert(this.lefts[node], added);
+      if (this.priorities[this.lefts[node]] > this.priorities[node]) {
+        node = rotateRight(node);
+      }
+    } else {
+      this.rights[node] = insert(this.rights[node], added);
+      if (this.priorities[this.rights[node]] > this.priorities[node]) {
+        node = rotateLeft(node);
+      }
+    }
+    return node;
+  }
+
+  private int delete(int node, long element) {
+    if (node == NIL) {
+      return NIL;
+    }
+    if (element < this.elements[node]) {
+      this.lefts[node] = delete(this.lefts[node], element);
+    } else if (element > this.elements[node]) {
+      this.rights[node] = delete(this.rights[node], element);
+    } else {
+      int merged = merge(this.lefts[node], this.rights[node]);
+      freeNode(node);
+      return merged;
+    }
+    resize(node);
+    return node;
+  }
+
+  private int merge(int left, int right) {
+    if (left == NIL) {
+      return right;
+    }
+    if (right == NIL) {
+      return left;
+    }
+    if (this.priorities[left] > this.priorities[right]) {
+      this.rights[left] = merge(this.rights[left], right);
+      resize(left);
+      return left;
+    }
+    this.lefts[right] = merge(left, this.lefts[right]);
+    resize(right);
+    return right;
+  }
+
+  private int rotateRight(int node) {
+    int pivot = this.lefts[node];
+    this.lefts[node] = this.rights[pivot];
+    this.rights[pivot] = node;
+    resize(node);
+    resize(pivot);
+    return pivot;
+  }
+
+  private int rotateLeft(int node) {
+    int pivot = this.rights[node];
+    this.rights[node] = this.lefts[pivot];
+    this.lefts[pivot] = node;
+    resize(node);
+    resize(pivot);
+    return pivot;
+  }
+
+  private void resize(int node) {
+    this.sizes[node] = 1 + this.sizes[this.lefts[node]] + this.sizes[this.rights[node]];
+  }
+
+  private int nextPriority() {
+    // Xorshift keeps the shape of the tree reproducible between runs
+    seed ^= seed << 13;
+    seed ^= seed >>> 17;
+    seed ^= seed << 5;
+    return seed;
+  }
+
+  private final class InOrderIterator implements PrimitiveIterator.OfLong {
+    private int[] stack = new int[INITIAL_CAPACITY];
+    private int depth;
+    private final boolean descending;
+
+    private InOrderIterator(boolean descending) {
+      this.descending = descending;
+      pushEdge(root);
+    }
+
+    private void pushEdge(int node) {
+      while (node != NIL) {
+        if (this.depth == this.stack.length) {
+          this.stack = Arrays.copyOf(this.stack, this.depth * 2);
+        }
+        this.stack[this.depth++] = node;
+        node = this.descending ? rights[node] : lefts[node];
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return this.depth > 0;
+    }
+
+    @Override
+    public long nextLong() {
+      if (this.depth == 0) {
+        throw new NoSuchElementException();
+      }
+      int node = this.stack[--this.depth];
+      pushEdge(this.descending ? lefts[node] : rights[node]);
+      return elements[node];
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package dev.coms4156.project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A unit test class for the ChildStore class.
+ */
+public class ChildStoreTest {
+
+  private static Employee employee(int id) {
+    return new Employee(id, "E" + id, new Date());
+  }
+
+  @Test
+  public void testAddAndFindById() {
+    ChildStore<Employee> store = new ChildStore<>();
+    Employee e1 = employee(1);
+    Employee e2 = employee(10001);
+    store.add(e1);
+    store.add(e2);
+
+    assertEquals(2, store.size());
+    assertSame(e1, store.get(0));
+    assertSame(e2, store.getById(10001));
+    assertNull(store.getById(2));
+    assertTrue(store.contains(e1));
+    assertFalse(store.contains(employee(1)));
+    assertThrows(NullPointerException.class, () -> store.add(null));
+  }
+
+  @Test
+  public void testRemoveMovesLastChild() {
+    ChildStore<Employee> store = new ChildStore<>();
+    Employee e1 = employee(1);
+    Employee e2 = employee(2);
+    Employee e3 = employee(3);
+    store.add(e1);
+    store.add(e2);
+    store.add(e3);
+
+    assertTrue(store.remove(e1));
+    assertFalse(store.remove(e1));
+    assertEquals(List.of(e3, e2), store);
+    assertSame(e3, store.getById(3));
+    assertEquals(0, store.indexOf(e3));
+  }
+
+  @Test
+  public void testSetAndClear() {
+    ChildStore<Employee> store = new ChildStore<>();
+    Employee e1 = employee(1);
+    Employee replacement = employee(1);
+    store.add(e1);
+    store.add(employee(2));
+
+    assertSame(e1, store.set(0, replacement));
+    assertSame(replacement, store.getById(1));
+    assertFalse(store.contains(e1));
+
+    store.clear();
+    assertTrue(store.isEmpty());
+    assertNull(store.getById(1));
+  }
+
+  @Test
+  public void testDuplicateIds() {
+    ChildStore<Employee> store = new ChildStore<>();
+    Employee first = employee(1);
+    Employee second = employee(1);
+    store.add(first);
+    store.add(second);
+
+    assertTrue(store.contains(second));
+    assertTrue(store.remove(first));
+    assertSame(second, store.getById(1));
+    assertTrue(store.remove(second));
+    assertTrue(store.isEmpty());
+  }
+
+  @Test
+  public void testIteratorRemoval() {
+    ChildStore<Employee> store = new ChildStore<>();
+    for (int id = 1; id <= 10; id++) {
+      store.add(employee(id));
+    }
+
+    store.removeIf(e -> e.getId() % 2 == 0);
+    assertEquals(5, store.size());
+    for (int id = 1; id <= 10; id++) {
+      assertEquals(id % 2 == 1, store.getById(id) != null);
+    }
+  }
+
+  @Test
+  public void testMatchesArrayList() {
+    ChildStore<Employee> store = new ChildStore<>();
+    List<Employee> expected = new ArrayList<>();
+    Employee[] pool = new Employee[300];
+    for (int i = 0; i < pool.length; i++) {
+      pool[i] = employee(i * 7919);
+    }
+    Random random = new Random(42);
+    for (int i = 0; i < 10000; i++) {
+      Employee e = pool[random.nextInt(pool.length)];
+      if (expected.contains(e)) {
+        assertTrue(store.remove(e));
+        expected.remove(e);
+      } else {
+        assertFalse(store.contains(e));
+        store.add(e);
+        expected.add(e);
+      }
+    }
+
+    assertEquals(expected.size(), store.size());
+    for (Employee e : expected) {
+      assertSame(e, store.getById(e.getId()));
+    }
+    List<Employee> actual = new ArrayList<>(store);
+    actual.sort(Comparator.comparingInt(Employee::getId));
+    expected.sort(Comparator.comparingInt(Employee::getId));
+    assertEquals(expected, actual);
+  }
+}
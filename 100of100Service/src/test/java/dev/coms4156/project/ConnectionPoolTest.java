@@ -0,0 +1,231 @@
+package dev.coms4156.project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A unit test class for the ConnectionPool class.
+ * Physical connections are simulated so that no database is required.
+ */
+public class ConnectionPoolTest {
+
+  private final List<FakeConnection> created = new ArrayList<>();
+  private ConnectionPool pool;
+
+  /**
+   * Closes the pool of the test, if any.
+   */
+  @AfterEach
+  public void tearDown() {
+    if (pool != null) {
+      pool.close();
+    }
+  }
+
+  @Test
+  public void testReturnedConnectionIsReused() throws Exception {
+    pool = newPool(1, 2, 100, 60_000, 0);
+    pool.warmUp();
+
+    try (Connection connection = pool.getConnection()) {
+      assertFalse(connection.isClosed());
+    }
+    try (Connection connection = pool.getConnection()) {
+      assertFalse(connection.isClosed());
+    }
+
+    assertEquals(1, created.size(), "The idle connection should be reused");
+    assertEquals(1, pool.getStatisticMap().get("idle"));
+    assertEquals(0, pool.getStatisticMap().get("active"));
+  }
+
+  @Test
+  public void testBorrowTimesOutWhenPoolIsExhausted() throws Exception {
+    pool = newPool(0, 1, 50, 60_000, 0);
+
+    try (Connection ignored = pool.getConnection()) {
+      assertThrows(SQLTimeoutException.class, () -> pool.getConnection());
+    }
+
+    assertEquals(1L, pool.getStatisticMap().get("timeoutCount"));
+    try (Connection connection = pool.getConnection()) {
+      assertFalse(connection.isClosed(), "A returned connection should be borrowable again");
+    }
+  }
+
+  @Test
+  public void testReturnedHandleCannotBeUsed() throws Exception {
+    pool = newPool(0, 1, 100, 60_000, 0);
+
+    Connection connection = pool.getConnection();
+    connection.close();
+    connection.close();
+
+    assertTrue(connection.isClosed());
+    assertThrows(SQLException.class, () -> connection.prepareStatement("SELECT 1"));
+    assertFalse(created.get(0).closed, "The physical connection should stay open in the pool");
+  }
+
+  @Test
+  public void testBrokenIdleConnectionIsReplaced() throws Exception {
+    pool = newPool(0, 1, 100, 0, 0);
+
+    try (Connection ignored = pool.getConnection()) {
+      created.get(0).valid = false;
+    }
+    try (Connection connection = pool.getConnection()) {
+      assertFalse(connection.isClosed());
+    }
+
+    assertEquals(2, created.size(), "A new connection should replace the broken one");
+    assertTrue(created.get(0).closed, "The broken connection should be closed");
+    assertEquals(1L, pool.getStatisticMap().get("discardedCount"));
+  }
+
+  @Test
+  public void testOpenTransactionIsRolledBackOnReturn() throws Exception {
+    pool = newPool(0, 1, 100, 60_000, 0);
+
+    try (Connection connection = pool.getConnection()) {
+      connection.setAutoCommit(false);
+    }
+
+    assertEquals(1, created.get(0).rollbacks.get());
+    assertTrue(created.get(0).autoCommit);
+  }
+
+  @Test
+  public void testConcurrentBorrowersUpToMaxSize() throws Exception {
+    int maxSize = 4;
+    pool = newPool(0, maxSize, 2_000, 60_000, 0);
+    CountDownLatch allBorrowed = new CountDownLatch(maxSize);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(maxSize);
+    try {
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (int i = 0; i < maxSize; i++) {
+        results.add(executor.submit(() -> {
+          try (Connection ignored = pool.getConnection()) {
+            allBorrowed.countDown();
+            return release.await(5, TimeUnit.SECONDS);
+          }
+        }));
+      }
+
+      assertTrue(allBorrowed.await(5, TimeUnit.SECONDS),
+          "Every thread should hold its own connection at the same time");
+      assertEquals(maxSize, pool.getStatisticMap().get("active"));
+      release.countDown();
+      for (Future<Boolean> result : results) {
+        assertTrue(result.get(5, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Map<String, Object> stats = pool.getStatisticMap();
+    assertEquals(0, stats.get("active"));
+    assertEquals(maxSize, stats.get("idle"));
+    assertEquals((long) maxSize, stats.get("borrowCount"));
+    assertTrue((double) stats.get("p99WaitMillis") >= 0.0);
+  }
+
+  @Test
+  public void testLeakedConnectionIsReported() throws Exception {
+    pool = newPool(0, 1, 100, 60_000, 1);
+
+    try (Connection ignored = pool.getConnection()) {
+      long deadline = System.currentTimeMillis() + 5_000;
+      while ((long) pool.getStatisticMap().get("leakCount") == 0
+          && System.currentTimeMillis() < deadline) {
+        Thread.sleep(50);
+      }
+    }
+
+    assertEquals(1L, pool.getStatisticMap().get("leakCount"));
+  }
+
+  @Test
+  public void testClosedPoolRejectsBorrowers() throws Exception {
+    pool = newPool(1, 1, 100, 60_000, 0);
+    pool.warmUp();
+    pool.close();
+
+    assertThrows(SQLException.class, () -> pool.getConnection());
+    assertTrue(created.get(0).closed, "Idle connections should be closed with the pool");
+  }
+
+  @Test
+  public void testInvalidPoolSize() {
+    assertThrows(IllegalArgumentException.class, () -> newPool(3, 2, 100, 60_000, 0));
+  }
+
+  private ConnectionPool newPool(
+      int minSize, int maxSize, long borrowTimeoutMillis,
+      long validationIntervalMillis, long leakThresholdMillis
+  ) {
+    return new ConnectionPool(this::createConnection, minSize, maxSize, borrowTimeoutMillis,
+        validationIntervalMillis, 600_000, leakThresholdMillis);
+  }
+
+  private synchronized Connection createConnection() {
+    FakeConnection fake = new FakeConnection();
+    created.add(fake);
+    return fake.proxy;
+  }
+
+  /**
+   * A simulated physical connection that records how the pool used it.
+   */
+  private static class FakeConnection {
+    private volatile boolean closed;
+    private volatile boolean valid = true;
+    private volatile boolean autoCommit = true;
+    private final AtomicInteger rollbacks = new AtomicInteger();
+    private final Connection proxy = (Connection) Proxy.newProxyInstance(
+        Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "close":
+              closed = true;
+              return null;
+            case "isClosed":
+              return closed;
+            case "isValid":
+              return valid && !closed;
+            case "getAutoCommit":
+              return autoCommit;
+            case "setAutoCommit":
+              autoCommit = (boolean) args[0];
+              return null;
+            case "rollback":
+              rollbacks.incrementAndGet();
+              return null;
+            case "hashCode":
+              return System.identityHashCode(proxy);
+            case "equals":
+              return proxy == args[0];
+            default:
+              return null;
+          }
+        });
+  }
+}
@@ -1,8 +1,13 @@
 package dev.coms4156.project;
 
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.MethodOrderer;
@@ -283,4 +288,371 @@ public class DepartmentTest {
     Assertions.assertEquals(0.0, ac.get("average"));
     Assertions.assertArrayEquals(new int[0], (int[]) ac.get("sortedEmployeeIds"));
   }
-}
\ No newline at end of file
+
+  @Test
+  @Order(21)
+  public void testSalaryStatisticFollowsSalaryChanges() {
+    Employee e1 = new Employee(1, "A", new Date(), "DataScientist", 100, 0);
+    Employee e2 = new Employee(2, "B", new Date(), "DataScientist", 200, 0);
+    Employee e3 = new Employee(3, "C", new Date(), "DataScientist", 300, 0);
+    Department d1 = new Department(11, "D1");
+    d1.addEmployee(e1);
+    d1.addEmployee(e2);
+    d1.addEmployee(e3);
+
+    e1.setSalary(400);
+    Map<String, Object> ac = d1.getEmployeeSalaryStatisticMap();
+    Assertions.assertEquals(900.0, ac.get("total"));
+    Assertions.assertEquals(300.0, ac.get("average"));
+    Assertions.assertEquals(400.0, ac.get("highest"));
+    Assertions.assertEquals(1, ac.get("highestEmployee"));
+    Assertions.assertEquals(200.0, ac.get("lowest"));
+    Assertions.assertEquals(2, ac.get("lowestEmployee"));
+
+    d1.removeEmployee(e1);
+    d1.removeEmployee(e2);
+    ac = d1.getEmployeeSalaryStatisticMap();
+    Assertions.assertEquals(300.0, ac.get("total"));
+    Assertions.assertEquals(300.0, ac.get("highest"));
+    Assertions.assertEquals(3, ac.get("highestEmployee"));
+    Assertions.assertEquals(3, ac.get("lowestEmployee"));
+
+    // A removed employee no longer affects the department
+    e1.setSalary(1000);
+    Assertions.assertEquals(300.0, d1.getEmployeeSalaryStatisticMap().get("total"));
+  }
+
+  @Test
+  @Order(22)
+  public void testSalaryStatisticSharedEmployee() {
+    Employee e1 = new Employee(1, "A", new Date(), "DataScientist", 100, 0);
+    Department d1 = new Department(12, "D1", List.of(e1));
+    Department d2 = new Department(13, "D2");
+    d2.addEmployee(e1);
+
+    e1.setSalary(150);
+    Assertions.assertEquals(150.0, d1.getEmployeeSalaryStatisticMap().get("total"));
+    Assertions.assertEquals(150.0, d2.getEmployeeSalaryStatisticMap().get("total"));
+
+    d2.removeEmployee(e1);
+    Assertions.assertEquals(0.0, d2.getEmployeeSalaryStatisticMap().get("total"));
+    Assertions.assertNull(d2.getEmployeeSalaryStatisticMap().get("highestEmployee"));
+    Assertions.assertFalse(d2.removeEmployee(e1));
+  }
+
+  @Test
+  @Order(23)
+  public void testPerformanceStatisticFollowsPerformanceChanges() {
+    Employee e1 = new Employee(1, "A", new Date(), "DataScientist", 0, 10);
+    Employee e2 = new Employee(2, "B", new Date(), "DataScientist", 0, 20);
+    Employee e3 = new Employee(3, "C", new Date(), "DataScientist", 0, 30);
+    Employee e4 = new Employee(4, "D", new Date(), "DataScientist", 0, 40);
+    Department d1 = new Department(14, "D1");
+    d1.addEmployee(e1);
+    d1.addEmployee(e2);
+    d1.addEmployee(e3);
+    d1.addEmployee(e4);
+
+    e1.setPerformance(50);
+    Map<String, Object> ac = d1.getEmployeePerformanceStatisticMap();
+    Assertions.assertEquals(50.0, ac.get("highest"));
+    Assertions.assertEquals(20.0, ac.get("lowest"));
+    Assertions.assertEquals(35.0, ac.get("median"));
+    Assertions.assertEquals(35.0, ac.get("average"));
+    Assertions.assertArrayEquals(new int[]{1, 4, 3, 2}, (int[]) ac.get("sortedEmployeeIds"));
+
+    // Ties keep ascending IDs
+    e4.setPerformance(50);
+    d1.removeEmployee(e2);
+    ac = d1.getEmployeePerformanceStatisticMap();
+    Assertions.assertEquals(30.0, ac.get("lowest"));
+    Assertions.assertArrayEquals(new int[]{1, 4, 3}, (int[]) ac.get("sortedEmployeeIds"));
+  }
+
+  @Test
+  @Order(24)
+  public void testPositionStatisticFollowsPositionChanges() {
+    Employee e1 = new Employee(1, "A", new Date(), "Physician", 0, 0);
+    Employee e2 = new Employee(2, "B", new Date(), " physician ", 0, 0);
+    Department d1 = new Department(15, "D1");
+    d1.addEmployee(e1);
+    d1.addEmployee(e2);
+    Assertions.assertEquals(Map.of("physician", 2), d1.getEmployeePositionStatisticMap());
+
+    e1.setPosition("Cardiologist");
+    e2.setPosition(null);
+    Assertions.assertEquals(Map.of("cardiologist", 1, "unassigned", 1),
+        d1.getEmployeePositionStatisticMap());
+
+    d1.removeEmployee(e2);
+    Assertions.assertEquals(Map.of("cardiologist", 1), d1.getEmployeePositionStatisticMap());
+  }
+
+  @Test
+  @Order(25)
+  public void testSortedEmployeeIdsAreNotShared() {
+    Employee e1 = new Employee(1, "A", new Date(), "DataScientist", 0, 10);
+    Employee e2 = new Employee(2, "B", new Date(), "DataScientist", 0, 20);
+    Department d1 = new Department(16, "D1");
+    d1.addEmployee(e1);
+    d1.addEmployee(e2);
+
+    int[] first = (int[]) d1.getEmployeePerformanceStatisticMap().get("sortedEmployeeIds");
+    first[0] = 42;
+    int[] second = (int[]) d1.getEmployeePerformanceStatisticMap().get("sortedEmployeeIds");
+    Assertions.assertArrayEquals(new int[]{2, 1}, second);
+
+    e1.setPerformance(30);
+    Assertions.assertArrayEquals(new int[]{1, 2},
+        (int[]) d1.getEmployeePerformanceStatisticMap().get("sortedEmployeeIds"));
+  }
+
+  @Test
+  @Order(26)
+  public void testSharedEmployeeRemovedFromFirstDepartment() {
+    Employee e1 = new Employee(1, "A", new Date(), "DataScientist", 100, 0);
+    Department d1 = new Department(17, "D1");
+    Department d2 = new Department(18, "D2");
+    Department d3 = new Department(19, "D3");
+    d1.addEmployee(e1);
+    d2.addEmployee(e1);
+    d3.addEmployee(e1);
+
+    d1.removeEmployee(e1);
+    e1.setSalary(200);
+    Assertions.assertEquals(0.0, d1.getEmployeeSalaryStatisticMap().get("total"));
+    Assertions.assertEquals(200.0, d2.getEmployeeSalaryStatisticMap().get("total"));
+    Assertions.assertEquals(200.0, d3.getEmployeeSalaryStatisticMap().get("total"));
+
+    d3.removeEmployee(e1);
+    e1.setSalary(300);
+    Assertions.assertEquals(300.0, d2.getEmployeeSalaryStatisticMap().get("total"));
+    Assertions.assertEquals(0.0, d3.getEmployeeSalaryStatisticMap().get("total"));
+  }
+
+  @Test
+  @Order(27)
+  public void testSubtreeStatisticOfNestedDepartments() {
+    Department root = new Department(20, "Root");
+    Department child = new Department(21, "Child");
+    Department grandchild = new Department(22, "Grandchild");
+    root.addEmployee(new Employee(1, "A", new Date(), "Nurse", 100, 80));
+    child.addEmployee(new Employee(2, "B", new Date(), "Nurse", 200, 60));
+    grandchild.addEmployee(new Employee(3, "C", new Date(), "Nurse", 300, 100));
+
+    Assertions.assertTrue(child.addSubDepartment(grandchild));
+    Assertions.assertTrue(root.addSubDepartment(child));
+    Assertions.assertSame(root, child.getParent());
+    Assertions.assertEquals(List.of(grandchild), child.getSubDepartments());
+
+    Map<String, Object> result = root.getSubtreeStatisticMap();
+    Assertions.assertEquals(3, result.get("departmentCount"));
+    Assertions.assertEquals(3, result.get("headcount"));
+    Assertions.assertEquals(600.0, result.get("salaryTotal"));
+    Assertions.assertEquals(200.0, result.get("salaryAverage"));
+    Map<?, ?> performance = (Map<?, ?>) result.get("performance");
+    Assertions.assertEquals(100.0, performance.get("highest"));
+    Assertions.assertEquals(80.0, performance.get("median"));
+    Assertions.assertEquals(60.0, performance.get("lowest"));
+
+    Map<String, Object> leaf = grandchild.getSubtreeStatisticMap();
+    Assertions.assertEquals(1, leaf.get("departmentCount"));
+    Assertions.assertEquals(300.0, leaf.get("salaryTotal"));
+  }
+
+  @Test
+  @Order(28)
+  public void testSubtreeStatisticFollowsEmployeeChanges() {
+    Department root = new Department(23, "Root");
+    Department child = new Department(24, "Child");
+    Department grandchild = new Department(25, "Grandchild");
+    root.addSubDepartment(child);
+    child.addSubDepartment(grandchild);
+    Employee e1 = new Employee(1, "A", new Date(), "Nurse", 100, 50);
+
+    grandchild.addEmployee(e1);
+    Assertions.assertEquals(1, root.getSubtreeStatisticMap().get("headcount"));
+    e1.setSalary(400);
+    e1.setPerformance(90);
+    Assertions.assertEquals(400.0, root.getSubtreeStatisticMap().get("salaryTotal"));
+    Assertions.assertEquals(400.0, child.getSubtreeStatisticMap().get("salaryTotal"));
+    Assertions.assertEquals(90.0,
+        ((Map<?, ?>) root.getSubtreeStatisticMap().get("performance")).get("highest"));
+
+    grandchild.removeEmployee(e1);
+    Assertions.assertEquals(0, root.getSubtreeStatisticMap().get("headcount"));
+    Assertions.assertEquals(0.0, root.getSubtreeStatisticMap().get("salaryTotal"));
+  }
+
+  @Test
+  @Order(29)
+  public void testAddSubDepartmentRejectsCyclesAndSecondParents() {
+    Department root = new Department(26, "Root");
+    Department child = new Department(27, "Child");
+    Department other = new Department(28, "Other");
+    Assertions.assertTrue(root.addSubDepartment(child));
+
+    Assertions.assertFalse(child.addSubDepartment(root));
+    Assertions.assertFalse(root.addSubDepartment(root));
+    Assertions.assertFalse(other.addSubDepartment(child));
+    Assertions.assertSame(root, child.getParent());
+    Assertions.assertNull(root.getParent());
+  }
+
+  @Test
+  @Order(30)
+  public void testRemoveSubDepartment() {
+    Department root = new Department(29, "Root");
+    Department child = new Department(30, "Child");
+    root.addEmployee(new Employee(1, "A", new Date(), "Nurse", 100, 80));
+    child.addEmployee(new Employee(2, "B", new Date(), "Nurse", 200, 60));
+    root.addSubDepartment(child);
+
+    Assertions.assertFalse(child.removeSubDepartment(root));
+    Assertions.assertTrue(root.removeSubDepartment(child));
+    Assertions.assertNull(child.getParent());
+    Assertions.assertTrue(root.getSubDepartments().isEmpty());
+    Map<String, Object> result = root.getSubtreeStatisticMap();
+    Assertions.assertEquals(1, result.get("departmentCount"));
+    Assertions.assertEquals(100.0, result.get("salaryTotal"));
+  }
+
+  @Test
+  @Order(31)
+  public void testLeaveTreeMovesSubDepartmentsUp() {
+    Department root = new Department(31, "Root");
+    Department middle = new Department(32, "Middle");
+    Department leaf = new Department(33, "Leaf");
+    leaf.addEmployee(new Employee(1, "A", new Date(), "Nurse", 100, 80));
+    root.addSubDepartment(middle);
+    middle.addSubDepartment(leaf);
+
+    middle.leaveTree();
+    Assertions.assertNull(middle.getParent());
+    Assertions.assertSame(root, leaf.getParent());
+    Assertions.assertEquals(2, root.getSubtreeStatisticMap().get("departmentCount"));
+    Assertions.assertEquals(100.0, root.getSubtreeStatisticMap().get("salaryTotal"));
+  }
+
+  @Test
+  @Order(32)
+  public void testTakePlaceOfKeepsTreePosition() {
+    Department root = new Department(34, "Root");
+    Department previous = new Department(35, "Old");
+    Department leaf = new Department(36, "Leaf");
+    root.addSubDepartment(previous);
+    previous.addSubDepartment(leaf);
+
+    Department replacement = new Department(35, "New");
+    replacement.takePlaceOf(previous);
+    Assertions.assertSame(root, replacement.getParent());
+    Assertions.assertSame(replacement, leaf.getParent());
+    Assertions.assertEquals(List.of(replacement), root.getSubDepartments());
+    Assertions.assertNull(previous.getParent());
+    Assertions.assertTrue(previous.getSubDepartments().isEmpty());
+  }
+
+  @Test
+  @Order(33)
+  public void testShiftCoverageFollowsEmployees() {
+    Department shiftDepartment = new Department(37, "Shifts");
+    Employee e1 = new Employee(1, "A", new Date());
+    Employee e2 = new Employee(2, "B", new Date());
+    e1.setShiftMask(ShiftSchedule.parse("MONDAY:0,MONDAY:1"));
+    e2.setShiftMask(ShiftSchedule.parse("MONDAY:0"));
+    shiftDepartment.addEmployee(e1);
+    shiftDepartment.addEmployee(e2);
+
+    int monday0 = 1 << ShiftSchedule.bitOf(DayOfWeek.MONDAY, 0);
+    int monday1 = 1 << ShiftSchedule.bitOf(DayOfWeek.MONDAY, 1);
+    Assertions.assertEquals(List.of(e1, e2), shiftDepartment.getEmployeesOnShift(monday0));
+    Assertions.assertEquals(List.of(e1), shiftDepartment.getEmployeesOnShift(monday0 | monday1));
+    Assertions.assertTrue(shiftDepartment.getEmployeesOnShift(0).isEmpty());
+
+    Map<String, Object> result = shiftDepartment.getShiftCoverageStatisticMap();
+    Map<?, ?> coverage = (Map<?, ?>) result.get("coverage");
+    Assertions.assertArrayEquals(new int[]{2, 1, 0}, (int[]) coverage.get("MONDAY"));
+    Assertions.assertEquals(19, ((List<?>) result.get("uncoveredSlots")).size());
+
+    e2.setShiftMask(monday1);
+    Assertions.assertEquals(List.of(e1, e2), shiftDepartment.getEmployeesOnShift(monday1));
+    shiftDepartment.removeEmployee(e1);
+    Assertions.assertEquals(List.of(e2), shiftDepartment.getEmployeesOnShift(monday1));
+    Assertions.assertTrue(shiftDepartment.getEmployeesOnShift(monday0).isEmpty());
+  }
+
+  @Test
+  @Order(34)
+  public void testShiftRosterGrowsAndReusesBits() {
+    Department shiftDepartment = new Department(38, "Shifts");
+    int sunday2 = 1 << ShiftSchedule.bitOf(DayOfWeek.SUNDAY, 2);
+    List<Employee> staff = new ArrayList<>();
+    for (int id = 1; id <= 150; id++) {
+      Employee employee = new Employee(id, "E" + id, new Date());
+      employee.setShiftMask(id % 2 == 0 ? sunday2 : 0);
+      shiftDepartment.addEmployee(employee);
+      staff.add(employee);
+    }
+    Assertions.assertEquals(75, shiftDepartment.getEmployeesOnShift(sunday2).size());
+
+    // A shared employee stays on the roster until its last membership is removed
+    Employee twice = staff.get(1);
+    shiftDepartment.addEmployee(twice);
+    shiftDepartment.removeEmployee(twice);
+    Assertions.assertTrue(shiftDepartment.getEmployeesOnShift(sunday2).contains(twice));
+    shiftDepartment.removeEmployee(twice);
+    Assertions.assertFalse(shiftDepartment.getEmployeesOnShift(sunday2).contains(twice));
+
+    Employee newcomer = new Employee(151, "E151", new Date());
+    newcomer.setShiftMask(sunday2);
+    shiftDepartment.addEmployee(newcomer);
+    Assertions.assertEquals(75, shiftDepartment.getEmployeesOnShift(sunday2).size());
+    Assertions.assertTrue(shiftDepartment.getEmployeesOnShift(sunday2).contains(newcomer));
+  }
+
+  @Test
+  @Order(35)
+  public void testSalaryExtremesMatchNaiveScan() {
+    Random random = new Random(7);
+    Department department = new Department(39, "Columns");
+    List<Employee> members = new ArrayList<>();
+    Map<Employee, Long> since = new HashMap<>();
+    long changes = 0;
+    for (int step = 0; step < 3000; step++) {
+      int action = random.nextInt(4);
+      if (action == 0 || members.isEmpty()) {
+        Employee employee = new Employee(step + 1, "E" + step, new Date(), "Nurse",
+            100 * (1 + random.nextInt(10)), 0);
+        department.addEmployee(employee);
+        members.add(employee);
+        since.put(employee, changes++);
+      } else if (action == 1) {
+        department.removeEmployee(members.remove(random.nextInt(members.size())));
+      } else {
+        Employee employee = members.get(random.nextInt(members.size()));
+        double salary = 100 * (1 + random.nextInt(10));
+        if (salary != employee.getSalary()) {
+          since.put(employee, changes++);
+        }
+        employee.setSalary(salary);
+      }
+
+      Map<String, Object> statistic = department.getEmployeeSalaryStatisticMap();
+      if (members.isEmpty()) {
+        Assertions.assertNull(statistic.get("highestEmployee"));
+        continue;
+      }
+      Comparator<Employee> bySalary = Comparator.comparingDouble(Employee::getSalary);
+      Comparator<Employee> earliest = Comparator.comparingLong(since::get);
+      Employee highest = members.stream()
+          .min(bySalary.reversed().thenComparing(earliest)).orElseThrow();
+      Employee lowest = members.stream().min(bySalary.thenComparing(earliest)).orElseThrow();
+      Assertions.assertEquals(highest.getId(), statistic.get("highestEmployee"));
+      Assertions.assertEquals(lowest.getId(), statistic.get("lowestEmployee"));
+      Assertions.assertEquals(highest.getSalary(), statistic.get("highest"));
+      Assertions.assertEquals(lowest.getSalary(), statistic.get("lowest"));
+      Assertions.assertEquals(
+          members.stream().mapToDouble(Employee::getSalary).sum(), statistic.get("total"));
+    }
+  }
+}
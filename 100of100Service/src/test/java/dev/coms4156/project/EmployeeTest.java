@@ -1,6 +1,10 @@
 package dev.coms4156.project;
 
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.MethodOrderer;
@@ -23,7 +27,8 @@ public class EmployeeTest {
    */
   @BeforeAll
   public static void setUp() {
-    date = new Date();
+    // Hire dates are calendar days, as stored in the database
+    date = Date.from(LocalDate.of(2024, 1, 15).atStartOfDay(ZoneId.systemDefault()).toInstant());
     employee = new Employee(1, "Test", date);
   }
 
@@ -73,10 +78,10 @@ public class EmployeeTest {
   @Test
   @Order(8)
   public void testGetEmployeeInfoWithNullDate() {
-    Date current = new Date();
     Employee employeeNullDate = new Employee(1, "TestND", null);
-    String expected = "Employee: TestND (ID: 1) Hired at: " + current;
+    String expected = "Employee: TestND (ID: 1) Hired at: null";
     Assertions.assertEquals(expected, employeeNullDate.toString());
+    Assertions.assertEquals(Employee.NO_HIRE_DATE, employeeNullDate.getHireEpochDay());
   }
 
   @Test
@@ -111,7 +116,7 @@ public class EmployeeTest {
   @Order(13)
   public void testFullConstructorWithNullValues() {
     Employee employeeFull = new Employee(3, "TestFull", null, null, 0, 0);
-    Assertions.assertNotNull(employeeFull.getHireDate(), "Hire date should not be null");
+    Assertions.assertNull(employeeFull.getHireDate(), "An unknown hire date should stay unknown");
     Assertions.assertEquals(
         "Other",
         employeeFull.getPosition(),
@@ -119,4 +124,81 @@ public class EmployeeTest {
     );
   }
 
-}
\ No newline at end of file
+  @Test
+  @Order(14)
+  public void testHireDateKeepsOnlyTheDay() {
+    Date afternoon = new Date(date.getTime() + 15 * 60 * 60 * 1000L);
+    Employee employeeAfternoon = new Employee(4, "TestDay", afternoon);
+    Assertions.assertEquals(date, employeeAfternoon.getHireDate());
+    Assertions.assertEquals(LocalDate.of(2024, 1, 15).toEpochDay(),
+        employeeAfternoon.getHireEpochDay());
+    Assertions.assertEquals(employee.getHireEpochDay(),
+        new Employee(5, "TestSql", new java.sql.Date(date.getTime())).getHireEpochDay());
+  }
+
+  @Test
+  @Order(15)
+  public void testFixedPointSalaryAndPerformance() {
+    Employee employeeFixed = new Employee(6, "TestFixed", date, "Nurse", 1234.567, 87.654);
+    Assertions.assertEquals(123457, employeeFixed.getSalaryCents());
+    Assertions.assertEquals(1234.57, employeeFixed.getSalary());
+    Assertions.assertEquals(8765, employeeFixed.getPerformanceHundredths());
+    Assertions.assertEquals(87.65, employeeFixed.getPerformance());
+
+    employeeFixed.setSalary(0.1 + 0.2);
+    Assertions.assertEquals(30, employeeFixed.getSalaryCents());
+    Assertions.assertEquals(0.3, employeeFixed.getSalary());
+  }
+
+  @Test
+  @Order(16)
+  public void testManager() {
+    Employee report = new Employee(7, "TestReport", date);
+    Assertions.assertEquals(0, report.getManagerId());
+    Assertions.assertEquals("", report.toJson().get("managerId"));
+    report.setManagerId(3);
+    Assertions.assertEquals(3, report.getManagerId());
+    Assertions.assertEquals(3, report.toJson().get("managerId"));
+  }
+
+  @Test
+  @Order(17)
+  public void testShifts() {
+    Employee worker = new Employee(8, "TestShifts", date);
+    Assertions.assertEquals(0, worker.getShiftMask());
+    worker.setShiftMask(ShiftSchedule.parse("MONDAY:0,SUNDAY:2"));
+    Assertions.assertEquals(List.of("MONDAY:0", "SUNDAY:2"), worker.toJson().get("shifts"));
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> worker.setShiftMask(1 << ShiftSchedule.SLOTS_PER_WEEK));
+  }
+
+  @Test
+  @Order(18)
+  public void testCopy() {
+    Employee original = new Employee(9, "TestCopy", date, "Nurse", 100, 90);
+    original.setManagerId(3);
+    original.setShiftMask(ShiftSchedule.parse("MONDAY:0"));
+    final Department department = new Department(1, "Observer", List.of(original));
+
+    Employee copy = new Employee(original);
+    Assertions.assertEquals(original.toJson(), copy.toJson());
+    Assertions.assertEquals(original.getHireEpochDay(), copy.getHireEpochDay());
+    copy.setSalary(200);
+    Assertions.assertEquals(100.0, original.getSalary());
+    // The copy is not observed by the department of the original
+    Assertions.assertEquals(100.0, department.getEmployeeSalaryStatisticMap().get("total"));
+  }
+
+  @Test
+  @Order(19)
+  public void testHireDateIsNotShared() {
+    Date hireDate = employee.getHireDate();
+    Assertions.assertThrows(UnsupportedOperationException.class, () -> hireDate.setTime(0));
+    Assertions.assertSame(hireDate, employee.getHireDate());
+    Assertions.assertSame(hireDate, new Employee(10, "TestSameDay", date).getHireDate());
+    Assertions.assertEquals(date, employee.getHireDate());
+    Map<String, Object> json = employee.toJson();
+    Assertions.assertEquals(date, json.get("hireDate"));
+    Assertions.assertEquals(employee.toString(), json.get("representation"));
+  }
+}
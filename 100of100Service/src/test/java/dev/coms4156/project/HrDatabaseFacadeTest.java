@@ -3,16 +3,37 @@ package dev.coms4156.project;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import dev.coms4156.project.command.RemoveDeptCmd;
+import dev.coms4156.project.command.SetDeptHeadCmd;
+import dev.coms4156.project.command.SetDeptParentCmd;
+import dev.coms4156.project.command.SetEmpPerfCmd;
+import dev.coms4156.project.command.SetEmpPosiCmd;
+import dev.coms4156.project.command.SetEmpSalCmd;
+import dev.coms4156.project.command.StatDeptBudgCmd;
+import dev.coms4156.project.exception.InternalServerErrorException;
 import dev.coms4156.project.exception.NotFoundException;
 import java.lang.reflect.Field;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
@@ -42,6 +63,7 @@ public class HrDatabaseFacadeTest {
     Field employeesField = HrDatabaseFacade.class.getDeclaredField("employees");
     employeesField.setAccessible(true);
     employeesField.set(facade, new ArrayList<>());
+    facade.employeeIndex.clear();
 
     Employee employee = facade.getEmployee(1);
     assertNotNull(employee, "Employee should be fetched from database when not in cache");
@@ -60,6 +82,7 @@ public class HrDatabaseFacadeTest {
     Field departmentsField = HrDatabaseFacade.class.getDeclaredField("departments");
     departmentsField.setAccessible(true);
     departmentsField.set(facade, new ArrayList<>());
+    facade.departmentIndex.clear();
 
     Department department = facade.getDepartment(1);
     assertNotNull(department, "Department should be fetched from database when not in cache");
@@ -451,6 +474,835 @@ public class HrDatabaseFacadeTest {
     });
   }
 
+  @Test
+  @Order(30)
+  public void testWritesUpdateCacheWithoutReloading() {
+    int[] bulkReads = new int[1];
+    DatabaseConnection countingDbConnection = new InmemConnection() {
+      @Override
+      public List<Employee> getEmployees(int orgId) {
+        bulkReads[0]++;
+        return super.getEmployees(orgId);
+      }
+
+      @Override
+      public List<Department> getDepartments(int orgId) {
+        bulkReads[0]++;
+        return super.getDepartments(orgId);
+      }
+    };
+    HrDatabaseFacade.setConnection(countingDbConnection);
+    Map<Integer, HrDatabaseFacade> instancesMap = getInstancesMapViaReflection();
+    instancesMap.remove(testOrganizationId);
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      bulkReads[0] = 0;
+
+      Employee added = facade.addEmployeeToDepartment(1, new Employee(0, "Cached", new Date()));
+      assertNotNull(added);
+      assertEquals(added, facade.getEmployee(added.getId()));
+      assertTrue(facade.getOrganization().getEmployees().contains(added));
+
+      Employee replacement = new Employee(added.getId(), "Cached", added.getHireDate());
+      replacement.setSalary(123);
+      assertTrue(facade.updateEmployee(replacement));
+      // The update is applied to the one shared instance
+      assertSame(added, facade.getEmployee(added.getId()));
+      assertEquals(123, added.getSalary());
+      assertTrue(facade.getDepartment(1).getEmployees().contains(added));
+
+      assertTrue(facade.removeEmployeeFromDepartment(1, added.getId()));
+      assertFalse(facade.employees.contains(added));
+      assertFalse(facade.getOrganization().getEmployees().contains(added));
+      assertEquals(0, bulkReads[0], "Writes should not reload the organization");
+
+      assertTrue(facade.invalidate());
+      assertTrue(bulkReads[0] > 0, "Invalidation should reload the organization");
+      assertNull(facade.getEmployee(added.getId()));
+    } finally {
+      instancesMap.remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(31)
+  public void testConcurrentFirstRequestsLoadOnce() throws Exception {
+    AtomicInteger loads = new AtomicInteger();
+    DatabaseConnection slowDbConnection = new InmemConnection() {
+      @Override
+      public Organization loadOrganization(int orgId) {
+        loads.incrementAndGet();
+        try {
+          Thread.sleep(50);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return super.loadOrganization(orgId);
+      }
+    };
+    HrDatabaseFacade.setConnection(slowDbConnection);
+    Map<Integer, HrDatabaseFacade> instancesMap = getInstancesMapViaReflection();
+    instancesMap.remove(testOrganizationId);
+
+    int threads = 8;
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<HrDatabaseFacade>> results = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        results.add(executor.submit(() -> {
+          start.await();
+          return HrDatabaseFacade.getInstance(testOrganizationId);
+        }));
+      }
+      start.countDown();
+
+      HrDatabaseFacade first = results.get(0).get(5, TimeUnit.SECONDS);
+      for (Future<HrDatabaseFacade> result : results) {
+        assertSame(first, result.get(5, TimeUnit.SECONDS));
+      }
+      assertEquals(1, loads.get(), "Concurrent first requests should load the organization once");
+    } finally {
+      executor.shutdownNow();
+      instancesMap.remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(32)
+  public void testLeastRecentlyUsedOrganizationIsEvicted() {
+    Map<Integer, HrDatabaseFacade> instancesMap = getInstancesMapViaReflection();
+    instancesMap.clear();
+    // Room for one small organization only
+    HrDatabaseFacade.setCacheMaxBytes(HrDatabaseFacade.ORGANIZATION_BYTES
+        + 2 * HrDatabaseFacade.DEPARTMENT_BYTES + 2 * HrDatabaseFacade.EMPLOYEE_BYTES);
+    try {
+      final long evictions = (long) HrDatabaseFacade.getCacheStatisticMap().get("evictionCount");
+      final long loads = (long) HrDatabaseFacade.getCacheStatisticMap().get("loadCount");
+
+      HrDatabaseFacade first = HrDatabaseFacade.getInstance(1);
+      assertSame(first, HrDatabaseFacade.getInstance(1));
+      HrDatabaseFacade.getInstance(2);
+      assertFalse(instancesMap.containsKey(1), "The idle organization should be evicted");
+      assertTrue(instancesMap.containsKey(2));
+
+      HrDatabaseFacade reloaded = HrDatabaseFacade.getInstance(1);
+      assertNotSame(first, reloaded, "An evicted organization should be loaded again");
+      assertNotNull(reloaded.getEmployee(1));
+
+      Map<String, Object> stats = HrDatabaseFacade.getCacheStatisticMap();
+      assertEquals(evictions + 2, stats.get("evictionCount"));
+      assertEquals(loads + 3, stats.get("loadCount"));
+      assertEquals(1, stats.get("organizations"));
+    } finally {
+      HrDatabaseFacade.setCacheMaxBytes(64L * 1024 * 1024);
+      instancesMap.clear();
+    }
+  }
+
+  @Test
+  @Order(34)
+  public void testBatchWritesUseOneCall() {
+    int[] batchCalls = new int[1];
+    DatabaseConnection countingDbConnection = new InmemConnection() {
+      @Override
+      public int[] addEmployeesToDepartment(int orgId, int deptId, List<Employee> employees) {
+        batchCalls[0]++;
+        return super.addEmployeesToDepartment(orgId, deptId, employees);
+      }
+
+      @Override
+      public boolean updateEmployees(int orgId, List<Employee> employees) {
+        batchCalls[0]++;
+        return super.updateEmployees(orgId, employees);
+      }
+    };
+    HrDatabaseFacade.setConnection(countingDbConnection);
+    Map<Integer, HrDatabaseFacade> instancesMap = getInstancesMapViaReflection();
+    instancesMap.remove(testOrganizationId);
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      List<Employee> added = facade.addEmployeesToDepartment(1, List.of(
+          new Employee(0, "First", new Date()),
+          new Employee(0, "Second", new Date()),
+          new Employee(0, "Third", new Date())));
+      assertNotNull(added);
+      assertEquals(1, batchCalls[0]);
+      assertEquals(3, added.size());
+      assertEquals("Second", added.get(1).getName());
+      for (Employee employee : added) {
+        assertSame(employee, facade.getEmployee(employee.getId()));
+        assertTrue(facade.getDepartment(1).getEmployees().contains(employee));
+        assertTrue(facade.getOrganization().getEmployees().contains(employee));
+      }
+      assertNull(facade.addEmployeesToDepartment(99, List.of(new Employee(0, "X", new Date()))));
+
+      // Jane (2) reports to John (1): making John report to Jane closes a cycle
+      Employee john = facade.getEmployee(1);
+      Employee jane = facade.getEmployee(2);
+      Employee johnUpdate = new Employee(1, john.getName(), john.getHireDate());
+      johnUpdate.setManagerId(2);
+      Employee janeUpdate = new Employee(2, jane.getName(), jane.getHireDate());
+      janeUpdate.setSalary(456);
+      batchCalls[0] = 0;
+      assertFalse(facade.updateEmployees(List.of(johnUpdate, janeUpdate)));
+      assertEquals(0, batchCalls[0], "A cyclic batch should not reach the database");
+      assertEquals(1, jane.getManagerId());
+      assertEquals(1, facade.getReportIds(1).length);
+
+      // Applied in order, Jane first leaves John, so John may then report to her
+      assertTrue(facade.updateEmployees(List.of(janeUpdate, johnUpdate)));
+      assertEquals(1, batchCalls[0]);
+      assertEquals(456, jane.getSalary());
+      assertEquals(2, john.getManagerId());
+      assertEquals(0, facade.getReportIds(1).length);
+      assertEquals(1, facade.getReportIds(2).length);
+    } finally {
+      instancesMap.remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(33)
+  public void testUnknownIdsDoNotReloadOrganization() {
+    int[] singleReads = new int[1];
+    int[] loads = new int[1];
+    int[] limitReads = new int[1];
+    DatabaseConnection countingDbConnection = new InmemConnection() {
+      @Override
+      public int getHighestReservedEmployeeId(int orgId) {
+        limitReads[0]++;
+        return 10_000;
+      }
+
+      @Override
+      public int getHighestReservedDepartmentId(int orgId) {
+        limitReads[0]++;
+        return 10_000;
+      }
+
+      @Override
+      public Employee getEmployee(int orgId, int employeeId) {
+        singleReads[0]++;
+        return super.getEmployee(orgId, employeeId);
+      }
+
+      @Override
+      public Department getDepartment(int orgId, int departmentId) {
+        singleReads[0]++;
+        return super.getDepartment(orgId, departmentId);
+      }
+
+      @Override
+      public Organization loadOrganization(int orgId) {
+        loads[0]++;
+        return super.loadOrganization(orgId);
+      }
+    };
+    HrDatabaseFacade.setConnection(countingDbConnection);
+    Map<Integer, HrDatabaseFacade> instancesMap = getInstancesMapViaReflection();
+    instancesMap.remove(testOrganizationId);
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      loads[0] = 0;
+
+      // Ids that cannot exist are answered from the cache alone
+      assertNull(facade.getEmployee(-1));
+      assertNull(facade.getDepartment(0));
+      Employee added = facade.addEmployeeToDepartment(1, new Employee(0, "Temp", new Date()));
+      assertTrue(facade.removeEmployeeFromDepartment(1, added.getId()));
+      assertNull(facade.getEmployee(added.getId()));
+      assertEquals(0, singleReads[0]);
+
+      // Ids above the highest known id are looked up once, then remembered as missing
+      assertNull(facade.getEmployee(9000));
+      assertNull(facade.getEmployee(9000));
+      assertNull(facade.getDepartment(9000));
+      assertNull(facade.getDepartment(9000));
+      assertEquals(2, singleReads[0]);
+
+      // Ids above the highest reserved id cannot exist, whatever their number
+      for (int id = 20_000; id < 20_100; id++) {
+        assertNull(facade.getEmployee(id));
+        assertNull(facade.getDepartment(id));
+      }
+      assertEquals(2, singleReads[0]);
+      assertEquals(2, limitReads[0], "The reserved limit should be read once per entity");
+      assertEquals(0, loads[0], "Missing ids should never reload the organization");
+    } finally {
+      instancesMap.remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(35)
+  public void testUnitOfWorkReloadsCacheOnFailure() {
+    int[] units = new int[1];
+    int[] loads = new int[1];
+    DatabaseConnection countingDbConnection = new InmemConnection() {
+      @Override
+      public <T> T inUnitOfWork(UnitOfWork.Work<T> work) {
+        units[0]++;
+        return super.inUnitOfWork(work);
+      }
+
+      @Override
+      public Organization loadOrganization(int orgId) {
+        loads[0]++;
+        return super.loadOrganization(orgId);
+      }
+    };
+    HrDatabaseFacade.setConnection(countingDbConnection);
+    Map<Integer, HrDatabaseFacade> instancesMap = getInstancesMapViaReflection();
+    instancesMap.remove(testOrganizationId);
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      loads[0] = 0;
+
+      Employee employee = facade.getEmployee(1);
+      assertEquals("Done", facade.inUnitOfWork(unit -> {
+        employee.setPerformance(55);
+        assertTrue(facade.updateEmployee(employee));
+        return "Done";
+      }));
+      assertEquals(1, units[0]);
+      assertEquals(0, loads[0], "A committed unit of work should keep the cache");
+
+      assertThrows(IllegalStateException.class, () -> facade.inUnitOfWork(unit -> {
+        throw new IllegalStateException("Abort");
+      }));
+      assertEquals(2, units[0]);
+      assertEquals(1, loads[0], "A failed unit of work should reload the cache");
+    } finally {
+      instancesMap.remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(36)
+  public void testConcurrentUpdatesAreGroupCommitted() throws Exception {
+    BlockingConnection blockingDbConnection = new BlockingConnection();
+    HrDatabaseFacade.setConnection(blockingDbConnection);
+    Map<Integer, HrDatabaseFacade> instancesMap = getInstancesMapViaReflection();
+    instancesMap.remove(testOrganizationId);
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      List<Employee> added = addEmployees(6);
+
+      List<Boolean> results = updateWhileFirstIsWriting(blockingDbConnection, added);
+      assertEquals(List.of(true, true, true, true, true, true), results);
+      assertEquals(1, blockingDbConnection.singleCalls.get(),
+          "Only the update written before the others queued should go alone");
+      assertEquals(List.of(5), blockingDbConnection.batchSizes,
+          "The queued updates should be written in one batch");
+      for (Employee employee : added) {
+        assertSame(employee, facade.getEmployee(employee.getId()));
+        assertEquals(1000 + employee.getId(), employee.getSalary());
+      }
+
+      // A manager change still goes alone, and a cycle is still refused
+      Employee john = facade.getEmployee(1);
+      Employee johnUpdate = new Employee(1, john.getName(), john.getHireDate());
+      johnUpdate.setManagerId(2);
+      assertFalse(facade.updateEmployee(johnUpdate));
+      Employee moved = added.get(0);
+      Employee movedUpdate = new Employee(moved.getId(), moved.getName(), moved.getHireDate());
+      movedUpdate.setManagerId(2);
+      assertTrue(facade.updateEmployee(movedUpdate));
+      assertEquals(2, moved.getManagerId());
+      assertEquals(List.of(5), blockingDbConnection.batchSizes);
+    } finally {
+      instancesMap.remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(37)
+  public void testFailedGroupCommitFallsBackToSingleUpdates() throws Exception {
+    BlockingConnection blockingDbConnection = new BlockingConnection();
+    HrDatabaseFacade.setConnection(blockingDbConnection);
+    Map<Integer, HrDatabaseFacade> instancesMap = getInstancesMapViaReflection();
+    instancesMap.remove(testOrganizationId);
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      List<Employee> updates = new ArrayList<>(addEmployees(3));
+      // Unknown to the database, so the batch it joins fails as a whole
+      updates.add(new Employee(9999, "Missing", new Date()));
+
+      List<Boolean> results = updateWhileFirstIsWriting(blockingDbConnection, updates);
+      assertEquals(List.of(true, true, true, false), results,
+          "Each update should get its own result");
+      assertEquals(List.of(3), blockingDbConnection.batchSizes);
+      assertEquals(4, blockingDbConnection.singleCalls.get());
+      for (Employee employee : updates.subList(0, 3)) {
+        assertEquals(1000 + employee.getId(), facade.getEmployee(employee.getId()).getSalary());
+      }
+    } finally {
+      instancesMap.remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(38)
+  public void testCommandsChangeCacheOnlyAfterWrite() {
+    boolean[] failWrites = new boolean[1];
+    DatabaseConnection failingDbConnection = new InmemConnection() {
+      @Override
+      public boolean updateEmployee(int orgId, Employee employee) {
+        return !failWrites[0] && super.updateEmployee(orgId, employee);
+      }
+    };
+    HrDatabaseFacade.setConnection(failingDbConnection);
+    Map<Integer, HrDatabaseFacade> instancesMap = getInstancesMapViaReflection();
+    instancesMap.remove(testOrganizationId);
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      Employee cached = facade.getEmployee(1);
+      final double salary = cached.getSalary();
+      final String position = cached.getPosition();
+      final Object total = facade.getDepartment(1).getEmployeeSalaryStatisticMap().get("total");
+
+      failWrites[0] = true;
+      assertThrows(InternalServerErrorException.class,
+          () -> new SetEmpSalCmd(testOrganizationId, 1, salary + 1000).execute());
+      assertThrows(InternalServerErrorException.class,
+          () -> new SetEmpPosiCmd(testOrganizationId, 1, "Pharmacist").execute());
+      assertEquals(salary, cached.getSalary(), "A failed write should not change the cache");
+      assertEquals(position, cached.getPosition());
+      assertEquals(total, facade.getDepartment(1).getEmployeeSalaryStatisticMap().get("total"));
+
+      failWrites[0] = false;
+      new SetEmpSalCmd(testOrganizationId, 1, salary + 1000).execute();
+      assertSame(cached, facade.getEmployee(1));
+      assertEquals(salary + 1000, cached.getSalary());
+    } finally {
+      instancesMap.remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(39)
+  public void testConcurrentCommandsKeepDepartmentStatistics() throws Exception {
+    HrDatabaseFacade.setConnection(new InmemConnection());
+    Map<Integer, HrDatabaseFacade> instancesMap = getInstancesMapViaReflection();
+    instancesMap.remove(testOrganizationId);
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      List<Employee> added = addEmployees(threads);
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<?>> results = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        final int employeeId = added.get(t).getId();
+        results.add(executor.submit(() -> {
+          start.await();
+          for (int i = 1; i <= 50; i++) {
+            new SetEmpSalCmd(testOrganizationId, employeeId, i * 10).execute();
+            new SetEmpPerfCmd(testOrganizationId, employeeId, i).execute();
+            new StatDeptBudgCmd(testOrganizationId, 1).execute();
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+      for (Future<?> result : results) {
+        result.get(30, TimeUnit.SECONDS);
+      }
+
+      // The aggregates of the department still match its employees
+      Department department = facade.getDepartment(1);
+      long totalCents = 0;
+      for (Employee employee : department.getEmployees()) {
+        totalCents += employee.getSalaryCents();
+      }
+      assertEquals(totalCents / 100.0, department.getEmployeeSalaryStatisticMap().get("total"));
+      int[] ranked = (int[]) department.getEmployeePerformanceStatisticMap()
+          .get("sortedEmployeeIds");
+      assertEquals(department.getEmployees().size(), ranked.length);
+      for (Employee employee : added) {
+        assertEquals(500.0, employee.getSalary());
+        assertEquals(50.0, employee.getPerformance());
+      }
+    } finally {
+      executor.shutdownNow();
+      instancesMap.remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(40)
+  public void testAddedEmployeesKeepManagerAndShifts() {
+    DatabaseConnection copyingDbConnection = new InmemConnection() {
+      @Override
+      public int[] addEmployeesToDepartment(int orgId, int deptId, List<Employee> employees) {
+        // Stores nothing, so the facade caches instances of its own
+        int[] ids = new int[employees.size()];
+        for (int i = 0; i < ids.length; i++) {
+          ids[i] = 100 + i;
+        }
+        return ids;
+      }
+    };
+    HrDatabaseFacade.setConnection(copyingDbConnection);
+    Map<Integer, HrDatabaseFacade> instancesMap = getInstancesMapViaReflection();
+    instancesMap.remove(testOrganizationId);
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      Employee employee = new Employee(0, "Reporting", new Date());
+      employee.setManagerId(1);
+      employee.setShiftMask(ShiftSchedule.parse("MONDAY:0"));
+
+      Employee added = facade.addEmployeeToDepartment(1, employee);
+      assertNotSame(employee, added);
+      assertEquals(100, added.getId());
+      assertEquals(1, added.getManagerId());
+      assertEquals(employee.getShiftMask(), added.getShiftMask());
+      assertTrue(Arrays.stream(facade.getDirectReportIds(1)).anyMatch(id -> id == 100));
+      assertTrue(facade.getDepartment(1).getEmployeesOnShift(employee.getShiftMask())
+          .contains(added));
+    } finally {
+      instancesMap.remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(41)
+  public void testUnitOfWorkHoldsCacheUntilDone() throws Exception {
+    int[] loads = new int[1];
+    DatabaseConnection savepointDbConnection = new InmemConnection() {
+      @Override
+      public <T> T inUnitOfWork(UnitOfWork.Work<T> work) {
+        return work.run(new UnitOfWork() {
+          @Override
+          public int savepoint() {
+            return 0;
+          }
+
+          @Override
+          public void rollbackTo(int savepoint) {
+          }
+        });
+      }
+
+      @Override
+      public Organization loadOrganization(int orgId) {
+        loads[0]++;
+        return super.loadOrganization(orgId);
+      }
+    };
+    HrDatabaseFacade.setConnection(savepointDbConnection);
+    Map<Integer, HrDatabaseFacade> instancesMap = getInstancesMapViaReflection();
+    instancesMap.remove(testOrganizationId);
+    ExecutorService reader = Executors.newSingleThreadExecutor();
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      loads[0] = 0;
+
+      Future<Double> read = facade.inUnitOfWork(unit -> {
+        Future<Double> concurrentRead = reader.submit(() -> facade.getEmployee(1).getSalary());
+        assertThrows(TimeoutException.class,
+            () -> concurrentRead.get(200, TimeUnit.MILLISECONDS),
+            "Other threads should not read the cache during a unit of work");
+        // The thread of the unit still reads and writes the cache
+        Employee employee = new Employee(facade.getEmployee(1));
+        employee.setSalary(4321);
+        assertTrue(facade.updateEmployee(employee));
+        unit.rollbackTo(unit.savepoint());
+        return concurrentRead;
+      });
+      assertEquals(1, loads[0], "Rolling back to a savepoint should reload the cache");
+      assertEquals(4321.0, read.get(5, TimeUnit.SECONDS));
+    } finally {
+      reader.shutdownNow();
+      instancesMap.remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(42)
+  public void testRemoveDeptCmdMovesSubDepartmentsInOneUnit() {
+    int[] units = new int[1];
+    boolean[] failRemovals = new boolean[1];
+    InmemConnection removingDbConnection = new InmemConnection() {
+      @Override
+      public <T> T inUnitOfWork(UnitOfWork.Work<T> work) {
+        units[0]++;
+        return super.inUnitOfWork(work);
+      }
+
+      @Override
+      public boolean removeDepartment(int orgId, int deptId) {
+        return !failRemovals[0]
+            && getDepartments(orgId).removeIf(department -> department.getId() == deptId);
+      }
+    };
+    removingDbConnection.getDepartments(testOrganizationId).add(new Department(3, "Research"));
+    HrDatabaseFacade.setConnection(removingDbConnection);
+    Map<Integer, HrDatabaseFacade> instancesMap = getInstancesMapViaReflection();
+    instancesMap.remove(testOrganizationId);
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      new SetDeptParentCmd(testOrganizationId, 2, 1).execute();
+      units[0] = 0;
+
+      assertThrows(NotFoundException.class,
+          () -> new RemoveDeptCmd(testOrganizationId, 99, 0).execute());
+      assertThrows(IllegalArgumentException.class,
+          () -> new RemoveDeptCmd(testOrganizationId, 1, 2).execute());
+      assertEquals(0, units[0], "Invalid requests should not start a unit of work");
+
+      failRemovals[0] = true;
+      assertThrows(InternalServerErrorException.class,
+          () -> new RemoveDeptCmd(testOrganizationId, 1, 3).execute());
+      assertNotNull(facade.getDepartment(1));
+      assertSame(facade.getDepartment(1), facade.getDepartment(2).getParent());
+      failRemovals[0] = false;
+
+      new RemoveDeptCmd(testOrganizationId, 1, 3).execute();
+      assertEquals(2, units[0]);
+      assertNull(facade.getDepartment(1));
+      assertNull(facade.getEmployee(1), "The employees should be removed with the department");
+      assertSame(facade.getDepartment(3), facade.getDepartment(2).getParent());
+      assertEquals(1, facade.getDepartment(3).getSubDepartments().size());
+
+      new RemoveDeptCmd(testOrganizationId, 3, 0).execute();
+      assertNull(facade.getDepartment(3));
+      assertNull(facade.getDepartment(2).getParent(), "Sub-departments should move up");
+    } finally {
+      instancesMap.remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(43)
+  public void testUncontendedUpdatesDoNotWaitForGroupCommit() throws Exception {
+    Field windowField = HrDatabaseFacade.class.getDeclaredField("GROUP_COMMIT_WINDOW_NANOS");
+    windowField.setAccessible(true);
+    long window = windowField.getLong(null);
+    BlockingConnection countingDbConnection = new BlockingConnection();
+    countingDbConnection.releaseFirst.countDown();
+    HrDatabaseFacade.setConnection(countingDbConnection);
+    Map<Integer, HrDatabaseFacade> instancesMap = getInstancesMapViaReflection();
+    instancesMap.remove(testOrganizationId);
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      Employee employee = new Employee(facade.getEmployee(1));
+      int updates = 200;
+      long start = System.nanoTime();
+      for (int i = 0; i < updates; i++) {
+        employee.setSalary(1000 + i);
+        assertTrue(facade.updateEmployee(employee));
+      }
+      long elapsed = System.nanoTime() - start;
+
+      assertEquals(updates, countingDbConnection.singleCalls.get());
+      assertTrue(countingDbConnection.batchSizes.isEmpty());
+      assertTrue(window == 0 || elapsed < updates * window / 2,
+          "An update that comes alone should not wait for the group commit window");
+      assertEquals(1000.0 + updates - 1, facade.getEmployee(1).getSalary());
+    } finally {
+      instancesMap.remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(44)
+  public void testUpdateEmployeesInsideUnitOfWork() {
+    HrDatabaseFacade.setConnection(new InmemConnection());
+    Map<Integer, HrDatabaseFacade> instancesMap = getInstancesMapViaReflection();
+    instancesMap.remove(testOrganizationId);
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      Employee employee = new Employee(facade.getEmployee(2));
+      employee.setSalary(777);
+      // The unit already holds the write lock, which the manager check must not take again
+      boolean updated = assertTimeoutPreemptively(Duration.ofSeconds(5),
+          () -> facade.inUnitOfWork(unit -> facade.updateEmployees(List.of(employee))));
+      assertTrue(updated);
+      assertEquals(777.0, facade.getEmployee(2).getSalary());
+    } finally {
+      instancesMap.remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(45)
+  public void testSetDeptParentCmdMovesInOneUnit() {
+    int[] units = new int[1];
+    int[] loads = new int[1];
+    boolean[] failUpdates = new boolean[1];
+    InmemConnection movingDbConnection = new InmemConnection() {
+      @Override
+      public <T> T inUnitOfWork(UnitOfWork.Work<T> work) {
+        units[0]++;
+        return super.inUnitOfWork(work);
+      }
+
+      @Override
+      public boolean updateDepartment(int orgId, Department department) {
+        return !failUpdates[0] && super.updateDepartment(orgId, department);
+      }
+
+      @Override
+      public Organization loadOrganization(int orgId) {
+        loads[0]++;
+        return super.loadOrganization(orgId);
+      }
+    };
+    HrDatabaseFacade.setConnection(movingDbConnection);
+    Map<Integer, HrDatabaseFacade> instancesMap = getInstancesMapViaReflection();
+    instancesMap.remove(testOrganizationId);
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      loads[0] = 0;
+      new SetDeptParentCmd(testOrganizationId, 2, 1).execute();
+      assertEquals(1, units[0]);
+      assertSame(facade.getDepartment(1), facade.getDepartment(2).getParent());
+
+      assertThrows(NotFoundException.class,
+          () -> new SetDeptParentCmd(testOrganizationId, 2, 99).execute());
+      assertThrows(IllegalArgumentException.class,
+          () -> new SetDeptParentCmd(testOrganizationId, 1, 2).execute());
+      assertEquals(1, units[0], "Invalid requests should not start a unit of work");
+      assertEquals(0, loads[0]);
+
+      failUpdates[0] = true;
+      assertThrows(InternalServerErrorException.class,
+          () -> new SetDeptParentCmd(testOrganizationId, 2, 0).execute());
+      assertEquals(2, units[0]);
+      assertEquals(1, loads[0], "A failed move should reload the cache");
+    } finally {
+      instancesMap.remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(46)
+  public void testFailedSetDeptHeadKeepsCachedHead() {
+    boolean[] failUpdates = new boolean[1];
+    HrDatabaseFacade.setConnection(new InmemConnection() {
+      @Override
+      public boolean updateDepartment(int orgId, Department department) {
+        return !failUpdates[0] && super.updateDepartment(orgId, department);
+      }
+    });
+    Map<Integer, HrDatabaseFacade> instancesMap = getInstancesMapViaReflection();
+    instancesMap.remove(testOrganizationId);
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      Department department = facade.getDepartment(1);
+      Employee head = department.getHead();
+
+      failUpdates[0] = true;
+      assertThrows(InternalServerErrorException.class,
+          () -> new SetDeptHeadCmd(testOrganizationId, 1, 2).execute());
+      assertSame(head, facade.getDepartment(1).getHead(),
+          "A failed write should not change the cached head");
+
+      failUpdates[0] = false;
+      new SetDeptHeadCmd(testOrganizationId, 1, 2).execute();
+      assertSame(facade.getEmployee(2), facade.getDepartment(1).getHead());
+    } finally {
+      instancesMap.remove(testOrganizationId);
+    }
+  }
+
+  /**
+   * Adds employees to the first department of the test organization.
+   *
+   * @param count the number of employees
+   * @return the added employees
+   */
+  private List<Employee> addEmployees(int count) {
+    List<Employee> employees = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      employees.add(new Employee(0, "Grouped " + i, new Date()));
+    }
+    List<Employee> added = facade.addEmployeesToDepartment(1, employees);
+    assertNotNull(added);
+    return added;
+  }
+
+  /**
+   * Raises the salary of each employee from its own thread. The first update is held in the
+   * database until all of the others are queued behind it.
+   *
+   * @param dbConnection the connection holding the first update
+   * @param employees the employees to update
+   * @return the result of each update
+   */
+  private List<Boolean> updateWhileFirstIsWriting(BlockingConnection dbConnection,
+      List<Employee> employees) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(employees.size());
+    try {
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (Employee employee : employees) {
+        Employee update = new Employee(employee.getId(), employee.getName(),
+            employee.getHireDate());
+        update.setManagerId(employee.getManagerId());
+        update.setSalary(1000 + employee.getId());
+        results.add(executor.submit(() -> facade.updateEmployee(update)));
+        if (results.size() == 1) {
+          assertTrue(dbConnection.firstWriting.await(5, TimeUnit.SECONDS));
+        }
+      }
+
+      Field pendingField = HrDatabaseFacade.class.getDeclaredField("pendingUpdates");
+      pendingField.setAccessible(true);
+      List<?> pending = (List<?>) pendingField.get(facade);
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (true) {
+        synchronized (pending) {
+          if (pending.size() == employees.size() - 1) {
+            break;
+          }
+        }
+        assertTrue(System.nanoTime() < deadline, "The updates should queue");
+        Thread.sleep(1);
+      }
+      dbConnection.releaseFirst.countDown();
+
+      List<Boolean> values = new ArrayList<>();
+      for (Future<Boolean> result : results) {
+        values.add(result.get(5, TimeUnit.SECONDS));
+      }
+      return values;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * A connection counting its employee updates, which holds the first single update
+   * until it is released.
+   */
+  private static class BlockingConnection extends InmemConnection {
+    final CountDownLatch firstWriting = new CountDownLatch(1);
+    final CountDownLatch releaseFirst = new CountDownLatch(1);
+    final AtomicInteger singleCalls = new AtomicInteger();
+    final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public boolean updateEmployee(int orgId, Employee employee) {
+      if (singleCalls.incrementAndGet() == 1) {
+        firstWriting.countDown();
+        try {
+          releaseFirst.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      return super.updateEmployees(orgId, List.of(employee));
+    }
+
+    @Override
+    public boolean updateEmployees(int orgId, List<Employee> employees) {
+      batchSizes.add(employees.size());
+      return super.updateEmployees(orgId, employees);
+    }
+  }
+
   /**
    * Helper method to access the private static 'instances' map via reflection.
    *
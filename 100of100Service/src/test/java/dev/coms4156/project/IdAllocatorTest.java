@@ -0,0 +1,118 @@
+package dev.coms4156.project;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A unit test class for the IdAllocator class.
+ */
+public class IdAllocatorTest {
+
+  @Test
+  public void testIdsComeFromReservedBlocks() throws SQLException {
+    AtomicInteger hi = new AtomicInteger(100);
+    AtomicInteger reservations = new AtomicInteger();
+    IdAllocator allocator = new IdAllocator((organizationId, entity, count) -> {
+      reservations.incrementAndGet();
+      return hi.addAndGet(count);
+    }, 5);
+
+    assertEquals(101, allocator.nextId(1, IdAllocator.Entity.EMPLOYEE));
+    assertArrayEquals(new int[] {102, 103, 104, 105},
+        allocator.nextIds(1, IdAllocator.Entity.EMPLOYEE, 4));
+    assertEquals(1, reservations.get());
+
+    // Runs over the block, which continues with a new one
+    assertArrayEquals(new int[] {106, 107},
+        allocator.nextIds(1, IdAllocator.Entity.EMPLOYEE, 2));
+    assertEquals(2, reservations.get());
+
+    // A request larger than a block reserves all of it at once
+    int[] ids = allocator.nextIds(1, IdAllocator.Entity.EMPLOYEE, 12);
+    assertEquals(3, reservations.get());
+    assertEquals(108, ids[0]);
+    assertEquals(119, ids[11]);
+    assertEquals(0, allocator.nextIds(1, IdAllocator.Entity.EMPLOYEE, 0).length);
+  }
+
+  @Test
+  public void testSequencesAreSeparate() throws SQLException {
+    IdAllocator allocator = new IdAllocator((organizationId, entity, count) ->
+        organizationId * 1000 + entity.ordinal() * 100 + count, 10);
+
+    assertEquals(1001, allocator.nextId(1, IdAllocator.Entity.ORGANIZATION));
+    assertEquals(1101, allocator.nextId(1, IdAllocator.Entity.DEPARTMENT));
+    assertEquals(2101, allocator.nextId(2, IdAllocator.Entity.DEPARTMENT));
+    assertEquals(1102, allocator.nextId(1, IdAllocator.Entity.DEPARTMENT));
+  }
+
+  @Test
+  public void testConcurrentIdsAreUnique() throws Exception {
+    AtomicInteger hi = new AtomicInteger();
+    IdAllocator allocator =
+        new IdAllocator((organizationId, entity, count) -> hi.addAndGet(count), 7);
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Callable<List<Integer>>> tasks = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        final int batch = t % 3 + 1;
+        tasks.add(() -> {
+          List<Integer> ids = new ArrayList<>();
+          for (int i = 0; i < 500; i++) {
+            for (int id : allocator.nextIds(3, IdAllocator.Entity.EMPLOYEE, batch)) {
+              ids.add(id);
+            }
+          }
+          return ids;
+        });
+      }
+      Set<Integer> seen = new HashSet<>();
+      int total = 0;
+      for (Future<List<Integer>> future : executor.invokeAll(tasks)) {
+        for (int id : future.get()) {
+          assertTrue(seen.add(id), "Duplicate id " + id);
+          total++;
+        }
+      }
+      assertEquals(total, seen.size());
+      assertTrue(hi.get() >= total);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testFailedReservation() throws SQLException {
+    AtomicInteger calls = new AtomicInteger();
+    IdAllocator allocator = new IdAllocator((organizationId, entity, count) -> {
+      if (calls.incrementAndGet() == 1) {
+        throw new SQLException("Unavailable");
+      }
+      return count;
+    }, 3);
+
+    assertThrows(SQLException.class, () -> allocator.nextId(1, IdAllocator.Entity.DEPARTMENT));
+    assertEquals(1, allocator.nextId(1, IdAllocator.Entity.DEPARTMENT));
+  }
+
+  @Test
+  public void testInvalidBlockSize() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new IdAllocator((organizationId, entity, count) -> count, 0));
+  }
+}
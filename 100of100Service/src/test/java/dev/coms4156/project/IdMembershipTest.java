@@ -0,0 +1,112 @@
+package dev.coms4156.project;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import dev.coms4156.project.utils.IdMembership;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A unit test class for the IdMembership class.
+ */
+public class IdMembershipTest {
+
+  @Test
+  public void testKnownIds() {
+    IdMembership membership = new IdMembership(60_000);
+    membership.add(3);
+    membership.add(7);
+
+    assertTrue(membership.contains(3));
+    assertTrue(membership.mayExist(7));
+    assertFalse(membership.contains(5));
+  }
+
+  @Test
+  public void testRemovedIdsCannotExist() {
+    IdMembership membership = new IdMembership(60_000);
+    membership.add(1);
+    membership.add(2);
+    membership.remove(1);
+
+    assertFalse(membership.contains(1));
+    assertFalse(membership.mayExist(1), "A removed id cannot exist");
+    assertFalse(membership.mayExist(0));
+    assertFalse(membership.mayExist(-4));
+  }
+
+  @Test
+  public void testUnknownIdsUntilMissRecorded() {
+    IdMembership membership = new IdMembership(60_000);
+    membership.add(2_000_001);
+
+    // Another instance may have created it from an older block
+    assertTrue(membership.mayExist(1_000_001), "A lower id may have been created since the load");
+    assertTrue(membership.mayExist(3_000_001), "A higher id may have been created since the load");
+    membership.recordMiss(1_000_001);
+    assertFalse(membership.mayExist(1_000_001));
+
+    membership.add(1_000_001);
+    assertTrue(membership.mayExist(1_000_001), "Adding an id should forget its recorded miss");
+    assertTrue(membership.contains(1_000_001));
+  }
+
+  @Test
+  public void testRemovedIdAddedAgain() {
+    IdMembership membership = new IdMembership(60_000);
+    membership.add(Integer.MAX_VALUE);
+    membership.remove(Integer.MAX_VALUE);
+    membership.add(Integer.MAX_VALUE);
+
+    assertTrue(membership.contains(Integer.MAX_VALUE));
+  }
+
+  @Test
+  public void testRecordedMissExpires() throws InterruptedException {
+    IdMembership membership = new IdMembership(1);
+    membership.recordMiss(10);
+    Thread.sleep(5);
+
+    assertTrue(membership.mayExist(10));
+  }
+
+  @Test
+  public void testIdsAboveReservedLimitCannotExist() {
+    IdMembership membership = new IdMembership(60_000);
+    membership.add(5);
+
+    assertFalse(membership.needsReservedLimit(3));
+    assertTrue(membership.needsReservedLimit(40), "The limit is unknown until it is read");
+    assertTrue(membership.mayExist(40));
+    membership.setReservedLimit(20);
+    assertFalse(membership.needsReservedLimit(40));
+    assertFalse(membership.mayExist(40), "An id above the reserved limit cannot exist");
+    assertTrue(membership.mayExist(15), "A reserved id may have been created since the load");
+
+    membership.add(40);
+    assertTrue(membership.contains(40));
+    assertFalse(membership.needsReservedLimit(40));
+  }
+
+  @Test
+  public void testReservedLimitExpires() throws InterruptedException {
+    IdMembership membership = new IdMembership(1);
+    membership.setReservedLimit(20);
+    Thread.sleep(5);
+
+    assertTrue(membership.needsReservedLimit(40), "Other instances may have reserved ids since");
+    assertTrue(membership.mayExist(40));
+  }
+
+  @Test
+  public void testOldestMissIsForgottenFirst() {
+    IdMembership membership = new IdMembership(60_000);
+    for (int id = 1; id <= 4097; id++) {
+      membership.recordMiss(id);
+    }
+
+    assertTrue(membership.mayExist(1), "The oldest miss should make room for the newest");
+    assertFalse(membership.mayExist(2), "The other misses should be kept");
+    assertFalse(membership.mayExist(4097));
+  }
+}
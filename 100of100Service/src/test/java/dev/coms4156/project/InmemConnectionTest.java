@@ -7,6 +7,7 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.lang.reflect.Field;
@@ -14,6 +15,8 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -47,6 +50,80 @@ public class InmemConnectionTest {
     assertNull(org, "Organization should be null for nonexistent ID");
   }
 
+  @Test
+  public void testStreamEmployees() {
+    List<Employee> employees = inmemConnection.getEmployees(testOrganizationId);
+    try (Stream<Employee> stream = inmemConnection.streamEmployees(testOrganizationId)) {
+      assertEquals(employees, stream.collect(Collectors.toList()),
+          "The stream should yield the same employees in the same order");
+    }
+    List<Employee> consumed = new ArrayList<>();
+    inmemConnection.forEachEmployee(testOrganizationId, consumed::add);
+    assertEquals(employees, consumed, "Every employee should be pushed to the consumer");
+
+    try (Stream<Employee> stream = inmemConnection.streamEmployees(-1)) {
+      assertEquals(0, stream.count(), "The stream should be empty for nonexistent ID");
+    }
+  }
+
+  @Test
+  public void testBatchAddAndUpdateEmployees() {
+    List<Employee> batch =
+        List.of(new Employee(0, "Batch One", new Date()), new Employee(0, "Batch Two", new Date()));
+    int before = inmemConnection.getEmployees(testOrganizationId).size();
+    int[] ids = inmemConnection.addEmployeesToDepartment(testOrganizationId, 1, batch);
+    assertEquals(before + 2, inmemConnection.getEmployees(testOrganizationId).size());
+    assertNotNull(ids, "The batch should be added");
+    assertEquals(ids[0] + 1, ids[1], "The batch should take consecutive ids");
+    assertNull(inmemConnection.addEmployeesToDepartment(testOrganizationId, 99,
+        List.of(new Employee(0, "Nowhere", new Date()))), "The department does not exist");
+
+    Employee first = new Employee(ids[0], "Batch One", new Date());
+    first.setSalary(1000);
+    Employee missing = new Employee(9999, "Missing", new Date());
+    assertFalse(inmemConnection.updateEmployees(testOrganizationId, List.of(first, missing)));
+    assertEquals(0, inmemConnection.getEmployee(testOrganizationId, ids[0]).getSalary(),
+        "A failed batch should change nothing");
+    assertTrue(inmemConnection.updateEmployees(testOrganizationId, List.of(first)));
+    assertEquals(1000, inmemConnection.getEmployee(testOrganizationId, ids[0]).getSalary());
+  }
+
+  @Test
+  public void testUnitOfWorkRunsWithoutTransaction() {
+    String name = inmemConnection.inUnitOfWork(unit -> {
+      int savepoint = unit.savepoint();
+      assertThrows(UnsupportedOperationException.class, () -> unit.rollbackTo(savepoint));
+      return inmemConnection.getEmployee(testOrganizationId, 1).getName();
+    });
+    assertEquals(inmemConnection.getEmployee(testOrganizationId, 1).getName(), name,
+        "The work should run and return its result");
+  }
+
+  @Test
+  public void testEmployeeIdsBeyondTenThousand() {
+    inmemConnection.getTestEmployees().get(testOrganizationId)
+        .add(new Employee(9999, "Last Four Digit", new Date()));
+    int[] ids = inmemConnection.addEmployeesToDepartment(testOrganizationId, 1,
+        List.of(new Employee(0, "Five Digit", new Date())));
+    assertNotNull(ids, "The employee should be added");
+    assertEquals(10000, ids[0]);
+    assertEquals("Five Digit", inmemConnection.getEmployee(testOrganizationId, 10000).getName());
+    assertEquals("Last Four Digit",
+        inmemConnection.getEmployee(testOrganizationId, 9999).getName());
+  }
+
+  @Test
+  public void testLoadOrganization() {
+    Organization org = inmemConnection.loadOrganization(testOrganizationId);
+    assertNotNull(org, "Organization should not be null");
+    assertEquals(inmemConnection.getDepartments(testOrganizationId).size(),
+        org.getDepartments().size(), "All departments should be loaded");
+    assertEquals(inmemConnection.getEmployees(testOrganizationId).size(),
+        org.getNumEmployees(), "All employees should be loaded");
+    assertNull(inmemConnection.loadOrganization(-1),
+        "Organization should be null for nonexistent ID");
+  }
+
   @Test
   public void testGetEmployees() {
     List<Employee> employees = inmemConnection.getEmployees(testOrganizationId);
@@ -347,7 +424,7 @@ public class InmemConnectionTest {
 
     int newEmployeeId = inmemConnection.addEmployeeToDepartment(testOrganizationId,
         departmentId, newEmployee);
-    assertEquals(4, newEmployeeId % 10000, "New employee ID should be 4");
+    assertEquals(4, newEmployeeId, "New employee ID should be 4");
 
     Employee addedEmployee = inmemConnection.getEmployee(testOrganizationId, 4);
     assertNotNull(addedEmployee, "Added employee should not be null");
@@ -381,7 +458,7 @@ public class InmemConnectionTest {
 
     Department department = inmemConnection.getDepartment(testOrganizationId, departmentId);
     Employee addedEmployee = inmemConnection.getEmployee(testOrganizationId,
-        newEmployeeId % 10000);
+        newEmployeeId);
 
     department.setHead(addedEmployee);
 
@@ -418,6 +495,21 @@ public class InmemConnectionTest {
     }
   }
 
+  @Test
+  public void testUpdateEmployeeKeepsStoredInstance() {
+    Employee stored = inmemConnection.getEmployee(testOrganizationId, 1);
+    final Department department = inmemConnection.getDepartment(testOrganizationId, 1);
+    Employee update = new Employee(1, "Renamed", stored.getHireDate());
+    update.setSalary(4156);
+
+    assertTrue(inmemConnection.updateEmployee(testOrganizationId, update));
+    assertSame(stored, inmemConnection.getEmployee(testOrganizationId, 1));
+    assertEquals("Renamed", stored.getName());
+    assertEquals(4156, stored.getSalary());
+    assertTrue(department.getEmployees().contains(stored),
+        "The department should still reference the stored instance");
+  }
+
   @Test
   public void testUpdateEmployeeWithNullEmployees() {
     // Remove the employees list to simulate null
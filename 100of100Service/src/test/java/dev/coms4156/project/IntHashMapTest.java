@@ -0,0 +1,98 @@
+package dev.coms4156.project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import dev.coms4156.project.utils.IntHashMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A unit test class for the IntHashMap class.
+ */
+public class IntHashMapTest {
+
+  @Test
+  public void testPutAndGet() {
+    IntHashMap<String> map = new IntHashMap<>();
+    assertNull(map.put(1, "one"));
+    assertNull(map.put(10001, "ten thousand and one"));
+
+    assertEquals("one", map.get(1));
+    assertEquals("ten thousand and one", map.get(10001));
+    assertNull(map.get(2));
+    assertTrue(map.containsKey(1));
+    assertFalse(map.containsKey(2));
+    assertEquals(2, map.size());
+  }
+
+  @Test
+  public void testPutReplacesExistingValue() {
+    IntHashMap<String> map = new IntHashMap<>();
+    map.put(7, "old");
+
+    assertEquals("old", map.put(7, "new"));
+    assertEquals("new", map.get(7));
+    assertEquals(1, map.size());
+  }
+
+  @Test
+  public void testRemove() {
+    IntHashMap<String> map = new IntHashMap<>();
+    map.put(0, "zero");
+    map.put(-5, "negative");
+
+    assertEquals("zero", map.remove(0));
+    assertNull(map.remove(0));
+    assertNull(map.get(0));
+    assertEquals("negative", map.get(-5));
+    assertEquals(1, map.size());
+  }
+
+  @Test
+  public void testClear() {
+    IntHashMap<String> map = new IntHashMap<>(4);
+    map.put(1, "one");
+    map.put(2, "two");
+    map.clear();
+
+    assertTrue(map.isEmpty());
+    assertNull(map.get(1));
+    map.put(1, "again");
+    assertEquals("again", map.get(1));
+  }
+
+  @Test
+  public void testNullValueIsRejected() {
+    IntHashMap<String> map = new IntHashMap<>();
+    assertThrows(NullPointerException.class, () -> map.put(1, null));
+    assertThrows(IllegalArgumentException.class, () -> new IntHashMap<String>(-1));
+  }
+
+  @Test
+  public void testMatchesHashMapUnderRandomOperations() {
+    IntHashMap<Integer> map = new IntHashMap<>();
+    Map<Integer, Integer> expected = new HashMap<>();
+    Random random = new Random(4156);
+
+    // A small key range forces long probe runs, growth and many removals
+    for (int i = 0; i < 50_000; i++) {
+      int key = random.nextInt(2_000);
+      if (random.nextInt(3) == 0) {
+        assertEquals(expected.remove(key), map.remove(key));
+      } else {
+        assertEquals(expected.put(key, i), map.put(key, i));
+      }
+    }
+
+    assertEquals(expected.size(), map.size());
+    for (int key = 0; key < 2_000; key++) {
+      assertEquals(expected.get(key), map.get(key));
+    }
+  }
+}
@@ -83,6 +83,8 @@ public class InternalIntegrationTest {
         .thenReturn(mockDepartments);
     when(mockDbConnection.getEmployees(testOrganizationId))
         .thenReturn(mockEmployees);
+    when(mockDbConnection.loadOrganization(testOrganizationId))
+        .thenCallRealMethod();
 
     // Set the mock DatabaseConnection in HrDatabaseFacade
     HrDatabaseFacade.setConnection(mockDbConnection);
@@ -260,12 +262,11 @@ public class InternalIntegrationTest {
     int departmentId = department1.getId();
     Employee newEmployee = new Employee(0, "New Employee", new Date());
 
-    int internalEmpId = testOrganizationId * 10000 + 3;
     when(mockDbConnection.addEmployeeToDepartment(
         eq(testOrganizationId),
-        eq(testOrganizationId * 10000 + departmentId),
+        eq(departmentId),
         any(Employee.class)))
-        .thenReturn(internalEmpId);
+        .thenReturn(3);
 
     Employee addedEmployee = new Employee(3, "New Employee", new Date());
     List<Employee> updatedEmployees = new ArrayList<>(
@@ -279,7 +280,7 @@ public class InternalIntegrationTest {
     verify(mockDbConnection, times(1))
         .addEmployeeToDepartment(
             eq(testOrganizationId),
-            eq(testOrganizationId * 10000 + departmentId),
+            eq(departmentId),
             eq(newEmployee)
         );
 
@@ -0,0 +1,114 @@
+package dev.coms4156.project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import dev.coms4156.project.utils.LongOrderStatisticTree;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.function.LongConsumer;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A unit test class for the LongOrderStatisticTree class.
+ */
+public class LongOrderStatisticTreeTest {
+
+  @Test
+  public void testAddAndGetByRank() {
+    LongOrderStatisticTree tree = new LongOrderStatisticTree();
+    assertTrue(tree.isEmpty());
+    tree.add(30);
+    tree.add(10);
+    tree.add(20);
+    tree.add(10);
+
+    assertEquals(4, tree.size());
+    assertEquals(10, tree.get(0));
+    assertEquals(10, tree.get(1));
+    assertEquals(20, tree.get(2));
+    assertEquals(30, tree.get(3));
+    assertThrows(IndexOutOfBoundsException.class, () -> tree.get(4));
+    assertThrows(IndexOutOfBoundsException.class, () -> tree.get(-1));
+  }
+
+  @Test
+  public void testRemove() {
+    LongOrderStatisticTree tree = new LongOrderStatisticTree();
+    tree.add(1);
+    tree.add(2);
+    tree.add(2);
+
+    assertTrue(tree.remove(2));
+    assertEquals(2, tree.size());
+    assertTrue(tree.remove(2));
+    assertFalse(tree.remove(2));
+    assertEquals(1, tree.get(0));
+    tree.clear();
+    assertTrue(tree.isEmpty());
+  }
+
+  @Test
+  public void testIterators() {
+    LongOrderStatisticTree tree = new LongOrderStatisticTree();
+    for (int value : new int[] {5, 3, 8, 1, 4}) {
+      tree.add(value);
+    }
+
+    List<Long> ascending = new ArrayList<>();
+    tree.forEach(ascending::add);
+    assertEquals(List.of(1L, 3L, 4L, 5L, 8L), ascending);
+
+    List<Long> descending = new ArrayList<>();
+    PrimitiveIterator.OfLong iterator = tree.descendingIterator();
+    iterator.forEachRemaining((LongConsumer) descending::add);
+    assertEquals(List.of(8L, 5L, 4L, 3L, 1L), descending);
+    assertThrows(NoSuchElementException.class, iterator::nextLong);
+    assertFalse(iterator.hasNext());
+  }
+
+  @Test
+  public void testMatchesSortedList() {
+    LongOrderStatisticTree tree = new LongOrderStatisticTree();
+    List<Long> expected = new ArrayList<>();
+    Random random = new Random(42);
+    for (int i = 0; i < 5000; i++) {
+      Long value = (long) random.nextInt(200);
+      if (random.nextInt(3) == 0) {
+        assertEquals(expected.remove(value), tree.remove(value));
+      } else {
+        expected.add(value);
+        tree.add(value);
+      }
+    }
+
+    expected.sort(Comparator.naturalOrder());
+    assertEquals(expected.size(), tree.size());
+    for (int rank = 0; rank < expected.size(); rank++) {
+      assertEquals(expected.get(rank), tree.get(rank));
+    }
+  }
+
+  @Test
+  public void testReusesClearedTree() {
+    LongOrderStatisticTree tree = new LongOrderStatisticTree();
+    for (long value = 0; value < 100; value++) {
+      tree.add(value);
+    }
+    tree.clear();
+    tree.add(-5);
+    tree.add(Long.MAX_VALUE);
+    tree.add(Long.MIN_VALUE);
+
+    assertEquals(3, tree.size());
+    assertEquals(Long.MIN_VALUE, tree.get(0));
+    assertEquals(-5, tree.get(1));
+    assertEquals(Long.MAX_VALUE, tree.get(2));
+  }
+}
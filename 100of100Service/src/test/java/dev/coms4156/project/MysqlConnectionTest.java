@@ -11,11 +11,11 @@ import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 import dev.coms4156.project.exception.InternalServerErrorException;
 import java.lang.reflect.Field;
-import java.sql.Connection;
-import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Order;
@@ -94,6 +94,26 @@ public class MysqlConnectionTest {
         "Employees list should be empty for nonexistent organization");
   }
 
+  @Test
+  public void testStreamEmployees() {
+    List<Integer> expected = realConnection.getEmployees(testOrganizationId).stream()
+        .map(Employee::getId).sorted().collect(Collectors.toList());
+    try (Stream<Employee> stream = realConnection.streamEmployees(testOrganizationId)) {
+      assertEquals(expected, stream.map(Employee::getId).sorted().collect(Collectors.toList()),
+          "The stream should yield every employee of the organization");
+    }
+    int[] count = {0};
+    realConnection.forEachEmployee(testOrganizationId, employee -> count[0]++);
+    assertEquals(expected.size(), count[0], "Every employee should be pushed to the consumer");
+  }
+
+  @Test
+  public void testStreamEmployeesForNonexistentOrganization() {
+    try (Stream<Employee> stream = realConnection.streamEmployees(-1)) {
+      assertEquals(0, stream.count(), "The stream should be empty for nonexistent organization");
+    }
+  }
+
   @Test
   public void testGetEmployee() {
     List<Employee> employees = realConnection.getEmployees(testOrganizationId);
@@ -118,6 +138,28 @@ public class MysqlConnectionTest {
     System.out.println("Retrieved " + departments.size() + " departments");
   }
 
+  @Test
+  public void testLoadOrganization() {
+    Organization org = realConnection.loadOrganization(testOrganizationId);
+    assertNotNull(org, "Organization should not be null");
+    for (Department department : org.getDepartments()) {
+      for (Employee employee : department.getEmployees()) {
+        assertTrue(org.getEmployees().contains(employee),
+            "Department members should be the same instances as the organization employees");
+      }
+      if (department.getHead() != null) {
+        assertTrue(org.getEmployees().contains(department.getHead()),
+            "Department head should be the same instance as the organization employee");
+      }
+    }
+  }
+
+  @Test
+  public void testLoadNonexistentOrganization() {
+    assertNull(realConnection.loadOrganization(-1),
+        "Organization should be null for nonexistent ID");
+  }
+
   @Test
   public void testGetDepartmentsForNonexistentOrganization() {
     List<Department> departments = realConnection.getDepartments(-1);
@@ -135,6 +177,10 @@ public class MysqlConnectionTest {
     Department department = realConnection.getDepartment(testOrganizationId, departmentId);
     assertNotNull(department, "Department should not be null");
     System.out.println("Retrieved department: " + department.getName());
+    if (department.getHead() != null) {
+      assertTrue(department.getEmployees().contains(department.getHead()),
+          "Department head should be the same instance as the department member");
+    }
   }
 
   @Test
@@ -154,24 +200,23 @@ public class MysqlConnectionTest {
     List<Department> departments = realConnection.getDepartments(testOrganizationId);
     assumeTrue(!departments.isEmpty(), "No departments found in the organization to test");
     int departmentId = departments.get(0).getId();
-    int internalDeptId = testOrganizationId * 10000 + departmentId;
 
     int newEmployeeId = realConnection.addEmployeeToDepartment(
         testOrganizationId,
-        internalDeptId,
+        departmentId,
         newEmployee
     );
     assertTrue(newEmployeeId > 0, "New employee ID should be positive");
 
     // Verify the employee was added
-    Employee addedEmployee = realConnection.getEmployee(testOrganizationId, newEmployeeId % 10000);
+    Employee addedEmployee = realConnection.getEmployee(testOrganizationId, newEmployeeId);
     assertNotNull(addedEmployee, "Added employee should not be null");
     assertEquals("Test Employee", addedEmployee.getName(), "Employee name should match");
 
     // Cleanup: Remove the added employee
     boolean removed = realConnection.removeEmployeeFromDepartment(
         testOrganizationId,
-        internalDeptId,
+        departmentId,
         newEmployeeId
     );
     assertTrue(removed, "Employee should be removed successfully");
@@ -202,11 +247,10 @@ public class MysqlConnectionTest {
     List<Department> departments = realConnection.getDepartments(testOrganizationId);
     assumeTrue(!departments.isEmpty(), "No departments found in the organization to test");
     int departmentId = departments.get(0).getId();
-    int internalDeptId = testOrganizationId * 10000 + departmentId;
 
     int newEmployeeId = realConnection.addEmployeeToDepartment(
         testOrganizationId,
-        internalDeptId,
+        departmentId,
         newEmployee
     );
     assertTrue(newEmployeeId > 0, "New employee ID should be positive");
@@ -214,7 +258,7 @@ public class MysqlConnectionTest {
     // Now, remove the employee
     boolean removed = realConnection.removeEmployeeFromDepartment(
         testOrganizationId,
-        internalDeptId,
+        departmentId,
         newEmployeeId
     );
     assertTrue(removed, "Employee should be removed successfully");
@@ -222,7 +266,7 @@ public class MysqlConnectionTest {
     // Verify the employee was removed
     Employee removedEmployee = realConnection.getEmployee(
         testOrganizationId,
-        newEmployeeId % 10000
+        newEmployeeId
     );
     assertNull(removedEmployee, "Employee should be null after removal");
   }
@@ -233,12 +277,11 @@ public class MysqlConnectionTest {
     List<Department> departments = realConnection.getDepartments(testOrganizationId);
     assumeTrue(!departments.isEmpty(), "No departments found in the organization to test");
     int departmentId = departments.get(0).getId();
-    int internalDeptId = testOrganizationId * 10000 + departmentId;
     int nonExistentEmployeeId = -1;
 
     boolean removed = realConnection.removeEmployeeFromDepartment(
         testOrganizationId,
-        internalDeptId,
+        departmentId,
         nonExistentEmployeeId
     );
     assertFalse(removed, "Removing a nonexistent employee should return false");
@@ -527,6 +570,17 @@ public class MysqlConnectionTest {
     assertTrue(employees.isEmpty(), "Employees list should be empty due to SQLException");
   }
 
+  @Test
+  @Order(26)
+  public void testStreamEmployeesSqlException() throws Exception {
+    // Use reflection to close the connection and induce SQLException
+    closeConnection();
+
+    try (Stream<Employee> stream = realConnection.streamEmployees(testOrganizationId)) {
+      assertEquals(0, stream.count(), "The stream should be empty due to SQLException");
+    }
+  }
+
   @Test
   @Order(27)
   public void testGetDepartmentsSqlException() throws Exception {
@@ -556,11 +610,10 @@ public class MysqlConnectionTest {
 
     Employee newEmployee = new Employee(0, "Test Employee", new Date());
     int departmentId = 1;
-    int internalDeptId = testOrganizationId * 10000 + departmentId;
 
     int result = realConnection.addEmployeeToDepartment(
         testOrganizationId,
-        internalDeptId,
+        departmentId,
         newEmployee
     );
     assertEquals(-1, result, "Method should return -1 due to SQLException");
@@ -670,7 +723,6 @@ public class MysqlConnectionTest {
     Department insertedDepartment = realConnection.insertDepartment(newOrgId, newDepartment);
     assertNotNull(insertedDepartment, "Inserted department should not be null");
     int newDeptId = insertedDepartment.getId();
-    int internalDeptId = newOrgId * 10000 + newDeptId;
 
     // Add an employee to the new department
     Employee newEmployee = new Employee(0, "First Employee", new Date());
@@ -680,20 +732,20 @@ public class MysqlConnectionTest {
 
     int newEmployeeId = realConnection.addEmployeeToDepartment(
         newOrgId,
-        internalDeptId,
+        newDeptId,
         newEmployee
     );
     assertTrue(newEmployeeId > 0, "New employee ID should be positive");
 
     // Verify the employee was added
-    Employee addedEmployee = realConnection.getEmployee(newOrgId, newEmployeeId % 10000);
+    Employee addedEmployee = realConnection.getEmployee(newOrgId, newEmployeeId);
     assertNotNull(addedEmployee, "Added employee should not be null");
     assertEquals("First Employee", addedEmployee.getName(), "Employee name should match");
 
     // Cleanup
     boolean removedEmployee = realConnection.removeEmployeeFromDepartment(
         newOrgId,
-        internalDeptId,
+        newDeptId,
         newEmployeeId
     );
     assertTrue(removedEmployee, "Employee should be removed successfully");
@@ -722,18 +774,17 @@ public class MysqlConnectionTest {
     List<Department> departments = realConnection.getDepartments(testOrganizationId);
     assumeTrue(!departments.isEmpty(), "No departments found in the organization to test");
     int departmentId = departments.get(0).getId();
-    int internalDeptId = testOrganizationId * 10000 + departmentId;
 
     int newEmployeeId = realConnection.addEmployeeToDepartment(
         testOrganizationId,
-        internalDeptId,
+        departmentId,
         newEmployee
     );
     assertTrue(newEmployeeId > 0, "New employee ID should be positive");
 
     // Set the new employee as the head of the department
     Department department = realConnection.getDepartment(testOrganizationId, departmentId);
-    Employee addedEmployee = realConnection.getEmployee(testOrganizationId, newEmployeeId % 10000);
+    Employee addedEmployee = realConnection.getEmployee(testOrganizationId, newEmployeeId);
     department.setHead(addedEmployee);
     boolean updated = realConnection.updateDepartment(testOrganizationId, department);
     assertTrue(updated, "Department should be updated successfully");
@@ -741,7 +792,7 @@ public class MysqlConnectionTest {
     // Now, remove the employee
     boolean removed = realConnection.removeEmployeeFromDepartment(
         testOrganizationId,
-        internalDeptId,
+        departmentId,
         newEmployeeId
     );
     assertTrue(removed, "Employee should be removed successfully");
@@ -754,22 +805,62 @@ public class MysqlConnectionTest {
     );
   }
 
+  @Test
+  @Order(40)
+  public void testUnitOfWorkRollsBackOnException() {
+    List<Department> departments = realConnection.getDepartments(testOrganizationId);
+    assumeTrue(!departments.isEmpty(), "No departments found in the organization to test");
+    int departmentId = departments.get(0).getId();
+    int[] newEmployeeId = new int[1];
+
+    assertThrows(IllegalStateException.class, () -> realConnection.inUnitOfWork(unit -> {
+      newEmployeeId[0] = realConnection.addEmployeeToDepartment(
+          testOrganizationId, departmentId, new Employee(0, "Rolled Back", new Date()));
+      // Reads of the unit see its own writes
+      assertNotNull(realConnection.getEmployee(testOrganizationId, newEmployeeId[0]));
+      throw new IllegalStateException("Abort");
+    }));
+    assertTrue(newEmployeeId[0] > 0, "New employee ID should be positive");
+    assertNull(realConnection.getEmployee(testOrganizationId, newEmployeeId[0]),
+        "The employee should be rolled back with the unit of work");
+  }
+
+  @Test
+  @Order(41)
+  public void testUnitOfWorkSavepoint() {
+    List<Department> departments = realConnection.getDepartments(testOrganizationId);
+    assumeTrue(!departments.isEmpty(), "No departments found in the organization to test");
+    int departmentId = departments.get(0).getId();
+
+    int[] ids = realConnection.inUnitOfWork(unit -> {
+      int kept = realConnection.addEmployeeToDepartment(
+          testOrganizationId, departmentId, new Employee(0, "Kept", new Date()));
+      int savepoint = unit.savepoint();
+      int undone = realConnection.addEmployeeToDepartment(
+          testOrganizationId, departmentId, new Employee(0, "Undone", new Date()));
+      unit.rollbackTo(savepoint);
+      assertThrows(IllegalArgumentException.class, () -> unit.rollbackTo(savepoint + 1));
+      return new int[] {kept, undone};
+    });
+    assertNotNull(realConnection.getEmployee(testOrganizationId, ids[0]));
+    assertNull(realConnection.getEmployee(testOrganizationId, ids[1]));
+
+    assertTrue(realConnection.removeEmployeeFromDepartment(
+        testOrganizationId, departmentId, ids[0]));
+  }
+
   /**
-   * Closes the database connection using reflection to induce SQLException.
+   * Closes the connection pool using reflection to induce SQLException.
    *
    * @throws Exception if reflection fails
    */
   private void closeConnection() throws Exception {
-    Field connectionField = MysqlConnection.class.getDeclaredField("connection");
-    connectionField.setAccessible(true);
-    Connection connection = (Connection) connectionField.get(realConnection);
-    if (connection != null && !connection.isClosed()) {
-      try {
-        connection.close();
-        System.out.println("Connection closed successfully.");
-      } catch (SQLException e) {
-        e.printStackTrace();
-      }
+    Field poolField = MysqlConnection.class.getDeclaredField("pool");
+    poolField.setAccessible(true);
+    ConnectionPool pool = (ConnectionPool) poolField.get(realConnection);
+    if (pool != null) {
+      pool.close();
+      System.out.println("Connection pool closed successfully.");
     }
 
     resetMysqlConnectionInstance();
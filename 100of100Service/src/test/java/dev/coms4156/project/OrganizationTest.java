@@ -139,6 +139,64 @@ public class OrganizationTest {
     assertTrue(foundNullEmployeesDept, "Department with null employees should be present");
   }
 
+  @Test
+  @Order(9)
+  public void testSetDepartmentsAndEmployeesReplacesChildren() {
+    Organization org = new Organization(2, "Batch Organization");
+    Department dept = new Department(1, "HR");
+    Employee employee = new Employee(1, "Alice", new Date());
+
+    org.setDepartments(List.of(dept));
+    org.setEmployees(List.of(employee));
+    org.setDepartments(org.getDepartments());
+    org.setEmployees(org.getEmployees());
+
+    assertEquals(List.of(dept), org.getDepartments());
+    assertEquals(List.of(employee), org.getEmployees());
+    assertEquals(2, org.getChildren().size(),
+        "Setting the same lists again should not duplicate the children");
+  }
+
+  @Test
+  @Order(10)
+  public void testChildrenViewFollowsStores() {
+    Organization org = new Organization(3, "View Organization");
+    Department dept = new Department(1, "HR");
+    Employee employee = new Employee(1, "Alice", new Date());
+    org.addDepartment(dept);
+    org.addEmployee(employee);
+
+    assertEquals(List.of(dept, employee), org.getChildren());
+    org.removeDepartment(dept);
+    assertEquals(List.of(employee), org.getChildren());
+    assertTrue(org.getChildren().contains(employee));
+    assertFalse(org.getChildren().contains(dept));
+  }
+
+  @Test
+  @Order(11)
+  public void testNestedDepartmentsDisplayedOnce() {
+    Organization org = new Organization(4, "Nested Organization");
+    Department division = new Department(1, "Division");
+    Department unit = new Department(2, "Unit");
+    Employee nurse = new Employee(1, "Nurse", new Date());
+    unit.addEmployee(nurse);
+    division.addSubDepartment(unit);
+    org.addDepartment(division);
+    org.addDepartment(unit);
+
+    String structure = Organization.displayStructure(org, 0);
+    assertEquals(1, structure.split("Department: Unit", -1).length - 1, structure);
+    assertTrue(structure.contains("  - Department: Division\n    - Department: Unit\n"
+        + "      - Employee: Nurse\n"), structure);
+
+    List<Map<String, Object>> departments =
+        (List<Map<String, Object>>) org.toJson().get("departments");
+    assertEquals(2, departments.size());
+    assertEquals("", departments.get(0).get("parentId"));
+    assertEquals(1, departments.get(1).get("parentId"));
+  }
+
   /**
    * Helper class to simulate a Department with null employees list.
    */
@@ -0,0 +1,40 @@
+package dev.coms4156.project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * A unit test class for the PositionDictionary class.
+ */
+public class PositionDictionaryTest {
+
+  @Test
+  public void testEncodeAndDecode() {
+    int code = PositionDictionary.encode("Cardiologist");
+    assertEquals(code, PositionDictionary.encode("Cardiologist"));
+    assertEquals("Cardiologist", PositionDictionary.decode(code));
+    assertNotEquals(code, PositionDictionary.encode("Physician"));
+  }
+
+  @Test
+  public void testNullPosition() {
+    assertEquals(PositionDictionary.NULL_CODE, PositionDictionary.encode(null));
+    assertNull(PositionDictionary.decode(PositionDictionary.NULL_CODE));
+    assertEquals(PositionDictionary.UNASSIGNED_CATEGORY,
+        PositionDictionary.categoryOf(PositionDictionary.NULL_CODE));
+  }
+
+  @Test
+  public void testCategories() {
+    int raw = PositionDictionary.encode(" Nurse ");
+    int normalized = PositionDictionary.encode("nurse");
+    assertNotEquals(raw, normalized);
+    assertEquals(PositionDictionary.categoryOf(raw), PositionDictionary.categoryOf(normalized));
+    assertEquals("nurse", PositionDictionary.categoryName(PositionDictionary.categoryOf(raw)));
+    assertEquals(PositionDictionary.UNASSIGNED_CATEGORY,
+        PositionDictionary.categoryOf(PositionDictionary.encode("   ")));
+  }
+}
@@ -0,0 +1,202 @@
+package dev.coms4156.project;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A unit test class for the ReportingIndex class.
+ */
+public class ReportingIndexTest {
+
+  private static Employee employee(int id, int managerId) {
+    Employee employee = new Employee(id, "E" + id, new Date());
+    employee.setManagerId(managerId);
+    return employee;
+  }
+
+  /**
+   * Builds 1 -> (2 -> (4, 5), 3 -> 6), with 7 on its own.
+   */
+  private static ReportingIndex sampleIndex() {
+    return new ReportingIndex(List.of(
+        employee(4, 2), employee(1, 0), employee(2, 1), employee(3, 1),
+        employee(5, 2), employee(6, 3), employee(7, 0)
+    ));
+  }
+
+  private static int[] sorted(int[] ids) {
+    int[] copy = ids.clone();
+    Arrays.sort(copy);
+    return copy;
+  }
+
+  @Test
+  public void testBuildFromEmployees() {
+    ReportingIndex index = sampleIndex();
+    assertArrayEquals(new int[] {2, 3, 4, 5, 6}, sorted(index.getReports(1)));
+    assertArrayEquals(new int[] {2, 3}, sorted(index.getDirectReports(1)));
+    assertEquals(5, index.countReports(1));
+    assertEquals(2, index.countDirectReports(1));
+    assertEquals(0, index.countReports(7));
+    assertEquals(1, index.getManager(2));
+    assertEquals(ReportingIndex.NO_MANAGER, index.getManager(1));
+    assertTrue(index.isReportOf(6, 1));
+    assertFalse(index.isReportOf(6, 2));
+    assertFalse(index.isReportOf(1, 1));
+    assertNull(index.getReports(99));
+    assertEquals(-1, index.countReports(99));
+  }
+
+  @Test
+  public void testUnknownOrCyclicManagersAreIgnored() {
+    ReportingIndex index = new ReportingIndex(List.of(
+        employee(1, 2), employee(2, 1), employee(3, 99)
+    ));
+    assertEquals(2, index.getManager(1));
+    assertEquals(ReportingIndex.NO_MANAGER, index.getManager(2));
+    assertEquals(ReportingIndex.NO_MANAGER, index.getManager(3));
+  }
+
+  @Test
+  public void testCyclesAreBrokenAtTheirLastEmployee() {
+    // 1 -> 2 -> 3 -> 1 is a cycle, 4 and 5 hang off it and 6 manages itself
+    ReportingIndex index = new ReportingIndex(List.of(
+        employee(4, 1), employee(1, 2), employee(3, 1), employee(5, 4),
+        employee(2, 3), employee(6, 6)
+    ));
+    assertEquals(ReportingIndex.NO_MANAGER, index.getManager(2));
+    assertEquals(2, index.getManager(1));
+    assertEquals(1, index.getManager(3));
+    assertArrayEquals(new int[] {1, 3, 4, 5}, sorted(index.getReports(2)));
+    assertEquals(ReportingIndex.NO_MANAGER, index.getManager(6));
+    assertEquals(0, index.countReports(6));
+  }
+
+  @Test
+  public void testBuildDeepChain() {
+    int count = 200_000;
+    List<Employee> employees = new ArrayList<>(count);
+    for (int id = count; id >= 1; id--) {
+      employees.add(employee(id, id - 1));
+    }
+    ReportingIndex index = new ReportingIndex(employees);
+    assertEquals(count - 1, index.countReports(1));
+    assertEquals(1, index.countDirectReports(1));
+    assertTrue(index.isReportOf(count, 1));
+    int[] reports = index.getReports(count - 3);
+    assertArrayEquals(new int[] {count - 2, count - 1, count}, reports);
+  }
+
+  @Test
+  public void testSetManagerMovesAllReports() {
+    ReportingIndex index = sampleIndex();
+    assertTrue(index.setManager(2, 7));
+    assertArrayEquals(new int[] {3, 6}, sorted(index.getReports(1)));
+    assertArrayEquals(new int[] {2, 4, 5}, sorted(index.getReports(7)));
+    assertTrue(index.isReportOf(4, 7));
+    assertFalse(index.isReportOf(4, 1));
+
+    // Up to an ancestor and back down the tree
+    assertTrue(index.setManager(6, 1));
+    assertArrayEquals(new int[] {3, 6}, sorted(index.getDirectReports(1)));
+    assertEquals(0, index.countReports(3));
+    assertTrue(index.setManager(7, 6));
+    assertEquals(6, index.countReports(1));
+    assertEquals(4, index.countReports(6));
+
+    assertTrue(index.setManager(2, ReportingIndex.NO_MANAGER));
+    assertEquals(3, index.countReports(1));
+    assertEquals(2, index.countReports(2));
+  }
+
+  @Test
+  public void testSetManagerRejectsCycles() {
+    ReportingIndex index = sampleIndex();
+    assertFalse(index.canSetManager(1, 4));
+    assertFalse(index.setManager(1, 4));
+    assertFalse(index.setManager(2, 2));
+    assertFalse(index.setManager(2, 99));
+    assertTrue(index.canSetManager(2, ReportingIndex.NO_MANAGER));
+    assertEquals(5, index.countReports(1));
+  }
+
+  @Test
+  public void testRemoveMovesDirectReportsUp() {
+    ReportingIndex index = sampleIndex();
+    assertArrayEquals(new int[] {4, 5}, sorted(index.remove(2)));
+    assertEquals(1, index.getManager(4));
+    assertArrayEquals(new int[] {3, 4, 5, 6}, sorted(index.getReports(1)));
+    assertArrayEquals(new int[] {3, 4, 5}, sorted(index.getDirectReports(1)));
+    assertFalse(index.contains(2));
+    assertNull(index.remove(2));
+
+    index.remove(1);
+    assertEquals(ReportingIndex.NO_MANAGER, index.getManager(3));
+    assertArrayEquals(new int[] {6}, index.getReports(3));
+  }
+
+  @Test
+  public void testAddPlacesNewEmployeeUnderManager() {
+    ReportingIndex index = sampleIndex();
+    assertTrue(index.add(8, 4));
+    assertFalse(index.add(8, 1));
+    assertTrue(index.isReportOf(8, 1));
+    assertTrue(index.isReportOf(8, 2));
+    assertFalse(index.isReportOf(8, 3));
+    assertEquals(6, index.countReports(1));
+    assertTrue(index.add(9, ReportingIndex.NO_MANAGER));
+    assertEquals(0, index.countReports(9));
+  }
+
+  @Test
+  public void testRandomChangesMatchNaiveTree() {
+    Random random = new Random(42);
+    int count = 60;
+    List<Employee> employees = new ArrayList<>();
+    int[] managers = new int[count + 1];
+    for (int id = 1; id <= count; id++) {
+      employees.add(employee(id, 0));
+    }
+    ReportingIndex index = new ReportingIndex(employees);
+
+    for (int step = 0; step < 2000; step++) {
+      int id = 1 + random.nextInt(count);
+      int managerId = random.nextInt(count + 1);
+      boolean cyclic = false;
+      for (int m = managerId; m != 0; m = managers[m]) {
+        if (m == id) {
+          cyclic = true;
+          break;
+        }
+      }
+      assertEquals(!cyclic, index.setManager(id, managerId));
+      if (!cyclic) {
+        managers[id] = managerId;
+      }
+
+      int probe = 1 + random.nextInt(count);
+      List<Integer> expected = new ArrayList<>();
+      for (int other = 1; other <= count; other++) {
+        for (int m = managers[other]; m != 0; m = managers[m]) {
+          if (m == probe) {
+            expected.add(other);
+            break;
+          }
+        }
+      }
+      int[] expectedIds = expected.stream().mapToInt(Integer::intValue).toArray();
+      assertArrayEquals(expectedIds, sorted(index.getReports(probe)));
+      assertEquals(managers[probe], index.getManager(probe));
+    }
+  }
+}
@@ -6,6 +6,8 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.lang.reflect.Field;
+import java.util.Map;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -45,9 +47,15 @@ public class RouteControllerTest {
     HrDatabaseFacade.setConnection(inmemConnection);
   }
 
+  /**
+   * Reset the stub data, and drop the cached organizations that no longer match it.
+   */
   @BeforeEach
-  public void resetDatabase() {
+  public void resetDatabase() throws Exception {
     inmemConnection.resetTestData();
+    Field instancesField = HrDatabaseFacade.class.getDeclaredField("instances");
+    instancesField.setAccessible(true);
+    ((Map<?, ?>) instancesField.get(null)).clear();
   }
 
   @Test
@@ -148,6 +156,440 @@ public class RouteControllerTest {
         .andExpect(status().isNotFound()).andReturn();
   }
 
+  @Test
+  public void testSetDeptParent() throws Exception {
+    mockMvc.perform(patch("/setDeptParent")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("did", "2")
+            .param("pid", "1")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk()).andReturn();
+
+    MvcResult mvcResult1 = mockMvc.perform(get("/statDeptTree")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("did", "1")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk()).andReturn();
+    String content = mvcResult1.getResponse().getContentAsString();
+    Assertions.assertTrue(content.contains("\"departmentCount\":2"));
+
+    // nesting a department in its own sub-department is rejected
+    mockMvc.perform(patch("/setDeptParent")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("did", "1")
+            .param("pid", "2")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isBadRequest()).andReturn();
+
+    mockMvc.perform(patch("/setDeptParent")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("did", "2")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk()).andReturn();
+
+    MvcResult mvcResult2 = mockMvc.perform(get("/statDeptTree")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("did", "1")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk()).andReturn();
+    content = mvcResult2.getResponse().getContentAsString();
+    Assertions.assertTrue(content.contains("\"departmentCount\":1"));
+  }
+
+  @Test
+  public void testSetDeptParentNotExist() throws Exception {
+    mockMvc.perform(patch("/setDeptParent")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("did", "99")
+            .param("pid", "1")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isNotFound()).andReturn();
+
+    mockMvc.perform(patch("/setDeptParent")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("did", "1")
+            .param("pid", "99")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isNotFound()).andReturn();
+
+    mockMvc.perform(get("/statDeptTree")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("did", "99")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isNotFound()).andReturn();
+  }
+
+  @Test
+  public void testEmployeeReportingLines() throws Exception {
+    MvcResult mvcResult1 = mockMvc.perform(get("/getEmpReports")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("eid", "1")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk()).andReturn();
+    Assertions.assertTrue(
+        mvcResult1.getResponse().getContentAsString().contains("\"reportIds\":[2]"));
+
+    // a manager cannot report to one of its own reports
+    mockMvc.perform(patch("/setEmpManager")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("eid", "1")
+            .param("mid", "2")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isBadRequest()).andReturn();
+
+    mockMvc.perform(patch("/setEmpManager")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("eid", "2")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk()).andReturn();
+
+    MvcResult mvcResult2 = mockMvc.perform(get("/statEmpSpan")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("eid", "1")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk()).andReturn();
+    String content = mvcResult2.getResponse().getContentAsString();
+    Assertions.assertTrue(content.contains("\"totalReports\":0"));
+
+    mockMvc.perform(patch("/setEmpManager")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("eid", "1")
+            .param("mid", "2")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk()).andReturn();
+
+    MvcResult mvcResult3 = mockMvc.perform(get("/getEmpReports")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("eid", "2")
+            .param("direct", "true")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk()).andReturn();
+    Assertions.assertTrue(
+        mvcResult3.getResponse().getContentAsString().contains("\"reportIds\":[1]"));
+  }
+
+  @Test
+  public void testEmployeeReportingLinesNotExist() throws Exception {
+    mockMvc.perform(get("/getEmpReports")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("eid", "99")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isNotFound()).andReturn();
+
+    mockMvc.perform(get("/statEmpSpan")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("eid", "99")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isNotFound()).andReturn();
+
+    mockMvc.perform(patch("/setEmpManager")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("eid", "1")
+            .param("mid", "99")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isNotFound()).andReturn();
+  }
+
+  @Test
+  public void testRemoveDept() throws Exception {
+    mockMvc.perform(delete("/removeDept")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("did", "99")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isNotFound()).andReturn();
+
+    mockMvc.perform(delete("/removeDept")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("did", "1")
+            .param("pid", "1")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isBadRequest()).andReturn();
+
+    // The in-memory database cannot remove departments
+    mockMvc.perform(delete("/removeDept")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("did", "1")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isInternalServerError()).andReturn();
+  }
+
+  @Test
+  public void testStatOrg() throws Exception {
+    MvcResult mvcResult = mockMvc.perform(get("/statOrg")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk()).andReturn();
+    String content = mvcResult.getResponse().getContentAsString();
+    Assertions.assertTrue(content.contains("\"employeeCount\":2"));
+    Assertions.assertTrue(content.contains("\"totalSalary\":100.0"));
+    Assertions.assertTrue(content.contains("\"averageSalary\":50.0"));
+    Assertions.assertTrue(content.contains("\"averagePerformance\":40.0"));
+    Assertions.assertTrue(content.contains("\"SoftwareEngineer\":1"));
+
+    mockMvc.perform(get("/statOrg")
+            .header("Authorization", CLIENT_KEY_99)
+            .param("cid", CLIENT_ID_99)
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isNotFound()).andReturn();
+  }
+
+  @Test
+  public void testStatService() throws Exception {
+    MvcResult mvcResult = mockMvc.perform(get("/statService")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk()).andReturn();
+    // The in-memory database has no connection pool
+    String content = mvcResult.getResponse().getContentAsString();
+    Assertions.assertTrue(content.contains("\"pool\":{}"));
+    Assertions.assertTrue(content.contains("\"evictionCount\":"));
+    Assertions.assertTrue(content.contains("\"loadCount\":"));
+
+    mockMvc.perform(get("/statService")
+            .param("cid", CLIENT_ID_1)
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isBadRequest()).andReturn();
+  }
+
+  @Test
+  public void testEmployeeShifts() throws Exception {
+    MvcResult mvcResult1 = mockMvc.perform(get("/getOnShift")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("did", "1")
+            .param("shifts", "MONDAY:0")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk()).andReturn();
+    Assertions.assertTrue(
+        mvcResult1.getResponse().getContentAsString().contains("\"employeeIds\":[1]"));
+
+    mockMvc.perform(patch("/setEmpShifts")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("eid", "1")
+            .param("shifts", "SUNDAY:2")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk()).andReturn();
+
+    MvcResult mvcResult2 = mockMvc.perform(get("/getOnShift")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("did", "1")
+            .param("shifts", "MONDAY:0")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk()).andReturn();
+    Assertions.assertTrue(
+        mvcResult2.getResponse().getContentAsString().contains("\"employeeIds\":[]"));
+
+    MvcResult mvcResult3 = mockMvc.perform(get("/statDeptShifts")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("did", "1")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk()).andReturn();
+    Assertions.assertTrue(
+        mvcResult3.getResponse().getContentAsString().contains("\"SUNDAY\":[0,0,1]"));
+
+    // who is on shift now, whatever the time of the test
+    mockMvc.perform(get("/getOnShift")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("did", "1")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk()).andReturn();
+  }
+
+  @Test
+  public void testEmployeeShiftsInvalid() throws Exception {
+    mockMvc.perform(patch("/setEmpShifts")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("eid", "1")
+            .param("shifts", "FUNDAY:7")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isBadRequest()).andReturn();
+
+    mockMvc.perform(patch("/setEmpShifts")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("eid", "99")
+            .param("shifts", "MONDAY:0")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isNotFound()).andReturn();
+
+    mockMvc.perform(get("/statDeptShifts")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("did", "99")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isNotFound()).andReturn();
+  }
+
+  @Test
+  public void testSolveDepartmentShifts() throws Exception {
+    MvcResult mvcResult1 = mockMvc.perform(patch("/solveDeptShifts")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("did", "1")
+            .param("minimum", "0")
+            .param("coverage", "MONDAY:0=1,SUNDAY:2=1")
+            .param("budgetMs", "50")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk()).andReturn();
+    String content = mvcResult1.getResponse().getContentAsString();
+    Assertions.assertTrue(content.contains("\"shortfall\":0"));
+    Assertions.assertTrue(content.contains("\"SUNDAY\":[0,0,1]"));
+
+    MvcResult mvcResult2 = mockMvc.perform(get("/getOnShift")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("did", "1")
+            .param("shifts", "MONDAY:0,SUNDAY:2")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk()).andReturn();
+    Assertions.assertTrue(
+        mvcResult2.getResponse().getContentAsString().contains("\"employeeIds\":[1]"));
+
+    // a single employee of 5 shifts leaves 16 of the 21 slots uncovered
+    MvcResult mvcResult3 = mockMvc.perform(patch("/solveDeptShifts")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("did", "1")
+            .param("budgetMs", "50")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk()).andReturn();
+    Assertions.assertTrue(
+        mvcResult3.getResponse().getContentAsString().contains("\"shortfall\":16"));
+  }
+
+  @Test
+  public void testSolveDepartmentShiftsInvalid() throws Exception {
+    mockMvc.perform(patch("/solveDeptShifts")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("did", "1")
+            .param("coverage", "MONDAY:0")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isBadRequest()).andReturn();
+
+    mockMvc.perform(patch("/solveDeptShifts")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("did", "1")
+            .param("budgetMs", "60000")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isBadRequest()).andReturn();
+
+    mockMvc.perform(patch("/solveDeptShifts")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("did", "99")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isNotFound()).andReturn();
+  }
+
+  @Test
+  public void testBatchEmployees() throws Exception {
+    MvcResult mvcResult1 = mockMvc.perform(post("/addEmpsToDept")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("did", "1")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("[{\"name\":\"Ann Lee\",\"hireDate\":\"2024-01-15\",\"salary\":50000},"
+                + "{\"name\":\"Ben Ray\",\"hireDate\":\"2024-02-01\",\"position\":\"Nurse\"}]")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isCreated()).andReturn();
+    Assertions.assertTrue(
+        mvcResult1.getResponse().getContentAsString().contains("\"employeeIds\":[3,4]"));
+
+    mockMvc.perform(patch("/updateEmpsInfo")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("[{\"eid\":3,\"salary\":55000},{\"eid\":4,\"performance\":80},"
+                + "{\"eid\":3,\"position\":\"Doctor\"}]")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk()).andReturn();
+
+    MvcResult mvcResult2 = mockMvc.perform(get("/getEmpInfo")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("eid", "3")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk()).andReturn();
+    String content = mvcResult2.getResponse().getContentAsString();
+    Assertions.assertTrue(content.contains("55000"));
+    Assertions.assertTrue(content.contains("Doctor"));
+  }
+
+  @Test
+  public void testBatchEmployeesInvalid() throws Exception {
+    mockMvc.perform(post("/addEmpsToDept")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("did", "1")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("[{\"name\":\"Ann Lee\",\"hireDate\":\"15/01/2024\"}]")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isBadRequest()).andReturn();
+
+    mockMvc.perform(post("/addEmpsToDept")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("did", "1")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("[]")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isBadRequest()).andReturn();
+
+    mockMvc.perform(post("/addEmpsToDept")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("did", "99")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("[{\"name\":\"Ann Lee\",\"hireDate\":\"2024-01-15\"}]")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isNotFound()).andReturn();
+
+    mockMvc.perform(patch("/updateEmpsInfo")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("[{\"eid\":1,\"salary\":1},{\"eid\":99,\"salary\":1}]")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isNotFound()).andReturn();
+
+    mockMvc.perform(patch("/updateEmpsInfo")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{not json")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isBadRequest()).andReturn();
+  }
+
   // Test: Client cannot access another client's employee
   @Test
   public void testClientCannotAccessAnotherClientsEmployee() throws Exception {
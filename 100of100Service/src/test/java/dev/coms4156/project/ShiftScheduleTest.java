@@ -0,0 +1,55 @@
+package dev.coms4156.project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A unit test class for the ShiftSchedule class.
+ */
+public class ShiftScheduleTest {
+
+  @Test
+  public void testBitsOfSlots() {
+    assertEquals(0, ShiftSchedule.bitOf(DayOfWeek.MONDAY, 0));
+    assertEquals(7, ShiftSchedule.bitOf(DayOfWeek.WEDNESDAY, 1));
+    assertEquals(20, ShiftSchedule.bitOf(DayOfWeek.SUNDAY, 2));
+    assertEquals(DayOfWeek.WEDNESDAY, ShiftSchedule.dayOf(7));
+    assertEquals(1, ShiftSchedule.timeSlotOf(7));
+    assertThrows(IllegalArgumentException.class,
+        () -> ShiftSchedule.bitOf(DayOfWeek.MONDAY, 3));
+  }
+
+  @Test
+  public void testBitAtTime() {
+    // 2024-01-15 is a Monday
+    assertEquals(0, ShiftSchedule.bitAt(LocalDateTime.of(2024, 1, 15, 9, 0)));
+    assertEquals(-1, ShiftSchedule.bitAt(LocalDateTime.of(2024, 1, 15, 12, 0)));
+    assertEquals(1, ShiftSchedule.bitAt(LocalDateTime.of(2024, 1, 15, 16, 59)));
+    assertEquals(20, ShiftSchedule.bitAt(LocalDateTime.of(2024, 1, 21, 20, 30)));
+    assertEquals(-1, ShiftSchedule.bitAt(LocalDateTime.of(2024, 1, 21, 21, 0)));
+  }
+
+  @Test
+  public void testParseAndFormat() {
+    int mask = ShiftSchedule.parse("MONDAY:0, 3:1,friday:2");
+    assertEquals((1 << 0) | (1 << 7) | (1 << 14), mask);
+    assertEquals(List.of("MONDAY:0", "WEDNESDAY:1", "FRIDAY:2"), ShiftSchedule.format(mask));
+    assertEquals(0, ShiftSchedule.parse(""));
+    assertEquals(0, ShiftSchedule.parse(null));
+    assertEquals(List.of(), ShiftSchedule.format(0));
+  }
+
+  @Test
+  public void testParseRejectsInvalidShifts() {
+    assertThrows(IllegalArgumentException.class, () -> ShiftSchedule.parse("MONDAY"));
+    assertThrows(IllegalArgumentException.class, () -> ShiftSchedule.parse("FUNDAY:0"));
+    assertThrows(IllegalArgumentException.class, () -> ShiftSchedule.parse("8:0"));
+    assertThrows(IllegalArgumentException.class, () -> ShiftSchedule.parse("1:3"));
+    assertThrows(IllegalArgumentException.class, () -> ShiftSchedule.parse("1:x"));
+  }
+}
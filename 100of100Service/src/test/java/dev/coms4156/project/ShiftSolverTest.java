@@ -0,0 +1,113 @@
+package dev.coms4156.project;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A unit test class for the ShiftSolver class.
+ */
+public class ShiftSolverTest {
+
+  private static List<Employee> employees(int count) {
+    List<Employee> employees = new ArrayList<>(count);
+    for (int i = 1; i <= count; i++) {
+      employees.add(new Employee(i, "Employee " + i, new Date()));
+    }
+    return employees;
+  }
+
+  private static int[] targets(int minimum) {
+    int[] targets = new int[ShiftSchedule.SLOTS_PER_WEEK];
+    Arrays.fill(targets, minimum);
+    return targets;
+  }
+
+  private static void assertConsistent(ShiftSolver.Roster roster, int[] targets, int maxShifts) {
+    int[] coverage = new int[ShiftSchedule.SLOTS_PER_WEEK];
+    for (int mask : roster.masks()) {
+      assertTrue(Integer.bitCount(mask) <= maxShifts);
+      assertEquals(0, mask & ~ShiftSchedule.FULL_WEEK);
+      for (int slot = 0; slot < coverage.length; slot++) {
+        coverage[slot] += (mask >>> slot) & 1;
+      }
+    }
+    assertArrayEquals(coverage, roster.coverage());
+    int shortfall = 0;
+    for (int slot = 0; slot < coverage.length; slot++) {
+      shortfall += Math.max(0, targets[slot] - coverage[slot]);
+    }
+    assertEquals(shortfall, roster.shortfall());
+  }
+
+  @Test
+  public void testFeasibleRoster() {
+    // 300 employees of 5 shifts cover 21 slots of 70 employees
+    int[] targets = targets(70);
+    targets[0] = 50;
+    targets[20] = 0;
+    List<Employee> staff = employees(300);
+    ShiftSolver solver = new ShiftSolver(targets, 5, 2000);
+    ShiftSolver.Roster roster = solver.solve(staff);
+    assertEquals(300, roster.masks().length);
+    assertEquals(staff, roster.employees());
+    assertEquals(0, roster.shortfall());
+    assertConsistent(roster, targets, 5);
+    // the employees themselves are left untouched
+    assertEquals(0, staff.get(0).getShiftMask());
+  }
+
+  @Test
+  public void testTightRoster() {
+    // 21 employees of 1 shift each for 21 slots of 1 employee leave no room at all
+    int[] targets = targets(1);
+    ShiftSolver.Roster roster = new ShiftSolver(targets, 1, 2000).solve(employees(21));
+    assertEquals(0, roster.shortfall());
+    assertConsistent(roster, targets, 1);
+    int all = 0;
+    for (int mask : roster.masks()) {
+      assertEquals(1, Integer.bitCount(mask));
+      all |= mask;
+    }
+    assertEquals(ShiftSchedule.FULL_WEEK, all);
+  }
+
+  @Test
+  public void testInfeasibleRoster() {
+    // 3 employees of 4 shifts cover 12 of the 21 slots at best
+    int[] targets = targets(1);
+    ForkJoinPool pool = new ForkJoinPool(2);
+    try {
+      ShiftSolver.Roster roster = new ShiftSolver(targets, 4, 100, pool).solve(employees(3));
+      assertEquals(9, roster.shortfall());
+      assertConsistent(roster, targets, 4);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testNoEmployees() {
+    int[] targets = targets(2);
+    ShiftSolver.Roster roster = new ShiftSolver(targets, 5, 50).solve(List.of());
+    assertEquals(0, roster.masks().length);
+    assertEquals(42, roster.shortfall());
+  }
+
+  @Test
+  public void testInvalidArguments() {
+    assertThrows(IllegalArgumentException.class, () -> new ShiftSolver(new int[3], 5, 100));
+    assertThrows(IllegalArgumentException.class, () -> new ShiftSolver(targets(-1), 5, 100));
+    assertThrows(IllegalArgumentException.class, () -> new ShiftSolver(targets(1), -1, 100));
+    assertThrows(IllegalArgumentException.class, () -> new ShiftSolver(targets(1), 22, 100));
+    assertThrows(IllegalArgumentException.class, () -> new ShiftSolver(targets(1), 5, 0));
+  }
+}